@@ -0,0 +1,229 @@
+package com.example.alert.backtest;
+
+import com.example.alert.service.DetectionRules;
+import com.example.alert.service.DetectionService;
+import com.example.alert.service.ModelFeatures;
+import com.example.alert.service.inference.InferenceModel;
+import com.example.alert.service.inference.Kernels;
+import com.example.alert.service.inference.ModelReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Offline replay of IMU recordings through the detection rules, sweeping thresholds and models.
+ * Runs without Spring or a database. See the usage text below and the README's Backtesting section.
+ */
+public final class Backtest {
+  private static final String USAGE = String.join("\n",
+      "Usage: Backtest [options] <recording or directory>...",
+      "  --sweep <param>=<v1>,<v2>,...|<from>:<to>:<step>   vary a detection parameter (repeatable, cartesian product)",
+      "                                 parameters: " + String.join(", ", DetectionRules.PARAMETERS),
+      "  --model <name>=<file.json>     score with this model (repeatable); 'stub' is the built-in heuristic",
+      "                                 default: classpath model/fall_model.bin, else the stub",
+      "  --labels <file.csv>            labelled falls as deviceId,startTs,endTs (in addition to label columns)",
+      "  --toleranceMs <ms>             an alert up to this long after a fall ends still detects it (5000)",
+      "  --holdMs <ms>                  suppression after an alert (unanswered alert plus cooldown: "
+          + defaultHoldMs() + ")",
+      "  --shortMs/--longMs <ms>        feature windows (1000/3000), --maxRateHz <hz> (100)",
+      "  --threads <n>                  parallelism (available processors)",
+      "  --vector <true|false>          Vector API inference kernels (true)",
+      "  --out <file.json>              write the full report as JSON");
+
+  private Backtest() {}
+
+  public static void main(String[] args) throws IOException {
+    List<Path> inputs = new ArrayList<>();
+    Map<String, double[]> sweeps = new LinkedHashMap<>();
+    Map<String, String> modelFiles = new LinkedHashMap<>();
+    Map<String, String> opts = new HashMap<>();
+    for (int i = 0; i < args.length; i++) {
+      String a = args[i];
+      if (!a.startsWith("--")) {
+        inputs.add(Paths.get(a));
+        continue;
+      }
+      if (a.equals("--help")) {
+        System.out.println(USAGE);
+        return;
+      }
+      if (i + 1 >= args.length) fail("Missing value for " + a);
+      String v = args[++i];
+      switch (a) {
+        case "--sweep" -> {
+          String[] kv = split(v);
+          DetectionRules.DEFAULTS.with(kv[0], 0); // validates the name
+          sweeps.put(kv[0], values(kv[1]));
+        }
+        case "--model" -> {
+          String[] kv = v.equals("stub") ? new String[] { "stub", "stub" } : split(v);
+          modelFiles.put(kv[0], kv[1]);
+        }
+        case "--labels", "--toleranceMs", "--holdMs", "--shortMs", "--longMs", "--maxRateHz", "--threads", "--vector", "--out" ->
+            opts.put(a.substring(2), v);
+        default -> fail("Unknown option " + a);
+      }
+    }
+    if (inputs.isEmpty()) fail("No recordings given");
+
+    Kernels kernels = Kernels.select(Boolean.parseBoolean(opts.getOrDefault("vector", "true")));
+    List<BacktestEngine.ScoringModel> models = loadModels(modelFiles, kernels);
+
+    // Cartesian product of the sweeps, for every model.
+    List<DetectionRules> grid = new ArrayList<>(List.of(DetectionRules.DEFAULTS));
+    List<String> gridNames = new ArrayList<>(List.of(""));
+    for (Map.Entry<String, double[]> s : sweeps.entrySet()) {
+      List<DetectionRules> nextGrid = new ArrayList<>();
+      List<String> nextNames = new ArrayList<>();
+      for (int g = 0; g < grid.size(); g++) {
+        for (double v : s.getValue()) {
+          nextGrid.add(grid.get(g).with(s.getKey(), v));
+          nextNames.add(gridNames.get(g) + (gridNames.get(g).isEmpty() ? "" : ",") + s.getKey() + "=" + fmt(v));
+        }
+      }
+      grid = nextGrid;
+      gridNames = nextNames;
+    }
+    int n = grid.size() * models.size();
+    DetectionRules[] rules = new DetectionRules[n];
+    int[] modelOf = new int[n];
+    List<String> names = new ArrayList<>(n);
+    for (int m = 0; m < models.size(); m++) {
+      for (int g = 0; g < grid.size(); g++) {
+        int i = m * grid.size() + g;
+        rules[i] = grid.get(g);
+        modelOf[i] = m;
+        String base = gridNames.get(g).isEmpty() ? "defaults" : gridNames.get(g);
+        names.add(models.size() > 1 ? base + ",model=" + models.get(m).name : base);
+      }
+    }
+
+    Map<String, List<long[]>> labels = opts.containsKey("labels")
+        ? Recording.readLabels(Paths.get(opts.get("labels"))) : Map.of();
+    BacktestEngine engine = new BacktestEngine(models, names, rules, modelOf,
+        Long.parseLong(opts.getOrDefault("shortMs", "1000")),
+        Long.parseLong(opts.getOrDefault("longMs", "3000")),
+        Integer.parseInt(opts.getOrDefault("maxRateHz", "100")),
+        Long.parseLong(opts.getOrDefault("holdMs", String.valueOf(defaultHoldMs()))),
+        labels,
+        Long.parseLong(opts.getOrDefault("toleranceMs", "5000")),
+        Integer.parseInt(opts.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors()))));
+    Map<String, Object> report = engine.run(inputs);
+
+    print(report);
+    if (opts.containsKey("out")) {
+      new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(Paths.get(opts.get("out")).toFile(), report);
+      System.out.println("Report written to " + opts.get("out"));
+    }
+  }
+
+  /** An alert nobody answers stays pending through both phases, is sent, and then the device cools down. */
+  private static long defaultHoldMs() {
+    return DetectionService.SILENT_MS + DetectionService.CONFIRM_MS + DetectionService.SENT_COOLDOWN_MS;
+  }
+
+  private static List<BacktestEngine.ScoringModel> loadModels(Map<String, String> files, Kernels kernels) throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    List<BacktestEngine.ScoringModel> models = new ArrayList<>();
+    if (files.isEmpty()) {
+      try (InputStream is = Backtest.class.getClassLoader().getResourceAsStream("model/fall_model.bin")) {
+        if (is != null) {
+          InferenceModel m = ModelReader.read(mapper.readTree(is), kernels);
+          models.add(new BacktestEngine.ScoringModel("fall_model", m, ModelFeatures.codes(m)));
+        } else {
+          models.add(new BacktestEngine.ScoringModel("stub", null, new int[0]));
+        }
+      }
+      return models;
+    }
+    for (Map.Entry<String, String> e : files.entrySet()) {
+      if (e.getValue().equals("stub")) {
+        models.add(new BacktestEngine.ScoringModel(e.getKey(), null, new int[0]));
+        continue;
+      }
+      InferenceModel m = ModelReader.read(mapper.readTree(Files.readAllBytes(Paths.get(e.getValue()))), kernels);
+      models.add(new BacktestEngine.ScoringModel(e.getKey(), m, ModelFeatures.codes(m)));
+    }
+    return models;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void print(Map<String, Object> report) {
+    System.out.printf(Locale.ROOT, "%s files, %s streams, %s samples (%s invalid rows skipped), %s configurations in %s ms: %s samples/s%n",
+        report.get("files"), report.get("streams"), report.get("samples"), report.get("invalidRows"),
+        report.get("configurations"), report.get("elapsedMs"), report.get("samplesPerSecond"));
+    boolean labelled = (Boolean) report.get("labelled");
+    List<Map<String, Object>> results = (List<Map<String, Object>>) report.get("results");
+    if (labelled) {
+      System.out.printf(Locale.ROOT, "%-8s %-8s %-8s %-8s %-10s %-10s %-10s  %s%n",
+          "alerts", "prec", "recall", "f1", "fa/hour", "lat p50", "lat p95", "configuration");
+    } else {
+      System.out.println("No labelled falls: reporting alert counts only.");
+      System.out.printf(Locale.ROOT, "%-8s %-10s  %s%n", "alerts", "alerts/h", "configuration");
+    }
+    int shown = 0;
+    for (Map<String, Object> r : results) {
+      if (shown++ == 50) {
+        System.out.println("... " + (results.size() - 50) + " more in the JSON report");
+        break;
+      }
+      if (labelled) {
+        Map<String, Object> lat = (Map<String, Object>) r.get("latencyMs");
+        System.out.printf(Locale.ROOT, "%-8s %-8s %-8s %-8s %-10s %-10s %-10s  %s%n", r.get("alerts"),
+            num(r.get("precision")), num(r.get("recall")), num(r.get("f1")), num(r.get("falseAlarmsPerHour")),
+            lat.getOrDefault("p50", "-"), lat.getOrDefault("p95", "-"), r.get("name"));
+      } else {
+        System.out.printf(Locale.ROOT, "%-8s %-10s  %s%n", r.get("alerts"), num(r.get("alertsPerHour")), r.get("name"));
+      }
+    }
+  }
+
+  private static String num(Object v) {
+    return v == null ? "-" : String.format(Locale.ROOT, "%.3f", ((Number) v).doubleValue());
+  }
+
+  private static String fmt(double v) {
+    return v == Math.rint(v) ? String.valueOf((long) v) : String.valueOf(v);
+  }
+
+  private static String[] split(String kv) {
+    int eq = kv.indexOf('=');
+    if (eq <= 0) fail("Expected name=value, got '" + kv + "'");
+    return new String[] { kv.substring(0, eq), kv.substring(eq + 1) };
+  }
+
+  /** "a,b,c" or "from:to:step" (inclusive). */
+  private static double[] values(String spec) {
+    String[] range = spec.split(":");
+    if (range.length == 3) {
+      double from = Double.parseDouble(range[0]), to = Double.parseDouble(range[1]), step = Double.parseDouble(range[2]);
+      if (step <= 0 || to < from) fail("Bad range '" + spec + "'");
+      int count = (int) Math.floor((to - from) / step + 1e-9) + 1;
+      double[] out = new double[count];
+      // Round to the step's precision so 0.1 steps print as 0.3, not 0.30000000000000004.
+      for (int i = 0; i < count; i++) out[i] = Math.round((from + i * step) * 1e9) / 1e9;
+      return out;
+    }
+    String[] parts = spec.split(",");
+    double[] out = new double[parts.length];
+    for (int i = 0; i < parts.length; i++) out[i] = Double.parseDouble(parts[i].trim());
+    return out;
+  }
+
+  private static void fail(String message) {
+    System.err.println(message);
+    System.err.println(USAGE);
+    System.exit(2);
+  }
+}
@@ -0,0 +1,247 @@
+package com.example.alert.backtest;
+
+import com.example.alert.service.DetectionRules;
+import com.example.alert.service.inference.InferenceModel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+/**
+ * Replays recordings through the detection rules for many configurations in a single pass.
+ *
+ * Work is split with fork/join on three levels: recordings run in parallel; within a recording,
+ * segments are decoded in parallel a wave at a time; each decoded chunk is then grouped by device
+ * and the devices replay in parallel. A device's samples stay in recording order across chunks.
+ */
+public final class BacktestEngine {
+  private static final int MIN_TASK_ROWS = 8192;
+
+  /** A model the sweep scores with; {@code model == null} is the heuristic stub. */
+  public static final class ScoringModel {
+    final String name;
+    final InferenceModel model;
+    final int[] codes;
+
+    public ScoringModel(String name, InferenceModel model, int[] codes) {
+      this.name = name;
+      this.model = model;
+      this.codes = codes;
+    }
+  }
+
+  /** Everything a replay needs, shared read-only by all tasks. */
+  static final class Setup {
+    final List<ScoringModel> models;
+    final DetectionRules[] rules;
+    final int[] modelOf;
+    final long shortMs, longMs;
+    final int maxRateHz;
+    final long holdMs;
+
+    Setup(List<ScoringModel> models, DetectionRules[] rules, int[] modelOf, long shortMs, long longMs, int maxRateHz,
+          long holdMs) {
+      this.models = models;
+      this.rules = rules;
+      this.modelOf = modelOf;
+      this.shortMs = shortMs;
+      this.longMs = longMs;
+      this.maxRateHz = maxRateHz;
+      this.holdMs = holdMs;
+    }
+  }
+
+  private final Setup setup;
+  private final List<String> names;
+  private final Map<String, List<long[]>> labels;
+  private final long toleranceMs;
+  private final ForkJoinPool pool;
+
+  /**
+   * @param names       one display name per configuration
+   * @param rules       one rule set per configuration
+   * @param modelOf     index into {@code models} per configuration
+   * @param holdMs      how long an alert suppresses the next one (pending phases plus cooldown)
+   * @param labels      labelled falls per device id, used in addition to label columns
+   * @param toleranceMs how long after a labelled fall ends an alert still counts as detecting it
+   */
+  public BacktestEngine(List<ScoringModel> models, List<String> names, DetectionRules[] rules, int[] modelOf,
+                        long shortMs, long longMs, int maxRateHz, long holdMs,
+                        Map<String, List<long[]>> labels, long toleranceMs, int threads) {
+    this.setup = new Setup(models, rules, modelOf, shortMs, longMs, maxRateHz, holdMs);
+    this.names = names;
+    this.labels = labels;
+    this.toleranceMs = toleranceMs;
+    this.pool = new ForkJoinPool(threads);
+  }
+
+  public Map<String, Object> run(List<Path> inputs) throws IOException {
+    List<Path> files = expand(inputs);
+    long start = System.nanoTime();
+    List<FileTask> tasks = new ArrayList<>();
+    for (Path f : files) tasks.add(new FileTask(f));
+    try {
+      pool.invoke(new RecursiveAction() {
+        @Override
+        protected void compute() {
+          invokeAll(tasks);
+        }
+      });
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    } finally {
+      pool.shutdown();
+    }
+    long elapsedNanos = System.nanoTime() - start;
+
+    Scorecard[] cards = new Scorecard[names.size()];
+    for (int i = 0; i < cards.length; i++) cards[i] = new Scorecard();
+    long samples = 0, invalid = 0, streams = 0;
+    boolean labelled = false;
+    for (FileTask t : tasks) {
+      invalid += t.recording.invalidRows;
+      for (DeviceReplay d : t.replays) {
+        labelled |= d.labelled();
+        d.scoreInto(cards, toleranceMs);
+        samples += d.samples;
+        streams++;
+      }
+    }
+
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("files", files.size());
+    report.put("streams", streams);
+    report.put("samples", samples);
+    report.put("invalidRows", invalid);
+    report.put("configurations", cards.length);
+    report.put("elapsedMs", elapsedNanos / 1_000_000);
+    report.put("samplesPerSecond", elapsedNanos == 0 ? null : (long) (samples * 1e9 / elapsedNanos));
+    report.put("labelled", labelled);
+    List<Map<String, Object>> results = new ArrayList<>();
+    for (int i = 0; i < cards.length; i++) {
+      Map<String, Object> r = new LinkedHashMap<>();
+      r.put("name", names.get(i));
+      r.put("model", setup.models.get(setup.modelOf[i]).name);
+      r.put("rules", setup.rules[i].toMap());
+      r.putAll(cards[i].toMap(labelled));
+      results.add(r);
+    }
+    if (labelled) {
+      List<Integer> order = new ArrayList<>();
+      for (int i = 0; i < cards.length; i++) order.add(i);
+      order.sort((a, b) -> Double.compare(cards[b].f1(), cards[a].f1()));
+      List<Map<String, Object>> sorted = new ArrayList<>();
+      for (int i : order) sorted.add(results.get(i));
+      results = sorted;
+    }
+    report.put("results", results);
+    return report;
+  }
+
+  private static List<Path> expand(List<Path> inputs) throws IOException {
+    List<Path> files = new ArrayList<>();
+    for (Path p : inputs) {
+      if (Files.isDirectory(p)) {
+        try (Stream<Path> s = Files.walk(p)) {
+          s.filter(Files::isRegularFile).filter(Recording::isRecording).sorted().forEach(files::add);
+        }
+      } else {
+        files.add(p);
+      }
+    }
+    if (files.isEmpty()) throw new IOException("No recordings found in " + inputs);
+    return files;
+  }
+
+  /** One recording: decode a wave of segments in parallel, then replay them in order. */
+  private final class FileTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Path path;
+    Recording recording;
+    final List<DeviceReplay> replays = new ArrayList<>();
+
+    FileTask(Path path) {
+      this.path = path;
+    }
+
+    @Override
+    protected void compute() {
+      try {
+        recording = Recording.open(path);
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+      int segments = recording.segments();
+      int wave = Math.max(1, pool.getParallelism());
+      for (int w = 0; w < segments; w += wave) {
+        Recording.Decoded[] decoded = new Recording.Decoded[Math.min(wave, segments - w)];
+        List<RecursiveAction> decodes = new ArrayList<>();
+        for (int k = 0; k < decoded.length; k++) {
+          int slot = k, segment = w + k;
+          decodes.add(new RecursiveAction() {
+            @Override
+            protected void compute() {
+              try {
+                decoded[slot] = recording.decode(segment);
+              } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+              }
+            }
+          });
+        }
+        invokeAll(decodes);
+        for (Recording.Decoded d : decoded) {
+          SampleChunk chunk = recording.resolve(d);
+          while (replays.size() < recording.devices.size()) {
+            String id = recording.devices.get(replays.size());
+            replays.add(new DeviceReplay(setup, id, labels.get(id)));
+          }
+          replayChunk(chunk);
+        }
+      }
+    }
+
+    /** Counting-sorts the chunk's rows by device, then replays groups of devices in parallel. */
+    private void replayChunk(SampleChunk c) {
+      if (c.rows == 0) return;
+      if (replays.size() == 1) {
+        replays.get(0).replay(c, null, 0, c.rows);
+        return;
+      }
+      int devices = replays.size();
+      int[] offset = new int[devices + 1];
+      for (int r = 0; r < c.rows; r++) offset[c.device[r] + 1]++;
+      for (int d = 0; d < devices; d++) offset[d + 1] += offset[d];
+      int[] next = offset.clone();
+      int[] order = new int[c.rows];
+      for (int r = 0; r < c.rows; r++) order[next[c.device[r]]++] = r;
+
+      List<RecursiveAction> groups = new ArrayList<>();
+      int from = 0;
+      while (from < devices) {
+        int to = from;
+        while (to < devices && offset[to] - offset[from] < MIN_TASK_ROWS) to++;
+        int gFrom = from, gTo = to;
+        groups.add(new RecursiveAction() {
+          @Override
+          protected void compute() {
+            for (int d = gFrom; d < gTo; d++) {
+              if (offset[d + 1] > offset[d]) replays.get(d).replay(c, order, offset[d], offset[d + 1]);
+            }
+          }
+        });
+        from = to;
+      }
+      invokeAll(groups);
+    }
+  }
+}
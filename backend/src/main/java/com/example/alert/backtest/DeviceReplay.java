@@ -0,0 +1,139 @@
+package com.example.alert.backtest;
+
+import com.example.alert.service.DetectionRules;
+import com.example.alert.service.MLService;
+import com.example.alert.service.ModelFeatures;
+import com.example.alert.service.SlidingWindows;
+import com.example.alert.service.WindowFeatures;
+import com.example.alert.service.inference.InferenceModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Replays one device's samples against every configuration at once. Windows and magnitudes are
+ * computed once per sample; each model scores a sample at most once, and only when some
+ * configuration that is not suppressed needs the score. Each configuration keeps its own alert
+ * suppression, so configurations see exactly what the live detector would have done with them.
+ *
+ * Not thread-safe: the engine hands a device's rows to one task at a time, in order.
+ */
+final class DeviceReplay {
+  private final BacktestEngine.Setup setup;
+  final String deviceId;
+  private final SlidingWindows windows;
+  private final double[] scores;
+  private final long[] scoredAt;
+  private final double[] row;
+  private final long[] suppressUntil;
+  private final long[][] alerts;
+  private final int[] alertCount;
+  private final List<long[]> falls = new ArrayList<>();
+  private long fallStart = -1;
+  private long lastLabelled;
+  long samples;
+  private long firstTs = Long.MIN_VALUE;
+  private long lastTs;
+
+  DeviceReplay(BacktestEngine.Setup setup, String deviceId, List<long[]> labelledFalls) {
+    this.setup = setup;
+    this.deviceId = deviceId;
+    this.windows = new SlidingWindows(new long[] { setup.shortMs, setup.longMs }, setup.maxRateHz);
+    int models = setup.models.size();
+    this.scores = new double[models];
+    this.scoredAt = new long[models];
+    Arrays.fill(scoredAt, -1);
+    int width = 0;
+    for (BacktestEngine.ScoringModel m : setup.models) width = Math.max(width, m.codes.length);
+    this.row = new double[width];
+    int configs = setup.rules.length;
+    this.suppressUntil = new long[configs];
+    Arrays.fill(suppressUntil, Long.MIN_VALUE);
+    this.alerts = new long[configs][4];
+    this.alertCount = new int[configs];
+    if (labelledFalls != null) falls.addAll(labelledFalls);
+  }
+
+  /** Replays rows {@code order[from..to)} of the chunk, or rows {@code from..to} when order is null. */
+  void replay(SampleChunk c, int[] order, int from, int to) {
+    DetectionRules[] rules = setup.rules;
+    int[] modelOf = setup.modelOf;
+    for (int k = from; k < to; k++) {
+      int r = order == null ? k : order[k];
+      long t = c.ts[r];
+      double ax = c.ax[r], ay = c.ay[r], az = c.az[r];
+      double gx = c.gx[r], gy = c.gy[r], gz = c.gz[r];
+      if (firstTs == Long.MIN_VALUE) firstTs = t;
+      lastTs = Math.max(lastTs, t);
+      if (c.label != null) label(t, c.label[r]);
+      windows.add(t, ax, ay, az);
+      long seq = samples++;
+
+      double accelMag = Math.sqrt(ax * ax + ay * ay + az * az);
+      double gyroMag = Math.sqrt(gx * gx + gy * gy + gz * gz);
+      WindowFeatures shortWin = windows.features(0);
+      WindowFeatures longWin = windows.features(1);
+      for (int i = 0; i < rules.length; i++) {
+        if (t < suppressUntil[i]) continue;
+        DetectionRules d = rules[i];
+        boolean alert = d.ruleHit(accelMag, gyroMag)
+            || d.fallPattern(shortWin, longWin)
+            || (d.needsScore(accelMag, gyroMag) && d.mlHit(accelMag, gyroMag, score(modelOf[i], seq, accelMag, gyroMag, shortWin, longWin)));
+        if (alert) {
+          if (alertCount[i] == alerts[i].length) alerts[i] = Arrays.copyOf(alerts[i], alertCount[i] * 2);
+          alerts[i][alertCount[i]++] = t;
+          suppressUntil[i] = t + setup.holdMs;
+        }
+      }
+    }
+  }
+
+  private double score(int m, long seq, double accelMag, double gyroMag, WindowFeatures s, WindowFeatures l) {
+    if (scoredAt[m] != seq) {
+      BacktestEngine.ScoringModel sm = setup.models.get(m);
+      InferenceModel model = sm.model;
+      if (model == null) {
+        scores[m] = MLService.stubScore(accelMag, gyroMag);
+      } else {
+        ModelFeatures.fill(sm.codes, row, accelMag, gyroMag, s, l);
+        scores[m] = model.score(row);
+      }
+      scoredAt[m] = seq;
+    }
+    return scores[m];
+  }
+
+  /** Consecutive labelled samples form one fall, from the first to the last labelled timestamp. */
+  private void label(long t, byte label) {
+    if (label != 0) {
+      if (fallStart < 0) fallStart = t;
+      lastLabelled = t;
+    } else if (fallStart >= 0) {
+      falls.add(new long[] { fallStart, lastLabelled });
+      fallStart = -1;
+    }
+  }
+
+  boolean labelled() {
+    return !falls.isEmpty() || fallStart >= 0;
+  }
+
+  void scoreInto(Scorecard[] cards, long toleranceMs) {
+    if (fallStart >= 0) {
+      falls.add(new long[] { fallStart, lastLabelled });
+      fallStart = -1;
+    }
+    long[][] sorted = falls.toArray(new long[0][]);
+    Arrays.sort(sorted, (x, y) -> Long.compare(x[0], y[0]));
+    long duration = samples == 0 ? 0 : lastTs - firstTs;
+    for (int i = 0; i < cards.length; i++) {
+      Scorecard card = cards[i];
+      card.samples += samples;
+      card.durationMs += duration;
+      long[] a = Arrays.copyOf(alerts[i], alertCount[i]);
+      Arrays.sort(a);
+      card.score(a, a.length, sorted, toleranceMs);
+    }
+  }
+}
@@ -0,0 +1,463 @@
+package com.example.alert.backtest;
+
+import com.example.alert.service.SampleBatchDecoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One IMU recording on disk, split into segments that can be decoded in parallel.
+ *
+ * CSV recordings use the layout of data/sample_sensor.csv: a header naming the columns, of which
+ * timestamp, ax, ay, az, gx, gy, gz are required; an optional deviceId column interleaves several
+ * devices in one file, and an optional label column (1 while a fall is in progress) supplies ground
+ * truth. Segments are byte ranges; a line belongs to the segment it starts in.
+ *
+ * Binary recordings are back-to-back frames in the binary batch format of {@link SampleBatchDecoder}.
+ *
+ * Without a deviceId column the file name (minus extension) is the device id. Segments decode into
+ * local device numbers; {@link #resolve} maps them onto the recording-wide device list, in order.
+ */
+abstract class Recording {
+  static final int SEGMENT_BYTES = 8 << 20;
+
+  final Path path;
+  final List<String> devices = new ArrayList<>();
+  private final Map<String, Integer> deviceIndex = new HashMap<>();
+  long invalidRows;
+
+  Recording(Path path) {
+    this.path = path;
+  }
+
+  static Recording open(Path path) throws IOException {
+    String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+    return name.endsWith(".bin") ? new Binary(path) : new Csv(path);
+  }
+
+  static boolean isRecording(Path path) {
+    String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+    return name.endsWith(".csv") || name.endsWith(".bin");
+  }
+
+  String stem() {
+    String name = path.getFileName().toString();
+    int dot = name.lastIndexOf('.');
+    return dot > 0 ? name.substring(0, dot) : name;
+  }
+
+  abstract int segments();
+
+  /** Decodes one segment; safe to call concurrently for different segments. */
+  abstract Decoded decode(int segment) throws IOException;
+
+  /** Rewrites the chunk's local device numbers to recording-wide ones. Call in segment order. */
+  synchronized SampleChunk resolve(Decoded d) {
+    int[] map = new int[d.localDevices.size()];
+    for (int i = 0; i < map.length; i++) {
+      map[i] = deviceIndex.computeIfAbsent(d.localDevices.get(i), k -> {
+        devices.add(k);
+        return devices.size() - 1;
+      });
+    }
+    int[] dev = d.chunk.device;
+    for (int r = 0; r < d.chunk.rows; r++) dev[r] = map[dev[r]];
+    invalidRows += d.invalid;
+    return d.chunk;
+  }
+
+  static final class Decoded {
+    final SampleChunk chunk;
+    final List<String> localDevices;
+    final long invalid;
+
+    Decoded(SampleChunk chunk, List<String> localDevices, long invalid) {
+      this.chunk = chunk;
+      this.localDevices = localDevices;
+      this.invalid = invalid;
+    }
+  }
+
+  /** Growable column set for one segment. */
+  private static final class Columns {
+    int rows;
+    int[] device;
+    long[] ts;
+    double[] ax, ay, az, gx, gy, gz;
+    byte[] label;
+
+    Columns(int capacity, boolean labelled) {
+      device = new int[capacity];
+      ts = new long[capacity];
+      ax = new double[capacity]; ay = new double[capacity]; az = new double[capacity];
+      gx = new double[capacity]; gy = new double[capacity]; gz = new double[capacity];
+      label = labelled ? new byte[capacity] : null;
+    }
+
+    void ensure() {
+      if (rows < ts.length) return;
+      int cap = ts.length * 2;
+      device = Arrays.copyOf(device, cap);
+      ts = Arrays.copyOf(ts, cap);
+      ax = Arrays.copyOf(ax, cap); ay = Arrays.copyOf(ay, cap); az = Arrays.copyOf(az, cap);
+      gx = Arrays.copyOf(gx, cap); gy = Arrays.copyOf(gy, cap); gz = Arrays.copyOf(gz, cap);
+      if (label != null) label = Arrays.copyOf(label, cap);
+    }
+
+    SampleChunk chunk() {
+      return new SampleChunk(rows, device, ts, ax, ay, az, gx, gy, gz, label);
+    }
+  }
+
+  static final class Csv extends Recording {
+    private static final int MAX_LINE = 1 << 20;
+    private final long size;
+    private final long dataStart;
+    private final int fields;
+    private final int cTs, cAx, cAy, cAz, cGx, cGy, cGz, cDevice, cLabel;
+
+    Csv(Path path) throws IOException {
+      super(path);
+      this.size = Files.size(path);
+      byte[] head = read(path, 0, (int) Math.min(size, MAX_LINE));
+      int nl = indexOf(head, 0, head.length, (byte) '\n');
+      if (nl < 0 && head.length == MAX_LINE) throw new IOException(path + ": header line too long");
+      int end = nl < 0 ? head.length : nl;
+      String[] names = new String(head, 0, end, StandardCharsets.UTF_8).trim().split(",");
+      Map<String, Integer> cols = new HashMap<>();
+      for (int i = 0; i < names.length; i++) cols.put(names[i].trim().toLowerCase(Locale.ROOT), i);
+      this.fields = names.length;
+      this.cTs = required(cols, "timestamp");
+      this.cAx = required(cols, "ax");
+      this.cAy = required(cols, "ay");
+      this.cAz = required(cols, "az");
+      this.cGx = required(cols, "gx");
+      this.cGy = required(cols, "gy");
+      this.cGz = required(cols, "gz");
+      this.cDevice = cols.getOrDefault("deviceid", cols.getOrDefault("device_id", -1));
+      this.cLabel = cols.getOrDefault("label", cols.getOrDefault("fall", -1));
+      this.dataStart = nl < 0 ? size : nl + 1;
+    }
+
+    private int required(Map<String, Integer> cols, String name) throws IOException {
+      Integer i = cols.get(name);
+      if (i == null) throw new IOException(path + ": missing column '" + name + "'");
+      return i;
+    }
+
+    @Override
+    int segments() {
+      return (int) ((size - dataStart + SEGMENT_BYTES - 1) / SEGMENT_BYTES);
+    }
+
+    @Override
+    Decoded decode(int segment) throws IOException {
+      long a = dataStart + (long) segment * SEGMENT_BYTES;
+      long b = Math.min(size, a + SEGMENT_BYTES);
+      long from = segment == 0 ? a : a - 1;
+      byte[] buf = read(path, from, (int) (Math.min(size, b + MAX_LINE) - from));
+      int pos = 0;
+      if (segment > 0) {
+        // Skip the tail of a line that started in the previous segment.
+        int nl = indexOf(buf, 0, buf.length, (byte) '\n');
+        pos = nl < 0 ? buf.length : nl + 1;
+      }
+      Columns c = new Columns(Math.max(16, SEGMENT_BYTES / 48), cLabel >= 0);
+      List<String> local = new ArrayList<>();
+      if (cDevice < 0) local.add(stem());
+      DeviceIds ids = new DeviceIds(local);
+      long invalid = 0;
+      int[] start = new int[fields];
+      int[] stop = new int[fields];
+
+      while (pos < buf.length && from + pos < b) {
+        int nl = indexOf(buf, pos, buf.length, (byte) '\n');
+        if (nl < 0 && from + buf.length < size) throw new IOException(path + ": line longer than " + MAX_LINE + " bytes");
+        int end = nl < 0 ? buf.length : nl;
+        int lineEnd = end > pos && buf[end - 1] == '\r' ? end - 1 : end;
+        int lineStart = pos;
+        pos = end + 1;
+        if (lineEnd == lineStart) continue;
+
+        int f = 0, s = lineStart;
+        for (int i = lineStart; i <= lineEnd && f < fields; i++) {
+          if (i == lineEnd || buf[i] == ',') {
+            start[f] = s;
+            stop[f] = i;
+            f++;
+            s = i + 1;
+          }
+        }
+        if (f < fields) {
+          invalid++;
+          continue;
+        }
+        c.ensure();
+        int r = c.rows;
+        long ts = parseTimestamp(buf, start[cTs], stop[cTs]);
+        double ax = parseDouble(buf, start[cAx], stop[cAx]);
+        double ay = parseDouble(buf, start[cAy], stop[cAy]);
+        double az = parseDouble(buf, start[cAz], stop[cAz]);
+        double gx = parseDouble(buf, start[cGx], stop[cGx]);
+        double gy = parseDouble(buf, start[cGy], stop[cGy]);
+        double gz = parseDouble(buf, start[cGz], stop[cGz]);
+        // Same validity rule as live batches (SampleBatch.isValid).
+        if (ts <= 0 || !Double.isFinite(ax) || !Double.isFinite(ay) || !Double.isFinite(az)
+            || !Double.isFinite(gx) || !Double.isFinite(gy) || !Double.isFinite(gz)) {
+          invalid++;
+          continue;
+        }
+        if (cDevice >= 0) c.device[r] = ids.index(buf, start[cDevice], stop[cDevice]);
+        c.ts[r] = ts;
+        c.ax[r] = ax; c.ay[r] = ay; c.az[r] = az;
+        c.gx[r] = gx; c.gy[r] = gy; c.gz[r] = gz;
+        if (c.label != null) c.label[r] = parseDouble(buf, start[cLabel], stop[cLabel]) > 0.5 ? (byte) 1 : 0;
+        c.rows++;
+      }
+      return new Decoded(c.chunk(), local, invalid);
+    }
+  }
+
+  /**
+   * Device ids of one segment, looked up by their raw bytes so interleaved devices cost a hash probe
+   * per row instead of a String.
+   */
+  private static final class DeviceIds {
+    private final List<String> names;
+    private byte[][] keys = new byte[64][];
+    private int[] values = new int[64];
+
+    DeviceIds(List<String> names) {
+      this.names = names;
+    }
+
+    int index(byte[] b, int s, int e) {
+      while (s < e && b[s] == ' ') s++;
+      while (e > s && b[e - 1] == ' ') e--;
+      int h = 1;
+      for (int i = s; i < e; i++) h = 31 * h + b[i];
+      int mask = keys.length - 1;
+      for (int slot = mix(h) & mask; ; slot = (slot + 1) & mask) {
+        byte[] k = keys[slot];
+        if (k == null) break;
+        if (Arrays.equals(b, s, e, k, 0, k.length)) return values[slot];
+      }
+      int idx = names.size();
+      names.add(new String(b, s, e - s, StandardCharsets.UTF_8));
+      if (names.size() * 2 > keys.length) grow();
+      put(Arrays.copyOfRange(b, s, e), idx);
+      return idx;
+    }
+
+    private void put(byte[] key, int value) {
+      int h = 1;
+      for (byte x : key) h = 31 * h + x;
+      int mask = keys.length - 1;
+      int slot = mix(h) & mask;
+      while (keys[slot] != null) slot = (slot + 1) & mask;
+      keys[slot] = key;
+      values[slot] = value;
+    }
+
+    private void grow() {
+      byte[][] oldKeys = keys;
+      int[] oldValues = values;
+      keys = new byte[oldKeys.length * 2][];
+      values = new int[oldKeys.length * 2];
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != null) put(oldKeys[i], oldValues[i]);
+      }
+    }
+
+    private static int mix(int h) {
+      return h ^ (h >>> 16);
+    }
+  }
+
+  static final class Binary extends Recording {
+    private static final int HEADER = 4 + 4 + 8 + 8;
+    private static final int CHUNK_ROWS = 1 << 16;
+    private final List<long[]> segments = new ArrayList<>(); // {offset, bytes, rows}
+
+    Binary(Path path) throws IOException {
+      super(path);
+      long size = Files.size(path);
+      long off = 0, segStart = 0, segRows = 0;
+      try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+        ByteBuffer head = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        while (off < size) {
+          head.clear();
+          readFully(ch, head, off);
+          head.flip();
+          if (head.getInt() != SampleBatchDecoder.BINARY_MAGIC) throw new IOException(path + ": bad frame magic at " + off);
+          int n = head.getInt();
+          long frame = HEADER + (long) n * (8 + 6 * 4);
+          if (n < 0 || off + frame > size) throw new IOException(path + ": truncated frame at " + off);
+          if (segRows > 0 && segRows + n > CHUNK_ROWS) {
+            segments.add(new long[] { segStart, off - segStart, segRows });
+            segStart = off;
+            segRows = 0;
+          }
+          segRows += n;
+          off += frame;
+        }
+        if (off > segStart) segments.add(new long[] { segStart, off - segStart, segRows });
+      }
+    }
+
+    @Override
+    int segments() {
+      return segments.size();
+    }
+
+    @Override
+    Decoded decode(int segment) throws IOException {
+      long[] seg = segments.get(segment);
+      ByteBuffer buf = ByteBuffer.wrap(read(path, seg[0], (int) seg[1])).order(ByteOrder.LITTLE_ENDIAN);
+      Columns c = new Columns((int) Math.max(1, seg[2]), false);
+      long invalid = 0;
+      while (buf.hasRemaining()) {
+        buf.getInt();
+        int n = buf.getInt();
+        buf.position(buf.position() + 16); // lat, lng: not used by detection
+        int base = buf.position();
+        int r0 = c.rows;
+        for (int i = 0; i < n; i++) c.ts[r0 + i] = buf.getLong(base + i * 8);
+        int p = base + n * 8;
+        double[][] axes = { c.ax, c.ay, c.az, c.gx, c.gy, c.gz };
+        for (double[] axis : axes) {
+          for (int i = 0; i < n; i++) axis[r0 + i] = buf.getFloat(p + i * 4);
+          p += n * 4;
+        }
+        buf.position(p);
+        // Compact out invalid rows in place.
+        int w = r0;
+        for (int i = r0; i < r0 + n; i++) {
+          boolean ok = c.ts[i] > 0;
+          for (double[] axis : axes) ok &= Double.isFinite(axis[i]);
+          if (!ok) {
+            invalid++;
+            continue;
+          }
+          if (w != i) {
+            c.ts[w] = c.ts[i];
+            for (double[] axis : axes) axis[w] = axis[i];
+          }
+          w++;
+        }
+        c.rows = w;
+      }
+      return new Decoded(c.chunk(), List.of(stem()), invalid);
+    }
+  }
+
+  /** {@code deviceId,startTs,endTs} per labelled fall; a header line is optional. */
+  static Map<String, List<long[]>> readLabels(Path file) throws IOException {
+    Map<String, List<long[]>> labels = new HashMap<>();
+    for (String line : Files.readAllLines(file)) {
+      String[] f = line.trim().split(",");
+      if (f.length < 3 || f[0].isEmpty() || !Character.isDigit(f[1].trim().charAt(0))) continue;
+      long s = Long.parseLong(f[1].trim());
+      long e = Long.parseLong(f[2].trim());
+      labels.computeIfAbsent(f[0].trim(), k -> new ArrayList<>()).add(new long[] { s, Math.max(s, e) });
+    }
+    for (List<long[]> l : labels.values()) l.sort((x, y) -> Long.compare(x[0], y[0]));
+    return labels;
+  }
+
+  private static byte[] read(Path path, long offset, int length) throws IOException {
+    byte[] out = new byte[length];
+    try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+      readFully(ch, ByteBuffer.wrap(out), offset);
+    }
+    return out;
+  }
+
+  private static void readFully(FileChannel ch, ByteBuffer dst, long offset) throws IOException {
+    while (dst.hasRemaining()) {
+      int n = ch.read(dst, offset);
+      if (n < 0) throw new IOException("unexpected end of file");
+      offset += n;
+    }
+  }
+
+  private static int indexOf(byte[] b, int from, int to, byte v) {
+    for (int i = from; i < to; i++) {
+      if (b[i] == v) return i;
+    }
+    return -1;
+  }
+
+  private static final double[] POW10 = new double[23];
+  static {
+    POW10[0] = 1;
+    for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+  }
+
+  /**
+   * Plain decimals ([-]digits[.digits]) are parsed without allocating; the result is correctly rounded
+   * (an exact mantissa divided by an exact power of ten), so it equals Double.parseDouble. Anything
+   * else falls back to Double.parseDouble; unparseable fields are NaN.
+   */
+  static double parseDouble(byte[] b, int s, int e) {
+    while (s < e && b[s] == ' ') s++;
+    while (e > s && b[e - 1] == ' ') e--;
+    int i = s;
+    boolean neg = false;
+    if (i < e && (b[i] == '-' || b[i] == '+')) neg = b[i++] == '-';
+    long m = 0;
+    int digits = 0, frac = 0;
+    boolean dot = false;
+    for (; i < e; i++) {
+      int d = b[i] - '0';
+      if (d >= 0 && d <= 9) {
+        if (++digits > 15) return slowDouble(b, s, e);
+        m = m * 10 + d;
+        if (dot) frac++;
+      } else if (b[i] == '.' && !dot) {
+        dot = true;
+      } else {
+        return slowDouble(b, s, e);
+      }
+    }
+    if (digits == 0) return slowDouble(b, s, e);
+    double v = frac == 0 ? m : m / POW10[frac];
+    return neg ? -v : v;
+  }
+
+  private static double slowDouble(byte[] b, int s, int e) {
+    try {
+      return Double.parseDouble(new String(b, s, e - s, StandardCharsets.US_ASCII));
+    } catch (NumberFormatException ex) {
+      return Double.NaN;
+    }
+  }
+
+  private static long parseTimestamp(byte[] b, int s, int e) {
+    long v = 0;
+    int i = s;
+    while (i < e && b[i] == ' ') i++;
+    int digits = 0;
+    for (; i < e; i++) {
+      int d = b[i] - '0';
+      if (d < 0 || d > 9 || ++digits > 18) break;
+      v = v * 10 + d;
+    }
+    while (i < e && b[i] == ' ') i++;
+    if (i == e && digits > 0) return v;
+    double slow = slowDouble(b, s, e); // decimals or exponents
+    return Double.isFinite(slow) ? (long) slow : -1;
+  }
+}
@@ -0,0 +1,27 @@
+package com.example.alert.backtest;
+
+/**
+ * A run of consecutive rows from one recording, stored column-wise. {@code device} indexes the
+ * recording's device list; {@code label} is null when the recording carries no labels.
+ */
+final class SampleChunk {
+  final int rows;
+  final int[] device;
+  final long[] ts;
+  final double[] ax, ay, az, gx, gy, gz;
+  final byte[] label;
+
+  SampleChunk(int rows, int[] device, long[] ts, double[] ax, double[] ay, double[] az,
+              double[] gx, double[] gy, double[] gz, byte[] label) {
+    this.rows = rows;
+    this.device = device;
+    this.ts = ts;
+    this.ax = ax;
+    this.ay = ay;
+    this.az = az;
+    this.gx = gx;
+    this.gy = gy;
+    this.gz = gz;
+    this.label = label;
+  }
+}
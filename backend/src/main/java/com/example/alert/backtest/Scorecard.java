@@ -0,0 +1,92 @@
+package com.example.alert.backtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of one configuration over all replayed streams. An alert matches a labelled fall when it
+ * fires between the fall's start and {@code toleranceMs} after its end; the first matching alert
+ * counts as the detection and sets the latency. Alerts that match no fall are false alarms.
+ */
+final class Scorecard {
+  long samples;
+  long durationMs;
+  long alerts;
+  long falls;
+  long detected;
+  long falseAlarms;
+  private long[] latencies = new long[16];
+  private int latencyCount;
+
+  void addLatency(long ms) {
+    if (latencyCount == latencies.length) latencies = Arrays.copyOf(latencies, latencyCount * 2);
+    latencies[latencyCount++] = ms;
+  }
+
+  /** Scores one stream's alerts (ascending) against its labelled falls (ascending by start). */
+  void score(long[] alertTs, int alertCount, long[][] falls, long toleranceMs) {
+    alerts += alertCount;
+    this.falls += falls.length;
+    boolean[] matched = new boolean[alertCount];
+    int first = 0;
+    for (long[] fall : falls) {
+      while (first < alertCount && alertTs[first] < fall[0]) first++;
+      boolean hit = false;
+      for (int i = first; i < alertCount && alertTs[i] <= fall[1] + toleranceMs; i++) {
+        if (!hit) {
+          detected++;
+          addLatency(alertTs[i] - fall[0]);
+          hit = true;
+        }
+        matched[i] = true;
+      }
+    }
+    for (boolean m : matched) {
+      if (!m) falseAlarms++;
+    }
+  }
+
+  Map<String, Object> toMap(boolean labelled) {
+    Map<String, Object> m = new LinkedHashMap<>();
+    m.put("alerts", alerts);
+    double hours = durationMs / 3_600_000.0;
+    if (labelled) {
+      long missed = falls - detected;
+      Double precision = detected + falseAlarms == 0 ? null : (double) detected / (detected + falseAlarms);
+      Double recall = falls == 0 ? null : (double) detected / falls;
+      m.put("falls", falls);
+      m.put("detected", detected);
+      m.put("missed", missed);
+      m.put("falseAlarms", falseAlarms);
+      m.put("precision", precision);
+      m.put("recall", recall);
+      m.put("f1", precision == null || recall == null || precision + recall == 0 ? null
+          : 2 * precision * recall / (precision + recall));
+      m.put("falseAlarmsPerHour", hours > 0 ? falseAlarms / hours : null);
+      m.put("latencyMs", latencyStats());
+    } else {
+      m.put("alertsPerHour", hours > 0 ? alerts / hours : null);
+    }
+    return m;
+  }
+
+  double f1() {
+    long fp = falseAlarms;
+    return falls == 0 || detected == 0 ? 0 : 2.0 * detected / (2.0 * detected + fp + (falls - detected));
+  }
+
+  private Map<String, Object> latencyStats() {
+    Map<String, Object> m = new LinkedHashMap<>();
+    if (latencyCount == 0) return m;
+    long[] l = Arrays.copyOf(latencies, latencyCount);
+    Arrays.sort(l);
+    long sum = 0;
+    for (long v : l) sum += v;
+    m.put("mean", (double) sum / l.length);
+    m.put("p50", l[(l.length - 1) / 2]);
+    m.put("p95", l[(int) Math.ceil(0.95 * l.length) - 1]);
+    m.put("max", l[l.length - 1]);
+    return m;
+  }
+}
@@ -0,0 +1,153 @@
+package com.example.alert.cluster;
+
+import com.example.alert.model.ClusterNode;
+import com.example.alert.model.Event;
+import com.example.alert.repo.ClusterNodeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Which node owns which device. Nodes announce themselves in the shared {@code cluster_nodes} table and
+ * refresh their row every {@code cluster.heartbeatMs}; rows older than {@code cluster.nodeTtlMs} are dead.
+ * Every node builds the same {@link HashRing} from the live rows, so they agree on owners without talking
+ * to each other. A change of members publishes {@link MembershipChanged} for components to rebalance.
+ *
+ * With {@code cluster.enabled=false} (the default) this node owns every device and nothing is written.
+ */
+@Component
+public class ClusterMembership {
+  private static final Logger log = LoggerFactory.getLogger(ClusterMembership.class);
+
+  /** Published after the ring changed; {@code joined} and {@code left} are node ids. */
+  public record MembershipChanged(Set<String> joined, Set<String> left) {}
+
+  private final ClusterNodeRepository repo;
+  private final ApplicationEventPublisher events;
+  private final boolean enabled;
+  private final String self;
+  private final String advertiseUrl;
+  private final long nodeTtlMs;
+  private final int virtualNodes;
+  private final long startedAt = System.currentTimeMillis();
+
+  private volatile HashRing ring;
+  private volatile Map<String, String> urls = Map.of();
+
+  public ClusterMembership(ClusterNodeRepository repo, ApplicationEventPublisher events,
+                           @Value("${cluster.enabled:false}") boolean enabled,
+                           @Value("${cluster.nodeId:node-${server.port:8081}}") String nodeId,
+                           @Value("${cluster.advertiseUrl:http://localhost:${server.port:8081}}") String advertiseUrl,
+                           @Value("${cluster.nodeTtlMs:5000}") long nodeTtlMs,
+                           @Value("${cluster.virtualNodes:128}") int virtualNodes) {
+    this.repo = repo;
+    this.events = events;
+    this.enabled = enabled;
+    this.self = nodeId;
+    this.advertiseUrl = advertiseUrl;
+    this.nodeTtlMs = nodeTtlMs;
+    this.virtualNodes = virtualNodes;
+    this.ring = new HashRing(List.of(nodeId), virtualNodes);
+  }
+
+  /** Joins before the application is ready, so recovery after a restart already knows the ring. */
+  @PostConstruct
+  public void join() {
+    if (!enabled) return;
+    heartbeat();
+    log.info("Joined cluster: node={} url={} members={}", self, advertiseUrl, ring.nodes());
+  }
+
+  @Scheduled(fixedDelayString = "${cluster.heartbeatMs:1000}")
+  public void heartbeat() {
+    if (!enabled) return;
+    long now = System.currentTimeMillis();
+    ClusterNode me = new ClusterNode();
+    me.setId(self);
+    me.setUrl(advertiseUrl);
+    me.setStartedAt(startedAt);
+    me.setHeartbeatAt(now);
+    repo.save(me);
+
+    Map<String, String> live = new HashMap<>();
+    for (ClusterNode n : repo.findByHeartbeatAtGreaterThanEqual(now - nodeTtlMs)) live.put(n.getId(), n.getUrl());
+    live.put(self, advertiseUrl); // never drop ourselves because of a slow write
+    urls = Map.copyOf(live);
+    HashRing current = ring;
+    if (current.nodes().equals(List.copyOf(new TreeSet<>(live.keySet())))) return;
+
+    Set<String> joined = new TreeSet<>(live.keySet());
+    current.nodes().forEach(joined::remove);
+    Set<String> left = new TreeSet<>(current.nodes());
+    left.removeAll(live.keySet());
+    ring = new HashRing(live.keySet(), virtualNodes);
+    log.info("Cluster membership changed: joined={} left={} members={}", joined, left, ring.nodes());
+    events.publishEvent(new MembershipChanged(joined, left));
+  }
+
+  /** Leaves on a graceful shutdown so the others take over at their next heartbeat instead of after the TTL. */
+  @PreDestroy
+  public void leave() {
+    if (!enabled) return;
+    try {
+      repo.deleteById(self);
+    } catch (Exception ex) {
+      log.warn("Could not leave cluster cleanly: node={} error={}", self, ex.getMessage());
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public String self() {
+    return self;
+  }
+
+  public String ownerOf(String deviceId) {
+    return ring.owner(deviceId == null ? Event.DEFAULT_DEVICE : deviceId);
+  }
+
+  public boolean owns(String deviceId) {
+    return !enabled || self.equals(ownerOf(deviceId));
+  }
+
+  /** Base URL of a live node, or null if it is not (or no longer) a member. */
+  public String urlOf(String nodeId) {
+    return urls.get(nodeId);
+  }
+
+  public int memberCount() {
+    return ring.nodes().size();
+  }
+
+  public Map<String, Object> status() {
+    HashRing r = ring;
+    Map<String, Object> nodes = new LinkedHashMap<>();
+    List<Double> shares = r.shares();
+    for (int i = 0; i < r.nodes().size(); i++) {
+      String id = r.nodes().get(i);
+      Map<String, Object> n = new LinkedHashMap<>();
+      n.put("url", urls.getOrDefault(id, id.equals(self) ? advertiseUrl : null));
+      n.put("share", shares.get(i));
+      nodes.put(id, n);
+    }
+    Map<String, Object> m = new LinkedHashMap<>();
+    m.put("enabled", enabled);
+    m.put("self", self);
+    m.put("members", nodes);
+    return m;
+  }
+}
@@ -0,0 +1,90 @@
+package com.example.alert.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring. Each node is placed at {@code virtualNodes} points; a key belongs to the
+ * first point at or after its hash. When a node joins or leaves, only the keys between its points and their
+ * predecessors move, about 1/n of them. Lookups are a binary search over a flat sorted array.
+ */
+public final class HashRing {
+  private final long[] points;
+  private final String[] owners;
+  private final List<String> nodes;
+
+  public HashRing(Collection<String> nodeIds, int virtualNodes) {
+    this.nodes = List.copyOf(new TreeSet<>(nodeIds));
+    int n = nodes.size() * virtualNodes;
+    long[][] placed = new long[n][2];
+    int k = 0;
+    for (int node = 0; node < nodes.size(); node++) {
+      for (int v = 0; v < virtualNodes; v++) {
+        placed[k][0] = hash(nodes.get(node) + "#" + v);
+        placed[k][1] = node;
+        k++;
+      }
+    }
+    // Ties between points are broken by node id order, so every member builds the same ring.
+    Arrays.sort(placed, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+    this.points = new long[n];
+    this.owners = new String[n];
+    for (int i = 0; i < n; i++) {
+      points[i] = placed[i][0];
+      owners[i] = nodes.get((int) placed[i][1]);
+    }
+  }
+
+  public List<String> nodes() {
+    return nodes;
+  }
+
+  public boolean isEmpty() {
+    return points.length == 0;
+  }
+
+  /** The node owning {@code key}, or null on an empty ring. */
+  public String owner(String key) {
+    if (points.length == 0) return null;
+    int i = Arrays.binarySearch(points, hash(key));
+    if (i < 0) i = -i - 1;
+    return owners[i == points.length ? 0 : i];
+  }
+
+  /** Share of the key space each node owns, in node order; for diagnostics. */
+  public List<Double> shares() {
+    double[] share = new double[nodes.size()];
+    for (int i = 0; i < points.length; i++) {
+      long from = i == 0 ? points[points.length - 1] : points[i - 1];
+      // Distance back to the previous point, wrapping around the ring, as a fraction of 2^64.
+      double span = points.length == 1 ? 1.0 : unsigned(points[i] - from) / 0x1p64;
+      share[nodes.indexOf(owners[i])] += span;
+    }
+    List<Double> out = new ArrayList<>(share.length);
+    for (double s : share) out.add(s);
+    return out;
+  }
+
+  private static double unsigned(long v) {
+    return v >= 0 ? v : (v >>> 1) * 2.0 + (v & 1);
+  }
+
+  /** FNV-1a over UTF-8 with a murmur3 finaliser, so similar ids (web-1, web-2) spread over the ring. */
+  static long hash(String key) {
+    long h = 0xcbf29ce484222325L;
+    for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+      h ^= b & 0xff;
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
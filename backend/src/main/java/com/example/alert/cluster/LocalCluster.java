@@ -0,0 +1,54 @@
+package com.example.alert.cluster;
+
+import com.example.alert.Application;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Starts several nodes in one JVM on consecutive ports, sharing the in-memory database, to try partitioned
+ * detection on one machine: {@code LocalCluster [nodes=3] [basePort=8081] [--spring.property=value ...]}.
+ * Send samples to any port; {@code GET /api/cluster?deviceId=...} shows who owns a device. Type a node
+ * number and Enter to stop that node and watch the others take over its devices.
+ */
+public final class LocalCluster {
+  private LocalCluster() {}
+
+  public static void main(String[] args) throws Exception {
+    int nodes = args.length > 0 && !args[0].startsWith("--") ? Integer.parseInt(args[0]) : 3;
+    int basePort = args.length > 1 && !args[1].startsWith("--") ? Integer.parseInt(args[1]) : 8081;
+    String[] extra = Arrays.stream(args).filter(a -> a.startsWith("--")).toArray(String[]::new);
+
+    List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    for (int i = 0; i < nodes; i++) {
+      int port = basePort + i;
+      contexts.add(new SpringApplicationBuilder(Application.class)
+          .properties(
+              "server.port=" + port,
+              "cluster.enabled=true",
+              "cluster.nodeId=node-" + i,
+              "cluster.advertiseUrl=http://localhost:" + port,
+              "events.series.dir=./series-data/node-" + i)
+          .run(extra));
+    }
+    System.out.println("Cluster up on ports " + basePort + ".." + (basePort + nodes - 1) + "; enter a node number to stop it");
+
+    BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+    for (String line; (line = in.readLine()) != null; ) {
+      try {
+        int i = Integer.parseInt(line.trim());
+        if (contexts.get(i).isActive()) {
+          contexts.get(i).close();
+          System.out.println("Stopped node-" + i);
+        }
+      } catch (RuntimeException ex) {
+        System.out.println("Expected a node number between 0 and " + (nodes - 1));
+      }
+    }
+  }
+}
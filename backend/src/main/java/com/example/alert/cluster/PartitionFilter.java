@@ -0,0 +1,239 @@
+package com.example.alert.cluster;
+
+import com.example.alert.model.Alert;
+import com.example.alert.model.Event;
+import com.example.alert.repo.AlertRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sends device-scoped requests to the node that owns the device. Covers sample ingest
+ * ({@code /api/events}, {@code /batch}, {@code /window}, {@code /heartbeat}, and their {@code /api/fn/events} routes) and alert answers
+ * ({@code /api/alerts/{id}/confirm}), since detection state and alert timers live on the owner.
+ *
+ * The device comes from the {@code deviceId} query parameter when present (cheapest; clients in a cluster
+ * should send it), else from the top-level "deviceId" of a JSON body, else the alert's row. A misrouted
+ * request is proxied to the owner ({@code cluster.routing=forward}) or answered with a 307 to it
+ * ({@code redirect}). A forwarded request is always handled where it lands, so nodes that briefly disagree
+ * about the ring never bounce it back and forth. An owner that cannot be connected to never saw the request,
+ * so it is handled locally; one that took it and then failed to answer in time may have acted on it, so the
+ * client gets a 504 (502 for a broken answer) and retries instead of a second node detecting the same samples.
+ */
+@Component
+public class PartitionFilter extends OncePerRequestFilter {
+  private static final Logger log = LoggerFactory.getLogger(PartitionFilter.class);
+  static final String FORWARDED_HEADER = "X-Cluster-Forwarded-By";
+  private static final Pattern CONFIRM = Pattern.compile("^/api/alerts/(\\d+)/confirm$");
+  // Hop-by-hop headers (RFC 9110 7.6.1) describe the connection to the owner, not the answer; the servlet
+  // container frames the body to the client itself.
+  private static final Set<String> NOT_COPIED = Set.of("connection", "keep-alive", "proxy-authenticate",
+      "proxy-authorization", "proxy-connection", "te", "trailer", "transfer-encoding", "upgrade", "content-length");
+
+  private final ClusterMembership cluster;
+  private final AlertRepository alertRepo;
+  private final JsonFactory jsonFactory;
+  private final boolean redirect;
+  private final long timeoutMs;
+  private final HttpClient http;
+  private final AtomicLong forwarded = new AtomicLong();
+  private final AtomicLong redirected = new AtomicLong();
+  private final AtomicLong forwardFailed = new AtomicLong();
+  private final AtomicLong forwardNoAnswer = new AtomicLong();
+
+  public PartitionFilter(ClusterMembership cluster, AlertRepository alertRepo, ObjectMapper mapper,
+                         @Value("${cluster.routing:forward}") String routing,
+                         @Value("${cluster.forward.connectTimeoutMs:1000}") long connectTimeoutMs,
+                         @Value("${cluster.forward.timeoutMs:5000}") long timeoutMs) {
+    this.cluster = cluster;
+    this.alertRepo = alertRepo;
+    this.jsonFactory = mapper.getFactory();
+    this.redirect = "redirect".equalsIgnoreCase(routing);
+    this.timeoutMs = timeoutMs;
+    // One pooled client for all forwards; HTTP/1.1 keeps connections to peers alive.
+    this.http = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+        .build();
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    if (!cluster.isEnabled() || !"POST".equals(request.getMethod())) return true;
+    String path = request.getRequestURI();
+    return !(path.equals("/api/events") || path.startsWith("/api/events/") || path.startsWith("/api/fn/events/")
+        || CONFIRM.matcher(path).matches());
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    if (request.getHeader(FORWARDED_HEADER) != null) {
+      chain.doFilter(request, response);
+      return;
+    }
+    byte[] body = null;
+    String deviceId = request.getParameter("deviceId");
+    if (deviceId == null || deviceId.isBlank()) {
+      Matcher m = CONFIRM.matcher(request.getRequestURI());
+      if (m.matches()) {
+        deviceId = alertRepo.findById(Long.valueOf(m.group(1))).map(Alert::getDeviceId).orElse(null);
+      } else {
+        body = request.getInputStream().readAllBytes();
+        deviceId = deviceIdFromJson(request.getContentType(), body);
+      }
+    }
+    if (deviceId == null || deviceId.isBlank()) deviceId = Event.DEFAULT_DEVICE;
+
+    String owner = cluster.ownerOf(deviceId);
+    String ownerUrl = owner == null || owner.equals(cluster.self()) ? null : cluster.urlOf(owner);
+    HttpServletRequest local = body == null ? request : new CachedBodyRequest(request, body);
+    if (ownerUrl == null) {
+      chain.doFilter(local, response);
+      return;
+    }
+    String target = ownerUrl + request.getRequestURI() + (request.getQueryString() == null ? "" : "?" + request.getQueryString());
+    if (redirect) {
+      redirected.incrementAndGet();
+      response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+      response.setHeader("Location", target);
+      return;
+    }
+    if (body == null) body = request.getInputStream().readAllBytes();
+    if (!forward(target, request.getContentType(), body, response)) {
+      chain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+  }
+
+  /** Proxies the request to its owner and copies the answer back; false if no connection to the owner could be made. */
+  private boolean forward(String target, String contentType, byte[] body, HttpServletResponse response) throws IOException {
+    HttpRequest.Builder req = HttpRequest.newBuilder(URI.create(target))
+        .timeout(Duration.ofMillis(timeoutMs))
+        .header(FORWARDED_HEADER, cluster.self())
+        .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+    if (contentType != null) req.header("Content-Type", contentType);
+    HttpResponse<byte[]> resp;
+    try {
+      resp = http.send(req.build(), HttpResponse.BodyHandlers.ofByteArray());
+    } catch (ConnectException | HttpConnectTimeoutException ex) {
+      if (forwardFailed.getAndIncrement() % 1000 == 0) {
+        log.warn("Forward to owner failed, handling locally: target={} error={}", target, ex.toString());
+      }
+      return false;
+    } catch (IOException ex) {
+      // Sent, so possibly processed: handling it here too could raise a second alert for the same fall.
+      boolean timedOut = ex instanceof HttpTimeoutException;
+      if (forwardNoAnswer.getAndIncrement() % 1000 == 0) {
+        log.warn("Owner did not answer a forward: target={} error={}", target, ex.toString());
+      }
+      response.setStatus(timedOut ? HttpStatus.GATEWAY_TIMEOUT.value() : HttpStatus.BAD_GATEWAY.value());
+      response.setContentType("application/json");
+      response.getOutputStream().write((timedOut ? "{\"error\":\"owner node did not answer in time\"}"
+          : "{\"error\":\"owner node failed to answer\"}").getBytes(StandardCharsets.UTF_8));
+      return true;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    forwarded.incrementAndGet();
+    response.setStatus(resp.statusCode());
+    // All end-to-end headers, so e.g. a 429's Retry-After from the owner's admission control reaches the device.
+    for (Map.Entry<String, List<String>> h : resp.headers().map().entrySet()) {
+      if (NOT_COPIED.contains(h.getKey().toLowerCase(Locale.ROOT))) continue;
+      for (String v : h.getValue()) response.addHeader(h.getKey(), v);
+    }
+    response.getOutputStream().write(resp.body());
+    return true;
+  }
+
+  /** Top-level "deviceId" of a JSON body, without binding the rest; null for other content types. */
+  private String deviceIdFromJson(String contentType, byte[] body) throws IOException {
+    if (contentType == null || !contentType.contains("json") || body.length == 0) return null;
+    try (JsonParser p = jsonFactory.createParser(body)) {
+      if (p.nextToken() != JsonToken.START_OBJECT) return null;
+      while (p.nextToken() == JsonToken.FIELD_NAME) {
+        String field = p.getCurrentName();
+        JsonToken t = p.nextToken();
+        if ("deviceId".equals(field)) return t == JsonToken.VALUE_STRING ? p.getText() : null;
+        p.skipChildren();
+      }
+    } catch (JsonProcessingException ex) {
+      return null; // let the controller reject it
+    }
+    return null;
+  }
+
+  public long forwardedCount() { return forwarded.get(); }
+  public long redirectedCount() { return redirected.get(); }
+  public long forwardFailedCount() { return forwardFailed.get(); }
+  public long forwardNoAnswerCount() { return forwardNoAnswer.get(); }
+
+  /** Replays a body the filter already read. */
+  private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+    private final byte[] body;
+
+    CachedBodyRequest(HttpServletRequest request, byte[] body) {
+      super(request);
+      this.body = body;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+      ByteArrayInputStream in = new ByteArrayInputStream(body);
+      return new ServletInputStream() {
+        @Override public boolean isFinished() { return in.available() == 0; }
+        @Override public boolean isReady() { return true; }
+        @Override public void setReadListener(ReadListener listener) { throw new UnsupportedOperationException(); }
+        @Override public int read() { return in.read(); }
+        @Override public int read(byte[] b, int off, int len) { return in.read(b, off, len); }
+      };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+      return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public int getContentLength() { return body.length; }
+
+    @Override
+    public long getContentLengthLong() { return body.length; }
+  }
+}
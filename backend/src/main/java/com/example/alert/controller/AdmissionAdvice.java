@@ -0,0 +1,24 @@
+package com.example.alert.controller;
+
+import com.example.alert.service.AdmissionControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/** Uploads {@link AdmissionControl} turns away: 429 with a Retry-After in seconds and the exact delay in the body. */
+@RestControllerAdvice
+public class AdmissionAdvice {
+  @ExceptionHandler(AdmissionControl.Rejected.class)
+  public ResponseEntity<Map<String, Object>> rejected(AdmissionControl.Rejected ex) {
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header("Retry-After", String.valueOf(ex.retryAfterSeconds()))
+        .body(body(ex));
+  }
+
+  static Map<String, Object> body(AdmissionControl.Rejected ex) {
+    return Map.of("error", ex.reason(), "retryAfterMs", ex.retryAfterMs());
+  }
+}
@@ -0,0 +1,29 @@
+package com.example.alert.controller;
+
+import com.example.alert.cluster.ClusterMembership;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cluster")
+@CrossOrigin(origins = "*")
+public class ClusterController {
+  private final ClusterMembership cluster;
+
+  public ClusterController(ClusterMembership cluster) {
+    this.cluster = cluster;
+  }
+
+  /** Live members with their share of the ring; with {@code deviceId}, also which node owns that device. */
+  @GetMapping
+  public Map<String, Object> status(@RequestParam(value = "deviceId", required = false) String deviceId) {
+    Map<String, Object> m = new LinkedHashMap<>(cluster.status());
+    if (deviceId != null && !deviceId.isBlank()) {
+      m.put("deviceId", deviceId);
+      m.put("owner", cluster.ownerOf(deviceId));
+    }
+    return m;
+  }
+}
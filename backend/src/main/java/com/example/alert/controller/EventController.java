@@ -2,11 +2,29 @@ package com.example.alert.controller;
 
 import com.example.alert.model.Alert;
 import com.example.alert.model.Event;
+import com.example.alert.model.Heartbeat;
 import com.example.alert.repo.AlertRepository;
 import com.example.alert.repo.EventRepository;
+import com.example.alert.repo.series.EventSeriesStore;
+import com.example.alert.model.SampleBatch;
+import com.example.alert.service.AdmissionControl;
+import com.example.alert.service.AlertMetrics;
 import com.example.alert.service.DetectionService;
+import com.example.alert.service.EventWriteBehind;
+import com.example.alert.service.IngestService;
+import com.example.alert.service.RecentCache;
+import com.example.alert.service.SampleBatchDecoder;
+import com.example.alert.service.StreamHub;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -14,14 +32,36 @@ import java.util.Map;
 @RequestMapping("/api")
 @CrossOrigin(origins = "*")
 public class EventController {
+  /** Upper bound on one /api/events/range answer, whatever {@code limit} asks for. */
+  static final int MAX_RANGE_EVENTS = 50_000;
+
   private final EventRepository eventRepo;
   private final AlertRepository alertRepo;
   private final DetectionService detectionService;
+  private final SampleBatchDecoder batchDecoder;
+  private final EventWriteBehind eventWriter;
+  private final EventSeriesStore seriesStore;
+  private final StreamHub stream;
+  private final RecentCache recent;
+  private final AlertMetrics metrics;
+  private final IngestService ingest;
+  private final AdmissionControl admission;
 
-  public EventController(EventRepository eventRepo, AlertRepository alertRepo, DetectionService detectionService) {
+  public EventController(EventRepository eventRepo, AlertRepository alertRepo, DetectionService detectionService,
+                         SampleBatchDecoder batchDecoder, EventWriteBehind eventWriter, EventSeriesStore seriesStore,
+                         StreamHub stream, RecentCache recent, AlertMetrics metrics, IngestService ingest,
+                         AdmissionControl admission) {
     this.eventRepo = eventRepo;
     this.alertRepo = alertRepo;
     this.detectionService = detectionService;
+    this.batchDecoder = batchDecoder;
+    this.eventWriter = eventWriter;
+    this.seriesStore = seriesStore;
+    this.stream = stream;
+    this.recent = recent;
+    this.metrics = metrics;
+    this.ingest = ingest;
+    this.admission = admission;
   }
 
   @GetMapping({"", "/"})
@@ -30,7 +70,13 @@ public class EventController {
       "message", "Fall Detection API",
       "health", "/api/health",
       "alerts", "/api/alerts",
-      "events_recent", "/api/events/recent"
+      "events_batch", "/api/events/batch",
+      "events_recent", "/api/events/recent",
+      "events_range", "/api/events/range",
+      "events_edge", "/api/events/edge",
+      "stream", "/api/stream",
+      "models", "/api/models",
+      "cluster", "/api/cluster"
     );
   }
 
@@ -41,7 +87,10 @@ public class EventController {
 
   @PostMapping("/events")
   public Map<String, Object> postEvent(@RequestBody Map<String, Object> payload) {
+    long start = System.nanoTime();
     Event e = new Event();
+    Object deviceId = payload.get("deviceId");
+    e.setDeviceId(deviceId instanceof String && !((String) deviceId).isBlank() ? (String) deviceId : Event.DEFAULT_DEVICE);
     e.setTimestamp(((Number)payload.getOrDefault("timestamp", System.currentTimeMillis())).longValue());
 
     Map<String, Object> accel = (Map<String, Object>) payload.get("accel");
@@ -63,13 +112,23 @@ public class EventController {
     e.setLat(lat instanceof Number ? ((Number)lat).doubleValue() : null);
     e.setLng(lng instanceof Number ? ((Number)lng).doubleValue() : null);
 
-    eventRepo.save(e);
-
-    Alert alert = detectionService.process(e);
+    // Detection runs on the in-memory event; persistence happens behind it.
+    AdmissionControl.Permit permit = admission.admit(e);
+    boolean saved;
+    Alert alert;
+    try {
+      saved = eventWriter.submit(e);
+      recent.onEvent(e);
+      alert = detectionService.process(e);
+    } finally {
+      admission.release(permit);
+    }
+    metrics.ingest(false, alert != null, start);
 
     if (alert != null) {
       return Map.of(
-        "saved", true,
+        "saved", saved,
+        "deviceId", alert.getDeviceId(),
         "alert", true,
         "alertId", alert.getId(),
         "status", alert.getStatus(),
@@ -77,22 +136,157 @@ public class EventController {
         "expiryAt", alert.getExpiryAt()
       );
     }
-    return Map.of("saved", true, "alert", false);
+    return Map.of("saved", saved, "alert", false);
+  }
+
+  @PostMapping(path = "/events/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public Map<String, Object> postBatchJson(HttpServletRequest request,
+                                           @RequestParam(value = "deviceId", required = false) String deviceId) throws IOException {
+    SampleBatch batch;
+    try {
+      batch = batchDecoder.decodeJson(request.getInputStream(), deviceIdOrDefault(deviceId));
+    } catch (IllegalArgumentException ex) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+    return ingest.ingestBatch(batch);
+  }
+
+  @PostMapping(path = "/events/batch", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+  public Map<String, Object> postBatchBinary(@RequestBody byte[] body,
+                                             @RequestParam(value = "deviceId", required = false) String deviceId) {
+    SampleBatch batch;
+    try {
+      batch = batchDecoder.decodeBinary(body, deviceIdOrDefault(deviceId));
+    } catch (IllegalArgumentException ex) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+    return ingest.ingestBatch(batch);
+  }
+
+  /** Edge pre-filter protocol: thresholds and window lengths a device needs to decide what to upload. */
+  @GetMapping("/events/edge")
+  public Map<String, Object> edgeProtocol() {
+    return detectionService.edgeProtocol();
+  }
+
+  @PostMapping("/events/heartbeat")
+  public Map<String, Object> postHeartbeat(@RequestBody Map<String, Object> payload) {
+    long start = System.nanoTime();
+    Object deviceId = payload.get("deviceId");
+    Heartbeat h = new Heartbeat(
+        deviceIdOrDefault(deviceId instanceof String ? (String) deviceId : null),
+        number(payload, "fromTs", 0).longValue(),
+        number(payload, "toTs", System.currentTimeMillis()).longValue(),
+        number(payload, "count", 0).intValue(),
+        number(payload, "accelMean", 0).doubleValue(),
+        number(payload, "accelMin", 0).doubleValue(),
+        number(payload, "accelMax", 0).doubleValue(),
+        number(payload, "gyroMax", 0).doubleValue(),
+        optionalDouble(payload, "lat"),
+        optionalDouble(payload, "lng"));
+    if (!h.isValid()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid heartbeat");
+    boolean upload = detectionService.heartbeat(h);
+    metrics.heartbeat(h.getCount(), upload, start);
+    return Map.of("deviceId", h.getDeviceId(), "upload", upload);
+  }
+
+  private static Number number(Map<String, Object> payload, String key, Number fallback) {
+    Object v = payload.get(key);
+    return v instanceof Number ? (Number) v : fallback;
+  }
+
+  private static Double optionalDouble(Map<String, Object> payload, String key) {
+    Object v = payload.get(key);
+    return v instanceof Number ? ((Number) v).doubleValue() : null;
+  }
+
+  @PostMapping(path = "/events/window", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public Map<String, Object> postWindowJson(HttpServletRequest request,
+                                            @RequestParam(value = "deviceId", required = false) String deviceId) throws IOException {
+    SampleBatch batch;
+    try {
+      batch = batchDecoder.decodeJson(request.getInputStream(), deviceIdOrDefault(deviceId));
+    } catch (IllegalArgumentException ex) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+    return ingest.ingestWindow(batch);
+  }
+
+  @PostMapping(path = "/events/window", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+  public Map<String, Object> postWindowBinary(@RequestBody byte[] body,
+                                              @RequestParam(value = "deviceId", required = false) String deviceId) {
+    SampleBatch batch;
+    try {
+      batch = batchDecoder.decodeBinary(body, deviceIdOrDefault(deviceId));
+    } catch (IllegalArgumentException ex) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+    return ingest.ingestWindow(batch);
+  }
+
+  private static String deviceIdOrDefault(String deviceId) {
+    return deviceId == null || deviceId.isBlank() ? Event.DEFAULT_DEVICE : deviceId;
   }
 
   @GetMapping("/alerts")
-  public List<Alert> alerts() {
-    return alertRepo.recent30();
+  public ResponseEntity<?> alerts(@RequestParam(value = "deviceId", required = false) String deviceId) {
+    boolean byDevice = deviceId != null && !deviceId.isBlank();
+    byte[] cached = recent.alertsJson(byDevice ? deviceId : null);
+    if (cached != null) return json(cached);
+    // Too many devices cached: read through to the table.
+    return ResponseEntity.ok(alertRepo.findTop30ByDeviceIdOrderByIdDesc(deviceId));
   }
 
   @PostMapping("/alerts/{id}/confirm")
   public Map<String, Object> confirmAlert(@PathVariable("id") Long id, @RequestParam("ok") boolean ok) {
+    admission.onConfirmation();
     detectionService.confirmAlert(id, ok);
     return Map.of("ok", true);
   }
 
   @GetMapping("/events/recent")
-  public List<Event> recentEvents() {
-    return eventRepo.recent30();
+  public ResponseEntity<?> recentEvents(@RequestParam(value = "deviceId", required = false) String deviceId) {
+    boolean byDevice = deviceId != null && !deviceId.isBlank();
+    byte[] cached = recent.eventsJson(byDevice ? deviceId : null);
+    if (cached != null) return json(cached);
+    if (seriesStore.isEnabled()) return ResponseEntity.ok(seriesStore.recent(deviceId, 30));
+    return ResponseEntity.ok(eventRepo.findTop30ByDeviceIdOrderByIdDesc(deviceId));
+  }
+
+  private static ResponseEntity<byte[]> json(byte[] body) {
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+  }
+
+  @GetMapping("/events/range")
+  public List<Event> eventRange(@RequestParam("deviceId") String deviceId,
+                                @RequestParam("from") long from,
+                                @RequestParam("to") long to,
+                                @RequestParam(value = "limit", defaultValue = "10000") int limit) {
+    limit = Math.max(1, Math.min(limit, MAX_RANGE_EVENTS));
+    if (seriesStore.isEnabled()) return seriesStore.range(deviceId, from, to, limit);
+    return eventRepo.findByDeviceIdAndTimestampBetweenOrderByTimestampAsc(deviceId, from, to, PageRequest.of(0, limit));
+  }
+
+  @GetMapping("/events/storage")
+  public Map<String, Object> eventStorage() {
+    return seriesStore.stats();
+  }
+
+  /**
+   * Server-Sent Events feed of alert changes and, with {@code events=true}, downsampled samples.
+   * Browsers resume automatically via the Last-Event-ID header; {@code lastEventId} does the same for other clients.
+   */
+  @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventIdHeader,
+                           @RequestParam(value = "lastEventId", required = false) Long lastEventId,
+                           @RequestParam(value = "deviceId", required = false) String deviceId,
+                           @RequestParam(value = "events", defaultValue = "false") boolean events) {
+    Long resumeFrom = lastEventIdHeader != null ? lastEventIdHeader : lastEventId;
+    return stream.subscribe(resumeFrom, deviceId == null || deviceId.isBlank() ? null : deviceId, events);
+  }
+
+  @GetMapping("/stream/stats")
+  public Map<String, Object> streamStats() {
+    return Map.of("subscribers", stream.subscriberCount(), "dropped", stream.droppedCount());
   }
 }
@@ -0,0 +1,75 @@
+package com.example.alert.controller;
+
+import com.example.alert.model.Event;
+import com.example.alert.model.SampleBatch;
+import com.example.alert.service.AdmissionControl;
+import com.example.alert.service.IngestService;
+import com.example.alert.service.SampleBatchDecoder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Functional variants of the batch and window uploads, at {@code /api/fn/events/batch} and {@code /api/fn/events/window}.
+ * Same formats and responses as {@link EventController}, but no argument binding, and with
+ * {@code ingest.fn.async} the request thread is handed back as soon as the body is read
+ * (see {@link IngestService#offload}). A full offload queue answers 503 with Retry-After, and uploads
+ * {@link AdmissionControl} turns away 429 like the annotated endpoints (see {@link AdmissionAdvice}).
+ */
+@Configuration
+public class IngestRoutes {
+  private final IngestService ingest;
+  private final SampleBatchDecoder batchDecoder;
+
+  public IngestRoutes(IngestService ingest, SampleBatchDecoder batchDecoder) {
+    this.ingest = ingest;
+    this.batchDecoder = batchDecoder;
+  }
+
+  @Bean
+  public RouterFunction<ServerResponse> ingestRouter() {
+    return RouterFunctions.route()
+        .POST("/api/fn/events/batch", req -> handle(req, false))
+        .POST("/api/fn/events/window", req -> handle(req, true))
+        .build();
+  }
+
+  private ServerResponse handle(ServerRequest req, boolean window) throws Exception {
+    String deviceId = req.param("deviceId").filter(d -> !d.isBlank()).orElse(Event.DEFAULT_DEVICE);
+    boolean binary = req.headers().contentType().map(MediaType.APPLICATION_OCTET_STREAM::isCompatibleWith).orElse(false);
+    byte[] body = req.body(byte[].class);
+    if (!ingest.isOffloading()) return respond(body, binary, deviceId, window);
+    try {
+      return ServerResponse.async(ingest.offload(() -> respond(body, binary, deviceId, window)));
+    } catch (RejectedExecutionException ex) {
+      return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1")
+          .body(Map.of("error", "ingest queue full"));
+    }
+  }
+
+  private ServerResponse respond(byte[] body, boolean binary, String deviceId, boolean window) {
+    SampleBatch batch;
+    try {
+      batch = binary ? batchDecoder.decodeBinary(body, deviceId)
+          : batchDecoder.decodeJson(new ByteArrayInputStream(body), deviceId);
+    } catch (IllegalArgumentException ex) {
+      return ServerResponse.badRequest().body(Map.of("error", String.valueOf(ex.getMessage())));
+    }
+    try {
+      return ServerResponse.ok().body(window ? ingest.ingestWindow(batch) : ingest.ingestBatch(batch));
+    } catch (AdmissionControl.Rejected ex) {
+      return ServerResponse.status(HttpStatus.TOO_MANY_REQUESTS)
+          .header("Retry-After", String.valueOf(ex.retryAfterSeconds()))
+          .body(AdmissionAdvice.body(ex));
+    }
+  }
+}
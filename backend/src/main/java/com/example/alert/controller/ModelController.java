@@ -0,0 +1,52 @@
+package com.example.alert.controller;
+
+import com.example.alert.service.ModelRegistry;
+import com.example.alert.service.ModelVersion;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/models")
+@CrossOrigin(origins = "*")
+public class ModelController {
+  private final ModelRegistry registry;
+
+  public ModelController(ModelRegistry registry) {
+    this.registry = registry;
+  }
+
+  /** Loaded models with their roles, score histograms and, for the shadow, agreement with the primary. */
+  @GetMapping
+  public Map<String, Object> models() {
+    return registry.describe();
+  }
+
+  @PostMapping("/{name}/promote")
+  public Map<String, Object> promote(@PathVariable("name") String name) {
+    try {
+      ModelVersion v = registry.promote(name);
+      return Map.of("primary", v.label());
+    } catch (IllegalArgumentException ex) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+  }
+
+  @PostMapping("/{name}/shadow")
+  public Map<String, Object> shadow(@PathVariable("name") String name) {
+    try {
+      ModelVersion v = registry.shadow(name);
+      return Map.of("shadow", v.label());
+    } catch (IllegalArgumentException ex) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+  }
+
+  @DeleteMapping("/shadow")
+  public Map<String, Object> clearShadow() {
+    registry.clearShadow();
+    return Map.of("ok", true);
+  }
+}
@@ -0,0 +1,96 @@
+package com.example.alert.controller;
+
+import com.example.alert.service.ResponderService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/responders")
+@CrossOrigin(origins = "*")
+public class ResponderController {
+  private final ResponderService responders;
+
+  public ResponderController(ResponderService responders) {
+    this.responders = responders;
+  }
+
+  /** Registers or replaces a responder: {@code name}, {@code channel}, {@code recipient}, {@code lat}, {@code lng}. */
+  @PutMapping("/{id}")
+  public Map<String, Object> register(@PathVariable("id") String id, @RequestBody Map<String, Object> payload) {
+    Object channel = payload.get("channel");
+    Object recipient = payload.get("recipient");
+    if (!(channel instanceof String) || !(recipient instanceof String) || ((String) recipient).isBlank()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "channel and recipient are required");
+    }
+    Object name = payload.get("name");
+    ResponderService.Responder r = new ResponderService.Responder(id, name instanceof String ? (String) name : id,
+        (String) channel, (String) recipient, Boolean.TRUE.equals(payload.get("fixed")));
+    try {
+      responders.register(r, coordinate(payload, "lat"), coordinate(payload, "lng"), !Boolean.FALSE.equals(payload.get("onCall")));
+    } catch (IllegalArgumentException ex) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+    return Map.of("id", id, "registered", true);
+  }
+
+  /** Live location report, optionally with {@code onCall}; 404 for an unregistered responder. */
+  @PostMapping("/{id}/location")
+  public Map<String, Object> location(@PathVariable("id") String id, @RequestBody Map<String, Object> payload) {
+    Object onCall = payload.get("onCall");
+    boolean known;
+    try {
+      known = responders.updateLocation(id, coordinate(payload, "lat"), coordinate(payload, "lng"),
+          onCall instanceof Boolean ? (Boolean) onCall : null);
+    } catch (IllegalArgumentException ex) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+    if (!known) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown responder " + id);
+    return Map.of("id", id, "updated", true);
+  }
+
+  @DeleteMapping("/{id}")
+  public Map<String, Object> remove(@PathVariable("id") String id) {
+    if (!responders.remove(id)) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown responder " + id);
+    return Map.of("id", id, "removed", true);
+  }
+
+  @GetMapping("/nearest")
+  public List<Map<String, Object>> nearest(@RequestParam("lat") double lat, @RequestParam("lng") double lng,
+                                           @RequestParam(value = "k", defaultValue = "3") int k) {
+    List<ResponderService.Match> matches;
+    try {
+      matches = responders.nearest(lat, lng, Math.min(k, 100));
+    } catch (IllegalArgumentException ex) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+    List<Map<String, Object>> out = new ArrayList<>(matches.size());
+    for (ResponderService.Match m : matches) {
+      Map<String, Object> row = new LinkedHashMap<>();
+      row.put("id", m.responder().id());
+      row.put("name", m.responder().name());
+      row.put("channel", m.responder().channel());
+      row.put("lat", m.lat());
+      row.put("lng", m.lng());
+      row.put("distanceM", Math.round(m.distanceMetres()));
+      out.add(row);
+    }
+    return out;
+  }
+
+  @GetMapping("/stats")
+  public Map<String, Object> stats() {
+    return responders.stats();
+  }
+
+  private static double coordinate(Map<String, Object> payload, String key) {
+    Object v = payload.get(key);
+    if (!(v instanceof Number)) throw new IllegalArgumentException(key + " is required");
+    return ((Number) v).doubleValue();
+  }
+}
@@ -0,0 +1,28 @@
+package com.example.alert.controller;
+
+import com.example.alert.model.AlertSnapshot;
+import com.example.alert.service.SnapshotService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/alerts")
+@CrossOrigin(origins = "*")
+public class SnapshotController {
+  private final SnapshotService snapshots;
+
+  public SnapshotController(SnapshotService snapshots) {
+    this.snapshots = snapshots;
+  }
+
+  /** Raw samples around the alert's trigger; 404 until the post-trigger window has been captured. */
+  @GetMapping("/{id}/snapshot")
+  public Map<String, Object> snapshot(@PathVariable("id") Long id) {
+    AlertSnapshot s = snapshots.find(id);
+    if (s == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No snapshot for alert " + id);
+    return SnapshotService.toMap(s);
+  }
+}
@@ -1,23 +1,40 @@
 package com.example.alert.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "alerts")
+@Table(name = "alerts", indexes = {
+    // Pending-alert recovery and retention scan by status and deadline; dashboards read newest-per-device.
+    @Index(name = "idx_alerts_status_confirm", columnList = "status, confirmStartsAt"),
+    @Index(name = "idx_alerts_status_expiry", columnList = "status, expiryAt"),
+    @Index(name = "idx_alerts_device", columnList = "deviceId, id")
+})
 public class Alert {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
 
+  private String deviceId;
   private long timestamp;
   private String reason;
   private Double lat; private Double lng;
-  private String status; // PENDING_SILENT, PENDING_CONFIRM, SENT, CANCELLED
+  private AlertStatus status;
   private Long confirmStartsAt; // epoch ms when modal should appear
   private Long expiryAt; // epoch ms when auto-send should occur
+  @JsonIgnore
+  private String leaseOwner; // node firing this alert's timers, see DetectionService
+  @JsonIgnore
+  private Long leaseUntil;
+  @Version
+  @JsonIgnore
+  @Column(columnDefinition = "bigint default 0 not null") // lets ddl-auto add it to an existing table
+  private long version; // bumped by every status change, including the bulk ones in AlertRepository
 
   public Long getId() { return id; }
   public void setId(Long id) { this.id = id; }
+  public String getDeviceId() { return deviceId; }
+  public void setDeviceId(String deviceId) { this.deviceId = deviceId; }
   public long getTimestamp() { return timestamp; }
   public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
   public String getReason() { return reason; }
@@ -26,10 +43,16 @@ public class Alert {
   public void setLat(Double lat) { this.lat = lat; }
   public Double getLng() { return lng; }
   public void setLng(Double lng) { this.lng = lng; }
-  public String getStatus() { return status; }
-  public void setStatus(String status) { this.status = status; }
+  public AlertStatus getStatus() { return status; }
+  public void setStatus(AlertStatus status) { this.status = status; }
   public Long getConfirmStartsAt() { return confirmStartsAt; }
   public void setConfirmStartsAt(Long confirmStartsAt) { this.confirmStartsAt = confirmStartsAt; }
   public Long getExpiryAt() { return expiryAt; }
   public void setExpiryAt(Long expiryAt) { this.expiryAt = expiryAt; }
+  public String getLeaseOwner() { return leaseOwner; }
+  public void setLeaseOwner(String leaseOwner) { this.leaseOwner = leaseOwner; }
+  public Long getLeaseUntil() { return leaseUntil; }
+  public void setLeaseUntil(Long leaseUntil) { this.leaseUntil = leaseUntil; }
+  public long getVersion() { return version; }
+  public void setVersion(long version) { this.version = version; }
 }
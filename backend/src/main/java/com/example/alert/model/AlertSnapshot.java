@@ -0,0 +1,44 @@
+package com.example.alert.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Raw IMU samples around an alert's trigger, frozen when the alert fired so review never scans the events
+ * table. Samples are one compressed series block (see {@code SeriesCodec}); one row per alert, keyed by its id.
+ */
+@Entity
+@Table(name = "alert_snapshots")
+public class AlertSnapshot {
+  @Id
+  private Long alertId;
+
+  private String deviceId;
+  private long triggerTs; // the sample that raised the alert
+  private long fromTs;
+  private long toTs;
+  private int samples;
+  private int fractionBits;
+  @Lob
+  @Column(length = 1 << 20)
+  private byte[] payload;
+  private long createdAt;
+
+  public Long getAlertId() { return alertId; }
+  public void setAlertId(Long alertId) { this.alertId = alertId; }
+  public String getDeviceId() { return deviceId; }
+  public void setDeviceId(String deviceId) { this.deviceId = deviceId; }
+  public long getTriggerTs() { return triggerTs; }
+  public void setTriggerTs(long triggerTs) { this.triggerTs = triggerTs; }
+  public long getFromTs() { return fromTs; }
+  public void setFromTs(long fromTs) { this.fromTs = fromTs; }
+  public long getToTs() { return toTs; }
+  public void setToTs(long toTs) { this.toTs = toTs; }
+  public int getSamples() { return samples; }
+  public void setSamples(int samples) { this.samples = samples; }
+  public int getFractionBits() { return fractionBits; }
+  public void setFractionBits(int fractionBits) { this.fractionBits = fractionBits; }
+  public byte[] getPayload() { return payload; }
+  public void setPayload(byte[] payload) { this.payload = payload; }
+  public long getCreatedAt() { return createdAt; }
+  public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,39 @@
+package com.example.alert.model;
+
+import java.util.List;
+
+/**
+ * Lifecycle of an alert: silent grace, then the confirmation window, then a final state. Stored as its
+ * {@link #code()} (see {@link AlertStatusConverter}); the JSON form is the name, as before.
+ */
+public enum AlertStatus {
+  PENDING_SILENT(1),
+  PENDING_CONFIRM(2),
+  SENT(3),
+  CANCELLED(4);
+
+  public static final List<AlertStatus> PENDING = List.of(PENDING_SILENT, PENDING_CONFIRM);
+  public static final List<AlertStatus> FINAL = List.of(SENT, CANCELLED);
+
+  private final short code;
+
+  AlertStatus(int code) {
+    this.code = (short) code;
+  }
+
+  /** Stable column value; never reuse one, and add new states with new codes rather than relying on ordinal. */
+  public short code() {
+    return code;
+  }
+
+  public boolean isPending() {
+    return this == PENDING_SILENT || this == PENDING_CONFIRM;
+  }
+
+  public static AlertStatus fromCode(short code) {
+    for (AlertStatus s : values()) {
+      if (s.code == code) return s;
+    }
+    throw new IllegalArgumentException("unknown alert status code " + code);
+  }
+}
@@ -0,0 +1,18 @@
+package com.example.alert.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/** Stores {@link AlertStatus} as a smallint code instead of its name, keeping the status indexes narrow. */
+@Converter(autoApply = true)
+public class AlertStatusConverter implements AttributeConverter<AlertStatus, Short> {
+  @Override
+  public Short convertToDatabaseColumn(AlertStatus status) {
+    return status == null ? null : status.code();
+  }
+
+  @Override
+  public AlertStatus convertToEntityAttribute(Short code) {
+    return code == null ? null : AlertStatus.fromCode(code);
+  }
+}
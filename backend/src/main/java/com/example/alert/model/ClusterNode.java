@@ -0,0 +1,24 @@
+package com.example.alert.model;
+
+import jakarta.persistence.*;
+
+/** A backend node taking part in partitioned detection; live while its heartbeat is fresh. */
+@Entity
+@Table(name = "cluster_nodes")
+public class ClusterNode {
+  @Id
+  private String id;
+
+  private String url; // base URL other nodes forward to, e.g. http://10.0.0.5:8081
+  private long startedAt;
+  private long heartbeatAt;
+
+  public String getId() { return id; }
+  public void setId(String id) { this.id = id; }
+  public String getUrl() { return url; }
+  public void setUrl(String url) { this.url = url; }
+  public long getStartedAt() { return startedAt; }
+  public void setStartedAt(long startedAt) { this.startedAt = startedAt; }
+  public long getHeartbeatAt() { return heartbeatAt; }
+  public void setHeartbeatAt(long heartbeatAt) { this.heartbeatAt = heartbeatAt; }
+}
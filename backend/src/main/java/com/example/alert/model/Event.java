@@ -1,23 +1,41 @@
 package com.example.alert.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "events")
+@Table(name = "events", indexes = {
+    @Index(name = "idx_events_device_ts", columnList = "deviceId, timestamp"),
+    @Index(name = "idx_events_bucket", columnList = "bucket")
+})
 public class Event {
+  public static final String DEFAULT_DEVICE = "default";
+  public static final long BUCKET_MS = 3_600_000L; // retention drops whole hours
+
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
-  private Long id;
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "events_seq")
+  @SequenceGenerator(name = "events_seq", sequenceName = "events_seq", allocationSize = 500)
+  private Long id; // pooled sequence so write-behind flushes can be JDBC-batched
 
+  private String deviceId;
   private long timestamp;
+  @JsonIgnore
+  private long bucket; // timestamp / BUCKET_MS, kept in step by setTimestamp
   private double ax; private double ay; private double az;
   private double gx; private double gy; private double gz;
   private Double lat; private Double lng;
 
   public Long getId() { return id; }
   public void setId(Long id) { this.id = id; }
+  public String getDeviceId() { return deviceId; }
+  public void setDeviceId(String deviceId) { this.deviceId = deviceId; }
   public long getTimestamp() { return timestamp; }
-  public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+  public void setTimestamp(long timestamp) {
+    this.timestamp = timestamp;
+    this.bucket = Math.floorDiv(timestamp, BUCKET_MS);
+  }
+  @JsonIgnore
+  public long getBucket() { return bucket; }
   public double getAx() { return ax; }
   public void setAx(double ax) { this.ax = ax; }
   public double getAy() { return ay; }
@@ -0,0 +1,49 @@
+package com.example.alert.model;
+
+/**
+ * Summary of the samples an edge device kept to itself since its last heartbeat, as posted to
+ * /api/events/heartbeat. Magnitudes are in the units of the raw samples (m/s^2 and deg/s).
+ */
+public class Heartbeat {
+  private final String deviceId;
+  private final long fromTs;
+  private final long toTs;
+  private final int count;
+  private final double accelMean;
+  private final double accelMin;
+  private final double accelMax;
+  private final double gyroMax;
+  private final Double lat; private final Double lng;
+
+  public Heartbeat(String deviceId, long fromTs, long toTs, int count,
+                   double accelMean, double accelMin, double accelMax, double gyroMax,
+                   Double lat, Double lng) {
+    this.deviceId = deviceId;
+    this.fromTs = fromTs;
+    this.toTs = toTs;
+    this.count = count;
+    this.accelMean = accelMean;
+    this.accelMin = accelMin;
+    this.accelMax = accelMax;
+    this.gyroMax = gyroMax;
+    this.lat = lat; this.lng = lng;
+  }
+
+  public String getDeviceId() { return deviceId; }
+  public long getFromTs() { return fromTs; }
+  public long getToTs() { return toTs; }
+  public int getCount() { return count; }
+  public double getAccelMean() { return accelMean; }
+  public double getAccelMin() { return accelMin; }
+  public double getAccelMax() { return accelMax; }
+  public double getGyroMax() { return gyroMax; }
+  public Double getLat() { return lat; }
+  public Double getLng() { return lng; }
+
+  /** Usable when the span is ordered and every statistic is finite; an empty heartbeat is still a liveness signal. */
+  public boolean isValid() {
+    return count >= 0 && toTs > 0 && fromTs <= toTs
+        && Double.isFinite(accelMean) && Double.isFinite(accelMin)
+        && Double.isFinite(accelMax) && Double.isFinite(gyroMax);
+  }
+}
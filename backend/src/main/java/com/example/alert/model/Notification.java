@@ -0,0 +1,50 @@
+package com.example.alert.model;
+
+import jakarta.persistence.*;
+
+/** One delivery of an alert over one channel; tracked so sends survive retries and restarts. */
+@Entity
+@Table(name = "notifications", indexes = {
+    @Index(name = "idx_notifications_due", columnList = "status, nextAttemptAt"),
+    @Index(name = "idx_notifications_alert", columnList = "alertId")
+})
+public class Notification {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  private Long alertId;
+  private String channel; // telegram, sms
+  private String recipient; // chat id / phone; null = channel default
+  @Column(length = 2000)
+  private String text;
+  private String status; // PENDING, SENT, FAILED
+  private int attempts;
+  private String lastError;
+  private long createdAt;
+  private long updatedAt;
+  private long nextAttemptAt;
+
+  public Long getId() { return id; }
+  public void setId(Long id) { this.id = id; }
+  public Long getAlertId() { return alertId; }
+  public void setAlertId(Long alertId) { this.alertId = alertId; }
+  public String getChannel() { return channel; }
+  public void setChannel(String channel) { this.channel = channel; }
+  public String getRecipient() { return recipient; }
+  public void setRecipient(String recipient) { this.recipient = recipient; }
+  public String getText() { return text; }
+  public void setText(String text) { this.text = text; }
+  public String getStatus() { return status; }
+  public void setStatus(String status) { this.status = status; }
+  public int getAttempts() { return attempts; }
+  public void setAttempts(int attempts) { this.attempts = attempts; }
+  public String getLastError() { return lastError; }
+  public void setLastError(String lastError) { this.lastError = lastError; }
+  public long getCreatedAt() { return createdAt; }
+  public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+  public long getUpdatedAt() { return updatedAt; }
+  public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+  public long getNextAttemptAt() { return nextAttemptAt; }
+  public void setNextAttemptAt(long nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+}
@@ -0,0 +1,56 @@
+package com.example.alert.model;
+
+/**
+ * Columnar batch of IMU samples as posted to /api/events/batch.
+ * Columns are parallel primitive arrays; only the first {@code size} entries are valid.
+ */
+public class SampleBatch {
+  private final String deviceId;
+  private final int size;
+  private final long[] timestamps;
+  private final double[] ax; private final double[] ay; private final double[] az;
+  private final double[] gx; private final double[] gy; private final double[] gz;
+  private final Double lat; private final Double lng;
+
+  public SampleBatch(String deviceId, int size, long[] timestamps,
+                     double[] ax, double[] ay, double[] az,
+                     double[] gx, double[] gy, double[] gz,
+                     Double lat, Double lng) {
+    this.deviceId = deviceId;
+    this.size = size;
+    this.timestamps = timestamps;
+    this.ax = ax; this.ay = ay; this.az = az;
+    this.gx = gx; this.gy = gy; this.gz = gz;
+    this.lat = lat; this.lng = lng;
+  }
+
+  public String getDeviceId() { return deviceId; }
+  public int size() { return size; }
+  public long timestamp(int i) { return timestamps[i]; }
+  public double ax(int i) { return ax[i]; }
+  public double ay(int i) { return ay[i]; }
+  public double az(int i) { return az[i]; }
+  public double gx(int i) { return gx[i]; }
+  public double gy(int i) { return gy[i]; }
+  public double gz(int i) { return gz[i]; }
+  public Double getLat() { return lat; }
+  public Double getLng() { return lng; }
+
+  /** A row is usable when it has a real timestamp and every axis is finite. */
+  public boolean isValid(int i) {
+    return timestamps[i] > 0
+        && Double.isFinite(ax[i]) && Double.isFinite(ay[i]) && Double.isFinite(az[i])
+        && Double.isFinite(gx[i]) && Double.isFinite(gy[i]) && Double.isFinite(gz[i]);
+  }
+
+  public Event toEvent(int i) {
+    Event e = new Event();
+    e.setDeviceId(deviceId);
+    e.setTimestamp(timestamps[i]);
+    e.setAx(ax[i]); e.setAy(ay[i]); e.setAz(az[i]);
+    e.setGx(gx[i]); e.setGy(gy[i]); e.setGz(gz[i]);
+    e.setLat(lat);
+    e.setLng(lng);
+    return e;
+  }
+}
@@ -1,15 +1,46 @@
 package com.example.alert.repo;
 
 import com.example.alert.model.Alert;
+import com.example.alert.model.AlertStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface AlertRepository extends JpaRepository<Alert, Long> {
+public interface AlertRepository extends JpaRepository<Alert, Long>, AlertTransitions {
   @Query(value = "SELECT * FROM alerts ORDER BY id DESC LIMIT 30", nativeQuery = true)
   List<Alert> recent30();
-  List<Alert> findByStatusAndExpiryAtLessThanEqual(String status, Long now);
-  List<Alert> findByStatusAndConfirmStartsAtLessThanEqual(String status, Long now);
-  Optional<Alert> findTopByStatusOrderByIdDesc(String status);
+  List<Alert> findTop30ByDeviceIdOrderByIdDesc(String deviceId);
+  List<Alert> findByStatusIn(Collection<AlertStatus> statuses);
+  Optional<Alert> findTopByStatusOrderByIdDesc(AlertStatus status);
+
+  /**
+   * Compare-and-set on the status: 1 if this caller moved the alert, 0 if someone else already did. Bumps the
+   * version, so a stale copy of the alert can no longer be saved over the new state.
+   */
+  @Modifying
+  @Transactional
+  @Query("update Alert a set a.status = :to, a.version = a.version + 1 where a.id = :id and a.status = :from")
+  int transition(@Param("id") Long id, @Param("from") AlertStatus from, @Param("to") AlertStatus to);
+
+  /** Gives up {@code node}'s leases on these alerts so their new owner can fire them right away. */
+  @Modifying
+  @Transactional
+  @Query("update Alert a set a.leaseOwner = null, a.leaseUntil = null where a.id in :ids and a.leaseOwner = :node")
+  int releaseLeases(@Param("ids") Collection<Long> ids, @Param("node") String node);
+
+  /** Alerts in a final state whose deadline passed before {@code cutoff}; walks (status, expiryAt). */
+  @Query("select a.id from Alert a where a.status in :statuses and a.expiryAt < :cutoff")
+  List<Long> findIdsByStatusInAndExpiryAtBefore(@Param("statuses") Collection<AlertStatus> statuses,
+                                                @Param("cutoff") long cutoff, Pageable page);
+
+  @Modifying
+  @Transactional
+  @Query("delete from Alert a where a.id in :ids")
+  int deleteByIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,16 @@
+package com.example.alert.repo;
+
+import com.example.alert.model.AlertSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+
+public interface AlertSnapshotRepository extends JpaRepository<AlertSnapshot, Long> {
+  @Modifying
+  @Transactional
+  @Query("delete from AlertSnapshot s where s.alertId in :alertIds")
+  int deleteByAlertIds(@Param("alertIds") Collection<Long> alertIds);
+}
@@ -0,0 +1,16 @@
+package com.example.alert.repo;
+
+import com.example.alert.model.AlertStatus;
+import java.util.List;
+
+/** Set-based status changes for {@link AlertRepository}; implemented in {@link AlertTransitionsImpl}. */
+public interface AlertTransitions {
+  /**
+   * The same compare-and-set as {@link AlertRepository#transition} for each of {@code ids}, sent as one JDBC
+   * batch in one transaction. Entry {@code i} of the result is 1 if this caller moved {@code ids.get(i)}.
+   *
+   * With a {@code leaseNode}, a row also only moves if no other node holds an unexpired lease on it, and the
+   * caller takes the lease until {@code leaseUntil}: the lease check and the transition are one statement.
+   */
+  int[] transitionAll(List<Long> ids, AlertStatus from, AlertStatus to, String leaseNode, long leaseUntil, long now);
+}
@@ -0,0 +1,55 @@
+package com.example.alert.repo;
+
+import com.example.alert.model.AlertStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Plain JDBC because a JPQL bulk update cannot report which rows it changed, and per-row update counts are
+ * what make each entry a compare-and-set (the portable stand-in for {@code UPDATE ... RETURNING}).
+ */
+class AlertTransitionsImpl implements AlertTransitions {
+  private static final String TRANSITION =
+      "update alerts set status = ?, version = version + 1 where id = ? and status = ?";
+  private static final String TRANSITION_LEASED =
+      "update alerts set status = ?, version = version + 1, lease_owner = ?, lease_until = ? where id = ? and status = ?"
+          + " and (lease_owner is null or lease_owner = ? or lease_until < ?)";
+
+  private final JdbcTemplate jdbc;
+
+  AlertTransitionsImpl(JdbcTemplate jdbc) {
+    this.jdbc = jdbc;
+  }
+
+  @Override
+  @Transactional
+  public int[] transitionAll(List<Long> ids, AlertStatus from, AlertStatus to, String leaseNode, long leaseUntil, long now) {
+    if (ids.isEmpty()) return new int[0];
+    int[] moved;
+    if (leaseNode == null) {
+      moved = jdbc.batchUpdate(TRANSITION, ids, ids.size(), (ps, id) -> {
+        ps.setShort(1, to.code());
+        ps.setLong(2, id);
+        ps.setShort(3, from.code());
+      })[0];
+    } else {
+      moved = jdbc.batchUpdate(TRANSITION_LEASED, ids, ids.size(), (ps, id) -> {
+        ps.setShort(1, to.code());
+        ps.setString(2, leaseNode);
+        ps.setLong(3, leaseUntil);
+        ps.setLong(4, id);
+        ps.setShort(5, from.code());
+        ps.setString(6, leaseNode);
+        ps.setLong(7, now);
+      })[0];
+    }
+    for (int n : moved) {
+      // H2 and PostgreSQL report per-row counts; a driver that batches them away cannot be used here.
+      if (n == Statement.SUCCESS_NO_INFO) throw new IllegalStateException("JDBC driver does not report batch update counts");
+    }
+    return moved;
+  }
+}
@@ -0,0 +1,9 @@
+package com.example.alert.repo;
+
+import com.example.alert.model.ClusterNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
+
+public interface ClusterNodeRepository extends JpaRepository<ClusterNode, String> {
+  List<ClusterNode> findByHeartbeatAtGreaterThanEqual(long since);
+}
@@ -1,11 +1,23 @@
 package com.example.alert.repo;
 
 import com.example.alert.model.Event;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 public interface EventRepository extends JpaRepository<Event, Long> {
   @Query(value = "SELECT * FROM events ORDER BY id DESC LIMIT 30", nativeQuery = true)
   List<Event> recent30();
+  List<Event> findTop30ByDeviceIdOrderByIdDesc(String deviceId);
+  List<Event> findByDeviceIdAndTimestampBetweenOrderByTimestampAsc(String deviceId, long fromTs, long toTs, Pageable page);
+
+  /** Deletes up to {@code limit} events from buckets before {@code bucket}, walking the bucket index. */
+  @Modifying
+  @Transactional
+  @Query(value = "DELETE FROM events WHERE id IN (SELECT id FROM events WHERE bucket < :bucket LIMIT :limit)", nativeQuery = true)
+  int purgeBefore(@Param("bucket") long bucket, @Param("limit") int limit);
 }
@@ -0,0 +1,31 @@
+package com.example.alert.repo;
+
+import com.example.alert.model.Notification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.List;
+
+public interface NotificationRepository extends JpaRepository<Notification, Long> {
+  List<Notification> findByStatusAndNextAttemptAtLessThanEqual(String status, long now);
+  List<Notification> findByAlertId(Long alertId);
+
+  /**
+   * Claims a pending row for one attempt by pushing its next attempt past the send and counting the attempt;
+   * 0 if another dispatcher (another node's sweep) claimed it first or its {@code max} attempts are used up.
+   * Counting here means a node that dies mid-send still used up the attempt.
+   */
+  @Modifying
+  @Transactional
+  @Query("update Notification n set n.nextAttemptAt = :until, n.attempts = n.attempts + 1"
+      + " where n.id = :id and n.status = 'PENDING' and n.nextAttemptAt = :seen and n.attempts < :max")
+  int claim(@Param("id") Long id, @Param("seen") long seen, @Param("until") long until, @Param("max") int max);
+
+  @Modifying
+  @Transactional
+  @Query("delete from Notification n where n.alertId in :alertIds")
+  int deleteByAlertIds(@Param("alertIds") Collection<Long> alertIds);
+}
@@ -0,0 +1,33 @@
+package com.example.alert.repo.series;
+
+import java.nio.ByteBuffer;
+
+/** MSB-first bit reader over a region of a (possibly memory-mapped) buffer, using absolute gets. */
+final class BitInput {
+  private final ByteBuffer buf;
+  private final int base;
+  private long bitPos;
+
+  BitInput(ByteBuffer buf, int offset) {
+    this.buf = buf;
+    this.base = offset;
+  }
+
+  boolean readBit() {
+    return readBits(1) != 0;
+  }
+
+  long readBits(int n) {
+    long v = 0;
+    while (n > 0) {
+      int b = buf.get(base + (int) (bitPos >>> 3)) & 0xFF;
+      int avail = 8 - (int) (bitPos & 7);
+      int take = Math.min(avail, n);
+      int chunk = (b >>> (avail - take)) & ((1 << take) - 1);
+      v = (v << take) | chunk;
+      bitPos += take;
+      n -= take;
+    }
+    return v;
+  }
+}
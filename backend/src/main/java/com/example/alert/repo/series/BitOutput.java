@@ -0,0 +1,42 @@
+package com.example.alert.repo.series;
+
+import java.util.Arrays;
+
+/** Append-only, MSB-first bit buffer. */
+final class BitOutput {
+  private byte[] buf;
+  private long bitPos;
+
+  BitOutput(int initialBytes) {
+    this.buf = new byte[Math.max(16, initialBytes)];
+  }
+
+  void writeBit(boolean bit) {
+    writeBits(bit ? 1 : 0, 1);
+  }
+
+  /** Writes the low {@code n} bits of {@code v}, most significant first (n in 0..64). */
+  void writeBits(long v, int n) {
+    ensure(bitPos + n);
+    while (n > 0) {
+      int idx = (int) (bitPos >>> 3);
+      int free = 8 - (int) (bitPos & 7);
+      int take = Math.min(free, n);
+      int chunk = (int) ((v >>> (n - take)) & ((1L << take) - 1));
+      buf[idx] |= (byte) (chunk << (free - take));
+      bitPos += take;
+      n -= take;
+    }
+  }
+
+  long bitLength() { return bitPos; }
+
+  int byteLength() { return (int) ((bitPos + 7) >>> 3); }
+
+  byte[] toByteArray() { return Arrays.copyOf(buf, byteLength()); }
+
+  private void ensure(long bits) {
+    int needed = (int) ((bits + 7) >>> 3);
+    if (needed > buf.length) buf = Arrays.copyOf(buf, Math.max(needed, buf.length * 2));
+  }
+}
@@ -0,0 +1,480 @@
+package com.example.alert.repo.series;
+
+import com.example.alert.model.Event;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only, compressed time-series store for raw IMU events, kept alongside the events table.
+ *
+ * Each device accumulates samples in an in-memory {@link SeriesBlock}; full or idle blocks are sealed
+ * into the current segment file ({@code events-<epochDay>-<seq>.seg}) as one record:
+ * int magic, byte fractionBits, short idLen, deviceId bytes, int count, long minTs, long maxTs, int payloadLen, payload
+ * (little-endian header). An in-memory index of sealed blocks per device is rebuilt from the segment
+ * headers at startup; reads go through read-only memory maps of the segment files.
+ */
+@Component
+public class EventSeriesStore {
+  private static final Logger log = LoggerFactory.getLogger(EventSeriesStore.class);
+  private static final int BLOCK_MAGIC = 0x42534446; // "FDSB" read little-endian
+  private static final int RECENT = 30;
+
+  private final boolean enabled;
+  private final Path dir;
+  private final int blockSamples;
+  private final int fractionBits;
+  private final long sealAfterMs;
+  private final long maxSegmentBytes;
+
+  private final ConcurrentHashMap<String, DeviceSeries> series = new ConcurrentHashMap<>();
+  private final TreeMap<String, Segment> segments = new TreeMap<>();
+  private Segment current;
+
+  private final Event[] recent = new Event[RECENT];
+  private int recentNext;
+  private int recentSize;
+
+  private final AtomicLong samples = new AtomicLong();
+  private final AtomicLong sealedBytes = new AtomicLong();
+
+  public EventSeriesStore(@Value("${events.series.enabled:true}") boolean enabled,
+                          @Value("${events.series.dir:./series-data}") String dir,
+                          @Value("${events.series.blockSamples:1024}") int blockSamples,
+                          @Value("${events.series.fractionBits:10}") int fractionBits,
+                          @Value("${events.series.sealAfterMs:60000}") long sealAfterMs,
+                          @Value("${events.series.maxSegmentBytes:1073741824}") long maxSegmentBytes) {
+    this.enabled = enabled;
+    this.dir = Paths.get(dir);
+    this.blockSamples = blockSamples;
+    this.fractionBits = fractionBits;
+    this.sealAfterMs = sealAfterMs;
+    this.maxSegmentBytes = Math.min(maxSegmentBytes, Integer.MAX_VALUE);
+  }
+
+  public boolean isEnabled() { return enabled; }
+
+  @PostConstruct
+  public void open() throws IOException {
+    if (!enabled) return;
+    Files.createDirectories(dir);
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "events-*.seg")) {
+      for (Path p : files) {
+        Segment seg = new Segment(p);
+        segments.put(seg.name, seg);
+        recover(seg);
+      }
+    }
+    for (DeviceSeries ds : series.values()) {
+      ds.sealed.sort(Comparator.comparingLong(r -> r.minTs));
+    }
+    log.info("Opened series store: segments={} samples={} devices={} dir={}", segments.size(), samples.get(),
+        series.size(), dir.toAbsolutePath());
+  }
+
+  /** Appends events in arrival order. Called from the single event writer thread. */
+  public void appendAll(List<Event> events) {
+    for (Event e : events) append(e);
+  }
+
+  public void append(Event e) {
+    String deviceId = e.getDeviceId() != null ? e.getDeviceId() : Event.DEFAULT_DEVICE;
+    DeviceSeries ds = series.computeIfAbsent(deviceId, DeviceSeries::new);
+    synchronized (ds) {
+      if (ds.active == null) {
+        ds.active = new SeriesBlock(fractionBits, blockSamples);
+        ds.activeSince = System.currentTimeMillis();
+      }
+      ds.active.append(e.getTimestamp(), e.getAx(), e.getAy(), e.getAz(), e.getGx(), e.getGy(), e.getGz(),
+          e.getLat() != null ? e.getLat() : Double.NaN, e.getLng() != null ? e.getLng() : Double.NaN);
+      if (ds.active.count() >= blockSamples) seal(ds);
+    }
+    samples.incrementAndGet();
+    synchronized (recent) {
+      recent[recentNext] = e;
+      recentNext = (recentNext + 1) % RECENT;
+      if (recentSize < RECENT) recentSize++;
+    }
+  }
+
+  /** The most recent events across all devices, newest first. */
+  public List<Event> recent30() {
+    List<Event> out = new ArrayList<>(RECENT);
+    synchronized (recent) {
+      for (int i = 1; i <= recentSize; i++) {
+        out.add(recent[(recentNext - i + RECENT) % RECENT]);
+      }
+    }
+    return out;
+  }
+
+  /** The newest {@code n} events of one device, newest first. */
+  public List<Event> recent(String deviceId, int n) {
+    DeviceSeries ds = series.get(deviceId);
+    if (ds == null) return List.of();
+    Snapshot snap = ds.snapshot();
+    List<Event> out = new ArrayList<>(n);
+    List<Event> block = new ArrayList<>();
+    if (snap.activeCount > 0) {
+      decodeInto(deviceId, ByteBuffer.wrap(snap.activePayload), 0, snap.activeCount, fractionBits,
+          Long.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, block);
+      takeNewest(block, out, n);
+    }
+    for (int i = snap.sealed.size() - 1; i >= 0 && out.size() < n; i--) {
+      BlockRef r = snap.sealed.get(i);
+      if (!r.segment.acquire()) continue; // dropped by retention since the snapshot
+      try {
+        block.clear();
+        decodeInto(deviceId, r.segment.view(r.payloadOffset + r.payloadLen), r.payloadOffset, r.count, r.fractionBits,
+            Long.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, block);
+      } finally {
+        r.segment.release();
+      }
+      takeNewest(block, out, n);
+    }
+    return out;
+  }
+
+  /**
+   * Events of one device with {@code fromTs <= timestamp <= toTs}, oldest first, at most {@code limit}.
+   * Blocks are kept in time order, so decoding stops once {@code limit} events are in hand.
+   */
+  public List<Event> range(String deviceId, long fromTs, long toTs, int limit) {
+    DeviceSeries ds = series.get(deviceId);
+    if (ds == null || limit <= 0) return List.of();
+    Snapshot snap = ds.snapshot();
+    List<Event> out = new ArrayList<>(Math.min(limit, 1024));
+    for (BlockRef r : snap.sealed) {
+      if (out.size() >= limit) break;
+      if (r.maxTs < fromTs || r.minTs > toTs) continue;
+      if (!r.segment.acquire()) continue; // dropped by retention since the snapshot
+      try {
+        decodeInto(deviceId, r.segment.view(r.payloadOffset + r.payloadLen), r.payloadOffset, r.count, r.fractionBits,
+            fromTs, toTs, limit, out);
+      } finally {
+        r.segment.release();
+      }
+    }
+    if (out.size() < limit && snap.activeCount > 0 && snap.activeMaxTs >= fromTs && snap.activeMinTs <= toTs) {
+      decodeInto(deviceId, ByteBuffer.wrap(snap.activePayload), 0, snap.activeCount, fractionBits, fromTs, toTs,
+          limit, out);
+    }
+    out.sort(Comparator.comparingLong(Event::getTimestamp));
+    return out.size() > limit ? new ArrayList<>(out.subList(0, limit)) : out;
+  }
+
+  public Map<String, Object> stats() {
+    long n = samples.get();
+    long bytes = sealedBytes.get();
+    long activeBytes = 0, activeSamples = 0;
+    for (DeviceSeries ds : series.values()) {
+      synchronized (ds) {
+        if (ds.active != null) {
+          activeBytes += ds.active.payloadBytes();
+          activeSamples += ds.active.count();
+        }
+      }
+    }
+    Map<String, Object> m = new LinkedHashMap<>();
+    m.put("enabled", enabled);
+    m.put("devices", series.size());
+    m.put("segments", segments.size());
+    m.put("samples", n);
+    m.put("sealedBytes", bytes);
+    m.put("activeBytes", activeBytes);
+    m.put("bytesPerSample", n == 0 ? 0.0 : (double) (bytes + activeBytes) / n);
+    m.put("unsealedSamples", activeSamples);
+    return m;
+  }
+
+  @Scheduled(fixedDelayString = "${events.series.sealCheckMs:10000}")
+  public void sealIdle() {
+    if (!enabled) return;
+    long cutoff = System.currentTimeMillis() - sealAfterMs;
+    for (DeviceSeries ds : series.values()) {
+      synchronized (ds) {
+        if (ds.active != null && ds.activeSince <= cutoff) seal(ds);
+      }
+    }
+  }
+
+  /**
+   * Deletes segment files written before the day of {@code cutoffMs}: segments are per day, so retention
+   * drops whole files instead of rewriting them. Their blocks leave the index before the file goes.
+   */
+  public int dropBefore(long cutoffMs) {
+    if (!enabled) return 0;
+    long cutoffDay = Math.floorDiv(cutoffMs, 86_400_000L);
+    Set<Segment> expired = new HashSet<>();
+    synchronized (segments) {
+      for (Iterator<Segment> it = segments.values().iterator(); it.hasNext(); ) {
+        Segment seg = it.next();
+        if (seg.day < cutoffDay && seg != current) {
+          expired.add(seg);
+          it.remove();
+        }
+      }
+    }
+    if (expired.isEmpty()) return 0;
+    long dropped = 0;
+    for (DeviceSeries ds : series.values()) {
+      synchronized (ds) {
+        for (Iterator<BlockRef> it = ds.sealed.iterator(); it.hasNext(); ) {
+          BlockRef r = it.next();
+          if (expired.contains(r.segment())) {
+            dropped += r.count();
+            it.remove();
+          }
+        }
+      }
+    }
+    samples.addAndGet(-dropped);
+    for (Segment seg : expired) {
+      sealedBytes.addAndGet(-seg.size);
+      // Readers that took a snapshot before the blocks left the index may still hold the segment;
+      // the last of them closes and deletes it.
+      seg.retire(true);
+    }
+    log.info("Dropped expired segments: segments={} samples={}", expired.size(), dropped);
+    return expired.size();
+  }
+
+  @PreDestroy
+  public void close() {
+    if (!enabled) return;
+    for (DeviceSeries ds : series.values()) {
+      synchronized (ds) {
+        if (ds.active != null) seal(ds);
+      }
+    }
+    synchronized (segments) {
+      for (Segment seg : segments.values()) seg.retire(false);
+    }
+  }
+
+  private void seal(DeviceSeries ds) {
+    SeriesBlock b = ds.active;
+    ds.active = null;
+    if (b == null || b.count() == 0) return;
+    byte[] id = ds.deviceId.getBytes(StandardCharsets.UTF_8);
+    byte[] payload = b.payload();
+    int header = 4 + 1 + 2 + id.length + 4 + 8 + 8 + 4;
+    ByteBuffer rec = ByteBuffer.allocate(header + payload.length).order(ByteOrder.LITTLE_ENDIAN);
+    rec.putInt(BLOCK_MAGIC).put((byte) fractionBits).putShort((short) id.length).put(id)
+        .putInt(b.count()).putLong(b.minTs()).putLong(b.maxTs()).putInt(payload.length).put(payload);
+    rec.flip();
+    try {
+      Segment seg = segmentFor(rec.remaining());
+      long offset = seg.append(rec);
+      ds.sealed.add(new BlockRef(seg, (int) offset + header, payload.length, b.count(), fractionBits,
+          b.minTs(), b.maxTs()));
+      sealedBytes.addAndGet(rec.capacity());
+    } catch (IOException ex) {
+      throw new UncheckedIOException("[SERIES] Failed to seal block for " + ds.deviceId, ex);
+    }
+  }
+
+  private Segment segmentFor(int recordBytes) throws IOException {
+    synchronized (segments) {
+      long day = System.currentTimeMillis() / 86_400_000L;
+      if (current == null || current.day != day || current.size + recordBytes > maxSegmentBytes) {
+        int seq = 0;
+        String name;
+        do {
+          name = String.format("events-%06d-%04d.seg", day, seq++);
+        } while (segments.containsKey(name));
+        current = new Segment(dir.resolve(name));
+        segments.put(name, current);
+      }
+      return current;
+    }
+  }
+
+  /** Rebuilds the block index from a segment, truncating a torn record at the tail. */
+  private void recover(Segment seg) throws IOException {
+    ByteBuffer buf = seg.view(seg.size);
+    int pos = 0;
+    int size = (int) seg.size;
+    while (pos + 7 <= size) {
+      if (buf.getInt(pos) != BLOCK_MAGIC) break;
+      int fracBits = buf.get(pos + 4);
+      int idLen = Short.toUnsignedInt(buf.getShort(pos + 5));
+      int header = 4 + 1 + 2 + idLen + 4 + 8 + 8 + 4;
+      if (pos + header > size) break;
+      byte[] id = new byte[idLen];
+      buf.get(pos + 7, id);
+      int p = pos + 7 + idLen;
+      int count = buf.getInt(p);
+      long minTs = buf.getLong(p + 4);
+      long maxTs = buf.getLong(p + 12);
+      int len = buf.getInt(p + 20);
+      if (pos + header + len > size) break;
+      String deviceId = new String(id, StandardCharsets.UTF_8);
+      series.computeIfAbsent(deviceId, DeviceSeries::new).sealed
+          .add(new BlockRef(seg, pos + header, len, count, fracBits, minTs, maxTs));
+      samples.addAndGet(count);
+      sealedBytes.addAndGet(header + len);
+      pos += header + len;
+    }
+    if (pos < size) {
+      log.warn("Truncating torn segment tail: segment={} offset={}", seg.path.getFileName(), pos);
+      seg.truncate(pos);
+    }
+  }
+
+  private static void decodeInto(String deviceId, ByteBuffer buf, int offset, int count, int fractionBits,
+                                 long fromTs, long toTs, int limit, List<Event> out) {
+    SeriesBlock.decode(buf, offset, count, fractionBits, (ts, ax, ay, az, gx, gy, gz, lat, lng) -> {
+      if (ts < fromTs || ts > toTs) return true;
+      Event e = new Event();
+      e.setDeviceId(deviceId);
+      e.setTimestamp(ts);
+      e.setAx(ax); e.setAy(ay); e.setAz(az);
+      e.setGx(gx); e.setGy(gy); e.setGz(gz);
+      e.setLat(Double.isNaN(lat) ? null : lat);
+      e.setLng(Double.isNaN(lng) ? null : lng);
+      out.add(e);
+      return out.size() < limit;
+    });
+  }
+
+  private static void takeNewest(List<Event> block, List<Event> out, int n) {
+    block.sort(Comparator.comparingLong(Event::getTimestamp));
+    for (int i = block.size() - 1; i >= 0 && out.size() < n; i--) out.add(block.get(i));
+  }
+
+  private static final class DeviceSeries {
+    final String deviceId;
+    final List<BlockRef> sealed = new ArrayList<>();
+    SeriesBlock active;
+    long activeSince;
+
+    DeviceSeries(String deviceId) { this.deviceId = deviceId; }
+
+    synchronized Snapshot snapshot() {
+      Snapshot s = new Snapshot();
+      s.sealed = new ArrayList<>(sealed);
+      if (active != null) {
+        s.activePayload = active.payload();
+        s.activeCount = active.count();
+        s.activeMinTs = active.minTs();
+        s.activeMaxTs = active.maxTs();
+      }
+      return s;
+    }
+  }
+
+  private static final class Snapshot {
+    List<BlockRef> sealed = Collections.emptyList();
+    byte[] activePayload;
+    int activeCount;
+    long activeMinTs, activeMaxTs;
+  }
+
+  private record BlockRef(Segment segment, int payloadOffset, int payloadLen, int count, int fractionBits,
+                          long minTs, long maxTs) {}
+
+  private static final class Segment {
+    final Path path;
+    final String name;
+    final long day;
+    final FileChannel ch;
+    long size;
+    private ByteBuffer mapped;
+    private int refs = 1; // the store's own, given up by retire()
+    private boolean deleteWhenClosed;
+
+    Segment(Path path) throws IOException {
+      this.path = path;
+      this.name = path.getFileName().toString();
+      this.day = Long.parseLong(name.substring(7, name.indexOf('-', 7)));
+      this.ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      this.size = ch.size();
+    }
+
+    synchronized long append(ByteBuffer rec) throws IOException {
+      long offset = size;
+      while (rec.hasRemaining()) size += ch.write(rec, size);
+      return offset;
+    }
+
+    /** A little-endian read-only view covering at least {@code end} bytes, remapped as the file grows. */
+    synchronized ByteBuffer view(long end) {
+      if (mapped == null || mapped.capacity() < end) {
+        try {
+          mapped = ch.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      }
+      return mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    synchronized void truncate(long newSize) throws IOException {
+      ch.truncate(newSize);
+      size = newSize;
+      mapped = null;
+    }
+
+    /** Pins the segment for a read; false once it is closed. Pair with {@link #release()}. */
+    synchronized boolean acquire() {
+      if (refs == 0) return false;
+      refs++;
+      return true;
+    }
+
+    synchronized void release() {
+      if (--refs == 0) close();
+    }
+
+    /** Gives up the store's reference; the file closes (and is deleted, if asked) after the last reader. */
+    synchronized void retire(boolean delete) {
+      deleteWhenClosed = delete;
+      release();
+    }
+
+    private void close() {
+      try {
+        ch.force(true);
+        ch.close();
+      } catch (IOException ex) {
+        log.error("Failed to close segment: segment={} error={}", name, ex.getMessage());
+      }
+      mapped = null;
+      if (!deleteWhenClosed) return;
+      try {
+        Files.deleteIfExists(path);
+      } catch (IOException ex) {
+        log.error("Failed to delete expired segment: segment={} error={}", name, ex.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,7 @@
+package com.example.alert.repo.series;
+
+/** Receives decoded samples; return false to stop decoding the current block. */
+@FunctionalInterface
+public interface SampleSink {
+  boolean accept(long ts, double ax, double ay, double az, double gx, double gy, double gz, double lat, double lng);
+}
@@ -0,0 +1,168 @@
+package com.example.alert.repo.series;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Gorilla-style compressed block of one device's samples: delta-of-delta timestamps and
+ * XOR-encoded 64-bit words for ax, ay, az, gx, gy, gz, lat, lng (NaN for a missing coordinate).
+ * Axis values are quantised to a grid of {@code 2^-fractionBits} and stored as zig-zag integers,
+ * which keeps consecutive XORs to a few low bits even when a value hovers around zero; with a
+ * negative {@code fractionBits} axes keep their raw double bits. Coordinates are always exact.
+ */
+final class SeriesBlock {
+  static final int COLUMNS = 8;
+
+  private final BitOutput out;
+  private final double scale; // 0 = lossless
+  private int count;
+  private long minTs = Long.MAX_VALUE, maxTs = Long.MIN_VALUE;
+  private long prevTs, prevDelta;
+  private final long[] prevBits = new long[COLUMNS];
+  private final int[] prevLead = new int[COLUMNS];
+  private final int[] prevTrail = new int[COLUMNS];
+
+  SeriesBlock(int fractionBits, int expectedSamples) {
+    this.out = new BitOutput(expectedSamples * 10);
+    this.scale = fractionBits >= 0 ? Math.scalb(1.0, fractionBits) : 0.0;
+  }
+
+  int count() { return count; }
+  long minTs() { return minTs; }
+  long maxTs() { return maxTs; }
+  int payloadBytes() { return out.byteLength(); }
+  byte[] payload() { return out.toByteArray(); }
+
+  void append(long ts, double ax, double ay, double az, double gx, double gy, double gz, double lat, double lng) {
+    writeTimestamp(ts);
+    writeValue(0, axisBits(ax));
+    writeValue(1, axisBits(ay));
+    writeValue(2, axisBits(az));
+    writeValue(3, axisBits(gx));
+    writeValue(4, axisBits(gy));
+    writeValue(5, axisBits(gz));
+    writeValue(6, Double.doubleToRawLongBits(lat));
+    writeValue(7, Double.doubleToRawLongBits(lng));
+    if (ts < minTs) minTs = ts;
+    if (ts > maxTs) maxTs = ts;
+    count++;
+  }
+
+  private long axisBits(double v) {
+    if (scale == 0.0) return Double.doubleToRawLongBits(v);
+    long q = (long) Math.rint(v * scale);
+    return (q << 1) ^ (q >> 63); // zig-zag
+  }
+
+  private static double axisValue(long bits, double scale) {
+    if (scale == 0.0) return Double.longBitsToDouble(bits);
+    long q = (bits >>> 1) ^ -(bits & 1);
+    return q / scale;
+  }
+
+  private void writeTimestamp(long ts) {
+    if (count == 0) {
+      out.writeBits(ts, 64);
+      prevTs = ts;
+      prevDelta = 0;
+      return;
+    }
+    long delta = ts - prevTs;
+    long dod = delta - prevDelta;
+    if (dod == 0) {
+      out.writeBit(false);
+    } else if (dod >= -64 && dod <= 63) {
+      out.writeBits(0b10, 2);
+      out.writeBits(dod, 7);
+    } else if (dod >= -256 && dod <= 255) {
+      out.writeBits(0b110, 3);
+      out.writeBits(dod, 9);
+    } else if (dod >= -2048 && dod <= 2047) {
+      out.writeBits(0b1110, 4);
+      out.writeBits(dod, 12);
+    } else {
+      out.writeBits(0b1111, 4);
+      out.writeBits(dod, 64);
+    }
+    prevTs = ts;
+    prevDelta = delta;
+  }
+
+  private void writeValue(int col, long bits) {
+    if (count == 0) {
+      out.writeBits(bits, 64);
+      prevBits[col] = bits;
+      prevLead[col] = -1;
+      return;
+    }
+    long xor = bits ^ prevBits[col];
+    prevBits[col] = bits;
+    if (xor == 0) {
+      out.writeBit(false);
+      return;
+    }
+    out.writeBit(true);
+    int lead = Long.numberOfLeadingZeros(xor); // 6 bits, not Gorilla's 5: zig-zag words have many leading zeros
+    int trail = Long.numberOfTrailingZeros(xor);
+    if (prevLead[col] >= 0 && lead >= prevLead[col] && trail >= prevTrail[col]) {
+      // fits inside the previous meaningful window
+      out.writeBit(false);
+      out.writeBits(xor >>> prevTrail[col], 64 - prevLead[col] - prevTrail[col]);
+    } else {
+      int len = 64 - lead - trail;
+      out.writeBit(true);
+      out.writeBits(lead, 6);
+      out.writeBits(len - 1, 6);
+      out.writeBits(xor >>> trail, len);
+      prevLead[col] = lead;
+      prevTrail[col] = trail;
+    }
+  }
+
+  /**
+   * Decodes {@code count} samples from a payload starting at {@code offset} of {@code buf};
+   * {@code fractionBits} must match the value the block was written with.
+   */
+  static void decode(ByteBuffer buf, int offset, int count, int fractionBits, SampleSink sink) {
+    double scale = fractionBits >= 0 ? Math.scalb(1.0, fractionBits) : 0.0;
+    BitInput in = new BitInput(buf, offset);
+    long ts = 0, delta = 0;
+    long[] bits = new long[COLUMNS];
+    int[] lead = new int[COLUMNS];
+    int[] trail = new int[COLUMNS];
+    double[] v = new double[COLUMNS];
+    for (int i = 0; i < count; i++) {
+      if (i == 0) {
+        ts = in.readBits(64);
+      } else {
+        long dod;
+        if (!in.readBit()) dod = 0;
+        else if (!in.readBit()) dod = signExtend(in.readBits(7), 7);
+        else if (!in.readBit()) dod = signExtend(in.readBits(9), 9);
+        else if (!in.readBit()) dod = signExtend(in.readBits(12), 12);
+        else dod = in.readBits(64);
+        delta += dod;
+        ts += delta;
+      }
+      for (int c = 0; c < COLUMNS; c++) {
+        if (i == 0) {
+          bits[c] = in.readBits(64);
+        } else if (in.readBit()) {
+          if (in.readBit()) {
+            lead[c] = (int) in.readBits(6);
+            int len = (int) in.readBits(6) + 1;
+            trail[c] = 64 - lead[c] - len;
+          }
+          int len = 64 - lead[c] - trail[c];
+          bits[c] ^= in.readBits(len) << trail[c];
+        }
+        v[c] = c < 6 ? axisValue(bits[c], scale) : Double.longBitsToDouble(bits[c]);
+      }
+      if (!sink.accept(ts, v[0], v[1], v[2], v[3], v[4], v[5], v[6], v[7])) return;
+    }
+  }
+
+  private static long signExtend(long v, int bits) {
+    int shift = 64 - bits;
+    return (v << shift) >> shift;
+  }
+}
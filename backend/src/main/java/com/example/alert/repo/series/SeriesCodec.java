@@ -0,0 +1,33 @@
+package com.example.alert.repo.series;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The series store's block encoding for callers outside it: one self-contained compressed block per payload,
+ * e.g. an alert snapshot. The sample count and {@code fractionBits} are not part of the payload.
+ */
+public final class SeriesCodec {
+  private SeriesCodec() {}
+
+  /** Accumulates samples in timestamp order, then hands out the compressed payload. */
+  public static final class Encoder {
+    private final SeriesBlock block;
+
+    public Encoder(int fractionBits, int expectedSamples) {
+      this.block = new SeriesBlock(fractionBits, expectedSamples);
+    }
+
+    public void append(long ts, double ax, double ay, double az, double gx, double gy, double gz, double lat, double lng) {
+      block.append(ts, ax, ay, az, gx, gy, gz, lat, lng);
+    }
+
+    public int count() { return block.count(); }
+
+    public byte[] payload() { return block.payload(); }
+  }
+
+  public static void decode(byte[] payload, int count, int fractionBits, SampleSink sink) {
+    if (count == 0) return;
+    SeriesBlock.decode(ByteBuffer.wrap(payload), 0, count, fractionBits, sink);
+  }
+}
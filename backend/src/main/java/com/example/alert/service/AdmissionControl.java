@@ -0,0 +1,278 @@
+package com.example.alert.service;
+
+import com.example.alert.model.Event;
+import com.example.alert.model.SampleBatch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides, before detection and persistence, whether an upload is worth the capacity it costs.
+ *
+ * Uploads go into one of two lanes. The critical lane is never turned away: any sample above the trigger
+ * thresholds (a possible fall), everything from that device for a long window after it (the fall pattern
+ * needs the stillness that follows), and every upload from a device with an alert pending or a snapshot
+ * still capturing. Alert confirmations are only counted, never checked. Everything else is bulk, which is
+ * <ul>
+ *   <li>rate limited per device ({@code admission.device.samplesPerSec}, bursting to {@code burstSamples});</li>
+ *   <li>thinned once pressure reaches {@code admission.thinAt}: rows repeating a timestamp are dropped and only every
+ *       {@code keepEvery}-th sample is kept, which the windows and the series store both tolerate;</li>
+ *   <li>shed when pressure reaches 1.</li>
+ * </ul>
+ * Pressure is the higher of in-flight uploads over the concurrency limit and the write-behind queue's fill.
+ * The limit adapts like TCP congestion control: it creeps up while uploads finish inside
+ * {@code admission.targetLatencyMs} and backs off multiplicatively when they do not, so shedding starts
+ * where latency does, not at a fixed guess. Turned-away uploads get {@link Rejected} with a jittered retry delay.
+ */
+@Service
+public class AdmissionControl {
+  public enum Lane { CRITICAL, BULK }
+
+  /** Upload turned away; the caller answers 429 with a Retry-After. */
+  public static class Rejected extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String reason;
+    private final long retryAfterMs;
+
+    Rejected(String reason, long retryAfterMs) {
+      super(reason, null, false, false); // thrown under load: no stack trace
+      this.reason = reason;
+      this.retryAfterMs = retryAfterMs;
+    }
+
+    public String reason() { return reason; }
+    public long retryAfterMs() { return retryAfterMs; }
+    public long retryAfterSeconds() { return Math.max(1, (retryAfterMs + 999) / 1000); }
+  }
+
+  /** One admitted upload; hand it back to {@link #release} when the upload is done. */
+  public static final class Permit {
+    private final Lane lane;
+    private final long startNanos;
+    private final int inFlightAtStart;
+    private final int thinned;
+
+    private Permit(Lane lane, long startNanos, int inFlightAtStart, int thinned) {
+      this.lane = lane;
+      this.startNanos = startNanos;
+      this.inFlightAtStart = inFlightAtStart;
+      this.thinned = thinned;
+    }
+
+    public Lane lane() { return lane; }
+    /** Samples dropped from the upload by thinning. */
+    public int thinned() { return thinned; }
+  }
+
+  private final DeviceStateTable devices;
+  private final DetectionService detection;
+  private final SnapshotService snapshots;
+  private final EventWriteBehind eventWriter;
+  private final boolean enabled;
+  private final long intervalUs;
+  private final long burstUs;
+  private final double thinAt;
+  private final int keepEvery;
+  private final long targetNanos;
+  private final double minLimit;
+  private final double maxLimit;
+  private final long retryAfterMs;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicLong limitBits; // the concurrency limit, a double
+  private volatile long lastBackoffNanos;
+  private final AtomicLong admittedCritical = new AtomicLong();
+  private final AtomicLong admittedBulk = new AtomicLong();
+  private final AtomicLong shedOverload = new AtomicLong();
+  private final AtomicLong shedRateLimited = new AtomicLong();
+  private final AtomicLong thinnedSamples = new AtomicLong();
+
+  public AdmissionControl(DeviceStateTable devices, DetectionService detection, SnapshotService snapshots,
+                          EventWriteBehind eventWriter,
+                          @Value("${admission.enabled:true}") boolean enabled,
+                          @Value("${admission.device.samplesPerSec:250}") int samplesPerSec,
+                          @Value("${admission.device.burstSamples:1000}") int burstSamples,
+                          @Value("${admission.thinAt:0.7}") double thinAt,
+                          @Value("${admission.keepEvery:2}") int keepEvery,
+                          @Value("${admission.targetLatencyMs:100}") long targetLatencyMs,
+                          @Value("${admission.limit.initial:64}") int initialLimit,
+                          @Value("${admission.limit.min:4}") int minLimit,
+                          @Value("${admission.limit.max:1024}") int maxLimit,
+                          @Value("${admission.retryAfterMs:1000}") long retryAfterMs) {
+    this.devices = devices;
+    this.detection = detection;
+    this.snapshots = snapshots;
+    this.eventWriter = eventWriter;
+    this.enabled = enabled;
+    this.intervalUs = 1_000_000L / Math.max(1, samplesPerSec);
+    this.burstUs = intervalUs * Math.max(1, burstSamples);
+    this.thinAt = thinAt;
+    this.keepEvery = Math.max(1, keepEvery);
+    this.targetNanos = targetLatencyMs * 1_000_000L;
+    this.minLimit = Math.max(1, minLimit);
+    this.maxLimit = Math.max(this.minLimit, maxLimit);
+    this.limitBits = new AtomicLong(Double.doubleToRawLongBits(Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit))));
+    this.retryAfterMs = retryAfterMs;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Admits a batch or window, clearing {@code accepted} for rows thinned away. Call after validation, so
+   * invalid rows neither cost allowance nor make an upload critical.
+   *
+   * @throws Rejected when the upload is bulk and the device is over its rate or the node over capacity
+   */
+  public Permit admit(SampleBatch batch, boolean[] accepted) {
+    DetectionRules r = detection.rules();
+    double a2 = r.triggerAccelMag() * r.triggerAccelMag();
+    double g2 = r.triggerGyroMag() * r.triggerGyroMag();
+    int n = 0;
+    boolean possibleFall = false;
+    for (int i = 0; i < batch.size(); i++) {
+      if (!accepted[i]) continue;
+      n++;
+      if (!possibleFall) {
+        possibleFall = batch.ax(i) * batch.ax(i) + batch.ay(i) * batch.ay(i) + batch.az(i) * batch.az(i) > a2
+            || batch.gx(i) * batch.gx(i) + batch.gy(i) * batch.gy(i) + batch.gz(i) * batch.gz(i) > g2;
+      }
+    }
+    if (possibleFall) return critical(batch.getDeviceId());
+    if (watched(batch.getDeviceId())) return critical();
+    double pressure = checkBulk(batch.getDeviceId(), n);
+    int thinned = pressure >= thinAt ? thin(batch, accepted) : 0;
+    if (thinned > 0) thinnedSamples.addAndGet(thinned);
+    return bulk(thinned);
+  }
+
+  /** Admits a single-sample upload; too small to thin, so a bulk one is either taken whole or shed. */
+  public Permit admit(Event e) {
+    double accelMag = Math.sqrt(e.getAx() * e.getAx() + e.getAy() * e.getAy() + e.getAz() * e.getAz());
+    double gyroMag = Math.sqrt(e.getGx() * e.getGx() + e.getGy() * e.getGy() + e.getGz() * e.getGz());
+    if (detection.rules().triggerHit(accelMag, gyroMag)) return critical(e.getDeviceId());
+    if (watched(e.getDeviceId())) return critical();
+    checkBulk(e.getDeviceId(), 1);
+    return bulk(0);
+  }
+
+  /** Counts a confirmation from the alert modal; they always go through. */
+  public void onConfirmation() {
+    admittedCritical.incrementAndGet();
+  }
+
+  public void release(Permit p) {
+    long now = System.nanoTime();
+    inFlight.decrementAndGet();
+    adapt(now - p.startNanos, p.inFlightAtStart, now);
+  }
+
+  /** Devices whose next samples matter regardless of load: a recent possible fall, an alert or its snapshot. */
+  private boolean watched(String deviceId) {
+    DeviceState s = devices.find(deviceId);
+    if (s != null && (s.getPendingAlertId() != 0L || System.currentTimeMillis() < s.getPriorityUntilMs())) return true;
+    return snapshots.isCapturing(deviceId);
+  }
+
+  /** Sheds bulk uploads the node or the device cannot afford; returns the pressure it was judged at. */
+  private double checkBulk(String deviceId, int samples) {
+    double pressure = pressure();
+    if (!enabled) return 0;
+    if (pressure >= 1) {
+      shedOverload.incrementAndGet();
+      // Jittered so devices shed together do not all come back in the same second.
+      throw new Rejected("overloaded", retryAfterMs + ThreadLocalRandom.current().nextLong(retryAfterMs + 1));
+    }
+    long nowMs = System.currentTimeMillis();
+    long cost = Math.min(samples, burstUs / intervalUs); // a batch bigger than the burst still fits an idle device
+    long waitUs = devices.touch(deviceId, nowMs).takeAllowance(nowMs * 1000, cost, intervalUs, burstUs);
+    if (waitUs > 0) {
+      shedRateLimited.incrementAndGet();
+      throw new Rejected("rate limited", (waitUs + 999) / 1000);
+    }
+    return pressure;
+  }
+
+  /** Drops rows not after the previous kept one (resent or out of order), then all but every keepEvery-th. */
+  private int thin(SampleBatch b, boolean[] accepted) {
+    int dropped = 0;
+    int kept = 0;
+    int prev = -1;
+    for (int i = 0; i < b.size(); i++) {
+      if (!accepted[i]) continue;
+      boolean repeat = prev >= 0 && b.timestamp(i) <= b.timestamp(prev);
+      if (repeat || kept++ % keepEvery != 0) {
+        accepted[i] = false;
+        dropped++;
+      } else {
+        prev = i;
+      }
+    }
+    return dropped;
+  }
+
+  /** A possible fall: critical, and keeps the device critical until the detection windows have moved past it. */
+  private Permit critical(String deviceId) {
+    long now = System.currentTimeMillis();
+    devices.touch(deviceId, now).extendPriority(now + detection.longWindowMs() + detection.shortWindowMs());
+    return critical();
+  }
+
+  private Permit critical() {
+    admittedCritical.incrementAndGet();
+    return new Permit(Lane.CRITICAL, System.nanoTime(), inFlight.getAndIncrement(), 0);
+  }
+
+  private Permit bulk(int thinned) {
+    admittedBulk.incrementAndGet();
+    return new Permit(Lane.BULK, System.nanoTime(), inFlight.getAndIncrement(), thinned);
+  }
+
+  /**
+   * Additive increase while uploads finish in time and the limit is actually in use; multiplicative decrease,
+   * at most once per target interval, when one does not (one slow burst should not collapse the limit).
+   */
+  private void adapt(long latencyNanos, int inFlightAtStart, long now) {
+    for (;;) {
+      long bits = limitBits.get();
+      double cur = Double.longBitsToDouble(bits);
+      double next;
+      if (latencyNanos > targetNanos) {
+        if (now - lastBackoffNanos < targetNanos) return;
+        next = Math.max(minLimit, cur * 0.9);
+      } else if (inFlightAtStart * 2 >= cur) {
+        next = Math.min(maxLimit, cur + 1 / cur);
+      } else {
+        return;
+      }
+      if (next == cur) return;
+      if (limitBits.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+        if (next < cur) lastBackoffNanos = now;
+        return;
+      }
+    }
+  }
+
+  public double limit() {
+    return Double.longBitsToDouble(limitBits.get());
+  }
+
+  /** 0 when idle; bulk uploads are thinned from {@code admission.thinAt} and shed from 1. */
+  public double pressure() {
+    double concurrency = inFlight.get() / limit();
+    double writeBehind = (double) eventWriter.queueDepth() / Math.max(1, eventWriter.queueCapacity());
+    return Math.max(concurrency, writeBehind);
+  }
+
+  public int inFlight() { return inFlight.get(); }
+  public long admittedCriticalCount() { return admittedCritical.get(); }
+  public long admittedBulkCount() { return admittedBulk.get(); }
+  public long shedOverloadCount() { return shedOverload.get(); }
+  public long shedRateLimitedCount() { return shedRateLimited.get(); }
+  public long thinnedSampleCount() { return thinnedSamples.get(); }
+}
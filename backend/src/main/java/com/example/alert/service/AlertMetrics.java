@@ -0,0 +1,128 @@
+package com.example.alert.service;
+
+import com.example.alert.model.AlertStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters for the ingest path, registered once so hot code only records.
+ *
+ * Latencies are published as percentile histograms (scraped from /actuator/prometheus), so p99s can be
+ * aggregated across instances; {@code ingest.latency} tagged {@code alert=true} is ingest-to-alert.
+ * Gauges over queue depths and existing counts live in {@link PipelineGauges}.
+ */
+@Component
+public class AlertMetrics {
+  private final MeterRegistry registry;
+  private final Timer ingestEvent;
+  private final Timer ingestEventAlert;
+  private final Timer ingestBatch;
+  private final Timer ingestBatchAlert;
+  private final Timer ingestWindow;
+  private final Timer ingestWindowAlert;
+  private final Timer ingestHeartbeat;
+  private final Counter summarisedSamples;
+  private final Counter uploadsRequested;
+  private final Timer detection;
+  private final Timer mlScore;
+  private final Timer flush;
+  private final Counter suppressed;
+  private final Counter rejectedSamples;
+  private final Map<String, Counter> transitions = new ConcurrentHashMap<>();
+  private final Map<String, Timer> sends = new ConcurrentHashMap<>();
+
+  public AlertMetrics(MeterRegistry registry) {
+    this.registry = registry;
+    this.ingestEvent = latency("ingest.latency", "Request handling from decoded payload to detection result", "path", "event", "alert", "false");
+    this.ingestEventAlert = latency("ingest.latency", "Request handling from decoded payload to detection result", "path", "event", "alert", "true");
+    this.ingestBatch = latency("ingest.latency", "Request handling from decoded payload to detection result", "path", "batch", "alert", "false");
+    this.ingestBatchAlert = latency("ingest.latency", "Request handling from decoded payload to detection result", "path", "batch", "alert", "true");
+    this.ingestWindow = latency("ingest.latency", "Request handling from decoded payload to detection result", "path", "window", "alert", "false");
+    this.ingestWindowAlert = latency("ingest.latency", "Request handling from decoded payload to detection result", "path", "window", "alert", "true");
+    this.ingestHeartbeat = latency("ingest.latency", "Request handling from decoded payload to detection result", "path", "heartbeat", "alert", "false");
+    this.detection = latency("detection.latency", "Detection over one sample or one batch");
+    this.mlScore = latency("ml.score.latency", "Primary model scoring of one sample");
+    this.flush = latency("events.flush.latency", "Write-behind flush of one batch");
+    this.suppressed = Counter.builder("detection.suppressed")
+        .description("Samples not evaluated because the device was in cooldown or had an alert pending")
+        .register(registry);
+    this.rejectedSamples = Counter.builder("ingest.samples.rejected")
+        .description("Batch samples dropped by validation")
+        .register(registry);
+    this.summarisedSamples = Counter.builder("edge.samples.summarised")
+        .description("Samples edge devices covered with heartbeats instead of uploading")
+        .register(registry);
+    this.uploadsRequested = Counter.builder("edge.uploads.requested")
+        .description("Heartbeats answered with a request to upload the device's window")
+        .register(registry);
+  }
+
+  private Timer latency(String name, String description, String... tags) {
+    return Timer.builder(name)
+        .description(description)
+        .tags(tags)
+        .publishPercentileHistogram()
+        .minimumExpectedValue(Duration.ofNanos(100))
+        .maximumExpectedValue(Duration.ofSeconds(10))
+        .register(registry);
+  }
+
+  public void ingest(boolean batch, boolean alert, long startNanos) {
+    Timer t = batch ? (alert ? ingestBatchAlert : ingestBatch) : (alert ? ingestEventAlert : ingestEvent);
+    t.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void ingestWindow(boolean alert, long startNanos) {
+    (alert ? ingestWindowAlert : ingestWindow).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void heartbeat(int samples, boolean uploadRequested, long startNanos) {
+    if (samples > 0) summarisedSamples.increment(samples);
+    if (uploadRequested) uploadsRequested.increment();
+    ingestHeartbeat.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void detection(long startNanos) {
+    detection.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void mlScore(long startNanos) {
+    mlScore.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void flush(long startNanos) {
+    flush.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void notificationSent(String channel, boolean ok, long startNanos) {
+    sends.computeIfAbsent(channel + (ok ? ":ok" : ":failed"), k -> Timer.builder("notify.send.latency")
+            .description("One delivery attempt, from send to the channel's answer or timeout")
+            .tags("channel", channel, "outcome", ok ? "ok" : "failed")
+            .publishPercentileHistogram()
+            .register(registry))
+        .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /** Counts an alert entering {@code status}. */
+  public void transition(AlertStatus status) {
+    transitions.computeIfAbsent(status.name(), s -> Counter.builder("alerts.transitions")
+        .description("Alerts entering each state")
+        .tag("to", s)
+        .register(registry)).increment();
+  }
+
+  public void suppressed(int n) {
+    if (n > 0) suppressed.increment(n);
+  }
+
+  public void rejectedSamples(int n) {
+    if (n > 0) rejectedSamples.increment(n);
+  }
+}
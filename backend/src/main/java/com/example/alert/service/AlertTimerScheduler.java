@@ -0,0 +1,117 @@
+package com.example.alert.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires alert state transitions at their exact deadlines. Timers sit in a {@link DelayQueue}
+ * (a heap, O(log n) per insert) that one dispatcher thread waits on; due tasks run on a small
+ * worker pool so a slow transition never delays the next deadline. One timer per key: scheduling
+ * again replaces the previous timer, and cancelled timers are skipped when they come due.
+ */
+@Component
+public class AlertTimerScheduler {
+  private static final Logger log = LoggerFactory.getLogger(AlertTimerScheduler.class);
+
+  private final DelayQueue<Timer> queue = new DelayQueue<>();
+  private final ConcurrentHashMap<Long, Timer> byKey = new ConcurrentHashMap<>();
+  private final int workers;
+  private final Workers threads;
+  private ExecutorService pool;
+  private Thread dispatcher;
+  private volatile boolean running;
+
+  public AlertTimerScheduler(@Value("${alert.timers.workers:4}") int workers, Workers threads) {
+    this.workers = workers;
+    this.threads = threads;
+  }
+
+  @PostConstruct
+  public void start() {
+    pool = threads.pool("alert-timer", workers);
+    running = true;
+    dispatcher = new Thread(this::dispatch, "alert-timers");
+    dispatcher.setDaemon(true);
+    dispatcher.start();
+  }
+
+  /** Runs {@code task} at {@code deadlineMs} (epoch ms), replacing any timer already set for {@code key}. */
+  public void schedule(long key, long deadlineMs, Runnable task) {
+    Timer t = new Timer(key, deadlineMs, task);
+    Timer prev = byKey.put(key, t);
+    if (prev != null) prev.cancelled = true;
+    queue.put(t);
+  }
+
+  public void cancel(long key) {
+    Timer prev = byKey.remove(key);
+    if (prev != null) prev.cancelled = true;
+  }
+
+  public boolean isScheduled(long key) {
+    return byKey.containsKey(key);
+  }
+
+  public int pending() {
+    return byKey.size();
+  }
+
+  private void dispatch() {
+    while (running) {
+      Timer t;
+      try {
+        t = queue.take();
+      } catch (InterruptedException ie) {
+        return;
+      }
+      if (t.cancelled || !byKey.remove(t.key, t)) continue;
+      pool.execute(() -> {
+        try {
+          t.task.run();
+        } catch (Exception ex) {
+          log.error("Alert timer task failed: alertId={}", t.key, ex);
+        }
+      });
+    }
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    if (dispatcher != null) dispatcher.interrupt();
+    if (pool != null) pool.shutdown();
+  }
+
+  private static final class Timer implements Delayed {
+    final long key;
+    final long deadlineMs;
+    final Runnable task;
+    volatile boolean cancelled;
+
+    Timer(long key, long deadlineMs, Runnable task) {
+      this.key = key;
+      this.deadlineMs = deadlineMs;
+      this.task = task;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(deadlineMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed o) {
+      return Long.compare(deadlineMs, ((Timer) o).deadlineMs);
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.example.alert.service;
+
+import com.example.alert.model.Alert;
+import com.example.alert.model.AlertStatus;
+import com.example.alert.repo.AlertRepository;
+import com.example.alert.repo.EventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Gets a restarted node over its cold start before traffic does: loads the per-device recent rings of the
+ * devices behind pending and latest alerts (the dashboards most likely to be open), and runs the hot reads
+ * once so their statements are prepared and pooled connections opened.
+ */
+@Component
+public class CacheWarmer {
+  private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+  private final AlertRepository alertRepo;
+  private final EventRepository eventRepo;
+  private final RecentCache recent;
+  private final int maxDevices;
+
+  public CacheWarmer(AlertRepository alertRepo, EventRepository eventRepo, RecentCache recent,
+                     @Value("${cache.warm.devices:100}") int maxDevices) {
+    this.alertRepo = alertRepo;
+    this.eventRepo = eventRepo;
+    this.recent = recent;
+    this.maxDevices = maxDevices;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warm() {
+    long start = System.nanoTime();
+    Set<String> devices = new LinkedHashSet<>();
+    for (Alert a : alertRepo.findByStatusIn(AlertStatus.PENDING)) devices.add(a.getDeviceId());
+    for (Alert a : alertRepo.recent30()) devices.add(a.getDeviceId());
+    int warmed = 0;
+    for (String d : devices) {
+      if (d == null) continue;
+      if (warmed++ == maxDevices) break;
+      recent.alertsJson(d);
+      recent.eventsJson(d);
+    }
+    String probe = devices.isEmpty() ? "" : devices.iterator().next();
+    eventRepo.findByDeviceIdAndTimestampBetweenOrderByTimestampAsc(probe, 0, 0, PageRequest.of(0, 1));
+    alertRepo.findTop30ByDeviceIdOrderByIdDesc(probe);
+    log.info("Caches warmed: devices={} elapsedMs={}", Math.min(devices.size(), maxDevices),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+}
@@ -0,0 +1,51 @@
+package com.example.alert.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consecutive-failure circuit breaker. After {@code failureThreshold} failures in a row the circuit
+ * opens for {@code openMs}; afterwards a single trial call is let through (half-open) and its
+ * outcome closes or re-opens the circuit.
+ */
+public class CircuitBreaker {
+  private final int failureThreshold;
+  private final long openMs;
+  private final AtomicInteger failures = new AtomicInteger();
+  private final AtomicLong openUntil = new AtomicLong();
+  private final AtomicLong trialUntil = new AtomicLong();
+
+  public CircuitBreaker(int failureThreshold, long openMs) {
+    this.failureThreshold = failureThreshold;
+    this.openMs = openMs;
+  }
+
+  /** Returns 0 if a call may proceed now, else how many ms to wait before asking again. */
+  public long acquire(long now) {
+    long until = openUntil.get();
+    if (until == 0) return 0;
+    if (now < until) return until - now;
+    // half-open: let exactly one trial through per open period
+    long trial = trialUntil.get();
+    if (now >= trial && trialUntil.compareAndSet(trial, now + openMs)) return 0;
+    return Math.max(1, trialUntil.get() - now);
+  }
+
+  public void onSuccess() {
+    failures.set(0);
+    openUntil.set(0);
+    trialUntil.set(0);
+  }
+
+  public void onFailure(long now) {
+    if (failures.incrementAndGet() >= failureThreshold) {
+      openUntil.set(now + openMs);
+    }
+  }
+
+  public String state(long now) {
+    long until = openUntil.get();
+    if (until == 0) return "CLOSED";
+    return now < until ? "OPEN" : "HALF_OPEN";
+  }
+}
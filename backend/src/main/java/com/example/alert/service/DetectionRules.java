@@ -0,0 +1,109 @@
+package com.example.alert.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The thresholds behind an alert decision, and the decision itself. Immutable, so the live detector and
+ * offline backtests (which evaluate many variants side by side) share exactly the same logic.
+ *
+ * An alert fires on a hard rule hit (accel or gyro magnitude), on the windowed fall pattern, or when a
+ * moderate rule hit is backed by a high ML score.
+ */
+public final class DetectionRules {
+  public static final DetectionRules DEFAULTS = new DetectionRules(18.0, 150.0, 14.0, 90.0, 0.6, 5.0, 15.0, 1.0, 45);
+
+  /** Parameter names accepted by {@link #with}, in the order {@link #toMap} lists them. */
+  public static final List<String> PARAMETERS = List.of("ruleAccelMag", "ruleGyroMag", "mlAccelMag", "mlGyroMag",
+      "mlMinScore", "freeFallMag", "impactMag", "stillVariance", "minOrientationDeg");
+
+  private final double ruleAccelMag;
+  private final double ruleGyroMag;
+  private final double mlAccelMag;
+  private final double mlGyroMag;
+  private final double mlMinScore;
+  private final double freeFallMag; // m/s^2, well under 1 g
+  private final double impactMag;
+  private final double stillVariance;
+  private final double minOrientationDeg;
+
+  public DetectionRules(double ruleAccelMag, double ruleGyroMag, double mlAccelMag, double mlGyroMag, double mlMinScore,
+                        double freeFallMag, double impactMag, double stillVariance, double minOrientationDeg) {
+    this.ruleAccelMag = ruleAccelMag;
+    this.ruleGyroMag = ruleGyroMag;
+    this.mlAccelMag = mlAccelMag;
+    this.mlGyroMag = mlGyroMag;
+    this.mlMinScore = mlMinScore;
+    this.freeFallMag = freeFallMag;
+    this.impactMag = impactMag;
+    this.stillVariance = stillVariance;
+    this.minOrientationDeg = minOrientationDeg;
+  }
+
+  public boolean ruleHit(double accelMag, double gyroMag) {
+    return accelMag > ruleAccelMag || gyroMag > ruleGyroMag;
+  }
+
+  /** True when the ML score can change the outcome of a sample that missed the hard rules. */
+  public boolean needsScore(double accelMag, double gyroMag) {
+    return accelMag > mlAccelMag || gyroMag > mlGyroMag;
+  }
+
+  public boolean mlHit(double accelMag, double gyroMag, double mlScore) {
+    return needsScore(accelMag, gyroMag) && mlScore > mlMinScore;
+  }
+
+  /**
+   * Free-fall followed by impact inside the long window, then a short window that is quiet
+   * (impact already behind it) with the body's orientation changed: the classic fall signature.
+   */
+  public boolean fallPattern(WindowFeatures shortWin, WindowFeatures longWin) {
+    return longWin.getCount() >= 3 && shortWin.getCount() >= 3
+        && longWin.getMin() < freeFallMag
+        && longWin.getMax() > impactMag
+        && longWin.getMinTs() <= longWin.getMaxTs()
+        && longWin.getMaxTs() < shortWin.getStartTs()
+        && shortWin.getVariance() < stillVariance
+        && longWin.getOrientationChangeDeg() >= minOrientationDeg;
+  }
+
+  /**
+   * Lowest accelerometer magnitude any alert path needs to see: a hard rule hit, a scored moderate hit
+   * or the impact of the fall pattern. Edge devices upload a window once a sample goes above it.
+   */
+  public double triggerAccelMag() {
+    return Math.min(Math.min(ruleAccelMag, mlAccelMag), impactMag);
+  }
+
+  /** Lowest gyroscope magnitude any alert path needs to see. */
+  public double triggerGyroMag() {
+    return Math.min(ruleGyroMag, mlGyroMag);
+  }
+
+  /** True when a stretch of samples with these extremes could raise an alert, so it must not stay summarised. */
+  public boolean triggerHit(double maxAccelMag, double maxGyroMag) {
+    return maxAccelMag > triggerAccelMag() || maxGyroMag > triggerGyroMag();
+  }
+
+  /** Copy with one parameter (named as in {@link #PARAMETERS}) replaced. */
+  public DetectionRules with(String parameter, double value) {
+    double[] p = values();
+    int i = PARAMETERS.indexOf(parameter);
+    if (i < 0) throw new IllegalArgumentException("Unknown detection parameter '" + parameter + "', expected one of " + PARAMETERS);
+    p[i] = value;
+    return new DetectionRules(p[0], p[1], p[2], p[3], p[4], p[5], p[6], p[7], p[8]);
+  }
+
+  public Map<String, Object> toMap() {
+    double[] p = values();
+    Map<String, Object> m = new LinkedHashMap<>();
+    for (int i = 0; i < p.length; i++) m.put(PARAMETERS.get(i), p[i]);
+    return m;
+  }
+
+  private double[] values() {
+    return new double[] { ruleAccelMag, ruleGyroMag, mlAccelMag, mlGyroMag, mlMinScore,
+        freeFallMag, impactMag, stillVariance, minOrientationDeg };
+  }
+}
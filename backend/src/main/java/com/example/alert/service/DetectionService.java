@@ -1,116 +1,532 @@
 package com.example.alert.service;
 
+import com.example.alert.cluster.ClusterMembership;
 import com.example.alert.model.Alert;
+import com.example.alert.model.AlertStatus;
 import com.example.alert.model.Event;
+import com.example.alert.model.Heartbeat;
+import com.example.alert.model.SampleBatch;
 import com.example.alert.repo.AlertRepository;
-import org.springframework.stereotype.Service;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class DetectionService {
+  private static final Logger log = LoggerFactory.getLogger(DetectionService.class);
+  public static final long SILENT_MS = 10_000; // first phase: silent grace
+  public static final long CONFIRM_MS = 10_000; // second phase: modal window, then auto-send
+  public static final long SENT_COOLDOWN_MS = 20_000;
+  public static final long CANCELLED_COOLDOWN_MS = 10_000;
+
   private final MLService ml;
   private final AlertRepository alertRepo;
-  private final TelegramService telegramService;
-  private volatile long suppressUntilMs = 0L; // cooldown to avoid spamming
+  private final NotificationDispatcher notifications;
+  private final DeviceStateTable devices;
+  private final AlertTimerScheduler timers;
+  private final StreamHub stream;
+  private final RecentCache recent;
+  private final AlertMetrics metrics;
+  private final ClusterMembership cluster;
+  private final SnapshotService snapshots;
+  private final ResponderService responders;
+  private final ReentrantLock[] transitionLocks = new ReentrantLock[64];
+  private final Queue<Long> dueConfirm = new ConcurrentLinkedQueue<>(); // silent grace over
+  private final Queue<Long> dueSend = new ConcurrentLinkedQueue<>(); // confirmation window over
+  private final AtomicBoolean draining = new AtomicBoolean();
 
-  public DetectionService(MLService ml, AlertRepository alertRepo, TelegramService telegramService, SmsService smsService) {
+  @Value("${detection.window.shortMs:1000}")
+  private long shortWindowMs = 1000;
+  @Value("${detection.window.longMs:3000}")
+  private long longWindowMs = 3000;
+  @Value("${detection.window.maxRateHz:100}")
+  private int windowMaxRateHz = 100;
+  @Value("${detection.rule.accelMag:18.0}")
+  private double ruleAccelMag = 18.0;
+  @Value("${detection.rule.gyroMag:150.0}")
+  private double ruleGyroMag = 150.0;
+  @Value("${detection.ml.accelMag:14.0}")
+  private double mlAccelMag = 14.0;
+  @Value("${detection.ml.gyroMag:90.0}")
+  private double mlGyroMag = 90.0;
+  @Value("${detection.ml.minScore:0.6}")
+  private double mlMinScore = 0.6;
+  @Value("${detection.window.freeFallMag:5.0}")
+  private double freeFallMag = 5.0;
+  @Value("${detection.window.impactMag:15.0}")
+  private double impactMag = 15.0;
+  @Value("${detection.window.stillVariance:1.0}")
+  private double stillVariance = 1.0;
+  @Value("${detection.window.minOrientationDeg:45}")
+  private double minOrientationDeg = 45;
+  private DetectionRules rules = DetectionRules.DEFAULTS;
+  @Value("${stream.eventIntervalMs:200}")
+  private long streamEventIntervalMs = 200; // per-device downsampling of the live event feed
+  @Value("${edge.heartbeatMs:5000}")
+  private long edgeHeartbeatMs = 5000;
+  @Value("${edge.sampleHz:50}")
+  private int edgeSampleHz = 50;
+  @Value("${edge.postMarginMs:500}")
+  private long edgePostMarginMs = 500;
+  @Value("${cluster.leaseMs:5000}")
+  private long leaseMs = 5000;
+  @Value("${cluster.leaseRetryMs:1000}")
+  private long leaseRetryMs = 1000;
+  @Value("${alert.transitions.batchSize:500}")
+  private int transitionBatchSize = 500;
+
+  public DetectionService(MLService ml, AlertRepository alertRepo, NotificationDispatcher notifications,
+                          DeviceStateTable devices, AlertTimerScheduler timers, StreamHub stream,
+                          RecentCache recent, AlertMetrics metrics, ClusterMembership cluster,
+                          SnapshotService snapshots, ResponderService responders) {
     this.ml = ml;
     this.alertRepo = alertRepo;
-    this.telegramService = telegramService;
+    this.notifications = notifications;
+    this.devices = devices;
+    this.timers = timers;
+    this.stream = stream;
+    this.recent = recent;
+    this.metrics = metrics;
+    this.cluster = cluster;
+    this.snapshots = snapshots;
+    this.responders = responders;
+    for (int i = 0; i < transitionLocks.length; i++) transitionLocks[i] = new ReentrantLock();
+  }
+
+  @PostConstruct
+  void initRules() {
+    rules = new DetectionRules(ruleAccelMag, ruleGyroMag, mlAccelMag, mlGyroMag, mlMinScore,
+        freeFallMag, impactMag, stillVariance, minOrientationDeg);
   }
 
+  public DetectionRules rules() {
+    return rules;
+  }
+
+  public long shortWindowMs() { return shortWindowMs; }
+  public long longWindowMs() { return longWindowMs; }
+  public int windowMaxRateHz() { return windowMaxRateHz; }
+
   public Alert process(Event e) {
+    long start = System.nanoTime();
+    long nowTs = System.currentTimeMillis();
+    DeviceState state = devices.touch(e.getDeviceId(), nowTs);
+    if (stream.hasSubscribers() && state.tryStream(nowTs, streamEventIntervalMs)) stream.publishEvent(e);
+    SlidingWindows w = state.windows(this::newWindows);
+    LookbackBuffer b = snapshots.buffer(state);
+    ReentrantLock lock = state.detectionLock();
+    lock.lock();
+    try {
+      w.add(e.getTimestamp(), e.getAx(), e.getAy(), e.getAz());
+      if (b != null) snapshots.record(state, b, e.getTimestamp(), e.getAx(), e.getAy(), e.getAz(), e.getGx(), e.getGy(), e.getGz());
+      if (state.inCooldown(nowTs) || state.getPendingAlertId() != 0L) {
+        metrics.suppressed(1);
+        metrics.detection(start);
+        return null; // in cooldown or already pending: ignore new alerts for this device
+      }
+      Alert a = evaluate(state, w, e.getTimestamp(), e.getAx(), e.getAy(), e.getAz(), e.getGx(), e.getGy(), e.getGz(),
+          e.getLat(), e.getLng());
+      metrics.detection(start);
+      return a;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Runs detection over a decoded batch. Rows the caller rejected are skipped via {@code accepted}.
+   * A batch raises at most one alert: the first hit wins, the rest of the burst belongs to the same fall.
+   */
+  public Alert processBatch(SampleBatch batch, boolean[] accepted) {
+    return detect(batch, accepted, false);
+  }
+
+  /**
+   * Runs detection over a pre/post window uploaded by a device in pre-filter mode. The device sent only
+   * heartbeats before it, so the window is the whole history detection gets; rows the previous window
+   * already delivered are cleared from {@code accepted} so they are neither replayed nor stored twice.
+   */
+  public Alert processWindow(SampleBatch batch, boolean[] accepted) {
+    return detect(batch, accepted, true);
+  }
+
+  private Alert detect(SampleBatch batch, boolean[] accepted, boolean dropSeen) {
+    long start = System.nanoTime();
     long nowTs = System.currentTimeMillis();
-    if (nowTs < suppressUntilMs) {
-      return null; // in cooldown: ignore new alerts
+    DeviceState state = devices.touch(batch.getDeviceId(), nowTs);
+    SlidingWindows w = state.windows(this::newWindows);
+    LookbackBuffer b = snapshots.buffer(state);
+    Alert raised = null;
+    int suppressed = 0;
+    ReentrantLock lock = state.detectionLock();
+    lock.lock();
+    try {
+      long seenUntil = dropSeen ? w.lastTimestamp() : Long.MIN_VALUE;
+      for (int i = 0; i < batch.size(); i++) {
+        if (!accepted[i]) continue;
+        if (batch.timestamp(i) <= seenUntil) {
+          accepted[i] = false;
+          continue;
+        }
+        // Every sample feeds the windows, even while the device is suppressed.
+        w.add(batch.timestamp(i), batch.ax(i), batch.ay(i), batch.az(i));
+        if (raised != null) continue;
+        if (state.inCooldown(nowTs) || state.getPendingAlertId() != 0L) {
+          suppressed++;
+          continue;
+        }
+        raised = evaluate(state, w, batch.timestamp(i), batch.ax(i), batch.ay(i), batch.az(i),
+            batch.gx(i), batch.gy(i), batch.gz(i), batch.getLat(), batch.getLng());
+      }
+      // After detection, so an alert raised above already has its capture open.
+      if (b != null) snapshots.record(state, b, batch, accepted);
+    } finally {
+      lock.unlock();
     }
+    if (stream.hasSubscribers() && state.tryStream(nowTs, streamEventIntervalMs)) {
+      int last = lastAccepted(accepted, batch.size());
+      if (last >= 0) stream.publishEvent(batch.toEvent(last));
+    }
+    metrics.suppressed(suppressed);
+    metrics.detection(start);
+    return raised;
+  }
+
+  /**
+   * Takes a heartbeat from a device in pre-filter mode. Keeps the device alive without touching its windows,
+   * and returns true when the summary shows motion that could have raised an alert, meaning the device
+   * should upload the window it is holding (its local trigger is out of date or was missed).
+   */
+  public boolean heartbeat(Heartbeat h) {
+    long nowTs = System.currentTimeMillis();
+    DeviceState state = devices.touch(h.getDeviceId(), nowTs);
+    if (h.getCount() == 0 || state.inCooldown(nowTs) || state.getPendingAlertId() != 0L) return false;
+    return rules.triggerHit(h.getAccelMax(), h.getGyroMax());
+  }
+
+  /**
+   * What a device needs to pre-filter locally: the trigger thresholds derived from the live rules, and a
+   * window long enough that both feature windows see the trigger the same way a full stream would.
+   */
+  public Map<String, Object> edgeProtocol() {
+    Map<String, Object> m = new LinkedHashMap<>();
+    m.put("heartbeatMs", edgeHeartbeatMs);
+    m.put("sampleHz", edgeSampleHz);
+    m.put("preMs", longWindowMs);
+    m.put("postMs", shortWindowMs + edgePostMarginMs);
+    m.put("triggerAccelMag", rules.triggerAccelMag());
+    m.put("triggerGyroMag", rules.triggerGyroMag());
+    return m;
+  }
+
+  private static int lastAccepted(boolean[] accepted, int size) {
+    for (int i = size - 1; i >= 0; i--) {
+      if (accepted[i]) return i;
+    }
+    return -1;
+  }
+
+  private SlidingWindows newWindows() {
+    return new SlidingWindows(new long[] { shortWindowMs, longWindowMs }, windowMaxRateHz);
+  }
+
+  private Alert evaluate(DeviceState state, SlidingWindows w, long timestamp,
+                         double ax, double ay, double az, double gx, double gy, double gz,
+                         Double lat, Double lng) {
     // Rule-based quick check: high accel or gyro
-    double accelMag = Math.sqrt(e.getAx()*e.getAx() + e.getAy()*e.getAy() + e.getAz()*e.getAz());
-    double gyroMag = Math.sqrt(e.getGx()*e.getGx() + e.getGy()*e.getGy() + e.getGz()*e.getGz());
-    boolean ruleHit = accelMag > 18.0 || gyroMag > 150.0; // simple thresholds
+    double accelMag = Math.sqrt(ax*ax + ay*ay + az*az);
+    double gyroMag = Math.sqrt(gx*gx + gy*gy + gz*gz);
+    boolean ruleHit = rules.ruleHit(accelMag, gyroMag);
+
+    // Windowed check over the device's recent history
+    WindowFeatures shortWin = w.features(0);
+    WindowFeatures longWin = w.features(1);
+    boolean patternHit = rules.fallPattern(shortWin, longWin);
 
     // ML score (stubbed)
-    double mlScore = ml.predictFallProbability(e.getAx(), e.getAy(), e.getAz(), e.getGx(), e.getGy(), e.getGz());
+    double mlScore = ml.predictFallProbability(accelMag, gyroMag, shortWin, longWin);
 
-    // Hybrid decision: rule OR (moderate rule + ML high)
-    boolean alert = ruleHit || (accelMag > 14.0 && mlScore > 0.6) || (gyroMag > 90.0 && mlScore > 0.6);
+    // Hybrid decision: rule OR fall pattern OR (moderate rule + ML high)
+    boolean alert = ruleHit || patternHit || rules.mlHit(accelMag, gyroMag, mlScore);
 
     if (alert) {
       Alert a = new Alert();
-      a.setTimestamp(e.getTimestamp());
-      a.setReason("Hybrid detection: rule=" + ruleHit + ", mlScore=" + String.format("%.2f", mlScore));
-      a.setLat(e.getLat());
-      a.setLng(e.getLng());
+      a.setDeviceId(state.getDeviceId());
+      a.setTimestamp(timestamp);
+      a.setReason("Hybrid detection: rule=" + ruleHit + ", pattern=" + patternHit + ", mlScore=" + String.format("%.2f", mlScore));
+      a.setLat(lat);
+      a.setLng(lng);
       long now = System.currentTimeMillis();
-      a.setStatus("PENDING_SILENT");
-      a.setConfirmStartsAt(now + 10_000); // first 10s: silent grace
-      a.setExpiryAt(a.getConfirmStartsAt() + 10_000); // next 10s: modal window, then auto-send
+      a.setStatus(AlertStatus.PENDING_SILENT);
+      a.setConfirmStartsAt(now + SILENT_MS);
+      a.setExpiryAt(a.getConfirmStartsAt() + CONFIRM_MS);
       alertRepo.save(a);
-      System.out.println("[ALERT] Pending (silent) for possible fall at ts=" + a.getTimestamp());
+      state.setPendingAlertId(a.getId());
+      snapshots.onAlert(state, a);
+      scheduleNext(a);
+      alertChanged(a);
+      log.info("Alert pending (silent) for possible fall: alertId={} device={} ts={}", a.getId(), a.getDeviceId(), a.getTimestamp());
       return a;
     }
     return null;
   }
 
-  @Scheduled(fixedDelay = 1000)
-  @Transactional
-  public void checkPendingAlerts() {
+  /** Re-arms timers for alerts that were still pending when the previous process stopped. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void recoverPendingTimers() {
+    int armed = armOwnedPending();
+    if (armed > 0) {
+      log.info("Recovered pending alert timers: count={}", armed);
+    }
+  }
+
+  /**
+   * Nodes joined or left: arm timers for pending alerts whose devices moved here, and drop the timers and
+   * device state that moved away. Leases on those alerts are released so the new owner fires them on time.
+   */
+  @EventListener
+  public void onMembershipChanged(ClusterMembership.MembershipChanged change) {
+    List<Long> released = new ArrayList<>();
+    for (Alert a : alertRepo.findByStatusIn(AlertStatus.PENDING)) {
+      if (!cluster.owns(a.getDeviceId())) {
+        timers.cancel(a.getId());
+        released.add(a.getId());
+      }
+    }
+    if (!released.isEmpty()) alertRepo.releaseLeases(released, cluster.self());
+    int dropped = devices.retain(cluster::owns);
+    int armed = armOwnedPending();
+    log.info("Rebalanced detection: joined={} left={} timersArmed={} timersReleased={} devicesDropped={}",
+        change.joined(), change.left(), armed, released.size(), dropped);
+  }
+
+  /** Safety net while the ring settles: an alert raised by a node that has since lost the device gets armed here. */
+  @Scheduled(fixedDelayString = "${cluster.rearmMs:5000}")
+  public void rearmOwned() {
+    if (cluster.isEnabled()) armOwnedPending();
+  }
+
+  private int armOwnedPending() {
     long now = System.currentTimeMillis();
-    // Transition from silent to confirm phase
-    List<Alert> toConfirm = alertRepo.findByStatusAndConfirmStartsAtLessThanEqual("PENDING_SILENT", now);
-    for (Alert a : toConfirm) {
-      if (a.getConfirmStartsAt() != null && now >= a.getConfirmStartsAt()) {
-        a.setStatus("PENDING_CONFIRM");
-        alertRepo.save(a);
+    int armed = 0;
+    for (Alert a : alertRepo.findByStatusIn(AlertStatus.PENDING)) {
+      if (!cluster.owns(a.getDeviceId()) || timers.isScheduled(a.getId())) continue;
+      devices.touch(a.getDeviceId(), now).setPendingAlertId(a.getId());
+      scheduleNext(a);
+      armed++;
+    }
+    return armed;
+  }
+
+  private void scheduleNext(Alert a) {
+    Long id = a.getId();
+    if (a.getStatus() == AlertStatus.PENDING_SILENT) {
+      timers.schedule(id, a.getConfirmStartsAt(), () -> due(dueConfirm, id));
+    } else if (a.getStatus() == AlertStatus.PENDING_CONFIRM) {
+      timers.schedule(id, a.getExpiryAt(), () -> due(dueSend, id));
+    }
+  }
+
+  /**
+   * Timer fired: queues the alert for its next phase and, unless another timer thread is already at it,
+   * drains both queues. Timers that come due together (a burst of falls, or recovery after downtime) are
+   * then handled as one batch per phase instead of a round trip or three each.
+   */
+  private void due(Queue<Long> phase, Long alertId) {
+    phase.add(alertId);
+    while ((!dueConfirm.isEmpty() || !dueSend.isEmpty()) && draining.compareAndSet(false, true)) {
+      try {
+        advance(dueConfirm, AlertStatus.PENDING_SILENT, AlertStatus.PENDING_CONFIRM);
+        advance(dueSend, AlertStatus.PENDING_CONFIRM, AlertStatus.SENT);
+      } finally {
+        draining.set(false);
       }
     }
-    // Auto-send after confirm window elapsed
-    List<Alert> toSend = alertRepo.findByStatusAndExpiryAtLessThanEqual("PENDING_CONFIRM", now);
-    for (Alert a : toSend) {
-      sendTelegramAlert(a);
-      a.setStatus("SENT");
-      alertRepo.save(a);
+  }
+
+  /**
+   * Moves up to a batch of queued alerts that are still {@code from} to {@code to}: one select, then one JDBC
+   * batch of per-alert compare-and-sets (see {@link AlertRepository#transitionAll}), then the side effects for
+   * the ones this node moved. On a cluster the timer lease is taken in the same statement, so two nodes that
+   * briefly both think they own a device do not both act; the compare-and-set is what makes it exactly once.
+   * The lock stripes of the whole batch are held until the state changes are done, so a user's answer waits
+   * rather than interleaving. Notifications for the alerts sent are recorded after the stripes are released.
+   */
+  private void advance(Queue<Long> phase, AlertStatus from, AlertStatus to) {
+    List<Long> ids = new ArrayList<>();
+    for (Long id; ids.size() < transitionBatchSize && (id = phase.poll()) != null; ) ids.add(id);
+    if (ids.isEmpty()) return;
+    List<ReentrantLock> locks = lockAll(ids);
+    long now = System.currentTimeMillis();
+    List<Alert> sent = new ArrayList<>();
+    try {
+      List<Alert> due = new ArrayList<>(ids.size());
+      List<Long> dueIds = new ArrayList<>(ids.size());
+      for (Alert a : alertRepo.findAllById(ids)) {
+        if (a.getStatus() == from) {
+          due.add(a);
+          dueIds.add(a.getId());
+        } else {
+          releaseSettled(a);
+        }
+      }
+      String node = cluster.isEnabled() ? cluster.self() : null;
+      int[] moved = alertRepo.transitionAll(dueIds, from, to, node, now + leaseMs, now);
+      for (int i = 0; i < due.size(); i++) {
+        Alert a = due.get(i);
+        if (moved[i] == 1) {
+          a.setStatus(to);
+          a.setVersion(a.getVersion() + 1);
+          entered(a);
+          if (to == AlertStatus.SENT) sent.add(a);
+        } else if (node != null && cluster.owns(a.getDeviceId())) {
+          // Another node's lease, or it got there first: look again once a dead holder's lease has lapsed.
+          retry(phase, a.getId(), now);
+        }
+      }
+    } catch (RuntimeException ex) {
+      log.error("Alert transitions failed, retrying: to={} count={} error={}", to, ids.size(), ex.getMessage());
+      for (Long id : ids) retry(phase, id, now);
+    } finally {
+      for (ReentrantLock l : locks) l.unlock();
+    }
+    for (Alert a : sent) {
+      try {
+        sendAlertNotifications(a);
+      } catch (RuntimeException ex) {
+        log.error("Alert notifications failed: alertId={} error={}", a.getId(), ex.getMessage());
+      }
+    }
+  }
+
+  private void retry(Queue<Long> phase, Long alertId, long now) {
+    timers.schedule(alertId, now + leaseRetryMs, () -> due(phase, alertId));
+  }
+
+  /** Side effects of a timer transition this node made, except the notifications of a sent alert. */
+  private void entered(Alert a) {
+    if (a.getStatus() == AlertStatus.PENDING_CONFIRM) {
+      // silent grace is over, start the confirmation window
+      scheduleNext(a);
+      alertChanged(a);
+    } else {
+      // confirmation window elapsed without an answer, auto-send (the caller dispatches)
+      alertChanged(a);
       // enter cooldown to avoid spamming on continuous motion
-      suppressUntilMs = Math.max(suppressUntilMs, now + 20_000);
+      settleDevice(a, System.currentTimeMillis() + SENT_COOLDOWN_MS);
     }
   }
 
   public void confirmAlert(Long alertId, boolean isOkay) {
-    alertRepo.findById(alertId).ifPresent(a -> {
-      if (!"PENDING_SILENT".equals(a.getStatus()) && !"PENDING_CONFIRM".equals(a.getStatus())) return;
+    ReentrantLock lock = lockFor(alertId);
+    Alert a;
+    lock.lock();
+    try {
+      a = finishPending(alertId, isOkay ? AlertStatus.CANCELLED : AlertStatus.SENT);
+      if (a == null) return;
+      timers.cancel(alertId);
+      alertChanged(a);
       if (isOkay) {
         // user said they are okay -> cancel
-        a.setStatus("CANCELLED");
-        alertRepo.save(a);
-        System.out.println("[ALERT] Cancelled by user for id=" + a.getId());
+        log.info("Alert cancelled by user: alertId={} device={}", a.getId(), a.getDeviceId());
         // short cooldown to prevent immediate re-trigger
-        suppressUntilMs = Math.max(suppressUntilMs, System.currentTimeMillis() + 10_000);
-      } else {
-        // user said NOT okay -> send immediately
-        sendTelegramAlert(a);
-        a.setStatus("SENT");
-        alertRepo.save(a);
-        System.out.println("[ALERT] Confirmed emergency by user for id=" + a.getId());
-        // longer cooldown since we escalated
-        suppressUntilMs = Math.max(suppressUntilMs, System.currentTimeMillis() + 20_000);
+        settleDevice(a, System.currentTimeMillis() + CANCELLED_COOLDOWN_MS);
+        return;
       }
-    });
+      // user said NOT okay -> send immediately, below once the stripe is released
+      log.info("Alert confirmed as emergency by user: alertId={} device={}", a.getId(), a.getDeviceId());
+      // longer cooldown since we escalated
+      settleDevice(a, System.currentTimeMillis() + SENT_COOLDOWN_MS);
+    } finally {
+      lock.unlock();
+    }
+    // The SENT compare-and-set above is what makes this happen once; the rows are written outside the stripe.
+    sendAlertNotifications(a);
   }
 
-  private void sendTelegramAlert(Alert a) {
-    try {
-      String ts = String.valueOf(a.getTimestamp());
-      String text = "🚨 Fall detected\n" +
-          "Time: " + ts + "\n" +
-          "Reason: " + a.getReason() + "\n" +
-          "Location: " + a.getLat() + ", " + a.getLng() + "\n" +
-          "Map: https://maps.google.com/?q=" + a.getLat() + "," + a.getLng();
-      // Telegram only
-      telegramService.sendMessage(text);
-    } catch (Exception ex) {
-      System.out.println("[Telegram] send failed: " + ex.getMessage());
+  /**
+   * Moves a pending alert to {@code to} from whichever pending phase it is in, re-reading when a timer moved
+   * it between phases first. Null if it was already final.
+   */
+  private Alert finishPending(Long alertId, AlertStatus to) {
+    while (true) {
+      Alert a = alertRepo.findById(alertId).orElse(null);
+      if (a == null || !a.getStatus().isPending()) return null;
+      if (alertRepo.transition(alertId, a.getStatus(), to) == 1) {
+        a.setStatus(to);
+        a.setVersion(a.getVersion() + 1);
+        return a;
+      }
+    }
+  }
+
+  /** Every saved alert state goes to the dashboard cache, live subscribers and the transition counters. */
+  private void alertChanged(Alert a) {
+    metrics.transition(a.getStatus());
+    recent.onAlert(a);
+    stream.publishAlert(a);
+  }
+
+  /** Striped lock so the user's answer and a firing timer never transition the same alert at once. */
+  private ReentrantLock lockFor(Long alertId) {
+    return transitionLocks[stripe(alertId)];
+  }
+
+  private int stripe(Long alertId) {
+    return (int) (alertId & (transitionLocks.length - 1));
+  }
+
+  /** Locks the stripes of all {@code alertIds} in stripe order, so batches and single answers cannot deadlock. */
+  private List<ReentrantLock> lockAll(List<Long> alertIds) {
+    boolean[] needed = new boolean[transitionLocks.length];
+    for (Long id : alertIds) needed[stripe(id)] = true;
+    List<ReentrantLock> locked = new ArrayList<>();
+    for (int i = 0; i < needed.length; i++) {
+      if (!needed[i]) continue;
+      transitionLocks[i].lock();
+      locked.add(transitionLocks[i]);
+    }
+    return locked;
+  }
+
+  /** A timer found its alert already final (answered on another node): just drop the stale pending marker. */
+  private void releaseSettled(Alert a) {
+    if (a.getStatus().isPending()) return;
+    DeviceState state = devices.find(a.getDeviceId());
+    if (state != null) state.clearPendingAlert(a.getId());
+  }
+
+  /** Alert reached a final state: release the device's pending marker and start its cooldown. */
+  private void settleDevice(Alert a, long cooldownUntilMs) {
+    DeviceState state = devices.touch(a.getDeviceId(), System.currentTimeMillis());
+    state.clearPendingAlert(a.getId());
+    state.extendCooldown(cooldownUntilMs);
+  }
+
+  private void sendAlertNotifications(Alert a) {
+    String ts = String.valueOf(a.getTimestamp());
+    String text = "🚨 Fall detected\n" +
+        "Device: " + a.getDeviceId() + "\n" +
+        "Time: " + ts + "\n" +
+        "Reason: " + a.getReason() + "\n" +
+        "Location: " + a.getLat() + ", " + a.getLng() + "\n" +
+        "Map: https://maps.google.com/?q=" + a.getLat() + "," + a.getLng();
+    // Fan-out runs asynchronously; this only records and queues the deliveries.
+    if (notifications.dispatch(a.getId(), text, responders.recipientsNear(a.getLat(), a.getLng())) == 0) {
+      log.warn("No notification channel configured: alertId={}", a.getId());
     }
   }
 }
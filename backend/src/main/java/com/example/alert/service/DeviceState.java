@@ -0,0 +1,158 @@
+package com.example.alert.service;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Mutable detection state for one device. Each device owns its own instance, so updates
+ * for different devices never touch the same memory; fields are updated lock-free.
+ */
+public class DeviceState {
+  private static final AtomicLongFieldUpdater<DeviceState> SUPPRESS =
+      AtomicLongFieldUpdater.newUpdater(DeviceState.class, "suppressUntilMs");
+  private static final AtomicLongFieldUpdater<DeviceState> STREAMED =
+      AtomicLongFieldUpdater.newUpdater(DeviceState.class, "lastStreamedMs");
+  private static final AtomicLongFieldUpdater<DeviceState> PRIORITY =
+      AtomicLongFieldUpdater.newUpdater(DeviceState.class, "priorityUntilMs");
+  private static final AtomicLongFieldUpdater<DeviceState> ALLOWANCE =
+      AtomicLongFieldUpdater.newUpdater(DeviceState.class, "allowanceAtUs");
+  private static final AtomicLongFieldUpdater<DeviceState> LAST_SEEN =
+      AtomicLongFieldUpdater.newUpdater(DeviceState.class, "lastSeenMs");
+  private static final long RETIRED = Long.MIN_VALUE; // lastSeenMs once the table has dropped this state
+
+  private final String deviceId;
+  private volatile long suppressUntilMs; // cooldown to avoid spamming
+  private volatile long pendingAlertId; // 0 when nothing is pending
+  private volatile long lastSeenMs;
+  private volatile long lastStreamedMs; // last sample pushed to live stream subscribers
+  private volatile long priorityUntilMs; // uploads stay in the critical lane until then
+  private volatile long allowanceAtUs; // ingest rate limit: when the samples admitted so far are paid off
+  private volatile SlidingWindows windows; // created on the first sample that needs it
+  private volatile LookbackBuffer lookback; // raw samples for alert snapshots, created like windows
+  // Not a monitor: detection saves a raised alert while holding it, and a virtual thread blocked in JDBC
+  // inside synchronized would pin its carrier.
+  private final ReentrantLock detectionLock = new ReentrantLock();
+
+  DeviceState(String deviceId, long now) {
+    this.deviceId = deviceId;
+    this.lastSeenMs = now;
+  }
+
+  public String getDeviceId() { return deviceId; }
+  public long getSuppressUntilMs() { return suppressUntilMs; }
+  public long getPendingAlertId() { return pendingAlertId; }
+  public long getLastSeenMs() { return lastSeenMs; }
+  public long getPriorityUntilMs() { return priorityUntilMs; }
+
+  /** Serialises detection for this device: the windows, the snapshot recording and the pending check. */
+  public ReentrantLock detectionLock() { return detectionLock; }
+
+  /** Returns this device's feature windows, creating them once. Callers hold {@link #detectionLock()} to update it. */
+  public SlidingWindows windows(Supplier<SlidingWindows> factory) {
+    SlidingWindows w = windows;
+    if (w == null) {
+      synchronized (this) {
+        w = windows;
+        if (w == null) windows = w = factory.get();
+      }
+    }
+    return w;
+  }
+
+  /** Returns this device's snapshot buffer, creating it once. */
+  public LookbackBuffer lookback(Supplier<LookbackBuffer> factory) {
+    LookbackBuffer b = lookback;
+    if (b == null) {
+      synchronized (this) {
+        b = lookback;
+        if (b == null) lookback = b = factory.get();
+      }
+    }
+    return b;
+  }
+
+  /** The snapshot buffer, or null if none was created. */
+  public LookbackBuffer lookback() {
+    return lookback;
+  }
+
+  public boolean inCooldown(long now) {
+    return now < suppressUntilMs;
+  }
+
+  /** Pushes the cooldown out to {@code untilMs} unless it already ends later. */
+  public void extendCooldown(long untilMs) {
+    long cur;
+    do {
+      cur = suppressUntilMs;
+      if (cur >= untilMs) return;
+    } while (!SUPPRESS.compareAndSet(this, cur, untilMs));
+  }
+
+  public void setPendingAlertId(long alertId) {
+    this.pendingAlertId = alertId;
+  }
+
+  /** Clears the pending marker only if it still points at {@code alertId}. */
+  public void clearPendingAlert(long alertId) {
+    if (pendingAlertId == alertId) pendingAlertId = 0L;
+  }
+
+  /** Claims the next live-stream slot for this device; true at most once per {@code intervalMs}. */
+  public boolean tryStream(long now, long intervalMs) {
+    long last = lastStreamedMs;
+    return now - last >= intervalMs && STREAMED.compareAndSet(this, last, now);
+  }
+
+  /** Keeps admission treating this device as critical until {@code untilMs}, unless it already does for longer. */
+  public void extendPriority(long untilMs) {
+    long cur;
+    do {
+      cur = priorityUntilMs;
+      if (cur >= untilMs) return;
+    } while (!PRIORITY.compareAndSet(this, cur, untilMs));
+  }
+
+  /**
+   * Charges {@code cost} samples against this device's ingest allowance: one sample per {@code intervalUs},
+   * with up to {@code burstUs} of credit banked while the device is quiet. A token bucket kept as the single
+   * time it would be full again (GCRA), so it updates with one CAS. Returns 0 when charged, otherwise the
+   * microseconds until a request of this cost would fit.
+   */
+  public long takeAllowance(long nowUs, long cost, long intervalUs, long burstUs) {
+    long at, next;
+    do {
+      at = allowanceAtUs;
+      next = Math.max(at, nowUs) + cost * intervalUs;
+      long wait = next - nowUs - burstUs;
+      if (wait > 0) return wait;
+    } while (!ALLOWANCE.compareAndSet(this, at, next));
+    return 0;
+  }
+
+  /**
+   * Marks the device seen. False when {@link DeviceStateTable} has already retired this state: the caller
+   * must look the device up again rather than record a pending alert or cooldown nobody will see.
+   */
+  boolean touch(long now) {
+    for (;;) {
+      long seen = lastSeenMs;
+      if (seen == RETIRED) return false;
+      if (now <= seen || LAST_SEEN.compareAndSet(this, seen, now)) return true;
+    }
+  }
+
+  boolean isEvictable(long now, long idleTtlMs) {
+    long seen = lastSeenMs;
+    return seen != RETIRED && pendingAlertId == 0L && now >= suppressUntilMs && now - seen >= idleTtlMs;
+  }
+
+  /**
+   * Retires the state if it is evictable and still last seen at {@code seenMs}. A concurrent touch either
+   * lands first, and the state stays, or fails and looks the device up again; it never updates a dropped state.
+   */
+  boolean retire(long seenMs, long now, long idleTtlMs) {
+    return isEvictable(now, idleTtlMs) && LAST_SEEN.compareAndSet(this, seenMs, RETIRED);
+  }
+}
@@ -0,0 +1,124 @@
+package com.example.alert.service;
+
+import com.example.alert.model.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Concurrent per-device state table. Lookups are O(1) on a ConcurrentHashMap, which is lock-free
+ * for reads and locks only a single bin on insert, so devices do not contend with each other.
+ * Memory is bounded by {@code detection.devices.max}; idle devices are evicted in the background, and when
+ * a new device finds the table full the least recently seen devices without a pending alert or cooldown make
+ * room. Every device is tracked: one that cannot get a slot would lose its alert de-duplication.
+ */
+@Component
+public class DeviceStateTable {
+  private static final Logger log = LoggerFactory.getLogger(DeviceStateTable.class);
+
+  private final ConcurrentHashMap<String, DeviceState> states;
+  private final int maxDevices;
+  private final long idleTtlMs;
+  private final AtomicLong overflowed = new AtomicLong();
+  private final Object reclaiming = new Object();
+
+  public DeviceStateTable(@Value("${detection.devices.max:200000}") int maxDevices,
+                          @Value("${detection.devices.idleTtlMs:3600000}") long idleTtlMs) {
+    this.maxDevices = maxDevices;
+    this.idleTtlMs = idleTtlMs;
+    this.states = new ConcurrentHashMap<>(Math.min(maxDevices, 1 << 16));
+  }
+
+  /** Returns the state for a device and marks it as seen, creating it if there is room. */
+  public DeviceState touch(String deviceId, long now) {
+    if (deviceId == null) deviceId = Event.DEFAULT_DEVICE;
+    for (;;) {
+      DeviceState s = states.get(deviceId);
+      if (s == null) {
+        if (states.size() >= maxDevices) reclaim(now);
+        s = states.computeIfAbsent(deviceId, id -> new DeviceState(id, now));
+      }
+      if (s.touch(now)) return s;
+      states.remove(deviceId, s); // retired by an eviction that has not unlinked it yet
+    }
+  }
+
+  /**
+   * Makes room for new devices by evicting the least recently seen evictable ones, about 1% of the table at
+   * a time so the scan is paid once per many new devices. If every device is pending or cooling down the
+   * table grows past the cap instead.
+   */
+  private void reclaim(long now) {
+    synchronized (reclaiming) {
+      if (states.size() < maxDevices) return;
+      int batch = Math.max(1, maxDevices / 100);
+      PriorityQueue<long[]> oldest = new PriorityQueue<>(batch + 1, Comparator.comparingLong((long[] e) -> -e[0]));
+      Map<Long, DeviceState> picked = new HashMap<>();
+      long n = 0;
+      for (DeviceState s : states.values()) {
+        long seen = s.getLastSeenMs();
+        if (!s.isEvictable(now, 0)) continue;
+        oldest.add(new long[] { seen, n });
+        picked.put(n++, s);
+        if (oldest.size() > batch) picked.remove(oldest.poll()[1]);
+      }
+      int evicted = 0;
+      for (long[] e : oldest) {
+        DeviceState s = picked.get(e[1]);
+        if (s.retire(e[0], now, 0)) {
+          states.remove(s.getDeviceId(), s);
+          evicted++;
+        }
+      }
+      if (evicted == 0 && overflowed.getAndIncrement() % 10_000 == 0) {
+        log.warn("Device state table full of pending devices, growing past the cap: max={} tracked={}",
+            maxDevices, states.size());
+      } else if (evicted > 0) {
+        log.debug("Evicted least recently seen devices for room: evicted={} tracked={}", evicted, states.size());
+      }
+    }
+  }
+
+  /** Returns the state for a device without creating or touching it, or null if unknown. */
+  public DeviceState find(String deviceId) {
+    return states.get(deviceId == null ? Event.DEFAULT_DEVICE : deviceId);
+  }
+
+  public int size() {
+    return states.size();
+  }
+
+  /** Drops every device {@code keep} rejects, e.g. the ones another node owns after a rebalance. */
+  public int retain(Predicate<String> keep) {
+    int before = states.size();
+    states.keySet().removeIf(id -> !keep.test(id));
+    return before - states.size();
+  }
+
+  @Scheduled(fixedDelayString = "${detection.devices.sweepMs:60000}")
+  public void evictIdle() {
+    long now = System.currentTimeMillis();
+    int evicted = 0;
+    for (DeviceState s : states.values()) {
+      // Retire first: a device touched since this sweep read it stays, and one touched after retirement
+      // looks itself up again instead of updating the dropped state.
+      if (s.retire(s.getLastSeenMs(), now, idleTtlMs)) {
+        states.remove(s.getDeviceId(), s);
+        evicted++;
+      }
+    }
+    if (evicted > 0) {
+      log.info("Evicted idle devices: evicted={} tracked={}", evicted, states.size());
+    }
+  }
+}
@@ -0,0 +1,175 @@
+package com.example.alert.service;
+
+import com.example.alert.model.Event;
+import com.example.alert.repo.EventRepository;
+import com.example.alert.repo.series.EventSeriesStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind persistence for raw events. Request threads enqueue and return; a single writer
+ * thread group-commits up to {@code flushSize} events per transaction (JDBC-batched by Hibernate),
+ * or whatever arrived within {@code flushIntervalMs}. A full queue blocks producers for at most
+ * {@code offerTimeoutMs} before the event is reported as not saved. On shutdown the queue is drained.
+ * Each flush goes to the compressed {@link EventSeriesStore} when it is enabled, and otherwise to the events
+ * table. {@code events.jpa.enabled=true} writes the table as well, e.g. to keep exact values: the series store
+ * quantises axis values to {@code 2^-events.series.fractionBits}.
+ */
+@Component
+public class EventWriteBehind {
+  private static final Logger log = LoggerFactory.getLogger(EventWriteBehind.class);
+
+  private final EventRepository eventRepo;
+  private final EventSeriesStore seriesStore;
+  private final boolean jpaEnabled;
+  private final TransactionTemplate tx;
+  private final BlockingQueue<Event> queue;
+  private final int flushSize;
+  private final long flushIntervalMs;
+  private final long offerTimeoutMs;
+  private final long drainTimeoutMs;
+  private final AlertMetrics metrics;
+
+  private final AtomicLong flushed = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private volatile boolean running;
+  private Thread writer;
+
+  public EventWriteBehind(EventRepository eventRepo, EventSeriesStore seriesStore, PlatformTransactionManager txManager,
+                          @Value("${events.jpa.enabled:#{null}}") Boolean jpaEnabled,
+                          @Value("${events.writeBehind.queueCapacity:50000}") int queueCapacity,
+                          @Value("${events.writeBehind.flushSize:500}") int flushSize,
+                          @Value("${events.writeBehind.flushIntervalMs:200}") long flushIntervalMs,
+                          @Value("${events.writeBehind.offerTimeoutMs:50}") long offerTimeoutMs,
+                          @Value("${events.writeBehind.drainTimeoutMs:10000}") long drainTimeoutMs,
+                          AlertMetrics metrics) {
+    this.eventRepo = eventRepo;
+    this.seriesStore = seriesStore;
+    this.jpaEnabled = jpaEnabled != null ? jpaEnabled : !seriesStore.isEnabled();
+    this.tx = new TransactionTemplate(txManager);
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.flushSize = flushSize;
+    this.flushIntervalMs = flushIntervalMs;
+    this.offerTimeoutMs = offerTimeoutMs;
+    this.drainTimeoutMs = drainTimeoutMs;
+    this.metrics = metrics;
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    writer = new Thread(this::run, "event-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /** Queues one event; returns false if the queue stayed full for the whole offer timeout. */
+  public boolean submit(Event e) {
+    try {
+      if (running && queue.offer(e, offerTimeoutMs, TimeUnit.MILLISECONDS)) return true;
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    }
+    rejected.incrementAndGet();
+    return false;
+  }
+
+  /** Queues a batch in order; returns how many were accepted before the queue pushed back. */
+  public int submitAll(List<Event> events) {
+    int n = 0;
+    for (Event e : events) {
+      if (!submit(e)) {
+        rejected.addAndGet(events.size() - n - 1);
+        break;
+      }
+      n++;
+    }
+    return n;
+  }
+
+  public int queueDepth() { return queue.size(); }
+  public int queueCapacity() { return queue.size() + queue.remainingCapacity(); }
+  public long flushedCount() { return flushed.get(); }
+  public long rejectedCount() { return rejected.get(); }
+  public long failedCount() { return failed.get(); }
+
+  private void run() {
+    List<Event> batch = new ArrayList<>(flushSize);
+    while (running || !queue.isEmpty()) {
+      try {
+        Event first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (first == null) continue;
+        batch.add(first);
+        long deadline = System.currentTimeMillis() + flushIntervalMs;
+        // Group commit: keep collecting until the batch is full or the interval has passed.
+        while (batch.size() < flushSize) {
+          queue.drainTo(batch, flushSize - batch.size());
+          long wait = deadline - System.currentTimeMillis();
+          if (batch.size() >= flushSize || wait <= 0 || !running) break;
+          Event next = queue.poll(wait, TimeUnit.MILLISECONDS);
+          if (next == null) break;
+          batch.add(next);
+        }
+      } catch (InterruptedException ie) {
+        running = false; // our own thread: treat as shutdown, flush what we have and drain the rest
+      }
+      if (!batch.isEmpty()) {
+        flush(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  private void flush(List<Event> batch) {
+    long start = System.nanoTime();
+    boolean ok = true;
+    if (seriesStore.isEnabled()) {
+      try {
+        seriesStore.appendAll(batch);
+      } catch (Exception ex) {
+        ok = false;
+        log.error("Series append failed: events={} error={}", batch.size(), ex.getMessage());
+      }
+    }
+    if (jpaEnabled) {
+      try {
+        tx.executeWithoutResult(status -> eventRepo.saveAll(batch));
+      } catch (Exception ex) {
+        ok = false;
+        log.error("Event flush failed: events={} error={}", batch.size(), ex.getMessage());
+      }
+    }
+    if (ok) flushed.addAndGet(batch.size());
+    else failed.addAndGet(batch.size());
+    metrics.flush(start);
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    if (writer == null) return;
+    // No interrupt: the writer may be inside JDBC I/O. It notices the flag within one poll interval.
+    try {
+      writer.join(drainTimeoutMs);
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    }
+    if (!queue.isEmpty()) {
+      log.warn("Shutdown drain timed out: unsaved={}", queue.size());
+    }
+  }
+}
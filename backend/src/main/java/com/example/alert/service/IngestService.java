@@ -0,0 +1,169 @@
+package com.example.alert.service;
+
+import com.example.alert.model.Alert;
+import com.example.alert.model.Event;
+import com.example.alert.model.SampleBatch;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The batch and window ingest paths behind both the annotated controller and the functional routes:
+ * detection, write-behind persistence and the recent cache, returning the response body.
+ *
+ * Every upload passes {@link AdmissionControl} first, which may thin it or turn it away with
+ * {@link AdmissionControl.Rejected}.
+ *
+ * The functional routes can also offload that work to a bounded pool sized to the CPU count, so a request
+ * thread only reads the body and thousands of open device connections do not each hold a platform thread
+ * while they wait their turn. On virtual threads there is nothing to save and the offload is off.
+ */
+@Service
+public class IngestService {
+  private final DetectionService detectionService;
+  private final EventWriteBehind eventWriter;
+  private final RecentCache recent;
+  private final AlertMetrics metrics;
+  private final AdmissionControl admission;
+  private final ThreadPoolExecutor offload; // null when requests are handled on their own thread
+  private final AtomicLong offloadRejected = new AtomicLong();
+
+  public IngestService(DetectionService detectionService, EventWriteBehind eventWriter, RecentCache recent,
+                       AlertMetrics metrics, AdmissionControl admission, Workers threads,
+                       @Value("${ingest.fn.async:true}") boolean async,
+                       @Value("${ingest.fn.workers:0}") int workers,
+                       @Value("${ingest.fn.queueCapacity:10000}") int queueCapacity) {
+    this.detectionService = detectionService;
+    this.eventWriter = eventWriter;
+    this.recent = recent;
+    this.metrics = metrics;
+    this.admission = admission;
+    if (async && !threads.isVirtual()) {
+      int n = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+      AtomicInteger ids = new AtomicInteger();
+      offload = new ThreadPoolExecutor(n, n, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), r -> {
+        Thread t = new Thread(r, "ingest-" + ids.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+      });
+    } else {
+      offload = null;
+    }
+  }
+
+  public boolean isOffloading() {
+    return offload != null;
+  }
+
+  /**
+   * Runs {@code work} on the offload pool. Throws {@link RejectedExecutionException} when its queue is full,
+   * so the caller can shed load instead of buffering without bound.
+   */
+  public <T> CompletableFuture<T> offload(Supplier<T> work) {
+    try {
+      return CompletableFuture.supplyAsync(work, offload);
+    } catch (RejectedExecutionException ex) {
+      offloadRejected.incrementAndGet();
+      throw ex;
+    }
+  }
+
+  public int offloadQueueDepth() { return offload == null ? 0 : offload.getQueue().size(); }
+  public long offloadRejectedCount() { return offloadRejected.get(); }
+
+  @PreDestroy
+  public void stop() {
+    if (offload != null) offload.shutdown();
+  }
+
+  public Map<String, Object> ingestBatch(SampleBatch batch) {
+    long start = System.nanoTime();
+    int n = batch.size();
+    boolean[] accepted = new boolean[n];
+    int invalid = 0;
+    for (int i = 0; i < n; i++) {
+      accepted[i] = batch.isValid(i);
+      if (!accepted[i]) invalid++;
+    }
+    AdmissionControl.Permit permit = admission.admit(batch, accepted);
+    try {
+      List<Event> events = new ArrayList<>(n);
+      for (int i = 0; i < n; i++) {
+        if (accepted[i]) events.add(batch.toEvent(i));
+      }
+      int queued = eventWriter.submitAll(events);
+      recent.onEvents(events);
+
+      Alert alert = detectionService.processBatch(batch, accepted);
+      metrics.rejectedSamples(invalid);
+      metrics.ingest(true, alert != null, start);
+      Map<String, Object> resp = batchResponse(batch, events.size(), invalid, queued, alert);
+      resp.put("thinned", permit.thinned());
+      return resp;
+    } finally {
+      admission.release(permit);
+    }
+  }
+
+  /** Like a batch, but detection goes first: it drops rows an overlapping earlier window already delivered. */
+  public Map<String, Object> ingestWindow(SampleBatch batch) {
+    long start = System.nanoTime();
+    int n = batch.size();
+    boolean[] accepted = new boolean[n];
+    int invalid = 0;
+    for (int i = 0; i < n; i++) {
+      accepted[i] = batch.isValid(i);
+      if (!accepted[i]) invalid++;
+    }
+    AdmissionControl.Permit permit = admission.admit(batch, accepted);
+    try {
+      Alert alert = detectionService.processWindow(batch, accepted);
+
+      List<Event> events = new ArrayList<>(n);
+      for (int i = 0; i < n; i++) {
+        if (accepted[i]) events.add(batch.toEvent(i));
+      }
+      int queued = eventWriter.submitAll(events);
+      recent.onEvents(events);
+      metrics.rejectedSamples(invalid);
+      metrics.ingestWindow(alert != null, start);
+
+      Map<String, Object> resp = batchResponse(batch, events.size(), invalid, queued, alert);
+      resp.put("thinned", permit.thinned());
+      resp.put("duplicates", n - invalid - permit.thinned() - events.size());
+      return resp;
+    } finally {
+      admission.release(permit);
+    }
+  }
+
+  private static Map<String, Object> batchResponse(SampleBatch batch, int accepted, int rejected, int queued, Alert alert) {
+    Map<String, Object> resp = new HashMap<>();
+    resp.put("deviceId", batch.getDeviceId());
+    resp.put("accepted", accepted);
+    resp.put("rejected", rejected);
+    resp.put("saved", queued == accepted);
+    resp.put("unsaved", accepted - queued);
+    resp.put("alert", alert != null);
+    if (alert != null) {
+      resp.put("alertId", alert.getId());
+      resp.put("status", alert.getStatus());
+      resp.put("confirmStartsAt", alert.getConfirmStartsAt());
+      resp.put("expiryAt", alert.getExpiryAt());
+    }
+    return resp;
+  }
+}
@@ -0,0 +1,83 @@
+package com.example.alert.service;
+
+import com.example.alert.repo.series.SeriesCodec;
+
+/**
+ * Per-device ring of raw IMU samples for alert snapshots: timestamps plus six float columns, sized once for
+ * the snapshot span at {@code maxRateHz}. Faster streams are thinned to about that rate, so the ring always
+ * covers the span. While a capture is open (an alert fired) the ring keeps filling until the samples after
+ * the trigger are in, then the range around the trigger is encoded in one go.
+ *
+ * Not thread-safe: {@link SnapshotService} locks on the buffer.
+ */
+public class LookbackBuffer {
+  private final int cap; // not rounded to a power of two: with thousands of devices the slack would add up
+  private final long minGapMs;
+  private final long[] ts;
+  private final float[] ax, ay, az, gx, gy, gz;
+  private long seq; // samples ever kept; next write goes to slot(seq)
+
+  private long captureAlertId; // 0 when no capture is open
+  private long captureTriggerTs, captureFromTs, captureUntilTs, captureDeadlineMs;
+
+  /**
+   * @param spanMs    time the ring must cover (pre- plus post-trigger)
+   * @param maxRateHz highest rate kept; samples closer together than about {@code 1000 / maxRateHz} ms are skipped
+   */
+  public LookbackBuffer(long spanMs, int maxRateHz) {
+    long periodMs = 1000 / Math.max(1, maxRateHz);
+    this.minGapMs = periodMs * 3 / 4; // tolerate jitter at the nominal rate
+    // One extra second of room for the batch that completes a capture.
+    this.cap = (int) Math.max(2, (spanMs + 1000) * maxRateHz / 1000 + 1);
+    this.ts = new long[cap];
+    this.ax = new float[cap]; this.ay = new float[cap]; this.az = new float[cap];
+    this.gx = new float[cap]; this.gy = new float[cap]; this.gz = new float[cap];
+  }
+
+  public int capacity() { return cap; }
+
+  /** Timestamp of the newest kept sample, or {@link Long#MIN_VALUE} before the first. */
+  public long lastTimestamp() { return seq == 0 ? Long.MIN_VALUE : ts[slot(seq - 1)]; }
+
+  public void add(long t, double x, double y, double z, double rx, double ry, double rz) {
+    if (seq > 0 && t - ts[slot(seq - 1)] < minGapMs) return; // also drops out-of-order samples
+    int i = slot(seq);
+    ts[i] = t;
+    ax[i] = (float) x; ay[i] = (float) y; az[i] = (float) z;
+    gx[i] = (float) rx; gy[i] = (float) ry; gz[i] = (float) rz;
+    seq++;
+  }
+
+  private int slot(long n) {
+    return (int) (n % cap);
+  }
+
+  /** Starts freezing {@code [triggerTs - preMs, triggerTs + postMs]}; replaces any capture still open. */
+  public void startCapture(long alertId, long triggerTs, long preMs, long postMs, long deadlineMs) {
+    captureAlertId = alertId;
+    captureTriggerTs = triggerTs;
+    captureFromTs = triggerTs - preMs;
+    captureUntilTs = triggerTs + postMs;
+    captureDeadlineMs = deadlineMs;
+  }
+
+  public long captureAlertId() { return captureAlertId; }
+  public long captureTriggerTs() { return captureTriggerTs; }
+  public long captureFromTs() { return captureFromTs; }
+  public long captureUntilTs() { return captureUntilTs; }
+
+  /** True once samples past the capture's end have arrived, or the wall-clock deadline passed without them. */
+  public boolean captureDue(long nowMs) {
+    return captureAlertId != 0 && (lastTimestamp() >= captureUntilTs || nowMs >= captureDeadlineMs);
+  }
+
+  /** Appends the captured range to {@code out} in time order and closes the capture. */
+  public void freeze(SeriesCodec.Encoder out) {
+    for (long n = Math.max(0, seq - cap); n < seq; n++) {
+      int i = slot(n);
+      if (ts[i] < captureFromTs || ts[i] > captureUntilTs) continue;
+      out.append(ts[i], ax[i], ay[i], az[i], gx[i], gy[i], gz[i], Double.NaN, Double.NaN);
+    }
+    captureAlertId = 0;
+  }
+}
@@ -1,61 +1,141 @@
 package com.example.alert.service;
 
+import com.example.alert.service.inference.InferenceModel;
+import com.example.alert.service.inference.Kernels;
+import com.example.alert.service.inference.ModelReader;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Minimal ML service for demo fall-detection backend.
- * - Attempts to load a simple JSON logistic regression model from classpath: model/fall_model.bin
- * - Falls back to loading placeholder TFLite bytes from model/fall_model.tflite
+ * - Loads a JSON model exported by ml/train_model.py from classpath: model/fall_model.bin
+ *   (logistic regression, MLP or gradient-boosted trees, see {@link ModelReader})
  * - If no model is found, uses a simple heuristic stub for demonstration.
+ * - {@link ModelRegistry} can swap the primary model at runtime and attach a shadow model, which scores the
+ *   same inputs on its own executor so it never adds latency to detection.
  */
 @Service
 public class MLService {
+    private static final Logger log = LoggerFactory.getLogger(MLService.class);
 
-    private byte[] modelBytes;
-    private double[] lrWeights; // [w_accel_mag, w_gyro_mag]
-    private double lrBias;
-    private double lrThreshold = 0.6;
+    private final AlertMetrics metrics;
 
+    private volatile ModelVersion primary; // replaced as a whole, never mutated
+    private volatile ModelVersion shadow;
+    private final AtomicInteger versions = new AtomicInteger();
+
+    @Value("${ml.vector.enabled:true}")
+    private boolean vectorEnabled = true;
+
+    @Value("${ml.shadow.queueCapacity:10000}")
+    private int shadowQueueCapacity = 10000;
+
+    private ThreadPoolExecutor shadowPool;
+
+    private Kernels kernels = Kernels.select(false);
     private final ObjectMapper mapper = new ObjectMapper();
+    private static final ThreadLocal<double[]> ROW = ThreadLocal.withInitial(() -> new double[32]);
+    private static final double STUB_THRESHOLD = 0.6;
+
+    public MLService(AlertMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     @PostConstruct
     public void load() {
+        kernels = Kernels.select(vectorEnabled);
+        log.info("Inference kernels: {}", kernels.name());
+        // One thread is enough for shadow scoring; when it falls behind, samples are dropped, not queued forever.
+        shadowPool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(shadowQueueCapacity), r -> {
+            Thread t = new Thread(r, "ml-shadow");
+            t.setDaemon(true);
+            return t;
+        });
         try {
-            // Prefer JSON logistic regression model if present
             Resource jsonRes = new ClassPathResource("model/fall_model.bin");
             if (jsonRes.exists()) {
                 try (InputStream is = jsonRes.getInputStream()) {
-                    parseJsonModel(is);
-                    System.out.println("[ML] Loaded logistic regression model from fall_model.bin");
-                }
-                return;
-            }
-
-            // Else, load TFLite placeholder bytes (not used for real inference in this demo)
-            Resource res = new ClassPathResource("model/fall_model.tflite");
-            if (res.exists()) {
-                try (InputStream is = res.getInputStream()) {
-                    modelBytes = is.readAllBytes();
-                    System.out.println("[ML] Loaded prebuilt fall_model.tflite (" + modelBytes.length + " bytes)");
+                    ModelVersion v = build("fall_model", "classpath:model/fall_model.bin", mapper.readTree(is));
+                    install(v);
                 }
             } else {
-                System.out.println("[ML] Model not found; using stub predictions");
+                log.warn("Model not found; using stub predictions");
             }
         } catch (IOException e) {
-            System.out.println("[ML] Failed to load model: " + e.getMessage());
+            log.error("Failed to load model: {}", e.getMessage());
         }
     }
 
+    @PreDestroy
+    public void stop() {
+        if (shadowPool != null) shadowPool.shutdownNow();
+    }
+
+    /** Parses and validates a model without installing it. */
+    public ModelVersion build(String name, String source, JsonNode root) throws IOException {
+        InferenceModel m = ModelReader.read(root, kernels);
+        return new ModelVersion(name, versions.incrementAndGet(), source, m, ModelFeatures.codes(m));
+    }
+
+    /** Makes {@code v} the primary model; scoring threads pick it up on their next sample. */
+    public void install(ModelVersion v) {
+        primary = v;
+        log.info("Primary model is now {}: type={} features={}", v.label(), v.getModel().type(),
+                v.getModel().features().size());
+    }
+
+    /** Starts shadow scoring with {@code v}, or stops it when null. */
+    public void setShadow(ModelVersion v) {
+        shadow = v;
+        log.info("Shadow model is now {}", v == null ? "none" : v.label());
+    }
+
+    public ModelVersion primary() {
+        return primary;
+    }
+
+    public ModelVersion shadow() {
+        return shadow;
+    }
+
+    /** The active model, or null when running on the heuristic stub. */
+    public InferenceModel model() {
+        ModelVersion v = primary;
+        return v == null ? null : v.getModel();
+    }
+
+    public Kernels kernels() {
+        return kernels;
+    }
+
+    /**
+     * Scores a batch laid out feature-major in the active model's feature order (see {@link InferenceModel}).
+     * Returns false, leaving {@code out} untouched, when no model is loaded.
+     */
+    public boolean scoreBatch(double[] x, int stride, int rows, double[] out) {
+        ModelVersion v = primary;
+        if (v == null) return false;
+        v.getModel().scoreBatch(x, stride, rows, out);
+        return true;
+    }
+
     /**
      * Very simple stub / fallback: returns score in [0,1] based on accelerometer and gyro magnitudes.
      *
@@ -70,39 +150,72 @@ public class MLService {
     public double predictFallProbability(double ax, double ay, double az, double gx, double gy, double gz) {
         double accelMag = Math.sqrt(ax * ax + ay * ay + az * az);
         double gyroMag = Math.sqrt(gx * gx + gy * gy + gz * gz);
+        return predictFallProbability(accelMag, gyroMag, null, null);
+    }
 
-        if (lrWeights != null && lrWeights.length == 2) {
-            double z = lrWeights[0] * accelMag + lrWeights[1] * gyroMag + lrBias;
-            double prob = 1.0 / (1.0 + Math.exp(-z));
-            return prob;
+    /**
+     * Scores one sample together with its device's sliding-window features. Models list the inputs they
+     * were trained on in "features"; window features (prefixed short_ / long_) read 0 when no window is given.
+     *
+     * @param accelMag  accelerometer magnitude of the current sample
+     * @param gyroMag   gyroscope magnitude of the current sample
+     * @param shortWin  features of the short window, or null
+     * @param longWin   features of the long window, or null
+     * @return probability-like score in [0,1]
+     */
+    public double predictFallProbability(double accelMag, double gyroMag, WindowFeatures shortWin, WindowFeatures longWin) {
+        ModelVersion p = primary;
+        double score;
+        double threshold;
+        if (p != null) {
+            long start = System.nanoTime();
+            int[] codes = p.codes();
+            double[] row = ROW.get();
+            if (row.length < codes.length) {
+                row = new double[codes.length];
+                ROW.set(row);
+            }
+            ModelFeatures.fill(codes, row, accelMag, gyroMag, shortWin, longWin);
+            score = p.getModel().score(row);
+            threshold = p.getModel().threshold();
+            p.getStats().record(score, threshold);
+            metrics.mlScore(start);
+        } else {
+            score = stubScore(accelMag, gyroMag);
+            threshold = STUB_THRESHOLD;
         }
 
-        // fallback heuristic
-        double raw = (Math.max(0, accelMag - 12.0) / 15.0) + (Math.min(gyroMag, 300.0) / 300.0) * 0.5;
-        double score = Math.max(0.0, Math.min(1.0, raw));
+        ModelVersion s = shadow;
+        if (s != null) {
+            submitShadow(s, score, threshold, accelMag, gyroMag, shortWin, longWin);
+        }
         return score;
     }
 
     /**
-     * Very small ad-hoc JSON parsing to extract weights, bias, and threshold.
-     * Expected JSON shape:
-     * {"type":"logistic_regression","weights":[w1,w2],"bias":b,"threshold":t}
-     *
-     * This avoids adding a JSON library for the demo. Replace with a proper JSON parser (Jackson/Gson) for production.
+     * Hands one sample to the shadow model. Window features are reused by their owner, so the inputs
+     * are copied here; the scoring itself happens on the shadow thread.
      */
-    private void parseJsonModel(InputStream is) throws IOException {
-        JsonNode root = mapper.readTree(is);
-        JsonNode w = root.get("weights");
-        if (w != null && w.isArray() && w.size() >= 2) {
-            lrWeights = new double[] { w.get(0).asDouble(), w.get(1).asDouble() };
-        }
-        JsonNode b = root.get("bias");
-        if (b != null && b.isNumber()) {
-            lrBias = b.asDouble();
-        }
-        JsonNode t = root.get("threshold");
-        if (t != null && t.isNumber()) {
-            lrThreshold = t.asDouble();
+    private void submitShadow(ModelVersion s, double primaryScore, double primaryThreshold,
+                              double accelMag, double gyroMag, WindowFeatures shortWin, WindowFeatures longWin) {
+        int[] codes = s.codes();
+        double[] row = new double[codes.length];
+        ModelFeatures.fill(codes, row, accelMag, gyroMag, shortWin, longWin);
+        try {
+            shadowPool.execute(() -> {
+                double score = s.getModel().score(row);
+                double threshold = s.getModel().threshold();
+                s.getStats().record(score, threshold);
+                s.getStats().recordComparison(primaryScore, primaryThreshold, score, threshold);
+            });
+        } catch (RejectedExecutionException ex) {
+            s.getStats().recordDropped();
         }
     }
+
+    /** Heuristic used when no model is loaded: a score in [0,1] from accelerometer and gyro magnitudes. */
+    public static double stubScore(double accelMag, double gyroMag) {
+        double raw = (Math.max(0, accelMag - 12.0) / 15.0) + (Math.min(gyroMag, 300.0) / 300.0) * 0.5;
+        return Math.max(0.0, Math.min(1.0, raw));
+    }
 }
@@ -0,0 +1,74 @@
+package com.example.alert.service;
+
+import com.example.alert.service.inference.InferenceModel;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Maps a model's feature names to the values detection has at hand. Models list their inputs in
+ * "features": accel_mag and gyro_mag of the current sample, and short_/long_ window stats
+ * (mean, var, min, max, jerk, sma, orient), which read 0 when no window is given.
+ * Names are resolved to integer codes once per model, so filling a row per sample is a switch.
+ */
+public final class ModelFeatures {
+  // Codes: 0/1 are per-sample magnitudes, 2.. are short-window stats, LONG+2.. long-window stats.
+  private static final int ACCEL_MAG = 0;
+  private static final int GYRO_MAG = 1;
+  private static final int LONG = 16;
+  private static final List<String> WINDOW_STATS = List.of("mean", "var", "min", "max", "jerk", "sma", "orient");
+
+  private ModelFeatures() {}
+
+  /** Codes for the model's features, in input order. */
+  public static int[] codes(InferenceModel m) throws IOException {
+    List<String> names = m.features();
+    int[] codes = new int[names.size()];
+    for (int i = 0; i < codes.length; i++) {
+      codes[i] = code(names.get(i));
+      if (codes[i] < 0) {
+        throw new IOException("Unknown model feature '" + names.get(i) + "'");
+      }
+    }
+    return codes;
+  }
+
+  /** Writes the inputs for {@code codes} into the first {@code codes.length} slots of {@code row}. */
+  public static void fill(int[] codes, double[] row, double accelMag, double gyroMag, WindowFeatures s, WindowFeatures l) {
+    for (int i = 0; i < codes.length; i++) {
+      row[i] = value(codes[i], accelMag, gyroMag, s, l);
+    }
+  }
+
+  private static double value(int code, double accelMag, double gyroMag, WindowFeatures s, WindowFeatures l) {
+    if (code == ACCEL_MAG) return accelMag;
+    if (code == GYRO_MAG) return gyroMag;
+    WindowFeatures w = code < LONG ? s : l;
+    if (w == null || w.count == 0) return 0.0;
+    switch (code % LONG) {
+      case 2: return w.mean;
+      case 3: return w.variance;
+      case 4: return w.min;
+      case 5: return w.max;
+      case 6: return w.maxJerk;
+      case 7: return w.sma;
+      case 8: return w.getOrientationChangeDeg();
+      default: return 0.0;
+    }
+  }
+
+  private static int code(String name) {
+    switch (name) {
+      case "accel_mag": return ACCEL_MAG;
+      case "gyro_mag": return GYRO_MAG;
+      default: break;
+    }
+    int base;
+    String stat;
+    if (name.startsWith("short_")) { base = 0; stat = name.substring(6); }
+    else if (name.startsWith("long_")) { base = LONG; stat = name.substring(5); }
+    else return -1;
+    int idx = WINDOW_STATS.indexOf(stat);
+    return idx < 0 ? -1 : base + 2 + idx;
+  }
+}
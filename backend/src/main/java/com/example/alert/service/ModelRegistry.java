@@ -0,0 +1,197 @@
+package com.example.alert.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads model files from {@code ml.models.dir} and keeps the newest version of each by name
+ * ({@code mlp_v2.json} is model "mlp_v2"). The directory is watched: a rewritten file is parsed
+ * off the scoring path and, if it is the primary or shadow model, swapped into {@link MLService}
+ * with one reference write. Files that fail to parse leave the running version in place.
+ * Write new files under a temporary name and rename them into the directory to avoid partial reads.
+ */
+@Component
+public class ModelRegistry {
+  private static final Logger log = LoggerFactory.getLogger(ModelRegistry.class);
+
+  private final MLService ml;
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final Map<String, ModelVersion> latest = new ConcurrentHashMap<>();
+  private final Path dir;
+  private final String initialPrimary;
+  private final String initialShadow;
+  private final boolean watch;
+  private final long debounceMs;
+  private WatchService watcher;
+  private Thread watchThread;
+
+  public ModelRegistry(MLService ml,
+                       @Value("${ml.models.dir:./models}") String dir,
+                       @Value("${ml.models.primary:}") String primary,
+                       @Value("${ml.models.shadow:}") String shadow,
+                       @Value("${ml.models.watch:true}") boolean watch,
+                       @Value("${ml.models.debounceMs:500}") long debounceMs) {
+    this.ml = ml;
+    this.dir = Paths.get(dir);
+    this.initialPrimary = primary;
+    this.initialShadow = shadow;
+    this.watch = watch;
+    this.debounceMs = debounceMs;
+  }
+
+  @PostConstruct
+  public void start() throws IOException {
+    ModelVersion builtIn = ml.primary();
+    if (builtIn != null) latest.put(builtIn.getName(), builtIn);
+    if (!Files.isDirectory(dir)) {
+      if (!initialPrimary.isBlank() || !initialShadow.isBlank()) {
+        log.warn("Model directory does not exist: dir={}", dir.toAbsolutePath());
+      }
+      return;
+    }
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.{json,bin}")) {
+      for (Path f : files) load(f);
+    }
+    if (!initialPrimary.isBlank()) promote(initialPrimary);
+    if (!initialShadow.isBlank()) shadow(initialShadow);
+    if (watch) {
+      watcher = dir.getFileSystem().newWatchService();
+      dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+      watchThread = new Thread(this::watchLoop, "model-watch");
+      watchThread.setDaemon(true);
+      watchThread.start();
+    }
+  }
+
+  /** Makes the newest version of {@code name} the primary model; it stops being the shadow if it was one. */
+  public ModelVersion promote(String name) {
+    ModelVersion v = require(name);
+    ModelVersion s = ml.shadow();
+    if (s != null && s.getName().equals(name)) ml.setShadow(null);
+    ml.install(v);
+    return v;
+  }
+
+  public ModelVersion shadow(String name) {
+    ModelVersion v = require(name);
+    ModelVersion p = ml.primary();
+    if (p != null && p.getName().equals(name)) throw new IllegalArgumentException(name + " is the primary model");
+    ml.setShadow(v);
+    return v;
+  }
+
+  public void clearShadow() {
+    ml.setShadow(null);
+  }
+
+  public Map<String, Object> describe() {
+    ModelVersion p = ml.primary(), s = ml.shadow();
+    // Active versions first, they may be older than the newest file of the same name.
+    Set<ModelVersion> all = new LinkedHashSet<>();
+    if (p != null) all.add(p);
+    if (s != null) all.add(s);
+    all.addAll(latest.values());
+    List<Map<String, Object>> models = new ArrayList<>();
+    for (ModelVersion v : all) {
+      Map<String, Object> m = new LinkedHashMap<>();
+      m.put("name", v.getName());
+      m.put("version", v.getVersion());
+      m.put("role", v == p ? "primary" : v == s ? "shadow" : "standby");
+      m.put("type", v.getModel().type());
+      m.put("features", v.getModel().features());
+      m.put("threshold", v.getModel().threshold());
+      m.put("source", v.getSource());
+      m.put("loadedAt", v.getLoadedAt());
+      m.put("stats", v.getStats().toMap());
+      models.add(m);
+    }
+    Map<String, Object> out = new LinkedHashMap<>();
+    out.put("primary", p == null ? null : p.label());
+    out.put("shadow", s == null ? null : s.label());
+    out.put("kernels", ml.kernels().name());
+    out.put("directory", dir.toAbsolutePath().toString());
+    out.put("models", models);
+    return out;
+  }
+
+  private ModelVersion require(String name) {
+    ModelVersion v = latest.get(name);
+    if (v == null) throw new IllegalArgumentException("Unknown model '" + name + "'");
+    return v;
+  }
+
+  /** Parses one file and records it as the newest version of its name, swapping it in if that name is active. */
+  private void load(Path file) {
+    String fileName = file.getFileName().toString();
+    int dot = fileName.lastIndexOf('.');
+    String name = dot > 0 ? fileName.substring(0, dot) : fileName;
+    ModelVersion v;
+    try (InputStream is = Files.newInputStream(file)) {
+      v = ml.build(name, file.toAbsolutePath().toString(), mapper.readTree(is));
+    } catch (IOException | RuntimeException ex) {
+      log.warn("Ignoring model file: file={} error={}", file, ex.getMessage());
+      return;
+    }
+    latest.put(name, v);
+    log.info("Loaded model {} from {}", v.label(), file);
+    ModelVersion p = ml.primary(), s = ml.shadow();
+    if (p != null && p.getName().equals(name)) ml.install(v);
+    else if (s != null && s.getName().equals(name)) ml.setShadow(v);
+  }
+
+  private void watchLoop() {
+    while (true) {
+      WatchKey key;
+      try {
+        key = watcher.take();
+        // Editors and copy tools write in several steps: let the burst settle, then read each file once.
+        Thread.sleep(debounceMs);
+      } catch (InterruptedException | ClosedWatchServiceException ex) {
+        return;
+      }
+      Set<Path> changed = new LinkedHashSet<>();
+      for (WatchEvent<?> ev : key.pollEvents()) {
+        if (ev.context() instanceof Path p) {
+          String n = p.toString();
+          if (n.endsWith(".json") || n.endsWith(".bin")) changed.add(dir.resolve(p));
+        }
+      }
+      for (Path f : changed) {
+        if (Files.isRegularFile(f)) load(f);
+      }
+      if (!key.reset()) {
+        log.warn("Model directory is no longer watchable; hot reload stopped");
+        return;
+      }
+    }
+  }
+
+  @PreDestroy
+  public void stop() throws IOException {
+    if (watcher != null) watcher.close();
+  }
+}
@@ -0,0 +1,78 @@
+package com.example.alert.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Score distribution of one model version, plus how it compares with the primary while it runs in shadow.
+ * Striped adders keep recording contention-free on the scoring path.
+ */
+public class ModelStats {
+  private static final int BINS = 10;
+
+  private final LongAdder[] histogram = new LongAdder[BINS];
+  private final LongAdder scored = new LongAdder();
+  private final LongAdder positives = new LongAdder();
+  private final DoubleAdder scoreSum = new DoubleAdder();
+
+  private final LongAdder compared = new LongAdder();
+  private final LongAdder agreed = new LongAdder();
+  private final DoubleAdder absDiffSum = new DoubleAdder();
+  private final LongAdder dropped = new LongAdder();
+
+  public ModelStats() {
+    for (int i = 0; i < BINS; i++) histogram[i] = new LongAdder();
+  }
+
+  void record(double score, double threshold) {
+    histogram[Math.min(BINS - 1, Math.max(0, (int) (score * BINS)))].increment();
+    scored.increment();
+    scoreSum.add(score);
+    if (score > threshold) positives.increment();
+  }
+
+  /** Shadow only: compares this model's decision with the primary's on the same sample. */
+  void recordComparison(double primaryScore, double primaryThreshold, double score, double threshold) {
+    compared.increment();
+    if ((primaryScore > primaryThreshold) == (score > threshold)) agreed.increment();
+    absDiffSum.add(Math.abs(primaryScore - score));
+  }
+
+  /** Shadow only: a sample skipped because the shadow executor was saturated. */
+  void recordDropped() {
+    dropped.increment();
+  }
+
+  /** Forgets everything recorded so far, e.g. the synthetic samples of {@link StartupWarmup}. */
+  void reset() {
+    for (LongAdder bin : histogram) bin.reset();
+    scored.reset();
+    positives.reset();
+    scoreSum.reset();
+    compared.reset();
+    agreed.reset();
+    absDiffSum.reset();
+    dropped.reset();
+  }
+
+  public Map<String, Object> toMap() {
+    long n = scored.sum();
+    Map<String, Object> m = new LinkedHashMap<>();
+    m.put("scored", n);
+    m.put("meanScore", n == 0 ? null : scoreSum.sum() / n);
+    m.put("positiveRate", n == 0 ? null : (double) positives.sum() / n);
+    long[] bins = new long[BINS];
+    for (int i = 0; i < BINS; i++) bins[i] = histogram[i].sum();
+    m.put("histogram", bins); // counts per 0.1 of score
+    long c = compared.sum();
+    if (c > 0 || dropped.sum() > 0) {
+      m.put("compared", c);
+      m.put("agreementRate", c == 0 ? null : (double) agreed.sum() / c);
+      m.put("meanAbsDiff", c == 0 ? null : absDiffSum.sum() / c);
+      m.put("dropped", dropped.sum());
+    }
+    return m;
+  }
+}
@@ -0,0 +1,35 @@
+package com.example.alert.service;
+
+import com.example.alert.service.inference.InferenceModel;
+
+/** One loaded model file: immutable apart from its stats, and swapped in or out as a whole. */
+public final class ModelVersion {
+  private final String name;
+  private final int version;
+  private final String source;
+  private final long loadedAt;
+  private final InferenceModel model;
+  private final int[] codes; // ModelFeatures codes, in model input order
+  private final ModelStats stats = new ModelStats();
+
+  ModelVersion(String name, int version, String source, InferenceModel model, int[] codes) {
+    this.name = name;
+    this.version = version;
+    this.source = source;
+    this.loadedAt = System.currentTimeMillis();
+    this.model = model;
+    this.codes = codes;
+  }
+
+  public String getName() { return name; }
+  public int getVersion() { return version; }
+  public String getSource() { return source; }
+  public long getLoadedAt() { return loadedAt; }
+  public InferenceModel getModel() { return model; }
+  public ModelStats getStats() { return stats; }
+  int[] codes() { return codes; }
+
+  public String label() {
+    return name + "@" + version;
+  }
+}
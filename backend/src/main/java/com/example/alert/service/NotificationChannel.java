@@ -0,0 +1,19 @@
+package com.example.alert.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/** A way of reaching a person about an alert. Sends complete exceptionally on failure so they can be retried. */
+public interface NotificationChannel {
+  String name();
+
+  /** Whether credentials/targets are configured; unconfigured channels are skipped. */
+  boolean isConfigured();
+
+  /** Whether a send to {@code recipient} (null for the default) could go out; by default, if configured at all. */
+  default boolean canReach(String recipient) {
+    return isConfigured();
+  }
+
+  /** @param recipient channel-specific address, or null for the configured default */
+  CompletableFuture<Void> send(String recipient, String text);
+}
@@ -0,0 +1,311 @@
+package com.example.alert.service;
+
+import com.example.alert.model.Notification;
+import com.example.alert.repo.NotificationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans alert notifications out to every configured channel in parallel, with at-least-once delivery.
+ *
+ * Each (alert, channel) pair is a {@link Notification} row, written PENDING before anything is sent
+ * and marked SENT only after the channel confirms. Row ids flow through a bounded queue to one
+ * dispatcher thread that starts non-blocking sends, capped at {@code notify.maxInFlight}. Each send
+ * has a per-channel timeout ({@code notify.<channel>.timeoutMs}) and goes through that channel's
+ * circuit breaker; failures retry with exponential backoff and jitter up to {@code notify.maxAttempts}.
+ * Rows that could not be queued, or were pending when the process stopped, are picked up by a sweep.
+ * Each attempt first claims its row, so with several nodes sweeping one table a row is sent by one of them.
+ */
+@Service
+public class NotificationDispatcher {
+  private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+  private final NotificationRepository repo;
+  private final Map<String, NotificationChannel> channels = new LinkedHashMap<>();
+  private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+  private final Map<String, Long> timeouts = new ConcurrentHashMap<>();
+  private final BlockingQueue<Long> queue;
+  private final Set<Long> tracked = ConcurrentHashMap.newKeySet(); // queued, in flight or waiting to retry
+  private final Semaphore inFlight;
+  private final int maxAttempts;
+  private final long baseBackoffMs;
+  private final long maxBackoffMs;
+  private final AlertMetrics metrics;
+  private final Workers threads;
+  private final AtomicLong overflow = new AtomicLong();
+
+  /** An addressee beyond the channels' defaults; {@code note} is appended to the alert text for them. */
+  public record Recipient(String channel, String address, String note) {}
+
+  private ScheduledExecutorService retryTimer;
+  private ExecutorService callbacks;
+  private Thread dispatcher;
+  private volatile boolean running;
+
+  public NotificationDispatcher(NotificationRepository repo, List<NotificationChannel> channelList, Environment env,
+                                @Value("${notify.queueCapacity:1000}") int queueCapacity,
+                                @Value("${notify.maxInFlight:64}") int maxInFlight,
+                                @Value("${notify.maxAttempts:8}") int maxAttempts,
+                                @Value("${notify.backoff.baseMs:500}") long baseBackoffMs,
+                                @Value("${notify.backoff.maxMs:60000}") long maxBackoffMs,
+                                @Value("${notify.breaker.failures:5}") int breakerFailures,
+                                @Value("${notify.breaker.openMs:30000}") long breakerOpenMs,
+                                AlertMetrics metrics, Workers threads) {
+    this.repo = repo;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.inFlight = new Semaphore(maxInFlight);
+    this.maxAttempts = maxAttempts;
+    this.baseBackoffMs = baseBackoffMs;
+    this.maxBackoffMs = maxBackoffMs;
+    this.metrics = metrics;
+    this.threads = threads;
+    for (NotificationChannel c : channelList) {
+      channels.put(c.name(), c);
+      breakers.put(c.name(), new CircuitBreaker(breakerFailures, breakerOpenMs));
+      timeouts.put(c.name(), env.getProperty("notify." + c.name() + ".timeoutMs", Long.class, 10_000L));
+    }
+  }
+
+  @PostConstruct
+  public void start() {
+    retryTimer = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "notify-retry"));
+    callbacks = threads.pool("notify-callback", 2);
+    running = true;
+    dispatcher = daemon(this::run, "notify-dispatch");
+    dispatcher.start();
+  }
+
+  /**
+   * Records one PENDING notification per configured channel and queues them.
+   * Returns the number of channels the alert was handed to.
+   */
+  public int dispatch(Long alertId, String text) {
+    return dispatch(alertId, text, List.of());
+  }
+
+  /**
+   * Like {@link #dispatch(Long, String)}, plus one notification per extra recipient whose channel can reach
+   * them. Returns the number of notifications recorded.
+   */
+  public int dispatch(Long alertId, String text, List<Recipient> extra) {
+    long now = System.currentTimeMillis();
+    List<Notification> rows = new ArrayList<>();
+    for (NotificationChannel c : channels.values()) {
+      if (c.isConfigured()) rows.add(pending(alertId, c.name(), null, text, now));
+    }
+    for (Recipient r : extra) {
+      NotificationChannel c = channels.get(r.channel());
+      if (c == null || !c.canReach(r.address())) continue;
+      rows.add(pending(alertId, c.name(), r.address(), r.note() == null ? text : text + "\n" + r.note(), now));
+    }
+    if (rows.isEmpty()) return 0;
+    repo.saveAll(rows);
+    for (Notification n : rows) enqueue(n.getId());
+    return rows.size();
+  }
+
+  private static Notification pending(Long alertId, String channel, String recipient, String text, long now) {
+    Notification n = new Notification();
+    n.setAlertId(alertId);
+    n.setChannel(channel);
+    n.setRecipient(recipient);
+    n.setText(text);
+    n.setStatus("PENDING");
+    n.setCreatedAt(now);
+    n.setUpdatedAt(now);
+    n.setNextAttemptAt(now);
+    return n;
+  }
+
+  public int queueDepth() { return queue.size(); }
+  public int inFlight() { return tracked.size() - queue.size(); }
+  public long overflowCount() { return overflow.get(); }
+
+  public Map<String, String> breakerStates() {
+    long now = System.currentTimeMillis();
+    Map<String, String> m = new LinkedHashMap<>();
+    breakers.forEach((name, cb) -> m.put(name, cb.state(now)));
+    return m;
+  }
+
+  /** Picks up rows that are due but not in the pipeline: queue overflow, or left over from a previous run. */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(fixedDelayString = "${notify.sweepMs:5000}")
+  public void sweep() {
+    for (Notification n : repo.findByStatusAndNextAttemptAtLessThanEqual("PENDING", System.currentTimeMillis())) {
+      enqueue(n.getId());
+    }
+  }
+
+  private void enqueue(Long id) {
+    if (tracked.add(id) && !queue.offer(id)) {
+      tracked.remove(id); // full: stays PENDING in the table for the sweep
+      overflow.incrementAndGet();
+    }
+  }
+
+  private void run() {
+    while (running) {
+      Long id;
+      try {
+        id = queue.take();
+        inFlight.acquire();
+      } catch (InterruptedException ie) {
+        return;
+      }
+      if (threads.isVirtual()) {
+        // The row lookup and claim block on the database; on virtual threads attempts overlap instead of queueing.
+        callbacks.execute(() -> attemptOrRelease(id));
+      } else {
+        attemptOrRelease(id);
+      }
+    }
+  }
+
+  private void attemptOrRelease(Long id) {
+    try {
+      attempt(id);
+    } catch (Exception ex) {
+      inFlight.release();
+      tracked.remove(id);
+      log.error("Dispatch failed: notification={} error={}", id, ex.getMessage());
+    }
+  }
+
+  private void attempt(Long id) {
+    Notification n = repo.findById(id).orElse(null);
+    if (n == null || !"PENDING".equals(n.getStatus())) {
+      inFlight.release();
+      tracked.remove(id);
+      return;
+    }
+    if (n.getAttempts() >= maxAttempts) {
+      // Its last attempt was claimed but never reported back, e.g. the node died mid-send.
+      inFlight.release();
+      finish(n, "FAILED", n.getLastError() != null ? n.getLastError() : "No outcome after the last attempt");
+      log.error("Giving up on notification: channel={} alertId={} attempts={}", n.getChannel(), n.getAlertId(),
+          n.getAttempts());
+      return;
+    }
+    NotificationChannel channel = channels.get(n.getChannel());
+    if (channel == null) {
+      inFlight.release();
+      finish(n, "FAILED", "Unknown channel " + n.getChannel());
+      return;
+    }
+    CircuitBreaker cb = breakers.get(n.getChannel());
+    long wait = cb.acquire(System.currentTimeMillis());
+    if (wait > 0) {
+      // Circuit open: park without spending an attempt.
+      inFlight.release();
+      retryLater(id, wait);
+      return;
+    }
+    // Claimed until well past the timeout, so no other node's sweep sends it meanwhile.
+    long claimUntil = System.currentTimeMillis() + 2 * timeouts.get(n.getChannel());
+    if (repo.claim(id, n.getNextAttemptAt(), claimUntil, maxAttempts) == 0) {
+      inFlight.release();
+      tracked.remove(id);
+      return;
+    }
+    n.setNextAttemptAt(claimUntil);
+    n.setAttempts(n.getAttempts() + 1);
+    long start = System.nanoTime();
+    channel.send(n.getRecipient(), n.getText())
+        .orTimeout(timeouts.get(n.getChannel()), TimeUnit.MILLISECONDS)
+        .whenCompleteAsync((ok, ex) -> {
+          inFlight.release();
+          metrics.notificationSent(n.getChannel(), ex == null, start);
+          onOutcome(n, cb, ex);
+        }, callbacks);
+  }
+
+  private void onOutcome(Notification n, CircuitBreaker cb, Throwable ex) {
+    long now = System.currentTimeMillis();
+    if (ex == null) {
+      cb.onSuccess();
+      finish(n, "SENT", null);
+      return;
+    }
+    cb.onFailure(now);
+    String error = rootMessage(ex);
+    if (n.getAttempts() >= maxAttempts) {
+      finish(n, "FAILED", error);
+      log.error("Giving up on notification: channel={} alertId={} attempts={} error={}",
+          n.getChannel(), n.getAlertId(), n.getAttempts(), error);
+      return;
+    }
+    long delay = backoff(n.getAttempts());
+    n.setLastError(error);
+    n.setUpdatedAt(now);
+    n.setNextAttemptAt(now + delay);
+    repo.save(n);
+    log.warn("Notification attempt failed, retrying: channel={} alertId={} attempt={} retryInMs={} error={}",
+        n.getChannel(), n.getAlertId(), n.getAttempts(), delay, error);
+    retryLater(n.getId(), delay);
+  }
+
+  private void finish(Notification n, String status, String error) {
+    n.setStatus(status);
+    n.setLastError(error);
+    n.setUpdatedAt(System.currentTimeMillis());
+    repo.save(n);
+    tracked.remove(n.getId());
+  }
+
+  private void retryLater(Long id, long delayMs) {
+    retryTimer.schedule(() -> {
+      if (!queue.offer(id)) tracked.remove(id);
+    }, delayMs, TimeUnit.MILLISECONDS);
+  }
+
+  /** Exponential backoff with "equal jitter": a random delay in [cap/2, cap]. */
+  private long backoff(int attempt) {
+    long cap = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+    return cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+  }
+
+  private static String rootMessage(Throwable ex) {
+    Throwable t = ex;
+    while (t.getCause() != null && t.getCause() != t) t = t.getCause();
+    return t.getClass().getSimpleName() + (t.getMessage() != null ? ": " + t.getMessage() : "");
+  }
+
+  private static Thread daemon(Runnable r, String name) {
+    Thread t = new Thread(r, name);
+    t.setDaemon(true);
+    return t;
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    if (dispatcher != null) dispatcher.interrupt();
+    if (retryTimer != null) retryTimer.shutdownNow();
+    if (callbacks != null) callbacks.shutdown();
+  }
+}
@@ -0,0 +1,130 @@
+package com.example.alert.service;
+
+import com.example.alert.cluster.ClusterMembership;
+import com.example.alert.cluster.PartitionFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Queue depths and drop counts read from the components that already track them, so the hot path
+ * pays nothing extra; Micrometer polls these on scrape.
+ */
+@Component
+public class PipelineGauges implements MeterBinder {
+  private final EventWriteBehind eventWriter;
+  private final NotificationDispatcher notifications;
+  private final AlertTimerScheduler timers;
+  private final DeviceStateTable devices;
+  private final StreamHub stream;
+  private final RecentCache recent;
+  private final ClusterMembership cluster;
+  private final PartitionFilter partitions;
+  private final RetentionService retention;
+  private final IngestService ingest;
+  private final SnapshotService snapshots;
+  private final AdmissionControl admission;
+  private final ResponderService responders;
+
+  public PipelineGauges(EventWriteBehind eventWriter, NotificationDispatcher notifications, AlertTimerScheduler timers,
+                        DeviceStateTable devices, StreamHub stream, RecentCache recent, ClusterMembership cluster,
+                        PartitionFilter partitions, RetentionService retention, IngestService ingest,
+                        SnapshotService snapshots, AdmissionControl admission, ResponderService responders) {
+    this.eventWriter = eventWriter;
+    this.notifications = notifications;
+    this.timers = timers;
+    this.devices = devices;
+    this.stream = stream;
+    this.recent = recent;
+    this.cluster = cluster;
+    this.partitions = partitions;
+    this.retention = retention;
+    this.ingest = ingest;
+    this.snapshots = snapshots;
+    this.admission = admission;
+    this.responders = responders;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("ingest.inflight", admission, AdmissionControl::inFlight)
+        .description("Uploads past admission and not yet answered").register(registry);
+    Gauge.builder("ingest.limit", admission, AdmissionControl::limit)
+        .description("Adaptive concurrency limit for bulk uploads").register(registry);
+    Gauge.builder("ingest.pressure", admission, AdmissionControl::pressure)
+        .description("Load against capacity: bulk uploads are thinned from admission.thinAt and shed from 1").register(registry);
+    FunctionCounter.builder("ingest.admitted", admission, AdmissionControl::admittedCriticalCount)
+        .description("Uploads let through, by priority lane").tag("lane", "critical").register(registry);
+    FunctionCounter.builder("ingest.admitted", admission, AdmissionControl::admittedBulkCount)
+        .description("Uploads let through, by priority lane").tag("lane", "bulk").register(registry);
+    FunctionCounter.builder("ingest.shed", admission, AdmissionControl::shedOverloadCount)
+        .description("Bulk uploads answered 429").tag("reason", "overloaded").register(registry);
+    FunctionCounter.builder("ingest.shed", admission, AdmissionControl::shedRateLimitedCount)
+        .description("Bulk uploads answered 429").tag("reason", "rate_limited").register(registry);
+    FunctionCounter.builder("ingest.samples.thinned", admission, AdmissionControl::thinnedSampleCount)
+        .description("Repeated or surplus samples dropped from bulk uploads under pressure").register(registry);
+
+    Gauge.builder("ingest.offload.queue", ingest, IngestService::offloadQueueDepth)
+        .description("Functional-route uploads waiting for an ingest thread").register(registry);
+    FunctionCounter.builder("ingest.offload.rejected", ingest, IngestService::offloadRejectedCount)
+        .description("Functional-route uploads turned away because the ingest queue was full").register(registry);
+
+    Gauge.builder("events.writeBehind.queue", eventWriter, EventWriteBehind::queueDepth)
+        .description("Events waiting to be flushed").register(registry);
+    FunctionCounter.builder("events.flushed", eventWriter, EventWriteBehind::flushedCount)
+        .description("Events persisted by the write-behind writer").register(registry);
+    FunctionCounter.builder("events.dropped", eventWriter, EventWriteBehind::rejectedCount)
+        .description("Events not queued for persistence").tag("reason", "queue_full").register(registry);
+    FunctionCounter.builder("events.dropped", eventWriter, EventWriteBehind::failedCount)
+        .description("Events not queued for persistence").tag("reason", "flush_failed").register(registry);
+
+    Gauge.builder("notify.queue", notifications, NotificationDispatcher::queueDepth)
+        .description("Notifications queued for dispatch").register(registry);
+    Gauge.builder("notify.inflight", notifications, NotificationDispatcher::inFlight)
+        .description("Notifications being sent or waiting to retry").register(registry);
+    FunctionCounter.builder("notify.dropped", notifications, NotificationDispatcher::overflowCount)
+        .description("Notifications left for the sweep because the queue was full").register(registry);
+
+    Gauge.builder("alerts.timers.pending", timers, AlertTimerScheduler::pending)
+        .description("Alert state timers waiting to fire").register(registry);
+    Gauge.builder("detection.devices", devices, DeviceStateTable::size)
+        .description("Devices with detection state in memory").register(registry);
+
+    Gauge.builder("stream.subscribers", stream, StreamHub::subscriberCount)
+        .description("Open live stream connections").register(registry);
+    FunctionCounter.builder("stream.dropped", stream, StreamHub::droppedCount)
+        .description("Messages dropped for slow stream subscribers").register(registry);
+    Gauge.builder("cache.recent.devices", recent, RecentCache::cachedDevices)
+        .description("Devices with per-device recent rings").register(registry);
+
+    Gauge.builder("cluster.members", cluster, ClusterMembership::memberCount)
+        .description("Live nodes sharing detection").register(registry);
+    FunctionCounter.builder("cluster.routed", partitions, PartitionFilter::forwardedCount)
+        .description("Requests for devices owned by another node").tag("outcome", "forwarded").register(registry);
+    FunctionCounter.builder("cluster.routed", partitions, PartitionFilter::redirectedCount)
+        .description("Requests for devices owned by another node").tag("outcome", "redirected").register(registry);
+    FunctionCounter.builder("cluster.routed", partitions, PartitionFilter::forwardFailedCount)
+        .description("Requests for devices owned by another node").tag("outcome", "handled_locally").register(registry);
+    FunctionCounter.builder("cluster.routed", partitions, PartitionFilter::forwardNoAnswerCount)
+        .description("Requests for devices owned by another node").tag("outcome", "no_answer").register(registry);
+
+    Gauge.builder("snapshots.capturing", snapshots, SnapshotService::capturingCount)
+        .description("Alerts waiting for their post-trigger samples").register(registry);
+    FunctionCounter.builder("snapshots.saved", snapshots, SnapshotService::savedCount)
+        .description("Alert snapshots stored").tag("outcome", "saved").register(registry);
+    FunctionCounter.builder("snapshots.saved", snapshots, SnapshotService::failedCount)
+        .description("Alert snapshots stored").tag("outcome", "failed").register(registry);
+    FunctionCounter.builder("snapshots.bytes", snapshots, SnapshotService::savedBytes)
+        .description("Compressed bytes of stored alert snapshots").register(registry);
+
+    Gauge.builder("responders.indexed", responders, ResponderService::size)
+        .description("Responders in the nearest-responder index").register(registry);
+
+    FunctionCounter.builder("retention.purged", retention, RetentionService::purgedEventCount)
+        .description("Rows deleted by retention").tag("table", "events").register(registry);
+    FunctionCounter.builder("retention.purged", retention, RetentionService::purgedAlertCount)
+        .description("Rows deleted by retention").tag("table", "alerts").register(registry);
+  }
+}
@@ -0,0 +1,191 @@
+package com.example.alert.service;
+
+import com.example.alert.model.Alert;
+import com.example.alert.model.Event;
+import com.example.alert.repo.AlertRepository;
+import com.example.alert.repo.EventRepository;
+import com.example.alert.repo.series.EventSeriesStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Newest alerts and events, globally and per device, served as ready-made JSON.
+ *
+ * Writes go into {@link RecentRing}s as they happen; reads return a cached JSON array that is
+ * rebuilt only after the ring changed, so dashboard polling never touches the database. Alerts are
+ * serialised once per state change (each change is a new ring entry; the newest entry per id wins).
+ * Events are kept as objects and serialised on the next read, since most are never read at all.
+ * Per-device rings exist only for devices somebody is reading: the first read loads them from
+ * storage, and rings that go unread for {@code cache.recent.deviceIdleMs} are dropped.
+ */
+@Component
+public class RecentCache {
+  private static final byte[] EMPTY = "[]".getBytes();
+
+  private final ObjectMapper mapper;
+  private final AlertRepository alertRepo;
+  private final EventRepository eventRepo;
+  private final EventSeriesStore seriesStore;
+  private final int size;
+  private final int maxDevices;
+  private final long deviceIdleMs;
+
+  private final RecentRing<AlertJson> alerts;
+  private final RecentRing<Event> events;
+  private final ConcurrentHashMap<String, RecentRing<AlertJson>> deviceAlerts = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, RecentRing<Event>> deviceEvents = new ConcurrentHashMap<>();
+
+  public RecentCache(ObjectMapper mapper, AlertRepository alertRepo, EventRepository eventRepo,
+                     EventSeriesStore seriesStore,
+                     @Value("${cache.recent.size:30}") int size,
+                     @Value("${cache.recent.maxDevices:10000}") int maxDevices,
+                     @Value("${cache.recent.deviceIdleMs:60000}") long deviceIdleMs) {
+    this.mapper = mapper;
+    this.alertRepo = alertRepo;
+    this.eventRepo = eventRepo;
+    this.seriesStore = seriesStore;
+    this.size = size;
+    this.maxDevices = maxDevices;
+    this.deviceIdleMs = deviceIdleMs;
+    // An alert goes through up to four states, so leave room for that many entries per alert.
+    this.alerts = new RecentRing<>(size * 4);
+    this.events = new RecentRing<>(size);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warm() {
+    loadAlerts(alerts, alertRepo.recent30());
+    loadEvents(events, seriesStore.isEnabled() ? seriesStore.recent30() : eventRepo.recent30());
+  }
+
+  public void onEvent(Event e) {
+    events.add(e);
+    deviceEvents.computeIfPresent(e.getDeviceId(), (k, ring) -> {
+      ring.add(e);
+      return ring;
+    });
+  }
+
+  public void onEvents(List<Event> batch) {
+    if (batch.isEmpty()) return;
+    for (Event e : batch) events.add(e);
+    // Batches are single-device.
+    deviceEvents.computeIfPresent(batch.get(0).getDeviceId(), (k, ring) -> {
+      for (Event e : batch) ring.add(e);
+      return ring;
+    });
+  }
+
+  public void onAlert(Alert a) {
+    AlertJson entry = new AlertJson(a.getId(), write(a));
+    alerts.add(entry);
+    // computeIfPresent waits for a first load of this device in progress, so the update lands after it.
+    deviceAlerts.computeIfPresent(a.getDeviceId(), (k, ring) -> {
+      ring.add(entry);
+      return ring;
+    });
+  }
+
+  /** JSON array of the newest alerts, newest id first; {@code null} if the device cannot be cached. */
+  public byte[] alertsJson(String deviceId) {
+    RecentRing<AlertJson> ring = deviceId == null ? alerts : deviceRing(deviceAlerts, deviceId, alerts.capacity(), r ->
+        loadAlerts(r, alertRepo.findTop30ByDeviceIdOrderByIdDesc(deviceId)));
+    return ring == null ? null : ring.snapshot(this::renderAlerts);
+  }
+
+  /** JSON array of the newest events, newest first; {@code null} if the device cannot be cached. */
+  public byte[] eventsJson(String deviceId) {
+    RecentRing<Event> ring = deviceId == null ? events : deviceRing(deviceEvents, deviceId, size, r ->
+        loadEvents(r, seriesStore.isEnabled() ? seriesStore.recent(deviceId, size) : eventRepo.findTop30ByDeviceIdOrderByIdDesc(deviceId)));
+    return ring == null ? null : ring.snapshot(this::renderEvents);
+  }
+
+  public int cachedDevices() {
+    return Math.max(deviceAlerts.size(), deviceEvents.size());
+  }
+
+  @Scheduled(fixedDelayString = "${cache.recent.sweepMs:30000}")
+  public void evictIdle() {
+    long cutoff = System.currentTimeMillis() - deviceIdleMs;
+    deviceAlerts.values().removeIf(r -> r.lastReadMs < cutoff);
+    deviceEvents.values().removeIf(r -> r.lastReadMs < cutoff);
+  }
+
+  private <T> RecentRing<T> deviceRing(ConcurrentHashMap<String, RecentRing<T>> map, String deviceId,
+                                       int capacity, Consumer<RecentRing<T>> loader) {
+    RecentRing<T> ring = map.get(deviceId);
+    if (ring == null) {
+      if (map.size() >= maxDevices) return null;
+      ring = map.computeIfAbsent(deviceId, k -> {
+        RecentRing<T> r = new RecentRing<>(capacity);
+        r.lastReadMs = System.currentTimeMillis();
+        loader.accept(r);
+        return r;
+      });
+    }
+    ring.lastReadMs = System.currentTimeMillis();
+    return ring;
+  }
+
+  private void loadAlerts(RecentRing<AlertJson> ring, List<Alert> newestFirst) {
+    for (int i = newestFirst.size() - 1; i >= 0; i--) {
+      Alert a = newestFirst.get(i);
+      ring.add(new AlertJson(a.getId(), write(a)));
+    }
+  }
+
+  private static void loadEvents(RecentRing<Event> ring, List<Event> newestFirst) {
+    for (int i = newestFirst.size() - 1; i >= 0; i--) ring.add(newestFirst.get(i));
+  }
+
+  private byte[] renderAlerts(RecentRing<AlertJson> ring) {
+    List<AlertJson> entries = new ArrayList<>(ring.capacity());
+    ring.latest(ring.capacity(), entries);
+    Set<Long> seen = new HashSet<>();
+    List<AlertJson> latest = new ArrayList<>(size);
+    for (AlertJson e : entries) {
+      if (seen.add(e.id)) latest.add(e);
+    }
+    latest.sort(Comparator.comparingLong(AlertJson::id).reversed());
+    if (latest.isEmpty()) return EMPTY;
+    ByteArrayOutputStream out = new ByteArrayOutputStream(latest.size() * 256);
+    out.write('[');
+    for (int i = 0; i < latest.size() && i < size; i++) {
+      if (i > 0) out.write(',');
+      out.writeBytes(latest.get(i).json);
+    }
+    out.write(']');
+    return out.toByteArray();
+  }
+
+  private byte[] renderEvents(RecentRing<Event> ring) {
+    List<Event> latest = new ArrayList<>(size);
+    ring.latest(size, latest);
+    return write(latest);
+  }
+
+  private byte[] write(Object value) {
+    try {
+      return mapper.writeValueAsBytes(value);
+    } catch (JsonProcessingException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private record AlertJson(long id, byte[] json) {}
+}
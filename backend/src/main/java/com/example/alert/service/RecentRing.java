@@ -0,0 +1,64 @@
+package com.example.alert.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Lock-free, multi-producer ring of the newest entries plus a cached rendering of them.
+ *
+ * Writers claim a sequence number with one atomic increment and publish into that slot, then bump
+ * the version. Each slot remembers its sequence, so a reader that races a writer (or a wrap-around)
+ * skips the slot instead of returning an entry out of order. {@link #snapshot} re-renders only when
+ * the version moved since the cached copy was built; otherwise it is a single volatile read.
+ */
+public class RecentRing<T> {
+  private final AtomicReferenceArray<Slot<T>> slots;
+  private final int mask;
+  private final AtomicLong next = new AtomicLong();
+  private final AtomicLong version = new AtomicLong();
+  private volatile Rendered cached = new Rendered(-1, null);
+  volatile long lastReadMs; // used by owners that evict idle rings
+
+  public RecentRing(int minCapacity) {
+    int cap = Integer.highestOneBit(Math.max(2, minCapacity) - 1) << 1;
+    this.slots = new AtomicReferenceArray<>(cap);
+    this.mask = cap - 1;
+  }
+
+  public void add(T value) {
+    long seq = next.getAndIncrement();
+    slots.set((int) (seq & mask), new Slot<>(seq, value));
+    version.incrementAndGet();
+  }
+
+  public int capacity() {
+    return mask + 1;
+  }
+
+  /** Copies up to {@code n} entries into {@code out}, newest first. */
+  public void latest(int n, List<T> out) {
+    long head = next.get();
+    long stop = Math.max(0, head - Math.min(n, capacity()));
+    for (long seq = head - 1; seq >= stop; seq--) {
+      Slot<T> s = slots.get((int) (seq & mask));
+      if (s != null && s.seq == seq) out.add(s.value);
+    }
+  }
+
+  /** Returns the rendering for the current contents, rebuilding it only after a write. */
+  public byte[] snapshot(Function<RecentRing<T>, byte[]> render) {
+    Rendered r = cached;
+    long v = version.get();
+    if (r.version == v) return r.bytes;
+    // Version is read before rendering, so a write that lands meanwhile forces another rebuild.
+    byte[] bytes = render.apply(this);
+    cached = new Rendered(v, bytes);
+    return bytes;
+  }
+
+  private record Slot<T>(long seq, T value) {}
+
+  private record Rendered(long version, byte[] bytes) {}
+}
@@ -0,0 +1,197 @@
+package com.example.alert.service;
+
+import com.example.alert.service.geo.GeoGrid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Caregivers and facilities that can be sent to an alert, indexed by where they are ({@link GeoGrid}).
+ *
+ * Responders register once with a channel and address (a Telegram chat id or a phone number) and then report
+ * their location as it changes; facilities register as {@code fixed}. A mobile responder whose last report is
+ * older than {@code responders.ttlMs}, or who is off call, is skipped. When an alert has a location, the
+ * {@code responders.nearest} closest within {@code responders.maxRadiusKm} get a notification of their own.
+ *
+ * The index is in memory and per node: updates take a write lock for a few hundred nanoseconds, lookups
+ * share a read lock. Responders re-register after a restart, as their apps do on reconnect.
+ */
+@Service
+public class ResponderService {
+  private static final Logger log = LoggerFactory.getLogger(ResponderService.class);
+
+  /** Who a responder is and how to reach them; the location lives in the index. */
+  public record Responder(String id, String name, String channel, String recipient, boolean fixed) {}
+
+  public record Match(Responder responder, double lat, double lng, double distanceMetres) {}
+
+  private final boolean enabled;
+  private final int defaultK;
+  private final double maxRadiusMetres;
+  private final long ttlMs;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final GeoGrid grid;
+  private final Map<String, Integer> slots = new HashMap<>();
+  private Responder[] info = new Responder[1024];
+  private boolean[] onCall = new boolean[1024];
+  private long[] seenAt = new long[1024];
+  private int[] free = new int[16];
+  private int freeCount;
+  private int nextSlot;
+
+  public ResponderService(@Value("${responders.enabled:true}") boolean enabled,
+                          @Value("${responders.nearest:3}") int defaultK,
+                          @Value("${responders.maxRadiusKm:25}") double maxRadiusKm,
+                          @Value("${responders.ttlMs:900000}") long ttlMs,
+                          @Value("${responders.cellDeg:0.005}") double cellDeg) {
+    this.enabled = enabled;
+    this.defaultK = defaultK;
+    this.maxRadiusMetres = maxRadiusKm * 1000;
+    this.ttlMs = ttlMs;
+    this.grid = new GeoGrid(cellDeg, 1024);
+  }
+
+  /** Adds or replaces a responder. */
+  public void register(Responder r, double lat, double lng, boolean available) {
+    checkLocation(lat, lng);
+    long now = System.currentTimeMillis();
+    lock.writeLock().lock();
+    try {
+      Integer slot = slots.get(r.id());
+      int s = slot != null ? slot : allocate();
+      if (slot == null) slots.put(r.id(), s);
+      info[s] = r;
+      onCall[s] = available;
+      seenAt[s] = now;
+      grid.put(s, lat, lng);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Live location (and optionally availability) report; false if the responder is not registered. */
+  public boolean updateLocation(String id, double lat, double lng, Boolean available) {
+    checkLocation(lat, lng);
+    long now = System.currentTimeMillis();
+    lock.writeLock().lock();
+    try {
+      Integer s = slots.get(id);
+      if (s == null) return false;
+      if (available != null) onCall[s] = available;
+      seenAt[s] = now;
+      grid.put(s, lat, lng);
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public boolean remove(String id) {
+    lock.writeLock().lock();
+    try {
+      Integer s = slots.remove(id);
+      if (s == null) return false;
+      grid.remove(s);
+      info[s] = null;
+      if (freeCount == free.length) free = Arrays.copyOf(free, freeCount * 2);
+      free[freeCount++] = s;
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private int allocate() {
+    if (freeCount > 0) return free[--freeCount];
+    int s = nextSlot++;
+    if (s == info.length) {
+      info = Arrays.copyOf(info, s * 2);
+      onCall = Arrays.copyOf(onCall, s * 2);
+      seenAt = Arrays.copyOf(seenAt, s * 2);
+    }
+    return s;
+  }
+
+  /** The {@code k} closest available responders within the configured radius, closest first. */
+  public List<Match> nearest(double lat, double lng, int k) {
+    checkLocation(lat, lng);
+    if (k <= 0) return List.of();
+    int[] found = new int[k];
+    double[] metres = new double[k];
+    long staleBefore = System.currentTimeMillis() - ttlMs;
+    lock.readLock().lock();
+    try {
+      int n = grid.nearest(lat, lng, k, maxRadiusMetres,
+          s -> onCall[s] && (info[s].fixed() || seenAt[s] >= staleBefore), found, metres);
+      List<Match> out = new ArrayList<>(n);
+      for (int i = 0; i < n; i++) {
+        int s = found[i];
+        out.add(new Match(info[s], grid.lat(s), grid.lng(s), metres[i]));
+      }
+      return out;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Extra notification targets for an alert at this location: the nearest responders, each told how far
+   * away it is. Empty when routing is off or the alert has no location.
+   */
+  public List<NotificationDispatcher.Recipient> recipientsNear(Double lat, Double lng) {
+    if (!enabled || lat == null || lng == null || !validLocation(lat, lng)) return List.of();
+    long start = System.nanoTime();
+    List<Match> matches = nearest(lat, lng, defaultK);
+    List<NotificationDispatcher.Recipient> out = new ArrayList<>(matches.size());
+    for (Match m : matches) {
+      Responder r = m.responder();
+      out.add(new NotificationDispatcher.Recipient(r.channel(), r.recipient(),
+          "Nearest responder: " + r.name() + ", about " + Math.round(m.distanceMetres()) + " m away"));
+    }
+    log.info("Routed alert to nearby responders: lat={} lng={} matched={} lookupUs={}",
+        lat, lng, out.size(), (System.nanoTime() - start) / 1000);
+    return out;
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return grid.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public Map<String, Object> stats() {
+    Map<String, Object> m = new LinkedHashMap<>();
+    lock.readLock().lock();
+    try {
+      m.put("enabled", enabled);
+      m.put("responders", grid.size());
+      m.put("cells", grid.cellCount());
+    } finally {
+      lock.readLock().unlock();
+    }
+    m.put("nearest", defaultK);
+    m.put("maxRadiusKm", maxRadiusMetres / 1000);
+    m.put("ttlMs", ttlMs);
+    return m;
+  }
+
+  private static boolean validLocation(double lat, double lng) {
+    return lat >= -90 && lat <= 90 && lng >= -180 && lng <= 180;
+  }
+
+  private static void checkLocation(double lat, double lng) {
+    if (!validLocation(lat, lng)) throw new IllegalArgumentException("lat/lng out of range");
+  }
+}
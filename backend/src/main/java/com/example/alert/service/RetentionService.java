@@ -0,0 +1,100 @@
+package com.example.alert.service;
+
+import com.example.alert.model.AlertStatus;
+import com.example.alert.model.Event;
+import com.example.alert.repo.AlertRepository;
+import com.example.alert.repo.AlertSnapshotRepository;
+import com.example.alert.repo.EventRepository;
+import com.example.alert.repo.NotificationRepository;
+import com.example.alert.repo.series.EventSeriesStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-based retention, so a durable database does not grow forever. Events are purged by hour bucket
+ * ({@link Event#BUCKET_MS}) in chunks of {@code retention.chunk} rows: each delete is a short transaction
+ * walking the bucket index instead of one huge delete. The series store drops whole day segments. Alerts
+ * are kept longer and only go once final, together with their notification rows. A retention of 0 keeps
+ * data forever.
+ */
+@Component
+public class RetentionService {
+  private static final Logger log = LoggerFactory.getLogger(RetentionService.class);
+
+  private final EventRepository eventRepo;
+  private final AlertRepository alertRepo;
+  private final NotificationRepository notificationRepo;
+  private final AlertSnapshotRepository snapshotRepo;
+  private final EventSeriesStore seriesStore;
+  private final long eventsRetentionMs;
+  private final long alertsRetentionMs;
+  private final int chunk;
+  private final AtomicLong purgedEvents = new AtomicLong();
+  private final AtomicLong purgedAlerts = new AtomicLong();
+
+  public RetentionService(EventRepository eventRepo, AlertRepository alertRepo, NotificationRepository notificationRepo,
+                          AlertSnapshotRepository snapshotRepo, EventSeriesStore seriesStore,
+                          @Value("${retention.events.ms:604800000}") long eventsRetentionMs,
+                          @Value("${retention.alerts.ms:7776000000}") long alertsRetentionMs,
+                          @Value("${retention.chunk:10000}") int chunk) {
+    this.eventRepo = eventRepo;
+    this.alertRepo = alertRepo;
+    this.notificationRepo = notificationRepo;
+    this.snapshotRepo = snapshotRepo;
+    this.seriesStore = seriesStore;
+    this.eventsRetentionMs = eventsRetentionMs;
+    this.alertsRetentionMs = alertsRetentionMs;
+    this.chunk = chunk;
+  }
+
+  @Scheduled(initialDelayString = "${retention.initialDelayMs:60000}", fixedDelayString = "${retention.sweepMs:600000}")
+  public void purge() {
+    long now = System.currentTimeMillis();
+    if (eventsRetentionMs > 0) purgeEvents(now - eventsRetentionMs);
+    if (alertsRetentionMs > 0) purgeAlerts(now - alertsRetentionMs);
+  }
+
+  private void purgeEvents(long cutoffMs) {
+    long start = System.nanoTime();
+    // Only buckets entirely before the cutoff, so an hour is never half deleted.
+    long bucket = Math.floorDiv(cutoffMs, Event.BUCKET_MS);
+    long total = 0;
+    int n;
+    do {
+      n = eventRepo.purgeBefore(bucket, chunk);
+      total += n;
+    } while (n == chunk);
+    int segments = seriesStore.dropBefore(cutoffMs);
+    purgedEvents.addAndGet(total);
+    if (total > 0 || segments > 0) {
+      log.info("Purged expired events: rows={} segments={} beforeBucket={} elapsedMs={}", total, segments, bucket,
+          (System.nanoTime() - start) / 1_000_000);
+    }
+  }
+
+  private void purgeAlerts(long cutoffMs) {
+    long total = 0;
+    List<Long> ids;
+    do {
+      ids = alertRepo.findIdsByStatusInAndExpiryAtBefore(AlertStatus.FINAL, cutoffMs, PageRequest.of(0, chunk));
+      if (ids.isEmpty()) break;
+      notificationRepo.deleteByAlertIds(ids);
+      snapshotRepo.deleteByAlertIds(ids);
+      total += alertRepo.deleteByIds(ids);
+    } while (ids.size() == chunk);
+    purgedAlerts.addAndGet(total);
+    if (total > 0) {
+      log.info("Purged expired alerts: rows={}", total);
+    }
+  }
+
+  public long purgedEventCount() { return purgedEvents.get(); }
+  public long purgedAlertCount() { return purgedAlerts.get(); }
+}
@@ -0,0 +1,145 @@
+package com.example.alert.service;
+
+import com.example.alert.model.SampleBatch;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Decodes columnar sample batches without going through a Map or boxing each number.
+ *
+ * JSON shape (every array required and the same length; deviceId, lat and lng optional):
+ * {"deviceId":"w-17","timestamps":[...],"ax":[...],"ay":[...],"az":[...],"gx":[...],"gy":[...],"gz":[...],"lat":12.9,"lng":77.5}
+ *
+ * Binary shape (little-endian, device id comes from the deviceId query parameter):
+ * int32 magic 'FDB1', int32 count, float64 lat, float64 lng (NaN = absent),
+ * int64[count] timestamps, then float32[count] for each of ax, ay, az, gx, gy, gz.
+ */
+@Component
+public class SampleBatchDecoder {
+  public static final int BINARY_MAGIC = 0x31424446; // "FDB1" read little-endian
+  private static final int BINARY_HEADER = 4 + 4 + 8 + 8;
+
+  private final JsonFactory jsonFactory;
+
+  @Value("${ingest.batch.maxSamples:5000}")
+  private int maxSamples = 5000;
+
+  public SampleBatchDecoder(ObjectMapper mapper) {
+    this.jsonFactory = mapper.getFactory();
+  }
+
+  /** Malformed or unreadable JSON is an {@link IllegalArgumentException} like any other bad batch. */
+  public SampleBatch decodeJson(InputStream in, String deviceId) {
+    long[] ts = null;
+    double[] ax = null, ay = null, az = null, gx = null, gy = null, gz = null;
+    Double lat = null, lng = null;
+
+    try (JsonParser p = jsonFactory.createParser(in)) {
+      if (p.nextToken() != JsonToken.START_OBJECT) {
+        throw new IllegalArgumentException("batch must be a JSON object");
+      }
+      while (p.nextToken() == JsonToken.FIELD_NAME) {
+        String field = p.getCurrentName();
+        JsonToken t = p.nextToken();
+        switch (field) {
+          case "deviceId" -> { if (t == JsonToken.VALUE_STRING) deviceId = p.getText(); else p.skipChildren(); }
+          case "timestamps" -> ts = readLongs(p, t);
+          case "ax" -> ax = readDoubles(p, t);
+          case "ay" -> ay = readDoubles(p, t);
+          case "az" -> az = readDoubles(p, t);
+          case "gx" -> gx = readDoubles(p, t);
+          case "gy" -> gy = readDoubles(p, t);
+          case "gz" -> gz = readDoubles(p, t);
+          case "lat" -> { lat = t.isNumeric() ? p.getDoubleValue() : null; p.skipChildren(); }
+          case "lng" -> { lng = t.isNumeric() ? p.getDoubleValue() : null; p.skipChildren(); }
+          default -> p.skipChildren();
+        }
+      }
+    } catch (IOException ex) {
+      throw new IllegalArgumentException("malformed JSON batch: " + ex.getMessage(), ex);
+    }
+
+    if (ts == null) throw new IllegalArgumentException("timestamps is required");
+    int n = ts.length;
+    return new SampleBatch(deviceId, n, ts,
+        column(ax, n, "ax"), column(ay, n, "ay"), column(az, n, "az"),
+        column(gx, n, "gx"), column(gy, n, "gy"), column(gz, n, "gz"),
+        lat, lng);
+  }
+
+  public SampleBatch decodeBinary(byte[] body, String deviceId) {
+    if (body.length < BINARY_HEADER) throw new IllegalArgumentException("binary batch too short");
+    ByteBuffer buf = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+    if (buf.getInt() != BINARY_MAGIC) throw new IllegalArgumentException("bad binary batch magic");
+    int n = buf.getInt();
+    checkSize(n);
+    double latRaw = buf.getDouble();
+    double lngRaw = buf.getDouble();
+    long expected = BINARY_HEADER + (long) n * (8 + 6 * 4);
+    if (body.length != expected) {
+      throw new IllegalArgumentException("binary batch length " + body.length + " does not match count " + n);
+    }
+
+    long[] ts = new long[n];
+    buf.asLongBuffer().get(ts);
+    buf.position(buf.position() + n * 8);
+    double[][] cols = new double[6][n];
+    for (double[] col : cols) {
+      for (int i = 0; i < n; i++) col[i] = buf.getFloat();
+    }
+    return new SampleBatch(deviceId, n, ts, cols[0], cols[1], cols[2], cols[3], cols[4], cols[5],
+        Double.isNaN(latRaw) ? null : latRaw,
+        Double.isNaN(lngRaw) ? null : lngRaw);
+  }
+
+  private double[] column(double[] col, int n, String name) {
+    if (col == null) throw new IllegalArgumentException(name + " is required");
+    if (col.length != n) {
+      throw new IllegalArgumentException(name + " has " + col.length + " values, expected " + n);
+    }
+    return col;
+  }
+
+  private long[] readLongs(JsonParser p, JsonToken t) throws IOException {
+    if (t != JsonToken.START_ARRAY) throw new IllegalArgumentException(p.getCurrentName() + " must be an array");
+    long[] out = new long[64];
+    int n = 0;
+    while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+      if (n == out.length) out = Arrays.copyOf(out, grow(n));
+      out[n++] = t.isNumeric() ? p.getLongValue() : 0L;
+    }
+    return n == out.length ? out : Arrays.copyOf(out, n);
+  }
+
+  private double[] readDoubles(JsonParser p, JsonToken t) throws IOException {
+    if (t != JsonToken.START_ARRAY) throw new IllegalArgumentException(p.getCurrentName() + " must be an array");
+    double[] out = new double[64];
+    int n = 0;
+    while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+      if (n == out.length) out = Arrays.copyOf(out, grow(n));
+      out[n++] = t.isNumeric() ? p.getDoubleValue() : Double.NaN;
+    }
+    return n == out.length ? out : Arrays.copyOf(out, n);
+  }
+
+  private int grow(int n) {
+    checkSize(n + 1);
+    return Math.min(n * 2, maxSamples);
+  }
+
+  private void checkSize(int n) {
+    if (n < 0 || n > maxSamples) {
+      throw new IllegalArgumentException("batch size " + n + " outside 0.." + maxSamples);
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package com.example.alert.service;
+
+/**
+ * Per-device ring buffer of accelerometer samples with incrementally maintained features over
+ * several time spans (e.g. 1 s and 3 s). All spans share one ring sized for the longest span;
+ * each span keeps its own tail, running sums and monotonic min/max deques, so an update is
+ * amortised O(1) and never allocates.
+ *
+ * Not thread-safe: callers serialise updates per device.
+ */
+public class SlidingWindows {
+  private final int cap; // power of two, so slots are a mask away from sequence numbers
+  private final int mask;
+  private final long[] ts;
+  private final double[] ax, ay, az, mag, jerk, abs;
+  private final Span[] spans;
+  private long seq; // number of samples ever added; next write goes to slot(seq)
+
+  /**
+   * @param spanMs    window lengths in milliseconds
+   * @param maxRateHz highest sample rate to hold a full window for; faster streams are truncated by count
+   */
+  public SlidingWindows(long[] spanMs, int maxRateHz) {
+    long longest = 0;
+    for (long s : spanMs) longest = Math.max(longest, s);
+    int need = (int) Math.max(2, longest * maxRateHz / 1000 + 1);
+    this.cap = Integer.highestOneBit(need - 1) << 1;
+    this.mask = cap - 1;
+    this.ts = new long[cap];
+    this.ax = new double[cap]; this.ay = new double[cap]; this.az = new double[cap];
+    this.mag = new double[cap]; this.jerk = new double[cap]; this.abs = new double[cap];
+    this.spans = new Span[spanMs.length];
+    for (int i = 0; i < spanMs.length; i++) spans[i] = new Span(spanMs[i], cap);
+  }
+
+  public int spanCount() { return spans.length; }
+
+  public WindowFeatures features(int span) { return spans[span].out; }
+
+  /** Timestamp of the newest sample, or {@link Long#MIN_VALUE} before the first. */
+  public long lastTimestamp() { return seq == 0 ? Long.MIN_VALUE : ts[slot(seq - 1)]; }
+
+  public void add(long t, double x, double y, double z) {
+    if (seq > 0) {
+      long lastTs = ts[slot(seq - 1)];
+      if (t < lastTs) t = lastTs; // keep the ring time-ordered on out-of-order input
+    }
+    int i = slot(seq);
+    // Before overwriting, every span must already have dropped this slot.
+    for (Span s : spans) s.evictUntil(seq - cap + 1);
+
+    double m = Math.sqrt(x * x + y * y + z * z);
+    double j = 0.0;
+    if (seq > 0) {
+      int p = slot(seq - 1);
+      long dt = t - ts[p];
+      if (dt > 0) {
+        double dx = x - ax[p], dy = y - ay[p], dz = z - az[p];
+        j = Math.sqrt(dx * dx + dy * dy + dz * dz) * 1000.0 / dt;
+      }
+    }
+    ts[i] = t; ax[i] = x; ay[i] = y; az[i] = z;
+    mag[i] = m; jerk[i] = j; abs[i] = Math.abs(x) + Math.abs(y) + Math.abs(z);
+
+    for (Span s : spans) {
+      s.push(seq);
+      s.evictOlderThan(t - s.spanMs);
+      s.publish();
+    }
+    seq++;
+  }
+
+  private int slot(long n) {
+    return (int) n & mask;
+  }
+
+  private final class Span {
+    final long spanMs;
+    final WindowFeatures out = new WindowFeatures();
+    long tail; // oldest sequence number still inside the span
+    long head; // one past the newest
+    double sumMag, sumMagSq, sumAbs;
+    final MonotonicDeque minMag, maxMag, maxJerk;
+
+    Span(long spanMs, int cap) {
+      this.spanMs = spanMs;
+      this.minMag = new MonotonicDeque(cap);
+      this.maxMag = new MonotonicDeque(cap);
+      this.maxJerk = new MonotonicDeque(cap);
+    }
+
+    void push(long n) {
+      int i = slot(n);
+      sumMag += mag[i];
+      sumMagSq += mag[i] * mag[i];
+      sumAbs += abs[i];
+      minMag.pushMin(n, mag);
+      maxMag.pushMax(n, mag);
+      maxJerk.pushMax(n, jerk);
+      head = n + 1;
+    }
+
+    void evictOlderThan(long cutoffTs) {
+      while (tail < head - 1 && ts[slot(tail)] < cutoffTs) drop();
+    }
+
+    void evictUntil(long n) {
+      while (tail < n && tail < head) drop();
+    }
+
+    private void drop() {
+      int i = slot(tail);
+      sumMag -= mag[i];
+      sumMagSq -= mag[i] * mag[i];
+      sumAbs -= abs[i];
+      minMag.expire(tail);
+      maxMag.expire(tail);
+      maxJerk.expire(tail);
+      tail++;
+      if (tail == head) { sumMag = 0; sumMagSq = 0; sumAbs = 0; } // shed accumulated rounding error
+    }
+
+    void publish() {
+      int n = (int) (head - tail);
+      out.count = n;
+      if (n == 0) return;
+      double mean = sumMag / n;
+      out.mean = mean;
+      out.variance = Math.max(0.0, sumMagSq / n - mean * mean);
+      int minI = slot(minMag.front());
+      int maxI = slot(maxMag.front());
+      out.min = mag[minI];
+      out.minTs = ts[minI];
+      out.max = mag[maxI];
+      out.maxTs = ts[maxI];
+      out.maxJerk = jerk[slot(maxJerk.front())];
+      out.sma = sumAbs / n;
+      int a = slot(tail), b = slot(head - 1);
+      out.startTs = ts[a];
+      double denom = mag[a] * mag[b];
+      if (denom > 0) {
+        double cos = (ax[a] * ax[b] + ay[a] * ay[b] + az[a] * az[b]) / denom;
+        out.orientationCos = Math.max(-1.0, Math.min(1.0, cos));
+      } else {
+        out.orientationCos = 1.0;
+      }
+    }
+  }
+
+  /** Fixed-capacity deque of sequence numbers whose values are kept monotonic. */
+  private final class MonotonicDeque {
+    final long[] q;
+    int first, size;
+
+    MonotonicDeque(int cap) { this.q = new long[cap]; }
+
+    long front() { return q[first]; }
+
+    void pushMax(long n, double[] values) {
+      double v = values[slot(n)];
+      while (size > 0 && values[slot(back())] <= v) size--;
+      append(n);
+    }
+
+    void pushMin(long n, double[] values) {
+      double v = values[slot(n)];
+      while (size > 0 && values[slot(back())] >= v) size--;
+      append(n);
+    }
+
+    void expire(long n) {
+      if (size > 0 && q[first] == n) {
+        first = (first + 1) & mask;
+        size--;
+      }
+    }
+
+    private long back() { return q[(first + size - 1) & mask]; }
+
+    private void append(long n) {
+      q[(first + size) & mask] = n;
+      size++;
+    }
+  }
+}
@@ -3,11 +3,19 @@ package com.example.alert.service;
 import com.twilio.Twilio;
 import com.twilio.rest.api.v2010.account.Message;
 import com.twilio.type.PhoneNumber;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
 @Service
-public class SmsService {
+public class SmsService implements NotificationChannel {
+  private static final Logger log = LoggerFactory.getLogger(SmsService.class);
+
   @Value("${twilio.accountSid:}")
   private String sidProp;
   @Value("${twilio.authToken:}")
@@ -17,39 +25,85 @@ public class SmsService {
   @Value("${alert.to:}")
   private String toProp;
 
+  private final ExecutorService pool;
+  private String initializedFor; // sid:token Twilio was last initialised with
+
+  public SmsService(@Value("${sms.workers:4}") int workers, Workers threads) {
+    // The Twilio SDK blocks, so sends run on their own small pool instead of the caller's thread.
+    this.pool = threads.pool("sms-send", workers);
+  }
+
   private String get(String envKey, String propVal) {
     String env = System.getenv(envKey);
     if (propVal != null && !propVal.isBlank()) return propVal;
     return env != null ? env : "";
   }
 
-  private boolean ensureInit() {
+  private synchronized boolean ensureInit() {
     String sid = get("TWILIO_ACCOUNT_SID", sidProp);
     String token = get("TWILIO_AUTH_TOKEN", tokenProp);
     if (sid.isBlank() || token.isBlank()) return false;
+    String key = sid + ":" + token;
+    if (key.equals(initializedFor)) return true;
     try {
       Twilio.init(sid, token);
+      initializedFor = key;
       return true;
     } catch (Exception e) {
-      System.out.println("[SMS] Twilio init failed: " + e.getMessage());
+      log.error("Twilio init failed: {}", e.getMessage());
       return false;
     }
   }
 
+  @Override
+  public String name() {
+    return "sms";
+  }
+
+  @Override
+  public boolean isConfigured() {
+    return !get("TWILIO_FROM", fromProp).isBlank() && !get("ALERT_TO", toProp).isBlank()
+        && !get("TWILIO_ACCOUNT_SID", sidProp).isBlank() && !get("TWILIO_AUTH_TOKEN", tokenProp).isBlank();
+  }
+
+  @Override
+  public boolean canReach(String recipient) {
+    return !get("TWILIO_FROM", fromProp).isBlank()
+        && !get("TWILIO_ACCOUNT_SID", sidProp).isBlank() && !get("TWILIO_AUTH_TOKEN", tokenProp).isBlank()
+        && (recipient != null && !recipient.isBlank() || !get("ALERT_TO", toProp).isBlank());
+  }
+
+  @Override
+  public CompletableFuture<Void> send(String recipient, String text) {
+    return CompletableFuture.runAsync(() -> {
+      String from = get("TWILIO_FROM", fromProp);
+      String to = recipient != null && !recipient.isBlank() ? recipient : get("ALERT_TO", toProp);
+      if (from.isBlank() || to.isBlank()) throw new IllegalStateException("Missing FROM/TO");
+      if (!ensureInit()) throw new IllegalStateException("Twilio not initialised");
+      Message.creator(new PhoneNumber(to), new PhoneNumber(from), text).create();
+      log.info("SMS sent: to={}", to);
+    }, pool);
+  }
+
+  @PreDestroy
+  public void stop() {
+    pool.shutdown();
+  }
+
   public boolean send(String text) {
     String from = get("TWILIO_FROM", fromProp);
     String to = get("ALERT_TO", toProp);
     if (from.isBlank() || to.isBlank()) {
-      System.out.println("[SMS] Missing FROM/TO. Skipping SMS.");
+      log.warn("Missing FROM/TO, skipping SMS");
       return false;
     }
     if (!ensureInit()) return false;
     try {
       Message.creator(new PhoneNumber(to), new PhoneNumber(from), text).create();
-      System.out.println("[SMS] Sent to " + to);
+      log.info("SMS sent: to={}", to);
       return true;
     } catch (Exception e) {
-      System.out.println("[SMS] Send failed: " + e.getMessage());
+      log.error("SMS send failed: {}", e.getMessage());
       return false;
     }
   }
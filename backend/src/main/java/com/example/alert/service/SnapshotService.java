@@ -0,0 +1,207 @@
+package com.example.alert.service;
+
+import com.example.alert.model.Alert;
+import com.example.alert.model.AlertSnapshot;
+import com.example.alert.model.SampleBatch;
+import com.example.alert.repo.AlertSnapshotRepository;
+import com.example.alert.repo.series.SeriesCodec;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Freezes the raw samples around each alert's trigger ({@code snapshot.preMs} before, {@code snapshot.postMs}
+ * after) from the device's {@link LookbackBuffer} and stores them as one compressed block per alert.
+ *
+ * Samples are recorded under the detection lock; the capture closes on the first batch past the post window,
+ * or after {@code snapshot.graceMs} more if the device went quiet, with whatever arrived. Rows are written on
+ * a background thread so ingest never waits on the insert. Memory is one buffer per tracked device, so it is
+ * bounded by {@code detection.devices.max} times the buffer size logged at startup.
+ */
+@Service
+public class SnapshotService {
+  private static final Logger log = LoggerFactory.getLogger(SnapshotService.class);
+
+  private final AlertSnapshotRepository repo;
+  private final DeviceStateTable devices;
+  private final boolean enabled;
+  private final long preMs;
+  private final long postMs;
+  private final int maxRateHz;
+  private final int fractionBits;
+  private final long graceMs;
+  private final Set<String> capturing = ConcurrentHashMap.newKeySet(); // devices with an open capture
+  private final ExecutorService writer;
+  private final AtomicLong saved = new AtomicLong();
+  private final AtomicLong savedBytes = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+
+  public SnapshotService(AlertSnapshotRepository repo, DeviceStateTable devices, Workers threads,
+                         @Value("${snapshot.enabled:true}") boolean enabled,
+                         @Value("${snapshot.preMs:5000}") long preMs,
+                         @Value("${snapshot.postMs:5000}") long postMs,
+                         @Value("${snapshot.maxRateHz:50}") int maxRateHz,
+                         @Value("${snapshot.fractionBits:10}") int fractionBits,
+                         @Value("${snapshot.graceMs:5000}") long graceMs) {
+    this.repo = repo;
+    this.devices = devices;
+    this.enabled = enabled;
+    this.preMs = preMs;
+    this.postMs = postMs;
+    this.maxRateHz = maxRateHz;
+    this.fractionBits = fractionBits;
+    this.graceMs = graceMs;
+    this.writer = threads.pool("snapshot-writer", 1);
+    if (enabled) {
+      int cap = newBuffer().capacity();
+      log.info("Alert snapshots: preMs={} postMs={} maxRateHz={} bufferBytes={}", preMs, postMs, maxRateHz, cap * 32);
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** The device's buffer, created on first use; null when snapshots are off. */
+  public LookbackBuffer buffer(DeviceState state) {
+    return enabled ? state.lookback(this::newBuffer) : null;
+  }
+
+  private LookbackBuffer newBuffer() {
+    return new LookbackBuffer(preMs + postMs, maxRateHz);
+  }
+
+  public void record(DeviceState state, LookbackBuffer b, long t, double ax, double ay, double az,
+                     double gx, double gy, double gz) {
+    synchronized (b) {
+      b.add(t, ax, ay, az, gx, gy, gz);
+      freezeIfDue(state.getDeviceId(), b, System.currentTimeMillis());
+    }
+  }
+
+  /** Records the accepted rows of a batch under one lock. */
+  public void record(DeviceState state, LookbackBuffer b, SampleBatch batch, boolean[] accepted) {
+    synchronized (b) {
+      for (int i = 0; i < batch.size(); i++) {
+        if (accepted[i]) b.add(batch.timestamp(i), batch.ax(i), batch.ay(i), batch.az(i), batch.gx(i), batch.gy(i), batch.gz(i));
+      }
+      freezeIfDue(state.getDeviceId(), b, System.currentTimeMillis());
+    }
+  }
+
+  /** Opens a capture for a newly raised alert; the samples before the trigger are already in the buffer. */
+  public void onAlert(DeviceState state, Alert a) {
+    if (!enabled) return;
+    LookbackBuffer b = buffer(state);
+    synchronized (b) {
+      if (b.captureAlertId() != 0) freezeIfDue(state.getDeviceId(), b, Long.MAX_VALUE);
+      b.startCapture(a.getId(), a.getTimestamp(), preMs, postMs, System.currentTimeMillis() + postMs + graceMs);
+      capturing.add(state.getDeviceId());
+    }
+  }
+
+  /** Closes captures of devices that went quiet before their post-trigger window filled. */
+  @Scheduled(fixedDelayString = "${snapshot.sweepMs:1000}")
+  public void sweep() {
+    if (capturing.isEmpty()) return;
+    long now = System.currentTimeMillis();
+    for (String deviceId : capturing) {
+      DeviceState state = devices.find(deviceId);
+      LookbackBuffer b = state == null ? null : state.lookback();
+      if (b == null) {
+        capturing.remove(deviceId); // evicted, or moved to another node
+        continue;
+      }
+      synchronized (b) {
+        freezeIfDue(deviceId, b, now);
+      }
+    }
+  }
+
+  private void freezeIfDue(String deviceId, LookbackBuffer b, long now) {
+    if (!b.captureDue(now)) return;
+    AlertSnapshot s = new AlertSnapshot();
+    s.setAlertId(b.captureAlertId());
+    s.setDeviceId(deviceId);
+    s.setTriggerTs(b.captureTriggerTs());
+    s.setFromTs(b.captureFromTs());
+    s.setToTs(b.captureUntilTs());
+    s.setFractionBits(fractionBits);
+    SeriesCodec.Encoder enc = new SeriesCodec.Encoder(fractionBits, b.capacity());
+    b.freeze(enc);
+    s.setSamples(enc.count());
+    s.setPayload(enc.payload());
+    s.setCreatedAt(System.currentTimeMillis());
+    capturing.remove(deviceId);
+    writer.execute(() -> {
+      try {
+        repo.save(s);
+        saved.incrementAndGet();
+        savedBytes.addAndGet(s.getPayload().length);
+      } catch (Exception ex) {
+        failed.incrementAndGet();
+        log.error("Snapshot save failed: alertId={} error={}", s.getAlertId(), ex.getMessage());
+      }
+    });
+  }
+
+  public AlertSnapshot find(Long alertId) {
+    return repo.findById(alertId).orElse(null);
+  }
+
+  /** The snapshot as the columnar shape of a batch upload, plus where the trigger sits. */
+  public static Map<String, Object> toMap(AlertSnapshot s) {
+    int n = s.getSamples();
+    long[] ts = new long[n];
+    double[][] cols = new double[6][n];
+    int[] row = { 0 };
+    SeriesCodec.decode(s.getPayload(), n, s.getFractionBits(), (t, ax, ay, az, gx, gy, gz, lat, lng) -> {
+      int i = row[0]++;
+      ts[i] = t;
+      cols[0][i] = ax; cols[1][i] = ay; cols[2][i] = az;
+      cols[3][i] = gx; cols[4][i] = gy; cols[5][i] = gz;
+      return true;
+    });
+    Map<String, Object> m = new LinkedHashMap<>();
+    m.put("alertId", s.getAlertId());
+    m.put("deviceId", s.getDeviceId());
+    m.put("triggerTs", s.getTriggerTs());
+    m.put("fromTs", s.getFromTs());
+    m.put("toTs", s.getToTs());
+    m.put("samples", n);
+    m.put("bytes", s.getPayload().length);
+    m.put("timestamps", ts);
+    m.put("ax", cols[0]);
+    m.put("ay", cols[1]);
+    m.put("az", cols[2]);
+    m.put("gx", cols[3]);
+    m.put("gy", cols[4]);
+    m.put("gz", cols[5]);
+    return m;
+  }
+
+  /** True while an alert of this device still waits for its post-trigger samples. */
+  public boolean isCapturing(String deviceId) {
+    return !capturing.isEmpty() && capturing.contains(deviceId);
+  }
+
+  public int capturingCount() { return capturing.size(); }
+  public long savedCount() { return saved.get(); }
+  public long savedBytes() { return savedBytes.get(); }
+  public long failedCount() { return failed.get(); }
+
+  @PreDestroy
+  public void stop() {
+    writer.shutdown();
+  }
+}
@@ -0,0 +1,163 @@
+package com.example.alert.service;
+
+import com.example.alert.model.SampleBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Replays synthetic uploads through the decoders, the detector and the ML scorer before the node reports
+ * ready, so the first real devices meet JIT-compiled code instead of the interpreter. Spring Boot publishes
+ * the readiness state (ACCEPTING_TRAFFIC, {@code /actuator/health/readiness}) only after runners return.
+ *
+ * The samples are a device being carried around: well below every alert threshold, so nothing is raised,
+ * stored or sent. The warmup devices are dropped from the device table afterwards and the model's score
+ * stats are reset; {@code detection.latency} and {@code ml.score.latency} do keep the warmup samples.
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner {
+  private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+  static final String DEVICE_PREFIX = "warmup-";
+  private static final int BATCH = 50;
+  private static final long STEP_MS = 20; // 50 Hz
+  private static final int REPORT_BATCHES = 64;
+
+  private final DetectionService detection;
+  private final SampleBatchDecoder decoder;
+  private final DeviceStateTable devices;
+  private final MLService ml;
+  private final boolean enabled;
+  private final int devicesN;
+  private final long samples;
+  private final long maxMs;
+
+  public StartupWarmup(DetectionService detection, SampleBatchDecoder decoder, DeviceStateTable devices, MLService ml,
+                       @Value("${startup.warmup.enabled:false}") boolean enabled,
+                       @Value("${startup.warmup.devices:64}") int devicesN,
+                       @Value("${startup.warmup.samples:200000}") long samples,
+                       @Value("${startup.warmup.maxMs:5000}") long maxMs) {
+    this.detection = detection;
+    this.decoder = decoder;
+    this.devices = devices;
+    this.ml = ml;
+    this.enabled = enabled;
+    this.devicesN = Math.max(1, devicesN);
+    this.samples = samples;
+    this.maxMs = maxMs;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (!enabled) return;
+    long contextMs = ManagementFactory.getRuntimeMXBean().getUptime();
+    try {
+      replay();
+    } catch (RuntimeException ex) {
+      // A replica that cannot warm up still serves, only slower at first.
+      log.warn("Warmup failed, serving cold: error={}", ex.toString());
+    } finally {
+      devices.retain(id -> !id.startsWith(DEVICE_PREFIX));
+      ModelVersion p = ml.primary();
+      if (p != null) p.getStats().reset();
+      ModelVersion s = ml.shadow();
+      if (s != null) s.getStats().reset();
+    }
+    log.info("Startup complete: contextMs={} readyMs={}", contextMs, ManagementFactory.getRuntimeMXBean().getUptime());
+  }
+
+  private void replay() {
+    DetectionRules rules = detection.rules();
+    // Capped under the trigger, which no alert path can fire below (see DetectionRules.triggerAccelMag).
+    double maxAccel = Math.min(12.5, rules.triggerAccelMag() * 0.9);
+    double maxGyro = Math.min(40, rules.triggerGyroMag() * 0.5);
+    Random random = new Random(17);
+    long[] ts = new long[devicesN];
+    Arrays.fill(ts, System.currentTimeMillis() - 3_600_000L);
+    double[][] cols = new double[6][BATCH];
+    long[] times = new long[BATCH];
+    long[] firstNanos = new long[REPORT_BATCHES];
+    long[] lastNanos = new long[REPORT_BATCHES];
+    boolean[] accepted = new boolean[BATCH];
+
+    long start = System.nanoTime();
+    long deadline = start + maxMs * 1_000_000L;
+    long batches = 0;
+    long replayed = 0;
+    while (replayed < samples && System.nanoTime() < deadline) {
+      int d = (int) (batches % devicesN);
+      for (int i = 0; i < BATCH; i++) {
+        times[i] = ts[d] + i * STEP_MS;
+        carried(random, maxAccel, maxGyro, cols, i);
+      }
+      ts[d] += BATCH * STEP_MS;
+      String deviceId = DEVICE_PREFIX + d;
+      long t0 = System.nanoTime();
+      // Mostly binary, as devices upload; every eighth batch as JSON so that decoder is warm too.
+      SampleBatch batch = batches % 8 == 7
+          ? decodeJson(deviceId, times, cols)
+          : decoder.decodeBinary(binary(times, cols), deviceId);
+      for (int i = 0; i < batch.size(); i++) accepted[i] = batch.isValid(i);
+      detection.processBatch(batch, accepted);
+      long took = System.nanoTime() - t0;
+      if (batches < REPORT_BATCHES) firstNanos[(int) batches] = took;
+      lastNanos[(int) (batches % REPORT_BATCHES)] = took;
+      batches++;
+      replayed += BATCH;
+    }
+    int first = (int) Math.min(batches, REPORT_BATCHES);
+    log.info("Warmup replayed: devices={} samples={} batches={} elapsedMs={} firstBatchesUs={} lastBatchesUs={}",
+        Math.min(batches, devicesN), replayed, batches, (System.nanoTime() - start) / 1_000_000,
+        meanMicros(firstNanos, first), meanMicros(lastNanos, first));
+  }
+
+  /** Gravity on a tilting axis plus walking-like sway and slow turns. */
+  private static void carried(Random random, double maxAccel, double maxGyro, double[][] cols, int i) {
+    double tilt = random.nextDouble() * 0.6;
+    double mag = Math.min(maxAccel, 9.81 + random.nextGaussian() * 0.8);
+    cols[0][i] = mag * Math.sin(tilt);
+    cols[1][i] = random.nextGaussian() * 0.3;
+    cols[2][i] = mag * Math.cos(tilt);
+    for (int c = 3; c < 6; c++) cols[c][i] = Math.max(-maxGyro / 2, Math.min(maxGyro / 2, random.nextGaussian() * 10));
+  }
+
+  private static byte[] binary(long[] times, double[][] cols) {
+    int n = times.length;
+    ByteBuffer bb = ByteBuffer.allocate(4 + 4 + 16 + n * 8 + 6 * n * 4).order(ByteOrder.LITTLE_ENDIAN);
+    bb.putInt(SampleBatchDecoder.BINARY_MAGIC).putInt(n).putDouble(Double.NaN).putDouble(Double.NaN);
+    for (long t : times) bb.putLong(t);
+    for (double[] col : cols) {
+      for (int i = 0; i < n; i++) bb.putFloat((float) col[i]);
+    }
+    return bb.array();
+  }
+
+  private SampleBatch decodeJson(String deviceId, long[] times, double[][] cols) {
+    StringBuilder sb = new StringBuilder(64 + times.length * 80).append("{\"timestamps\":[");
+    for (int i = 0; i < times.length; i++) sb.append(i == 0 ? "" : ",").append(times[i]);
+    String[] names = { "ax", "ay", "az", "gx", "gy", "gz" };
+    for (int c = 0; c < 6; c++) {
+      sb.append("],\"").append(names[c]).append("\":[");
+      for (int i = 0; i < times.length; i++) sb.append(i == 0 ? "" : ",").append((float) cols[c][i]);
+    }
+    sb.append("]}");
+    return decoder.decodeJson(new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.UTF_8)), deviceId);
+  }
+
+  private static long meanMicros(long[] nanos, int n) {
+    if (n == 0) return 0;
+    long sum = 0;
+    for (int i = 0; i < n; i++) sum += nanos[i];
+    return sum / n / 1000;
+  }
+}
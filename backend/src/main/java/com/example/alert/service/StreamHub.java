@@ -0,0 +1,214 @@
+package com.example.alert.service;
+
+import com.example.alert.model.Alert;
+import com.example.alert.model.Event;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory broadcast hub behind the /api/stream Server-Sent Events endpoint.
+ *
+ * Every message gets a global, increasing id and is serialised to JSON once. The last
+ * {@code stream.replaySize} messages are kept so a reconnecting client can resume after its
+ * Last-Event-ID. Each subscriber has a bounded buffer; when a slow consumer falls behind, its
+ * oldest undelivered messages are dropped rather than letting memory grow. Buffers are flushed
+ * to the sockets by a small shared pool.
+ */
+@Component
+public class StreamHub {
+  private static final Logger log = LoggerFactory.getLogger(StreamHub.class);
+
+  public static final String ALERT = "alert";
+  public static final String EVENT = "event";
+  public static final String RESET = "reset";
+
+  private final ObjectMapper mapper;
+  private final int replaySize;
+  private final int subscriberBuffer;
+  private final AtomicLong seq = new AtomicLong();
+  private final ArrayDeque<Message> replay;
+  private long evictedUpTo; // highest id pushed out of the replay buffer
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+  private final ExecutorService senders;
+  private final AtomicLong dropped = new AtomicLong();
+
+  public StreamHub(ObjectMapper mapper,
+                   @Value("${stream.replaySize:1024}") int replaySize,
+                   @Value("${stream.subscriberBuffer:256}") int subscriberBuffer,
+                   @Value("${stream.senderThreads:4}") int senderThreads,
+                   Workers threads) {
+    this.mapper = mapper;
+    this.replaySize = replaySize;
+    this.subscriberBuffer = subscriberBuffer;
+    this.replay = new ArrayDeque<>(replaySize);
+    this.senders = threads.pool("stream-send", senderThreads);
+  }
+
+  public void publishAlert(Alert a) {
+    publish(ALERT, a.getDeviceId(), a);
+  }
+
+  public void publishEvent(Event e) {
+    if (subscribers.isEmpty()) return; // live-only: events are not kept for replay
+    publish(EVENT, e.getDeviceId(), e);
+  }
+
+  /**
+   * Registers a subscriber. Messages newer than {@code lastEventId} still in the replay buffer are
+   * queued first; if the client is further behind than the buffer it gets a "reset" message and
+   * should reload its state.
+   */
+  public SseEmitter subscribe(Long lastEventId, String deviceId, boolean withEvents) {
+    SseEmitter emitter = new SseEmitter(0L);
+    Subscriber sub = new Subscriber(emitter, deviceId, withEvents);
+    emitter.onCompletion(() -> subscribers.remove(sub));
+    emitter.onTimeout(() -> subscribers.remove(sub));
+    emitter.onError(ex -> subscribers.remove(sub));
+    synchronized (replay) {
+      if (lastEventId != null) {
+        // Too far behind, or an id from before a restart: the client must reload.
+        if (lastEventId < evictedUpTo || lastEventId > seq.get()) {
+          sub.offer(new Message(seq.get(), RESET, null, "{}"));
+        }
+        for (Message m : replay) {
+          if (m.id > lastEventId) sub.offer(m);
+        }
+        // Publishers fan out after leaving the lock: skip what the replay above already covered.
+        sub.replayedUpTo = seq.get();
+      }
+      subscribers.add(sub);
+    }
+    schedule(sub);
+    return emitter;
+  }
+
+  public boolean hasSubscribers() { return !subscribers.isEmpty(); }
+  public int subscriberCount() { return subscribers.size(); }
+  public long droppedCount() { return dropped.get(); }
+
+  /**
+   * Numbers and records the message under the replay lock, then hands it to the subscribers outside it,
+   * so one slow subscriber's buffer never holds up other publishers. A subscriber may receive two
+   * concurrently published messages out of id order.
+   */
+  private void publish(String type, String deviceId, Object payload) {
+    // Alerts go into the replay buffer even with nobody listening; events only matter to a live subscriber.
+    if (!ALERT.equals(type) && !anyWants(type, deviceId)) return;
+    String json;
+    try {
+      json = mapper.writeValueAsString(payload);
+    } catch (JsonProcessingException ex) {
+      log.error("Could not serialise stream message: type={} error={}", type, ex.getMessage());
+      return;
+    }
+    Message m;
+    synchronized (replay) {
+      m = new Message(seq.incrementAndGet(), type, deviceId, json);
+      if (ALERT.equals(type)) {
+        if (replay.size() == replaySize) evictedUpTo = replay.pollFirst().id;
+        replay.addLast(m);
+      }
+    }
+    for (Subscriber s : subscribers) {
+      if (m.id > s.replayedUpTo && s.wants(type, deviceId)) {
+        s.offer(m);
+        schedule(s);
+      }
+    }
+  }
+
+  private boolean anyWants(String type, String deviceId) {
+    for (Subscriber s : subscribers) {
+      if (s.wants(type, deviceId)) return true;
+    }
+    return false;
+  }
+
+  private void schedule(Subscriber s) {
+    if (s.scheduled.compareAndSet(false, true)) {
+      senders.execute(() -> drain(s));
+    }
+  }
+
+  private void drain(Subscriber s) {
+    try {
+      List<Message> batch;
+      while (!(batch = s.take(64)).isEmpty()) {
+        for (Message m : batch) {
+          s.emitter.send(SseEmitter.event().id(Long.toString(m.id)).name(m.type).data(m.json, MediaType.APPLICATION_JSON));
+        }
+      }
+    } catch (IOException | IllegalStateException ex) {
+      subscribers.remove(s);
+      s.emitter.completeWithError(ex);
+      return;
+    } finally {
+      s.scheduled.set(false);
+    }
+    if (s.hasPending()) schedule(s); // raced with a publish after our last take
+  }
+
+  @PreDestroy
+  public void stop() {
+    for (Subscriber s : subscribers) s.emitter.complete();
+    senders.shutdownNow();
+  }
+
+  private record Message(long id, String type, String deviceId, String json) {}
+
+  private final class Subscriber {
+    final SseEmitter emitter;
+    final String deviceId;
+    final boolean withEvents;
+    final ArrayDeque<Message> buffer = new ArrayDeque<>();
+    final AtomicBoolean scheduled = new AtomicBoolean();
+    long replayedUpTo; // set before the subscriber is added to the set, read only after
+
+    Subscriber(SseEmitter emitter, String deviceId, boolean withEvents) {
+      this.emitter = emitter;
+      this.deviceId = deviceId;
+      this.withEvents = withEvents;
+    }
+
+    boolean wants(String type, String deviceId) {
+      if (EVENT.equals(type) && !withEvents) return false;
+      return this.deviceId == null || this.deviceId.equals(deviceId);
+    }
+
+    /** Buffers a message, dropping the oldest one if the buffer is full. */
+    synchronized void offer(Message m) {
+      if (buffer.size() >= subscriberBuffer) {
+        buffer.pollFirst();
+        dropped.incrementAndGet();
+      }
+      buffer.addLast(m);
+    }
+
+    synchronized List<Message> take(int max) {
+      List<Message> out = new ArrayList<>(Math.min(max, buffer.size()));
+      while (out.size() < max && !buffer.isEmpty()) out.add(buffer.pollFirst());
+      return out;
+    }
+
+    synchronized boolean hasPending() {
+      return !buffer.isEmpty();
+    }
+  }
+}
@@ -1,16 +1,22 @@
 package com.example.alert.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 @Service
-public class TelegramService {
+public class TelegramService implements NotificationChannel {
+  private static final Logger log = LoggerFactory.getLogger(TelegramService.class);
 
   @Value("${telegram.botToken:}")
   private String botTokenProp;
@@ -18,7 +24,20 @@ public class TelegramService {
   @Value("${telegram.chatId:}")
   private String chatIdProp;
 
-  private final RestTemplate rest = new RestTemplate();
+  @Value("${telegram.apiBase:https://api.telegram.org}")
+  private String apiBase = "https://api.telegram.org";
+
+  @Value("${telegram.timeoutMs:5000}")
+  private long timeoutMs = 5000;
+
+  // One shared client: keeps connections alive and pooled across sends.
+  private final HttpClient http;
+
+  public TelegramService(@Value("${telegram.connectTimeoutMs:3000}") long connectTimeoutMs) {
+    this.http = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+        .build();
+  }
 
   private String getBotToken() {
     String env = System.getenv("TELEGRAM_BOT_TOKEN");
@@ -30,29 +49,54 @@ public class TelegramService {
     return (chatIdProp != null && !chatIdProp.isBlank()) ? chatIdProp : (env == null ? "" : env);
   }
 
-  public boolean sendMessage(String text) {
+  @Override
+  public String name() {
+    return "telegram";
+  }
+
+  @Override
+  public boolean isConfigured() {
+    return !getBotToken().isBlank() && !getChatId().isBlank();
+  }
+
+  @Override
+  public boolean canReach(String recipient) {
+    return !getBotToken().isBlank() && (recipient != null && !recipient.isBlank() || !getChatId().isBlank());
+  }
+
+  @Override
+  public CompletableFuture<Void> send(String recipient, String text) {
     String botToken = getBotToken();
-    String chatId = getChatId();
+    String chatId = recipient != null && !recipient.isBlank() ? recipient : getChatId();
     if (botToken.isBlank() || chatId.isBlank()) {
-      System.out.println("[Telegram] Missing bot token or chat id. Skipping send.");
+      return CompletableFuture.failedFuture(new IllegalStateException("Missing bot token or chat id"));
+    }
+    String form = "chat_id=" + URLEncoder.encode(chatId, StandardCharsets.UTF_8)
+        + "&text=" + URLEncoder.encode(text, StandardCharsets.UTF_8);
+    HttpRequest req = HttpRequest.newBuilder(URI.create(apiBase + "/bot" + botToken + "/sendMessage"))
+        .timeout(Duration.ofMillis(timeoutMs))
+        .header("Content-Type", "application/x-www-form-urlencoded")
+        .POST(HttpRequest.BodyPublishers.ofString(form))
+        .build();
+    return http.sendAsync(req, HttpResponse.BodyHandlers.ofString()).thenAccept(resp -> {
+      if (resp.statusCode() / 100 != 2) {
+        throw new IllegalStateException("HTTP " + resp.statusCode() + ": " + resp.body());
+      }
+      log.info("Telegram message sent");
+    });
+  }
+
+  /** Blocking convenience send to the default chat. */
+  public boolean sendMessage(String text) {
+    if (!isConfigured()) {
+      log.warn("Missing Telegram bot token or chat id, skipping send");
       return false;
     }
     try {
-      String url = "https://api.telegram.org/bot" + botToken + "/sendMessage";
-
-      HttpHeaders headers = new HttpHeaders();
-      headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-
-      MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
-      form.add("chat_id", chatId);
-      form.add("text", text);
-
-      HttpEntity<MultiValueMap<String, String>> req = new HttpEntity<>(form, headers);
-      rest.postForEntity(url, req, String.class);
-      System.out.println("[Telegram] Message sent.");
+      send(null, text).join();
       return true;
     } catch (Exception e) {
-      System.out.println("[Telegram] Failed to send: " + e.getMessage());
+      log.error("Telegram send failed: {}", e.getMessage());
       return false;
     }
   }
@@ -0,0 +1,32 @@
+package com.example.alert.service;
+
+/**
+ * Features of one sliding window over acceleration magnitude. Instances are reused by
+ * {@link SlidingWindows} so reading features does not allocate.
+ */
+public class WindowFeatures {
+  int count;
+  double mean;
+  double variance;
+  double min;
+  double max;
+  long minTs;
+  long maxTs;
+  long startTs;
+  double maxJerk; // m/s^3
+  double sma; // signal magnitude area: mean of |ax|+|ay|+|az|
+  double orientationCos = 1.0; // cosine of the angle between oldest and newest accel vector
+
+  public int getCount() { return count; }
+  public double getMean() { return mean; }
+  public double getVariance() { return variance; }
+  public double getMin() { return min; }
+  public double getMax() { return max; }
+  public long getMinTs() { return minTs; }
+  public long getMaxTs() { return maxTs; }
+  public long getStartTs() { return startTs; }
+  public double getMaxJerk() { return maxJerk; }
+  public double getSma() { return sma; }
+  /** Computed on read: most samples are decided before anything looks at orientation. */
+  public double getOrientationChangeDeg() { return Math.toDegrees(Math.acos(orientationCos)); }
+}
@@ -0,0 +1,64 @@
+package com.example.alert.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the worker pools of the blocking parts of the pipeline (notification sends, alert timers, stream writes).
+ *
+ * With {@code spring.threads.virtual.enabled=true} on Java 21 — the same switch that moves Tomcat request threads
+ * and {@code @Scheduled} work onto virtual threads — each task gets its own virtual thread and the configured
+ * thread counts no longer cap concurrency. Otherwise these are fixed pools of daemon platform threads.
+ */
+@Component
+public class Workers {
+  private static final Logger log = LoggerFactory.getLogger(Workers.class);
+
+  private final boolean virtual;
+
+  @Autowired
+  public Workers(Environment env) {
+    this(Threading.VIRTUAL.isActive(env));
+    if (!virtual && env.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+      log.warn("Virtual threads requested but unavailable: java={}, using platform threads",
+          Runtime.version().feature());
+    }
+  }
+
+  public Workers(boolean virtual) {
+    this.virtual = virtual;
+    log.info("Worker threads: mode={}", virtual ? "virtual" : "platform");
+  }
+
+  public boolean isVirtual() {
+    return virtual;
+  }
+
+  /** {@code threads} daemon threads named {@code name-N}, or a virtual thread per task. */
+  public ExecutorService pool(String name, int threads) {
+    if (virtual) {
+      // Thread-per-task on Java 17 API: nothing is queued, and a virtual thread ends with its task.
+      ThreadFactory f = new VirtualThreadTaskExecutor(name + "-").getVirtualThreadFactory();
+      return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0, TimeUnit.SECONDS, new SynchronousQueue<>(), f);
+    }
+    AtomicInteger n = new AtomicInteger();
+    return Executors.newFixedThreadPool(threads, r -> {
+      Thread t = new Thread(r, name + "-" + n.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+  }
+}
@@ -0,0 +1,167 @@
+package com.example.alert.service.geo;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Points on a uniform lat/lng grid (a fixed-precision geohash: the cell key is the row and column of
+ * {@code cellDeg}-sized cells), for k-nearest queries around a location. Points are int slots chosen by the
+ * caller; moving one is O(1): a swap-remove from its old cell's array and an append to the new one.
+ *
+ * A query scans the query's cell, then rings of cells around it, and stops once the k-th best distance is
+ * closer than anything an unscanned ring could hold. With cells about the spacing of the points that is one
+ * or two rings. Distances are equirectangular (flat at the query's latitude), accurate to well under a
+ * percent over tens of kilometres, which is all routing to the nearest responder needs.
+ *
+ * Not thread-safe: callers lock around it.
+ */
+public final class GeoGrid {
+  /** Metres per degree of latitude on the mean Earth radius. */
+  public static final double METRES_PER_DEGREE = 6_371_008.8 * Math.PI / 180;
+
+  private final double cellDeg;
+  private final int rows;
+  private final int cols;
+  private final Map<Long, Cell> cells = new HashMap<>();
+  private double[] lat;
+  private double[] lng;
+  private long[] cellOf; // -1 when the slot holds no point
+  private int[] posInCell;
+  private int size;
+
+  private static final class Cell {
+    int[] slots = new int[4];
+    int n;
+  }
+
+  public GeoGrid(double cellDeg, int initialSlots) {
+    this.cellDeg = cellDeg;
+    this.rows = (int) Math.ceil(180 / cellDeg) + 1;
+    this.cols = (int) Math.ceil(360 / cellDeg);
+    int cap = Math.max(16, initialSlots);
+    lat = new double[cap];
+    lng = new double[cap];
+    cellOf = new long[cap];
+    posInCell = new int[cap];
+    Arrays.fill(cellOf, -1);
+  }
+
+  public int size() { return size; }
+  public int cellCount() { return cells.size(); }
+  public double lat(int slot) { return lat[slot]; }
+  public double lng(int slot) { return lng[slot]; }
+
+  /** Adds the point for {@code slot}, or moves it. */
+  public void put(int slot, double latitude, double longitude) {
+    ensure(slot);
+    long key = key(row(latitude), col(longitude));
+    lat[slot] = latitude;
+    lng[slot] = longitude;
+    long old = cellOf[slot];
+    if (old == key) return;
+    if (old >= 0) unlink(slot, old);
+    else size++;
+    Cell c = cells.computeIfAbsent(key, k -> new Cell());
+    if (c.n == c.slots.length) c.slots = Arrays.copyOf(c.slots, c.n * 2);
+    posInCell[slot] = c.n;
+    c.slots[c.n++] = slot;
+    cellOf[slot] = key;
+  }
+
+  public void remove(int slot) {
+    if (slot >= cellOf.length || cellOf[slot] < 0) return;
+    unlink(slot, cellOf[slot]);
+    cellOf[slot] = -1;
+    size--;
+  }
+
+  private void unlink(int slot, long key) {
+    Cell c = cells.get(key);
+    int at = posInCell[slot];
+    int last = c.slots[--c.n];
+    c.slots[at] = last;
+    posInCell[last] = at;
+    if (c.n == 0) cells.remove(key);
+  }
+
+  private void ensure(int slot) {
+    if (slot < lat.length) return;
+    int cap = Math.max(slot + 1, lat.length * 2);
+    int from = lat.length;
+    lat = Arrays.copyOf(lat, cap);
+    lng = Arrays.copyOf(lng, cap);
+    cellOf = Arrays.copyOf(cellOf, cap);
+    posInCell = Arrays.copyOf(posInCell, cap);
+    Arrays.fill(cellOf, from, cap, -1);
+  }
+
+  /**
+   * Up to {@code k} slots within {@code maxMetres} of the location that {@code accept} lets through, closest
+   * first, written to {@code outSlots} / {@code outMetres} (each at least {@code k} long). Returns how many.
+   */
+  public int nearest(double latitude, double longitude, int k, double maxMetres, IntPredicate accept,
+                     int[] outSlots, double[] outMetres) {
+    if (k <= 0 || size == 0) return 0;
+    double cosLat = Math.max(Math.cos(Math.toRadians(latitude)), 1e-6);
+    double cellMetres = cellDeg * METRES_PER_DEGREE * cosLat; // narrowest side of a cell, in query metres
+    double maxSq = maxMetres * maxMetres;
+    int r0 = row(latitude);
+    int c0 = col(longitude);
+    int maxRing = (int) Math.min(Math.ceil(maxMetres / cellMetres) + 1, Math.max(rows, cols / 2));
+    int found = 0;
+    // outMetres holds squared distances while searching, kept sorted ascending.
+    for (int ring = 0; ring <= maxRing; ring++) {
+      for (int dr = -ring; dr <= ring; dr++) {
+        int r = r0 + dr;
+        if (r < 0 || r >= rows) continue;
+        boolean edgeRow = dr == -ring || dr == ring;
+        int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+        for (int dc = -ring; dc <= ring; dc += step) {
+          Cell cell = cells.get(key(r, Math.floorMod(c0 + dc, cols)));
+          if (cell == null) continue;
+          for (int i = 0; i < cell.n; i++) {
+            int s = cell.slots[i];
+            double dy = (lat[s] - latitude) * METRES_PER_DEGREE;
+            double dx = wrap(lng[s] - longitude) * METRES_PER_DEGREE * cosLat;
+            double d = dx * dx + dy * dy;
+            if (d > maxSq || (found == k && d >= outMetres[k - 1]) || !accept.test(s)) continue;
+            int at = found < k ? found++ : k - 1;
+            while (at > 0 && outMetres[at - 1] > d) {
+              outMetres[at] = outMetres[at - 1];
+              outSlots[at] = outSlots[at - 1];
+              at--;
+            }
+            outMetres[at] = d;
+            outSlots[at] = s;
+          }
+        }
+      }
+      // Everything not yet scanned is at least `ring` whole cells away.
+      double bound = ring * cellMetres;
+      if (found == k && outMetres[k - 1] <= bound * bound) break;
+      if (bound > maxMetres) break;
+    }
+    for (int i = 0; i < found; i++) outMetres[i] = Math.sqrt(outMetres[i]);
+    return found;
+  }
+
+  private int row(double latitude) {
+    return (int) Math.floor((latitude + 90) / cellDeg);
+  }
+
+  private int col(double longitude) {
+    return Math.floorMod((int) Math.floor((longitude + 180) / cellDeg), cols);
+  }
+
+  private long key(int r, int c) {
+    return (long) r * cols + c;
+  }
+
+  private static double wrap(double dLng) {
+    if (dLng > 180) return dLng - 360;
+    if (dLng < -180) return dLng + 360;
+    return dLng;
+  }
+}
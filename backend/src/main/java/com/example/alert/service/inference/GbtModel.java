@@ -0,0 +1,138 @@
+package com.example.alert.service.inference;
+
+import java.util.List;
+
+/**
+ * Gradient-boosted trees for binary classification, as exported from scikit-learn's
+ * GradientBoostingClassifier. Leaf values already include the learning rate.
+ *
+ * At construction every tree is renumbered breadth-first into one set of flat arrays so that the
+ * right child always follows the left one: a step is {@code node = child[node] + (x > split ? 1 : 0)},
+ * which compiles to a conditional move instead of a hard-to-predict branch. Leaves point at themselves
+ * with a NaN split, so every row takes exactly {@code depth[tree]} steps and four rows can be walked in
+ * lockstep without per-row exit checks. Batches walk one tree over all rows before moving to the next,
+ * so the tree stays in cache.
+ */
+public final class GbtModel implements InferenceModel {
+  private final List<String> features;
+  private final int[] roots;
+  private final int[] depth;
+  private final int[] feature;
+  private final float[] split;
+  private final int[] child;
+  private final double[] value;
+  private final double baseScore;
+  private final double threshold;
+  private final Kernels kernels;
+
+  /**
+   * Trees given as flat arrays over all nodes: node {@code i} splits on {@code feature[i]} at
+   * {@code split[i]} (go left when {@code x <= split}) into {@code left[i]} / {@code right[i]},
+   * or is a leaf with {@code value[i]} when {@code left[i] < 0}. {@code roots} holds each tree's root node.
+   */
+  public GbtModel(List<String> features, int[] roots, int[] feature, double[] split, int[] left, int[] right,
+                  double[] value, double baseScore, double threshold, Kernels kernels) {
+    int nodes = feature.length;
+    if (split.length != nodes || left.length != nodes || right.length != nodes || value.length != nodes) {
+      throw new IllegalArgumentException("Tree arrays must all have " + nodes + " nodes");
+    }
+    for (int i = 0; i < nodes; i++) {
+      if (left[i] >= 0 && (left[i] >= nodes || right[i] < 0 || right[i] >= nodes || feature[i] < 0 || feature[i] >= features.size())) {
+        throw new IllegalArgumentException("Malformed split node " + i);
+      }
+    }
+    this.features = List.copyOf(features);
+    this.roots = new int[roots.length];
+    this.depth = new int[roots.length];
+    this.feature = new int[nodes];
+    this.split = new float[nodes];
+    this.child = new int[nodes];
+    this.value = new double[nodes];
+    int[] queue = new int[nodes];
+    int[] level = new int[nodes];
+    int next = 0;
+    for (int t = 0; t < roots.length; t++) {
+      // Breadth-first copy: a node's two children are appended together, so right == left + 1.
+      int head = 0, tail = 0;
+      level[tail] = 0;
+      queue[tail++] = roots[t];
+      this.roots[t] = next;
+      int placed = next++;
+      while (head < tail) {
+        if (tail > nodes) throw new IllegalArgumentException("Tree " + t + " is not a tree");
+        int lvl = level[head];
+        int src = queue[head++];
+        int dst = placed++;
+        this.value[dst] = value[src];
+        if (left[src] < 0) {
+          this.child[dst] = dst;
+          this.split[dst] = Float.NaN; // x > NaN is false: stay put
+          depth[t] = Math.max(depth[t], lvl);
+          continue;
+        }
+        this.feature[dst] = feature[src];
+        // scikit-learn compares float32 inputs against its thresholds; do the same so splits match exactly.
+        this.split[dst] = (float) split[src];
+        this.child[dst] = next;
+        next += 2;
+        if (tail + 2 > nodes) throw new IllegalArgumentException("Tree " + t + " is not a tree");
+        level[tail] = lvl + 1;
+        queue[tail++] = left[src];
+        level[tail] = lvl + 1;
+        queue[tail++] = right[src];
+      }
+    }
+    this.baseScore = baseScore;
+    this.threshold = threshold;
+    this.kernels = kernels;
+  }
+
+  @Override public String type() { return "gbt"; }
+  @Override public List<String> features() { return features; }
+  @Override public double threshold() { return threshold; }
+
+  @Override
+  public double score(double[] x) {
+    double z = baseScore;
+    for (int t = 0; t < roots.length; t++) {
+      int n = roots[t];
+      for (int d = depth[t]; d > 0; d--) n = step(n, x, feature[n]);
+      z += value[n];
+    }
+    return 1.0 / (1.0 + Math.exp(-z));
+  }
+
+  @Override
+  public void scoreBatch(double[] x, int stride, int rows, double[] out) {
+    for (int r = 0; r < rows; r++) out[r] = baseScore;
+    int upper = rows & ~3;
+    for (int t = 0; t < roots.length; t++) {
+      int root = roots[t], dep = depth[t];
+      int r = 0;
+      // Four independent walks per pass hide the load latency of each step.
+      for (; r < upper; r += 4) {
+        int n0 = root, n1 = root, n2 = root, n3 = root;
+        for (int d = dep; d > 0; d--) {
+          n0 = step(n0, x, feature[n0] * stride + r);
+          n1 = step(n1, x, feature[n1] * stride + r + 1);
+          n2 = step(n2, x, feature[n2] * stride + r + 2);
+          n3 = step(n3, x, feature[n3] * stride + r + 3);
+        }
+        out[r] += value[n0];
+        out[r + 1] += value[n1];
+        out[r + 2] += value[n2];
+        out[r + 3] += value[n3];
+      }
+      for (; r < rows; r++) {
+        int n = root;
+        for (int d = dep; d > 0; d--) n = step(n, x, feature[n] * stride + r);
+        out[r] += value[n];
+      }
+    }
+    kernels.sigmoid(out, 0, rows);
+  }
+
+  private int step(int node, double[] x, int idx) {
+    return child[node] + ((float) x[idx] > split[node] ? 1 : 0);
+  }
+}
@@ -0,0 +1,25 @@
+package com.example.alert.service.inference;
+
+import java.util.List;
+
+/**
+ * A fall model that turns a feature vector into a probability.
+ *
+ * Batches are passed feature-major in one flat array: feature {@code f} of row {@code r} sits at
+ * {@code x[f * stride + r]}, so each feature column is contiguous and kernels can stream it.
+ * Implementations are immutable and thread-safe, and neither method allocates once a thread is warm.
+ */
+public interface InferenceModel {
+  String type();
+
+  /** Input names in the order {@link #score} expects them. */
+  List<String> features();
+
+  double threshold();
+
+  /** Scores one row; {@code x} holds {@code features().size()} values in feature order. */
+  double score(double[] x);
+
+  /** Scores {@code rows} rows stored feature-major with the given stride into {@code out[0..rows)}. */
+  void scoreBatch(double[] x, int stride, int rows, double[] out);
+}
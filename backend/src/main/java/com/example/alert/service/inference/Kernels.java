@@ -0,0 +1,33 @@
+package com.example.alert.service.inference;
+
+/**
+ * Numeric loops shared by the models. {@link ScalarKernels} is plain Java; {@link VectorKernels}
+ * uses the incubating JDK Vector API and is only picked when that module is present at runtime.
+ */
+public interface Kernels {
+  String name();
+
+  /**
+   * {@code out[outOff + r] = bias + sum_f w[wOff + f] * x[xOff + f * stride + r]} for {@code r < rows},
+   * summed in feature order so every kernel produces the same result.
+   */
+  void affine(double[] x, int xOff, int stride, int rows, double[] w, int wOff, int n, double bias,
+              double[] out, int outOff);
+
+  void relu(double[] v, int off, int len);
+
+  void sigmoid(double[] v, int off, int len);
+
+  /** Vector kernels when {@code allowVector} and the JVM was started with {@code --add-modules jdk.incubator.vector}. */
+  static Kernels select(boolean allowVector) {
+    if (allowVector && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+      try {
+        return (Kernels) Class.forName("com.example.alert.service.inference.VectorKernels")
+            .getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException | LinkageError ignored) {
+        // fall through to scalar
+      }
+    }
+    return ScalarKernels.INSTANCE;
+  }
+}
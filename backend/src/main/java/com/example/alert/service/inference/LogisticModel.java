@@ -0,0 +1,40 @@
+package com.example.alert.service.inference;
+
+import java.util.List;
+
+/** {@code sigmoid(bias + w . x)}. */
+public final class LogisticModel implements InferenceModel {
+  private final List<String> features;
+  private final double[] weights;
+  private final double bias;
+  private final double threshold;
+  private final Kernels kernels;
+
+  public LogisticModel(List<String> features, double[] weights, double bias, double threshold, Kernels kernels) {
+    if (features.size() != weights.length) {
+      throw new IllegalArgumentException("Expected " + features.size() + " weights, got " + weights.length);
+    }
+    this.features = List.copyOf(features);
+    this.weights = weights.clone();
+    this.bias = bias;
+    this.threshold = threshold;
+    this.kernels = kernels;
+  }
+
+  @Override public String type() { return "logistic_regression"; }
+  @Override public List<String> features() { return features; }
+  @Override public double threshold() { return threshold; }
+
+  @Override
+  public double score(double[] x) {
+    double z = bias;
+    for (int f = 0; f < weights.length; f++) z += x[f] * weights[f];
+    return 1.0 / (1.0 + Math.exp(-z));
+  }
+
+  @Override
+  public void scoreBatch(double[] x, int stride, int rows, double[] out) {
+    kernels.affine(x, 0, stride, rows, weights, 0, weights.length, bias, out, 0);
+    kernels.sigmoid(out, 0, rows);
+  }
+}
@@ -0,0 +1,93 @@
+package com.example.alert.service.inference;
+
+import java.util.List;
+
+/**
+ * Fully connected network with ReLU hidden layers and one sigmoid output, as exported from
+ * scikit-learn's MLPClassifier. Input standardisation is folded into the first layer at load time.
+ *
+ * Batches run in blocks of {@link #BLOCK} rows; each hidden layer writes its activations feature-major
+ * into a per-thread scratch buffer that the next layer reads with the same affine kernel.
+ */
+public final class MlpModel implements InferenceModel {
+  static final int BLOCK = 256;
+
+  private final List<String> features;
+  private final double[][] weights; // layer -> row-major [outputs][inputs]
+  private final double[][] biases;
+  private final int[] widths; // widths[0] = inputs, widths[i + 1] = outputs of layer i
+  private final double threshold;
+  private final Kernels kernels;
+  private final ThreadLocal<double[][]> scratch;
+
+  public MlpModel(List<String> features, double[][] weights, double[][] biases, double threshold, Kernels kernels) {
+    int layers = weights.length;
+    if (layers == 0 || biases.length != layers) throw new IllegalArgumentException("MLP needs matching weights and biases per layer");
+    this.features = List.copyOf(features);
+    this.widths = new int[layers + 1];
+    widths[0] = features.size();
+    int maxWidth = 1;
+    for (int l = 0; l < layers; l++) {
+      widths[l + 1] = biases[l].length;
+      if (weights[l].length != widths[l + 1] * widths[l]) {
+        throw new IllegalArgumentException("Layer " + l + " expects " + widths[l + 1] + "x" + widths[l] + " weights");
+      }
+      maxWidth = Math.max(maxWidth, widths[l + 1]);
+    }
+    if (widths[layers] != 1) throw new IllegalArgumentException("MLP output layer must have one unit");
+    this.weights = weights;
+    this.biases = biases;
+    this.threshold = threshold;
+    this.kernels = kernels;
+    int size = maxWidth * BLOCK;
+    this.scratch = ThreadLocal.withInitial(() -> new double[][] { new double[size], new double[size] });
+  }
+
+  @Override public String type() { return "mlp"; }
+  @Override public List<String> features() { return features; }
+  @Override public double threshold() { return threshold; }
+
+  @Override
+  public double score(double[] x) {
+    double[][] buf = scratch.get();
+    double[] in = x;
+    double[] out = buf[0];
+    for (int l = 0; l < weights.length; l++) {
+      int nIn = widths[l], nOut = widths[l + 1];
+      double[] w = weights[l];
+      for (int j = 0; j < nOut; j++) {
+        double acc = biases[l][j];
+        for (int f = 0; f < nIn; f++) acc += in[f] * w[j * nIn + f];
+        out[j] = l < weights.length - 1 ? Math.max(0, acc) : acc;
+      }
+      in = out;
+      out = out == buf[0] ? buf[1] : buf[0];
+    }
+    return 1.0 / (1.0 + Math.exp(-in[0]));
+  }
+
+  @Override
+  public void scoreBatch(double[] x, int stride, int rows, double[] out) {
+    double[][] buf = scratch.get();
+    int last = weights.length - 1;
+    for (int r0 = 0; r0 < rows; r0 += BLOCK) {
+      int n = Math.min(BLOCK, rows - r0);
+      double[] in = x;
+      int inOff = r0, inStride = stride;
+      double[] dst = buf[0];
+      for (int l = 0; l < last; l++) {
+        int nIn = widths[l], nOut = widths[l + 1];
+        for (int j = 0; j < nOut; j++) {
+          kernels.affine(in, inOff, inStride, n, weights[l], j * nIn, nIn, biases[l][j], dst, j * BLOCK);
+        }
+        kernels.relu(dst, 0, nOut * BLOCK);
+        in = dst;
+        inOff = 0;
+        inStride = BLOCK;
+        dst = dst == buf[0] ? buf[1] : buf[0];
+      }
+      kernels.affine(in, inOff, inStride, n, weights[last], 0, widths[last], biases[last][0], out, r0);
+    }
+    kernels.sigmoid(out, 0, rows);
+  }
+}
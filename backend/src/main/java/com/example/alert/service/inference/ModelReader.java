@@ -0,0 +1,150 @@
+package com.example.alert.service.inference;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds an {@link InferenceModel} from the JSON written by {@code ml/train_model.py}.
+ *
+ * <pre>
+ * {"type":"logistic_regression","features":[...],"weights":[...],"bias":b,"threshold":t}
+ * {"type":"mlp","features":[...],"scale":{"mean":[...],"std":[...]},
+ *  "layers":[{"weights":[[...per output unit...]],"bias":[...]}, ...],"threshold":t}
+ * {"type":"gbt","features":[...],"base_score":b,"threshold":t,
+ *  "trees":[{"feature":[...],"threshold":[...],"left":[...],"right":[...],"value":[...]}, ...]}
+ * </pre>
+ * Files without "type" are logistic regression; without "features" they are the original
+ * accel_mag/gyro_mag model.
+ */
+public final class ModelReader {
+  private ModelReader() {}
+
+  public static InferenceModel read(JsonNode root, Kernels kernels) throws IOException {
+    String type = root.path("type").asText("logistic_regression");
+    double threshold = root.path("threshold").asDouble(0.6);
+    switch (type) {
+      case "logistic_regression": {
+        double[] w = doubles(root.get("weights"), "weights");
+        return new LogisticModel(features(root, w.length), w, root.path("bias").asDouble(0), threshold, kernels);
+      }
+      case "mlp":
+        return readMlp(root, threshold, kernels);
+      case "gbt":
+        return readGbt(root, threshold, kernels);
+      default:
+        throw new IOException("Unknown model type '" + type + "'");
+    }
+  }
+
+  private static InferenceModel readMlp(JsonNode root, double threshold, Kernels kernels) throws IOException {
+    JsonNode layers = root.get("layers");
+    if (layers == null || !layers.isArray() || layers.isEmpty()) throw new IOException("MLP model has no layers");
+    int n = layers.size();
+    double[][] weights = new double[n][];
+    double[][] biases = new double[n][];
+    for (int l = 0; l < n; l++) {
+      JsonNode rows = layers.get(l).get("weights");
+      if (rows == null || !rows.isArray()) throw new IOException("MLP layer " + l + " has no weights");
+      if (rows.isEmpty() || rows.get(0).isEmpty()) throw new IOException("MLP model has an empty layer " + l);
+      biases[l] = doubles(layers.get(l).get("bias"), "bias");
+      int nOut = rows.size(), nIn = rows.get(0).size();
+      if (biases[l].length != nOut) throw new IOException("MLP layer " + l + " has " + biases[l].length + " biases for " + nOut + " units");
+      weights[l] = new double[nOut * nIn];
+      for (int j = 0; j < nOut; j++) {
+        double[] row = doubles(rows.get(j), "weights");
+        if (row.length != nIn) throw new IOException("MLP layer " + l + " has ragged weights");
+        System.arraycopy(row, 0, weights[l], j * nIn, nIn);
+      }
+    }
+    List<String> features = features(root, weights[0].length / biases[0].length);
+    JsonNode scale = root.get("scale");
+    if (scale != null) foldScale(weights[0], biases[0], doubles(scale.get("mean"), "mean"), doubles(scale.get("std"), "std"));
+    try {
+      return new MlpModel(features, weights, biases, threshold, kernels);
+    } catch (IllegalArgumentException ex) {
+      throw new IOException(ex.getMessage());
+    }
+  }
+
+  /** (x - mean) / std feeding W is the same as x feeding W / std with the bias shifted by -W . mean / std. */
+  private static void foldScale(double[] w, double[] b, double[] mean, double[] std) throws IOException {
+    int nIn = mean.length;
+    if (std.length != nIn || w.length != b.length * nIn) throw new IOException("Scale does not match the first layer");
+    for (int j = 0; j < b.length; j++) {
+      for (int f = 0; f < nIn; f++) {
+        double s = std[f] == 0 ? 1 : std[f];
+        w[j * nIn + f] /= s;
+        b[j] -= w[j * nIn + f] * mean[f];
+      }
+    }
+  }
+
+  private static InferenceModel readGbt(JsonNode root, double threshold, Kernels kernels) throws IOException {
+    JsonNode trees = root.get("trees");
+    if (trees == null || !trees.isArray() || trees.isEmpty()) throw new IOException("GBT model has no trees");
+    List<String> features = features(root, -1);
+    int total = 0;
+    for (JsonNode t : trees) total += t.path("left").size();
+    int[] roots = new int[trees.size()];
+    int[] feature = new int[total], left = new int[total], right = new int[total];
+    double[] split = new double[total], value = new double[total];
+    int base = 0;
+    for (int t = 0; t < trees.size(); t++) {
+      JsonNode tree = trees.get(t);
+      int[] f = ints(tree.get("feature"), "feature"), l = ints(tree.get("left"), "left"), r = ints(tree.get("right"), "right");
+      double[] s = doubles(tree.get("threshold"), "threshold"), v = doubles(tree.get("value"), "value");
+      int nodes = l.length;
+      if (f.length != nodes || r.length != nodes || s.length != nodes || v.length != nodes) {
+        throw new IOException("Tree " + t + " has arrays of different lengths");
+      }
+      roots[t] = base;
+      for (int i = 0; i < nodes; i++) {
+        boolean leaf = l[i] < 0;
+        feature[base + i] = leaf ? -1 : f[i];
+        left[base + i] = leaf ? -1 : base + l[i];
+        right[base + i] = leaf ? -1 : base + r[i];
+        split[base + i] = s[i];
+        value[base + i] = v[i];
+      }
+      base += nodes;
+    }
+    try {
+      return new GbtModel(features, roots, feature, split, left, right, value, root.path("base_score").asDouble(0),
+          threshold, kernels);
+    } catch (IllegalArgumentException ex) {
+      throw new IOException(ex.getMessage());
+    }
+  }
+
+  /** The model's declared inputs, defaulting to the legacy two-magnitude layout when absent. */
+  private static List<String> features(JsonNode root, int expected) throws IOException {
+    List<String> out = new ArrayList<>();
+    JsonNode f = root.get("features");
+    if (f != null && f.isArray()) {
+      for (JsonNode n : f) out.add(n.asText());
+    } else {
+      for (int i = 0; i < (expected >= 0 ? expected : 2); i++) out.add(i == 0 ? "accel_mag" : i == 1 ? "gyro_mag" : "");
+    }
+    if (expected >= 0 && out.size() != expected) {
+      throw new IOException("Model lists " + out.size() + " features but has " + expected + " inputs");
+    }
+    return out;
+  }
+
+  private static double[] doubles(JsonNode n, String field) throws IOException {
+    if (n == null || !n.isArray()) throw new IOException("Missing array '" + field + "'");
+    double[] out = new double[n.size()];
+    for (int i = 0; i < out.length; i++) out[i] = n.get(i).asDouble();
+    return out;
+  }
+
+  private static int[] ints(JsonNode n, String field) throws IOException {
+    if (n == null || !n.isArray()) throw new IOException("Missing array '" + field + "'");
+    int[] out = new int[n.size()];
+    for (int i = 0; i < out.length; i++) out[i] = n.get(i).asInt();
+    return out;
+  }
+}
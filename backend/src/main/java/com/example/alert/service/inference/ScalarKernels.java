@@ -0,0 +1,36 @@
+package com.example.alert.service.inference;
+
+public final class ScalarKernels implements Kernels {
+  public static final ScalarKernels INSTANCE = new ScalarKernels();
+
+  private ScalarKernels() {}
+
+  @Override
+  public String name() {
+    return "scalar";
+  }
+
+  @Override
+  public void affine(double[] x, int xOff, int stride, int rows, double[] w, int wOff, int n, double bias,
+                     double[] out, int outOff) {
+    // Feature-outer so each pass streams one contiguous column; the sum order per row is unchanged.
+    for (int r = 0; r < rows; r++) out[outOff + r] = bias;
+    for (int f = 0; f < n; f++) {
+      double wf = w[wOff + f];
+      int base = xOff + f * stride;
+      for (int r = 0; r < rows; r++) out[outOff + r] += x[base + r] * wf;
+    }
+  }
+
+  @Override
+  public void relu(double[] v, int off, int len) {
+    for (int i = off; i < off + len; i++) {
+      if (v[i] < 0) v[i] = 0;
+    }
+  }
+
+  @Override
+  public void sigmoid(double[] v, int off, int len) {
+    for (int i = off; i < off + len; i++) v[i] = 1.0 / (1.0 + Math.exp(-v[i]));
+  }
+}
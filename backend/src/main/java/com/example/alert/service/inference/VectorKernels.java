@@ -0,0 +1,62 @@
+package com.example.alert.service.inference;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API kernels: one SIMD register holds the same feature for several consecutive rows, so the
+ * feature-major layout loads straight into lanes. Tails shorter than a register go through the scalar loop.
+ * Only loaded through {@link Kernels#select}, never referenced directly, so the class can be missing at runtime.
+ */
+final class VectorKernels implements Kernels {
+  private static final VectorSpecies<Double> S = DoubleVector.SPECIES_PREFERRED;
+
+  VectorKernels() {
+    // Without SIMD registers the preferred species has one lane and the scalar loops are faster.
+    if (S.length() < 2) throw new UnsupportedOperationException("No SIMD lanes for double");
+  }
+
+  @Override
+  public String name() {
+    return "vector-" + S.vectorBitSize();
+  }
+
+  @Override
+  public void affine(double[] x, int xOff, int stride, int rows, double[] w, int wOff, int n, double bias,
+                     double[] out, int outOff) {
+    int upper = S.loopBound(rows);
+    int r = 0;
+    for (; r < upper; r += S.length()) {
+      DoubleVector acc = DoubleVector.broadcast(S, bias);
+      for (int f = 0; f < n; f++) {
+        // mul then add (not fma) keeps results identical to the scalar kernel
+        acc = acc.add(DoubleVector.fromArray(S, x, xOff + f * stride + r).mul(w[wOff + f]));
+      }
+      acc.intoArray(out, outOff + r);
+    }
+    if (r < rows) ScalarKernels.INSTANCE.affine(x, xOff + r, stride, rows - r, w, wOff, n, bias, out, outOff + r);
+  }
+
+  @Override
+  public void relu(double[] v, int off, int len) {
+    int upper = S.loopBound(len);
+    int i = 0;
+    for (; i < upper; i += S.length()) {
+      DoubleVector.fromArray(S, v, off + i).max(0.0).intoArray(v, off + i);
+    }
+    if (i < len) ScalarKernels.INSTANCE.relu(v, off + i, len - i);
+  }
+
+  @Override
+  public void sigmoid(double[] v, int off, int len) {
+    int upper = S.loopBound(len);
+    int i = 0;
+    for (; i < upper; i += S.length()) {
+      DoubleVector z = DoubleVector.fromArray(S, v, off + i);
+      DoubleVector e = z.neg().lanewise(VectorOperators.EXP);
+      DoubleVector.broadcast(S, 1.0).div(e.add(1.0)).intoArray(v, off + i);
+    }
+    if (i < len) ScalarKernels.INSTANCE.sigmoid(v, off + i, len - i);
+  }
+}
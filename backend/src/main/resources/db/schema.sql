@@ -0,0 +1,90 @@
+-- Schema the faststart profile runs against (spring.jpa.hibernate.ddl-auto=none), as Hibernate would create it
+-- on H2 from the entities. The durable and cluster profiles run it as well, before Hibernate's update, for the
+-- migrations ddl-auto=update cannot do. Every statement is idempotent, so it is safe to run on each start and on
+-- a database that an earlier release created with ddl-auto=update. Keep it in step with the entities in
+-- com.example.alert.model.
+
+create sequence if not exists events_seq start with 1 increment by 500;
+
+create table if not exists events (
+  id bigint not null,
+  device_id varchar(255),
+  timestamp bigint not null,
+  bucket bigint not null,
+  ax float(53) not null,
+  ay float(53) not null,
+  az float(53) not null,
+  gx float(53) not null,
+  gy float(53) not null,
+  gz float(53) not null,
+  lat float(53),
+  lng float(53),
+  primary key (id)
+);
+create index if not exists idx_events_device_ts on events (device_id, timestamp);
+create index if not exists idx_events_bucket on events (bucket);
+
+create table if not exists alerts (
+  id bigint generated by default as identity,
+  device_id varchar(255),
+  timestamp bigint not null,
+  reason varchar(255),
+  lat float(53),
+  lng float(53),
+  status smallint,
+  confirm_starts_at bigint,
+  expiry_at bigint,
+  lease_owner varchar(255),
+  lease_until bigint,
+  version bigint default 0 not null,
+  primary key (id)
+);
+-- Tables from before optimistic locking get version 0 on every row.
+alter table alerts add column if not exists version bigint default 0 not null;
+-- Tables from before status codes (AlertStatus.code()) hold the enum names in a varchar column. The cast keeps
+-- the comparison valid once the column is smallint, which makes both statements no-ops from then on.
+update alerts set status = case cast(status as varchar) when 'PENDING_SILENT' then 1 when 'PENDING_CONFIRM' then 2
+  when 'SENT' then 3 when 'CANCELLED' then 4 end
+  where cast(status as varchar) in ('PENDING_SILENT', 'PENDING_CONFIRM', 'SENT', 'CANCELLED');
+alter table alerts alter column status set data type smallint;
+create index if not exists idx_alerts_status_confirm on alerts (status, confirm_starts_at);
+create index if not exists idx_alerts_status_expiry on alerts (status, expiry_at);
+create index if not exists idx_alerts_device on alerts (device_id, id);
+
+create table if not exists alert_snapshots (
+  alert_id bigint not null,
+  device_id varchar(255),
+  trigger_ts bigint not null,
+  from_ts bigint not null,
+  to_ts bigint not null,
+  samples integer not null,
+  fraction_bits integer not null,
+  payload blob,
+  created_at bigint not null,
+  primary key (alert_id)
+);
+
+create table if not exists notifications (
+  id bigint generated by default as identity,
+  alert_id bigint,
+  channel varchar(255),
+  recipient varchar(255),
+  text varchar(2000),
+  status varchar(255),
+  attempts integer not null,
+  last_error varchar(255),
+  created_at bigint not null,
+  updated_at bigint not null,
+  next_attempt_at bigint not null,
+  primary key (id)
+);
+create index if not exists idx_notifications_due on notifications (status, next_attempt_at);
+create index if not exists idx_notifications_alert on notifications (alert_id);
+
+create table if not exists cluster_nodes (
+  id varchar(255) not null,
+  url varchar(255),
+  started_at bigint not null,
+  heartbeat_at bigint not null,
+  primary key (id)
+);
@@ -0,0 +1,86 @@
+package com.example.alert.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashRingTest {
+  private static final int VIRTUAL_NODES = 128; // cluster.virtualNodes default
+  private static final int KEYS = 50_000;
+
+  @Test
+  void emptyRingOwnsNothing() {
+    HashRing ring = new HashRing(List.of(), VIRTUAL_NODES);
+    assertTrue(ring.isEmpty());
+    assertNull(ring.owner("device-1"));
+    assertEquals(List.of(), ring.shares());
+  }
+
+  @Test
+  void everyMemberBuildsTheSameRing() {
+    HashRing a = new HashRing(List.of("node-a", "node-b", "node-c"), VIRTUAL_NODES);
+    HashRing b = new HashRing(List.of("node-c", "node-a", "node-b", "node-a"), VIRTUAL_NODES);
+
+    assertEquals(a.nodes(), b.nodes());
+    for (int k = 0; k < KEYS; k++) assertEquals(a.owner(key(k)), b.owner(key(k)));
+  }
+
+  @Test
+  void joinMovesOnlyKeysToTheNewNode() {
+    HashRing before = new HashRing(List.of("node-a", "node-b", "node-c"), VIRTUAL_NODES);
+    HashRing after = new HashRing(List.of("node-a", "node-b", "node-c", "node-d"), VIRTUAL_NODES);
+
+    int moved = 0;
+    for (int k = 0; k < KEYS; k++) {
+      String was = before.owner(key(k)), now = after.owner(key(k));
+      if (!was.equals(now)) {
+        assertEquals("node-d", now, "key " + k + " moved between existing nodes");
+        moved++;
+      }
+    }
+    double fraction = (double) moved / KEYS;
+    assertTrue(fraction > 0.15 && fraction < 0.35, "moved " + fraction + " of the keys, expected about 1/4");
+  }
+
+  @Test
+  void leaveMovesOnlyTheLeaversKeys() {
+    HashRing before = new HashRing(List.of("node-a", "node-b", "node-c", "node-d"), VIRTUAL_NODES);
+    HashRing after = new HashRing(List.of("node-a", "node-b", "node-c"), VIRTUAL_NODES);
+
+    for (int k = 0; k < KEYS; k++) {
+      String was = before.owner(key(k));
+      if (!was.equals("node-d")) assertEquals(was, after.owner(key(k)), "key " + k);
+    }
+  }
+
+  @Test
+  void sharesCoverTheRingAndMatchOwnership() {
+    HashRing ring = new HashRing(List.of("node-a", "node-b", "node-c", "node-d"), VIRTUAL_NODES);
+    List<Double> shares = ring.shares();
+
+    int[] owned = new int[ring.nodes().size()];
+    for (int k = 0; k < KEYS; k++) owned[ring.nodes().indexOf(ring.owner(key(k)))]++;
+    double total = 0;
+    for (int i = 0; i < shares.size(); i++) {
+      total += shares.get(i);
+      assertTrue(shares.get(i) > 0.15 && shares.get(i) < 0.35, ring.nodes().get(i) + " owns " + shares.get(i));
+      assertEquals(shares.get(i), (double) owned[i] / KEYS, 0.02, ring.nodes().get(i) + " share vs sampled keys");
+    }
+    assertEquals(1.0, total, 1e-9);
+  }
+
+  @Test
+  void singleNodeOwnsEverything() {
+    HashRing ring = new HashRing(List.of("node-a"), 1);
+    assertEquals(List.of(1.0), ring.shares());
+    for (int k = 0; k < 1000; k++) assertEquals("node-a", ring.owner(key(k)));
+  }
+
+  private static String key(int k) {
+    return "device-" + k;
+  }
+}
@@ -0,0 +1,110 @@
+package com.example.alert.repo;
+
+import com.example.alert.model.AlertStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/** The batched compare-and-set against an in-memory H2 table holding the alerts columns it touches. */
+class AlertTransitionsImplTest {
+  private static final long NOW = 1_700_000_000_000L;
+
+  private JdbcTemplate jdbc;
+  private AlertTransitionsImpl transitions;
+
+  @BeforeEach
+  void createTable() {
+    jdbc = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+    jdbc.execute("create table alerts (id bigint primary key, status smallint, lease_owner varchar(255),"
+        + " lease_until bigint, version bigint default 0 not null)");
+    transitions = new AlertTransitionsImpl(jdbc);
+  }
+
+  @Test
+  void movesOnlyRowsStillInTheExpectedState() {
+    insert(1, AlertStatus.PENDING_SILENT, null, null);
+    insert(2, AlertStatus.PENDING_CONFIRM, null, null); // another caller already moved it
+    insert(3, AlertStatus.PENDING_SILENT, null, null);
+    insert(4, AlertStatus.CANCELLED, null, null); // answered by the user meanwhile
+
+    int[] moved = transitions.transitionAll(List.of(1L, 2L, 3L, 4L, 99L),
+        AlertStatus.PENDING_SILENT, AlertStatus.PENDING_CONFIRM, null, 0, NOW);
+
+    assertArrayEquals(new int[] { 1, 0, 1, 0, 0 }, moved);
+    assertRow(1, AlertStatus.PENDING_CONFIRM, 1);
+    assertRow(2, AlertStatus.PENDING_CONFIRM, 0);
+    assertRow(3, AlertStatus.PENDING_CONFIRM, 1);
+    assertRow(4, AlertStatus.CANCELLED, 0);
+  }
+
+  @Test
+  void secondBatchOverTheSameRowsMovesNothing() {
+    insert(1, AlertStatus.PENDING_CONFIRM, null, null);
+    insert(2, AlertStatus.PENDING_CONFIRM, null, null);
+    List<Long> ids = List.of(1L, 2L);
+
+    assertArrayEquals(new int[] { 1, 1 }, transitions.transitionAll(ids, AlertStatus.PENDING_CONFIRM, AlertStatus.SENT, null, 0, NOW));
+    assertArrayEquals(new int[] { 0, 0 }, transitions.transitionAll(ids, AlertStatus.PENDING_CONFIRM, AlertStatus.SENT, null, 0, NOW));
+    assertRow(1, AlertStatus.SENT, 1);
+    assertRow(2, AlertStatus.SENT, 1);
+  }
+
+  @Test
+  void leasedBatchSkipsRowsAnotherNodeHolds() {
+    insert(1, AlertStatus.PENDING_SILENT, null, null);
+    insert(2, AlertStatus.PENDING_SILENT, "node-b", NOW + 1_000); // live lease of another node
+    insert(3, AlertStatus.PENDING_SILENT, "node-b", NOW - 1); // lapsed: node-b died mid-transition
+    insert(4, AlertStatus.PENDING_SILENT, "node-a", NOW + 1_000); // our own lease
+
+    int[] moved = transitions.transitionAll(List.of(1L, 2L, 3L, 4L),
+        AlertStatus.PENDING_SILENT, AlertStatus.PENDING_CONFIRM, "node-a", NOW + 5_000, NOW);
+
+    assertArrayEquals(new int[] { 1, 0, 1, 1 }, moved);
+    for (long id : new long[] { 1, 3, 4 }) {
+      assertEquals("node-a", row(id).get("LEASE_OWNER"));
+      assertEquals(NOW + 5_000, ((Number) row(id).get("LEASE_UNTIL")).longValue());
+    }
+    assertRow(2, AlertStatus.PENDING_SILENT, 0);
+    assertEquals("node-b", row(2).get("LEASE_OWNER"));
+  }
+
+  @Test
+  void unleasedBatchLeavesLeaseColumnsAlone() {
+    insert(1, AlertStatus.PENDING_SILENT, null, null);
+
+    transitions.transitionAll(List.of(1L), AlertStatus.PENDING_SILENT, AlertStatus.PENDING_CONFIRM, null, 0, NOW);
+
+    assertNull(row(1).get("LEASE_OWNER"));
+    assertNull(row(1).get("LEASE_UNTIL"));
+  }
+
+  @Test
+  void emptyBatchTouchesNothing() {
+    assertArrayEquals(new int[0], transitions.transitionAll(List.of(), AlertStatus.PENDING_SILENT,
+        AlertStatus.PENDING_CONFIRM, "node-a", NOW, NOW));
+  }
+
+  private void insert(long id, AlertStatus status, String leaseOwner, Long leaseUntil) {
+    jdbc.update("insert into alerts (id, status, lease_owner, lease_until) values (?, ?, ?, ?)",
+        id, status.code(), leaseOwner, leaseUntil);
+  }
+
+  private Map<String, Object> row(long id) {
+    return jdbc.queryForMap("select * from alerts where id = ?", id);
+  }
+
+  private void assertRow(long id, AlertStatus status, long version) {
+    Map<String, Object> r = row(id);
+    assertEquals(status, AlertStatus.fromCode(((Number) r.get("STATUS")).shortValue()), "status of " + id);
+    assertEquals(version, ((Number) r.get("VERSION")).longValue(), "version of " + id);
+  }
+}
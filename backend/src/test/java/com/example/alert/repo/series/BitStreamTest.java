@@ -0,0 +1,70 @@
+package com.example.alert.repo.series;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BitStreamTest {
+
+  @Test
+  void roundTripsEveryWidth() {
+    Random random = new Random(1);
+    long[] values = new long[2000];
+    int[] widths = new int[values.length];
+    BitOutput out = new BitOutput(0);
+    long bits = 0;
+    for (int i = 0; i < values.length; i++) {
+      widths[i] = i % 65; // 0..64, so every width and every alignment gets written
+      values[i] = random.nextLong();
+      out.writeBits(values[i], widths[i]);
+      bits += widths[i];
+    }
+    assertEquals(bits, out.bitLength());
+    assertEquals((int) ((bits + 7) / 8), out.byteLength());
+
+    BitInput in = new BitInput(ByteBuffer.wrap(out.toByteArray()), 0);
+    for (int i = 0; i < values.length; i++) {
+      long expected = widths[i] == 64 ? values[i] : values[i] & ((1L << widths[i]) - 1);
+      assertEquals(expected, in.readBits(widths[i]), "value " + i + " of width " + widths[i]);
+    }
+  }
+
+  @Test
+  void writesMostSignificantBitFirst() {
+    BitOutput out = new BitOutput(0);
+    out.writeBit(true);
+    out.writeBits(0b0101, 4);
+    out.writeBit(true);
+    assertEquals((byte) 0b1010_1100, out.toByteArray()[0]);
+  }
+
+  @Test
+  void readsFromAnOffset() {
+    BitOutput out = new BitOutput(0);
+    out.writeBits(Long.MIN_VALUE, 64);
+    out.writeBit(false);
+    out.writeBit(true);
+    byte[] payload = out.toByteArray();
+    ByteBuffer buf = ByteBuffer.allocate(payload.length + 5);
+    buf.position(5);
+    buf.put(payload);
+
+    BitInput in = new BitInput(buf, 5);
+    assertEquals(Long.MIN_VALUE, in.readBits(64));
+    assertFalse(in.readBit());
+    assertTrue(in.readBit());
+  }
+
+  @Test
+  void growsPastTheInitialBuffer() {
+    BitOutput out = new BitOutput(1);
+    for (int i = 0; i < 100; i++) out.writeBits(i, 64);
+    BitInput in = new BitInput(ByteBuffer.wrap(out.toByteArray()), 0);
+    for (int i = 0; i < 100; i++) assertEquals(i, in.readBits(64));
+  }
+}
@@ -0,0 +1,161 @@
+package com.example.alert.repo.series;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeriesBlockTest {
+  private static final int LOSSLESS = -1;
+
+  @Test
+  void timestampsRoundTripThroughEveryDeltaOfDeltaWidth() {
+    // Deltas chosen so delta-of-delta hits 0, each bucket's edges (7, 9 and 12 bits) and the 64-bit escape.
+    long[] deltas = { 20, 20, 21, 84, 20, 83, -172, 84, 340, 83, -1708, 340, 2388, 20, 1L << 40, 20, -(1L << 40), 0 };
+    long[] ts = new long[deltas.length + 1];
+    ts[0] = 1_700_000_000_000L;
+    for (int i = 0; i < deltas.length; i++) ts[i + 1] = ts[i] + deltas[i];
+
+    assertArrayEquals(ts, decode(encode(ts, LOSSLESS), ts.length, LOSSLESS).ts());
+  }
+
+  @Test
+  void timestampsRoundTripAtTheExtremes() {
+    // Deltas overflow here; the encoding is exact modulo 2^64, so they still come back unchanged.
+    long[] ts = { Long.MIN_VALUE, Long.MAX_VALUE, 0, -1, Long.MAX_VALUE, Long.MIN_VALUE + 1, Long.MIN_VALUE, Long.MIN_VALUE };
+
+    assertArrayEquals(ts, decode(encode(ts, LOSSLESS), ts.length, LOSSLESS).ts());
+  }
+
+  @Test
+  void losslessKeepsRawDoubleBits() {
+    double[] specials = { 0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+        Double.MIN_VALUE, -Double.MIN_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, 9.81, -9.81, 1e-300 };
+    SeriesBlock block = new SeriesBlock(LOSSLESS, specials.length);
+    for (int i = 0; i < specials.length; i++) {
+      double v = specials[i], w = specials[specials.length - 1 - i];
+      block.append(i, v, w, v, w, v, w, v, w);
+    }
+
+    List<double[]> rows = decode(block.payload(), specials.length, LOSSLESS).rows();
+    for (int i = 0; i < specials.length; i++) {
+      double v = specials[i], w = specials[specials.length - 1 - i];
+      for (int c = 1; c <= 8; c++) {
+        assertEquals(Double.doubleToRawLongBits(c % 2 == 1 ? v : w), Double.doubleToRawLongBits(rows.get(i)[c]),
+            "row " + i + " column " + c);
+      }
+    }
+  }
+
+  @Test
+  void quantisedAxesStayWithinHalfAStep() {
+    int fractionBits = 10;
+    double half = Math.scalb(1.0, -fractionBits - 1);
+    Random random = new Random(7);
+    int n = 5000;
+    double[][] axes = new double[n][6];
+    SeriesBlock block = new SeriesBlock(fractionBits, n);
+    for (int i = 0; i < n; i++) {
+      for (int c = 0; c < 6; c++) {
+        // Mostly sensor-like values, with jumps between magnitudes to force new XOR windows.
+        axes[i][c] = i % 97 == 0 ? (random.nextDouble() - 0.5) * 2e6 : random.nextGaussian() * (c < 3 ? 9.81 : 200);
+      }
+      double[] a = axes[i];
+      block.append(1000L + i * 20, a[0], a[1], a[2], a[3], a[4], a[5], 12.97, 77.59);
+    }
+
+    List<double[]> rows = decode(block.payload(), n, fractionBits).rows();
+    for (int i = 0; i < n; i++) {
+      for (int c = 0; c < 6; c++) {
+        double got = rows.get(i)[c + 1];
+        assertTrue(Math.abs(got - axes[i][c]) <= half, "row " + i + " axis " + c + ": " + axes[i][c] + " -> " + got);
+      }
+      assertEquals(12.97, rows.get(i)[7], 0.0);
+      assertEquals(77.59, rows.get(i)[8], 0.0);
+    }
+  }
+
+  @Test
+  void quantisationBoundaries() {
+    int fractionBits = 10;
+    double step = Math.scalb(1.0, -fractionBits);
+    // On-grid values are exact, half steps round to even, and -0.0 comes back as 0.
+    double[] in = { 0.0, -0.0, step, -step, 1234.5, -1234.5, step / 2, 3 * step / 2, -step / 2, -3 * step / 2,
+        step / 2 + 1e-12, Math.scalb(1.0, 52 - fractionBits), -Math.scalb(1.0, 52 - fractionBits) };
+    double[] expected = { 0.0, 0.0, step, -step, 1234.5, -1234.5, 0.0, 2 * step, 0.0, -2 * step,
+        step, Math.scalb(1.0, 52 - fractionBits), -Math.scalb(1.0, 52 - fractionBits) };
+    SeriesBlock block = new SeriesBlock(fractionBits, in.length);
+    for (int i = 0; i < in.length; i++) block.append(i, in[i], -in[i], in[i], -in[i], in[i], -in[i], Double.NaN, Double.NaN);
+
+    List<double[]> rows = decode(block.payload(), in.length, fractionBits).rows();
+    for (int i = 0; i < in.length; i++) {
+      assertEquals(expected[i], rows.get(i)[1], 0.0, "value " + in[i]);
+      assertEquals(-expected[i], rows.get(i)[2], 0.0, "value " + -in[i]);
+      assertTrue(Double.isNaN(rows.get(i)[7]) && Double.isNaN(rows.get(i)[8]), "missing coordinates stay NaN");
+    }
+  }
+
+  @Test
+  void decodesFromAnOffsetAndStopsWhenTheSinkSaysSo() {
+    long[] ts = { 10, 20, 30, 40, 50 };
+    byte[] payload = encode(ts, 10);
+    ByteBuffer buf = ByteBuffer.allocate(payload.length + 3);
+    buf.position(3);
+    buf.put(payload);
+
+    List<Long> seen = new ArrayList<>();
+    SeriesBlock.decode(buf, 3, ts.length, 10, (t, ax, ay, az, gx, gy, gz, lat, lng) -> {
+      seen.add(t);
+      return seen.size() < 3;
+    });
+    assertEquals(List.of(10L, 20L, 30L), seen);
+  }
+
+  @Test
+  void codecRoundTripsAPayload() {
+    SeriesCodec.Encoder enc = new SeriesCodec.Encoder(12, 4);
+    for (int i = 0; i < 4; i++) enc.append(500L + i * 10, i, -i, 9.75, 0.5 * i, 0, -0.25, Double.NaN, 1.5);
+    assertEquals(4, enc.count());
+
+    List<double[]> rows = new ArrayList<>();
+    SeriesCodec.decode(enc.payload(), enc.count(), 12, (t, ax, ay, az, gx, gy, gz, lat, lng) ->
+        rows.add(new double[] { t, ax, ay, az, gx, gy, gz, lat, lng }));
+    assertEquals(4, rows.size());
+    for (int i = 0; i < 4; i++) {
+      assertArrayEquals(new double[] { 500 + i * 10, i, -i, 9.75, 0.5 * i, 0, -0.25, Double.NaN, 1.5 }, rows.get(i), 0.0);
+    }
+
+    SeriesCodec.decode(new byte[0], 0, 12, (t, ax, ay, az, gx, gy, gz, lat, lng) -> {
+      throw new AssertionError("no samples in an empty payload");
+    });
+  }
+
+  /** Timestamps with slowly drifting axes and fixed coordinates. */
+  private static byte[] encode(long[] ts, int fractionBits) {
+    SeriesBlock block = new SeriesBlock(fractionBits, ts.length);
+    for (int i = 0; i < ts.length; i++) block.append(ts[i], i * 0.5, 0, 9.81, 0, 0, -i, 1, 2);
+    assertEquals(ts.length, block.count());
+    return block.payload();
+  }
+
+  /** Rows are {ts, ax, ay, az, gx, gy, gz, lat, lng}; {@code ts} keeps the timestamps a double cannot hold. */
+  private record Decoded(long[] ts, List<double[]> rows) {}
+
+  private static Decoded decode(byte[] payload, int count, int fractionBits) {
+    List<double[]> rows = new ArrayList<>(count);
+    long[] ts = new long[count];
+    SeriesBlock.decode(ByteBuffer.wrap(payload), 0, count, fractionBits, (t, ax, ay, az, gx, gy, gz, lat, lng) -> {
+      ts[rows.size()] = t;
+      rows.add(new double[] { t, ax, ay, az, gx, gy, gz, lat, lng });
+      return true;
+    });
+    assertEquals(count, rows.size());
+    return new Decoded(ts, rows);
+  }
+}
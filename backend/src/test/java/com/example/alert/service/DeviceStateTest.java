@@ -0,0 +1,92 @@
+package com.example.alert.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** The GCRA ingest allowance: one sample per {@code INTERVAL_US}, up to {@code BURST_US} banked. */
+class DeviceStateTest {
+  private static final long INTERVAL_US = 1_000;
+  private static final long BURST_US = 5_000; // five samples of credit
+  private static final long NOW_US = 1_700_000_000_000_000L;
+
+  @Test
+  void idleDeviceGetsItsBurstThenWaits() {
+    DeviceState s = new DeviceState("d", 0);
+    for (int i = 0; i < 5; i++) assertEquals(0, s.takeAllowance(NOW_US, 1, INTERVAL_US, BURST_US), "sample " + i);
+
+    assertEquals(INTERVAL_US, s.takeAllowance(NOW_US, 1, INTERVAL_US, BURST_US));
+    assertEquals(3 * INTERVAL_US, s.takeAllowance(NOW_US, 3, INTERVAL_US, BURST_US));
+  }
+
+  @Test
+  void waitTimeIsWhenTheRequestFits() {
+    DeviceState s = new DeviceState("d", 0);
+    assertEquals(0, s.takeAllowance(NOW_US, 5, INTERVAL_US, BURST_US));
+
+    long wait = s.takeAllowance(NOW_US + 200, 2, INTERVAL_US, BURST_US);
+    assertEquals(2 * INTERVAL_US - 200, wait);
+    assertEquals(1, s.takeAllowance(NOW_US + 200 + wait - 1, 2, INTERVAL_US, BURST_US));
+    assertEquals(0, s.takeAllowance(NOW_US + 200 + wait, 2, INTERVAL_US, BURST_US));
+    assertEquals(INTERVAL_US, s.takeAllowance(NOW_US + 200 + wait, 1, INTERVAL_US, BURST_US));
+  }
+
+  @Test
+  void rejectedRequestsAreNotCharged() {
+    DeviceState s = new DeviceState("d", 0);
+    assertEquals(0, s.takeAllowance(NOW_US, 4, INTERVAL_US, BURST_US));
+    for (int i = 0; i < 10; i++) assertEquals(INTERVAL_US, s.takeAllowance(NOW_US, 2, INTERVAL_US, BURST_US));
+
+    assertEquals(0, s.takeAllowance(NOW_US, 1, INTERVAL_US, BURST_US));
+  }
+
+  @Test
+  void steadyRateAtTheIntervalIsNeverLimited() {
+    DeviceState s = new DeviceState("d", 0);
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(0, s.takeAllowance(NOW_US + i * INTERVAL_US, 1, INTERVAL_US, BURST_US), "sample " + i);
+    }
+  }
+
+  @Test
+  void quietTimeBanksAtMostTheBurst() {
+    DeviceState s = new DeviceState("d", 0);
+    assertEquals(0, s.takeAllowance(NOW_US, 5, INTERVAL_US, BURST_US));
+
+    long later = NOW_US + 3_600_000_000L;
+    assertEquals(0, s.takeAllowance(later, 5, INTERVAL_US, BURST_US));
+    assertEquals(INTERVAL_US, s.takeAllowance(later, 1, INTERVAL_US, BURST_US));
+  }
+
+  @Test
+  void concurrentChargesAdmitExactlyTheBurst() throws InterruptedException {
+    DeviceState s = new DeviceState("d", 0);
+    long burstUs = 1000 * INTERVAL_US;
+    AtomicInteger admitted = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      Thread thread = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException ex) {
+          return;
+        }
+        for (int i = 0; i < 500; i++) {
+          if (s.takeAllowance(NOW_US, 1, INTERVAL_US, burstUs) == 0) admitted.incrementAndGet();
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : threads) thread.join();
+
+    assertEquals(1000, admitted.get());
+  }
+}
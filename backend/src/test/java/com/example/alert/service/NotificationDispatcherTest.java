@@ -0,0 +1,226 @@
+package com.example.alert.service;
+
+import com.example.alert.model.Notification;
+import com.example.alert.repo.NotificationRepository;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Delivery through {@link TelegramService} against a local stub of the Bot API: the stub answers with the
+ * queued status codes, then 200. Rows live in an in-memory stand-in for the repository that copies on every
+ * read and write, as the database would.
+ */
+class NotificationDispatcherTest {
+  private HttpServer stub;
+  private final ConcurrentLinkedQueue<Integer> statuses = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger requests = new AtomicInteger();
+  private final Map<Long, Notification> rows = new ConcurrentHashMap<>();
+  private NotificationDispatcher dispatcher;
+
+  @BeforeEach
+  void startStub() throws IOException {
+    stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    stub.createContext("/bottest-token/sendMessage", exchange -> {
+      requests.incrementAndGet();
+      Integer queued = statuses.poll();
+      int status = queued == null ? 200 : queued;
+      byte[] body = (status == 200 ? "{\"ok\":true}" : "{\"ok\":false}").getBytes(StandardCharsets.UTF_8);
+      exchange.getRequestBody().readAllBytes();
+      exchange.sendResponseHeaders(status, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    stub.start();
+  }
+
+  @AfterEach
+  void stop() {
+    if (dispatcher != null) dispatcher.stop();
+    stub.stop(0);
+  }
+
+  @Test
+  void retriesAfterServerError() {
+    statuses.add(503);
+    dispatcher = dispatcher(5, 5, 60_000);
+
+    assertEquals(1, dispatcher.dispatch(1L, "Fall detected"));
+
+    Notification n = awaitStatus("SENT");
+    assertEquals(2, n.getAttempts());
+    assertEquals(2, requests.get());
+  }
+
+  @Test
+  void breakerOpensAfterConsecutiveFailures() throws InterruptedException {
+    for (int i = 0; i < 10; i++) statuses.add(500);
+    dispatcher = dispatcher(8, 2, 60_000);
+
+    dispatcher.dispatch(1L, "Fall detected");
+
+    await(() -> "OPEN".equals(dispatcher.breakerStates().get("telegram")));
+    Thread.sleep(300); // many backoff periods: an open breaker parks the row without sending
+    assertEquals(2, requests.get());
+    Notification n = only();
+    assertEquals("PENDING", n.getStatus());
+    assertEquals(2, n.getAttempts());
+  }
+
+  @Test
+  void failsAtMaxAttempts() {
+    for (int i = 0; i < 10; i++) statuses.add(500);
+    dispatcher = dispatcher(3, 100, 60_000);
+
+    dispatcher.dispatch(1L, "Fall detected");
+
+    Notification n = awaitStatus("FAILED");
+    assertEquals(3, n.getAttempts());
+    assertEquals(3, requests.get());
+    assertTrue(n.getLastError().contains("HTTP 500"), n.getLastError());
+  }
+
+  @Test
+  void exhaustedRowLeftPendingIsFailedWithoutSending() {
+    // A node claimed the last attempt and died before recording the outcome.
+    dispatcher = dispatcher(3, 100, 60_000);
+    Notification n = new Notification();
+    n.setId(7L);
+    n.setAlertId(1L);
+    n.setChannel("telegram");
+    n.setText("Fall detected");
+    n.setStatus("PENDING");
+    n.setAttempts(3);
+    rows.put(n.getId(), n);
+
+    dispatcher.sweep();
+
+    assertEquals(3, awaitStatus("FAILED").getAttempts());
+    assertEquals(0, requests.get());
+  }
+
+  private NotificationDispatcher dispatcher(int maxAttempts, int breakerFailures, long breakerOpenMs) {
+    TelegramService telegram = new TelegramService(1000);
+    ReflectionTestUtils.setField(telegram, "apiBase", "http://127.0.0.1:" + stub.getAddress().getPort());
+    ReflectionTestUtils.setField(telegram, "botTokenProp", "test-token");
+    ReflectionTestUtils.setField(telegram, "chatIdProp", "42");
+    ReflectionTestUtils.setField(telegram, "timeoutMs", 2000L);
+    NotificationDispatcher d = new NotificationDispatcher(repository(), List.of(telegram), new StandardEnvironment(),
+        100, 4, maxAttempts, 10, 20, breakerFailures, breakerOpenMs,
+        new AlertMetrics(new SimpleMeterRegistry()), new Workers(false));
+    d.start();
+    return d;
+  }
+
+  private Notification awaitStatus(String status) {
+    await(() -> rows.size() == 1 && status.equals(only().getStatus()));
+    return only();
+  }
+
+  private Notification only() {
+    assertEquals(1, rows.size());
+    return copy(rows.values().iterator().next());
+  }
+
+  private static void await(BooleanSupplier condition) {
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) throw new AssertionError("Timed out waiting");
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException ex) {
+        throw new AssertionError(ex);
+      }
+    }
+  }
+
+  /** The repository methods the dispatcher uses, with the claim's compare-and-set semantics. */
+  private NotificationRepository repository() {
+    AtomicLong ids = new AtomicLong();
+    return (NotificationRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class<?>[] { NotificationRepository.class }, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "saveAll": {
+              List<Notification> saved = new ArrayList<>();
+              for (Object o : (Iterable<?>) args[0]) {
+                Notification n = (Notification) o;
+                if (n.getId() == null) n.setId(ids.incrementAndGet());
+                rows.put(n.getId(), copy(n));
+                saved.add(n);
+              }
+              return saved;
+            }
+            case "save": {
+              Notification n = (Notification) args[0];
+              rows.put(n.getId(), copy(n));
+              return n;
+            }
+            case "findById":
+              return Optional.ofNullable(rows.get((Long) args[0])).map(NotificationDispatcherTest::copy);
+            case "findByStatusAndNextAttemptAtLessThanEqual": {
+              List<Notification> due = new ArrayList<>();
+              for (Notification n : rows.values()) {
+                if (n.getStatus().equals(args[0]) && n.getNextAttemptAt() <= (long) args[1]) due.add(copy(n));
+              }
+              return due;
+            }
+            case "claim": {
+              int[] claimed = { 0 };
+              rows.computeIfPresent((Long) args[0], (id, n) -> {
+                if ("PENDING".equals(n.getStatus()) && n.getNextAttemptAt() == (long) args[1]
+                    && n.getAttempts() < (int) args[3]) {
+                  n.setNextAttemptAt((long) args[2]);
+                  n.setAttempts(n.getAttempts() + 1);
+                  claimed[0] = 1;
+                }
+                return n;
+              });
+              return claimed[0];
+            }
+            case "toString":
+              return "InMemoryNotificationRepository";
+            default:
+              throw new UnsupportedOperationException(method.getName());
+          }
+        });
+  }
+
+  private static Notification copy(Notification n) {
+    Notification c = new Notification();
+    c.setId(n.getId());
+    c.setAlertId(n.getAlertId());
+    c.setChannel(n.getChannel());
+    c.setRecipient(n.getRecipient());
+    c.setText(n.getText());
+    c.setStatus(n.getStatus());
+    c.setAttempts(n.getAttempts());
+    c.setLastError(n.getLastError());
+    c.setCreatedAt(n.getCreatedAt());
+    c.setUpdatedAt(n.getUpdatedAt());
+    c.setNextAttemptAt(n.getNextAttemptAt());
+    return c;
+  }
+}
@@ -0,0 +1,31 @@
+package com.example.alert.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for CI: runs the suites matching the given regexes (all by default) with the GC
+ * profiler and writes JMH's JSON results, so every benchmark reports ops/s alongside
+ * gc.alloc.rate.norm (bytes allocated per operation).
+ * Run: java -cp benchmarks/target/benchmarks.jar com.example.alert.bench.CiBenchmarks [regex...]
+ * The output file defaults to jmh-result.json; override it with -Dbench.out=path.
+ */
+public final class CiBenchmarks {
+  private CiBenchmarks() {}
+
+  public static void main(String[] args) throws RunnerException {
+    OptionsBuilder opts = new OptionsBuilder();
+    if (args.length == 0) opts.include("com\\.example\\.alert\\.bench\\..*Benchmark");
+    for (String regex : args) opts.include(regex);
+    Options options = opts
+        .addProfiler(GCProfiler.class)
+        .resultFormat(ResultFormatType.JSON)
+        .result(System.getProperty("bench.out", "jmh-result.json"))
+        .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,87 @@
+package com.example.alert.bench;
+
+import com.example.alert.model.Alert;
+import com.example.alert.model.Event;
+import com.example.alert.service.DeviceState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-sample detection path over in-memory services (no database, timers that never fire):
+ * a quiet sample through DetectionService.process, ML scoring alone, and a sample that raises an alert.
+ * Run: java -jar benchmarks/target/benchmarks.jar Detection
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class DetectionBenchmark {
+  private static final int SAMPLES = 4096;
+  private static final int DEVICES = 64;
+
+  private Fixtures.Mocked app;
+  private final Event[] quiet = new Event[SAMPLES];
+  private final String[] deviceIds = new String[DEVICES];
+  private Event spike;
+  private long ts = 1_732_780_000_000L;
+  private int i;
+
+  @Setup
+  public void setup() {
+    app = new Fixtures.Mocked();
+    Random r = new Random(42);
+    for (int d = 0; d < DEVICES; d++) deviceIds[d] = "bench-" + d;
+    for (int k = 0; k < SAMPLES; k++) {
+      Event e = new Event();
+      e.setDeviceId(deviceIds[k % DEVICES]);
+      e.setAx(r.nextGaussian() * 0.3);
+      e.setAy(r.nextGaussian() * 0.3);
+      e.setAz(9.81 + r.nextGaussian() * 0.3);
+      e.setGx(r.nextGaussian() * 3);
+      e.setGy(r.nextGaussian() * 3);
+      e.setGz(r.nextGaussian() * 3);
+      quiet[k] = e;
+    }
+    spike = new Event();
+    spike.setDeviceId("bench-spike");
+    spike.setAx(22);
+    spike.setAy(-18);
+    spike.setAz(25);
+    spike.setGx(180);
+    spike.setGy(-90);
+    spike.setGz(60);
+  }
+
+  @TearDown
+  public void tearDown() {
+    app.close();
+  }
+
+  @Benchmark
+  public Alert processQuietSample() {
+    Event e = quiet[i++ & (SAMPLES - 1)];
+    e.setTimestamp(ts += 10);
+    return app.detection.process(e);
+  }
+
+  @Benchmark
+  public double mlScore() {
+    Event e = quiet[i++ & (SAMPLES - 1)];
+    return app.ml.predictFallProbability(e.getAx(), e.getAy(), e.getAz(), e.getGx(), e.getGy(), e.getGz());
+  }
+
+  /** Rule hit, alert saved, published to the cache and stream; the device is released again for the next call. */
+  @Benchmark
+  public Alert alertCreation() {
+    spike.setTimestamp(ts += 10);
+    Alert a = app.detection.process(spike);
+    DeviceState state = app.devices.find(spike.getDeviceId());
+    if (a != null && state != null) state.clearPendingAlert(a.getId());
+    return a;
+  }
+}
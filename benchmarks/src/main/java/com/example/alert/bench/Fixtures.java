@@ -0,0 +1,159 @@
+package com.example.alert.bench;
+
+import com.example.alert.Application;
+import com.example.alert.cluster.ClusterMembership;
+import com.example.alert.controller.EventController;
+import com.example.alert.repo.AlertRepository;
+import com.example.alert.repo.AlertSnapshotRepository;
+import com.example.alert.repo.ClusterNodeRepository;
+import com.example.alert.repo.EventRepository;
+import com.example.alert.repo.NotificationRepository;
+import com.example.alert.repo.series.EventSeriesStore;
+import com.example.alert.service.AdmissionControl;
+import com.example.alert.service.AlertMetrics;
+import com.example.alert.service.AlertTimerScheduler;
+import com.example.alert.service.DetectionService;
+import com.example.alert.service.DeviceStateTable;
+import com.example.alert.service.EventWriteBehind;
+import com.example.alert.service.IngestService;
+import com.example.alert.service.MLService;
+import com.example.alert.service.NotificationDispatcher;
+import com.example.alert.service.RecentCache;
+import com.example.alert.service.ResponderService;
+import com.example.alert.service.SampleBatchDecoder;
+import com.example.alert.service.SnapshotService;
+import com.example.alert.service.StreamHub;
+import com.example.alert.service.Workers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wiring shared by the benchmarks: either the real application on an in-memory H2, or the same
+ * services built by hand over repositories that keep nothing, so the score is pure CPU work.
+ */
+final class Fixtures {
+  private Fixtures() {}
+
+  /** Boots the application without a web server on a private in-memory database. */
+  static ConfigurableApplicationContext h2Context(String dbName, String... extraProperties) {
+    String[] props = new String[extraProperties.length + 3];
+    props[0] = "spring.datasource.url=jdbc:h2:mem:" + dbName + ";DB_CLOSE_DELAY=-1";
+    props[1] = "events.series.enabled=false";
+    props[2] = "logging.level.root=warn";
+    System.arraycopy(extraProperties, 0, props, 3, extraProperties.length);
+    return new SpringApplicationBuilder(Application.class)
+        .web(WebApplicationType.NONE)
+        .properties(props)
+        .run();
+  }
+
+  /**
+   * A repository whose save methods only assign ids, whose lookups find nothing, and whose list
+   * queries return empty lists.
+   */
+  @SuppressWarnings("unchecked")
+  static <T> T nullRepository(Class<T> type) {
+    AtomicLong ids = new AtomicLong();
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, m, args) -> {
+      switch (m.getName()) {
+        case "save":
+          assignId(args[0], ids);
+          return args[0];
+        case "saveAll":
+          for (Object o : (Iterable<?>) args[0]) assignId(o, ids);
+          return args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "equals":
+          return proxy == args[0];
+        case "toString":
+          return "nullRepository(" + type.getSimpleName() + ")";
+        default:
+          break;
+      }
+      Class<?> rt = m.getReturnType();
+      if (rt == Optional.class) return Optional.empty();
+      if (List.class.isAssignableFrom(rt) || rt == Iterable.class) return List.of();
+      if (rt == long.class) return 0L;
+      if (rt == int.class) return 0;
+      if (rt == boolean.class) return false;
+      return null;
+    });
+  }
+
+  private static void assignId(Object entity, AtomicLong ids) throws ReflectiveOperationException {
+    Method get = entity.getClass().getMethod("getId");
+    if (get.invoke(entity) == null) {
+      entity.getClass().getMethod("setId", Long.class).invoke(entity, ids.incrementAndGet());
+    }
+  }
+
+  /** Timers that never fire: alerts stay pending, so nothing downstream runs during a measurement. */
+  static AlertTimerScheduler noTimers() {
+    return new AlertTimerScheduler(1, new Workers(false)) {
+      @Override public void schedule(long key, long deadlineMs, Runnable task) {}
+      @Override public void cancel(long key) {}
+    };
+  }
+
+  /** The in-memory pieces of the ingest path, built by hand over {@link #nullRepository}s. */
+  static final class Mocked {
+    final ObjectMapper mapper = new ObjectMapper();
+    final AlertMetrics metrics = new AlertMetrics(new SimpleMeterRegistry());
+    final Workers threads = new Workers(false);
+    final MLService ml = new MLService(metrics);
+    final AlertRepository alertRepo = nullRepository(AlertRepository.class);
+    final EventRepository eventRepo = nullRepository(EventRepository.class);
+    final DeviceStateTable devices = new DeviceStateTable(200_000, 3_600_000);
+    final StreamHub stream = new StreamHub(mapper, 1024, 256, 1, threads);
+    final EventSeriesStore seriesStore = new EventSeriesStore(false, "unused", 1024, 10, 60_000, 1L << 30);
+    final RecentCache recent = new RecentCache(mapper, alertRepo, eventRepo, seriesStore, 30, 10_000, 60_000);
+    final NotificationDispatcher notifications = new NotificationDispatcher(nullRepository(NotificationRepository.class),
+        List.of(), new StandardEnvironment(), 1000, 64, 8, 500, 60_000, 5, 30_000, metrics, threads);
+    final DetectionService detection;
+    final EventWriteBehind writer;
+    final EventController controller;
+
+    Mocked() {
+      ml.load();
+      ClusterMembership cluster = new ClusterMembership(nullRepository(ClusterNodeRepository.class), e -> {},
+          false, "local", "http://localhost", 5000, 128);
+      SnapshotService snapshots = new SnapshotService(nullRepository(AlertSnapshotRepository.class), devices, threads,
+          true, 5000, 5000, 50, 10, 5000);
+      detection = new DetectionService(ml, alertRepo, notifications, devices, noTimers(), stream, recent, metrics, cluster,
+          snapshots, new ResponderService(true, 3, 25, 900_000, 0.005));
+      writer = new EventWriteBehind(eventRepo, seriesStore, noTransactions(), true, 50_000, 500, 200, 50, 10_000, metrics);
+      writer.start();
+      // Admission off: benchmarks drive single devices far past any per-device rate limit.
+      AdmissionControl admission = new AdmissionControl(devices, detection, snapshots, writer,
+          false, 250, 1000, 0.7, 2, 100, 64, 4, 1024, 1000);
+      IngestService ingest = new IngestService(detection, writer, recent, metrics, admission, threads, false, 0, 0);
+      controller = new EventController(eventRepo, alertRepo, detection, new SampleBatchDecoder(mapper), writer,
+          seriesStore, stream, recent, metrics, ingest, admission);
+    }
+
+    void close() {
+      writer.stop();
+      stream.stop();
+      ml.stop();
+    }
+  }
+
+  private static PlatformTransactionManager noTransactions() {
+    return (PlatformTransactionManager) Proxy.newProxyInstance(Fixtures.class.getClassLoader(),
+        new Class<?>[] { PlatformTransactionManager.class },
+        (proxy, m, args) -> "getTransaction".equals(m.getName()) ? new SimpleTransactionStatus() : null);
+  }
+}
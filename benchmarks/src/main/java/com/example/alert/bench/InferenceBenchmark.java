@@ -0,0 +1,110 @@
+package com.example.alert.bench;
+
+import com.example.alert.service.inference.GbtModel;
+import com.example.alert.service.inference.InferenceModel;
+import com.example.alert.service.inference.Kernels;
+import com.example.alert.service.inference.LogisticModel;
+import com.example.alert.service.inference.MlpModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batched model scoring on one thread; scores are rows (samples) per second per core.
+ * Models are random but shaped like train_model.py exports with 16 window features:
+ * logistic regression, a 32-16 ReLU MLP, and 50 depth-3 trees.
+ * Run: java -jar benchmarks/target/benchmarks.jar Inference
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@Threads(1)
+@State(Scope.Thread)
+public class InferenceBenchmark {
+  private static final int FEATURES = 16;
+  private static final int ROWS = 1024;
+
+  @Param({"logistic", "mlp", "gbt"})
+  String model;
+
+  @Param({"scalar", "vector"})
+  String kernel;
+
+  private InferenceModel m;
+  private final double[] x = new double[FEATURES * ROWS];
+  private final double[] row = new double[FEATURES];
+  private final double[] out = new double[ROWS];
+
+  @Setup
+  public void setup() {
+    Random r = new Random(42);
+    Kernels k = Kernels.select("vector".equals(kernel));
+    if ("vector".equals(kernel) && "scalar".equals(k.name())) {
+      throw new IllegalStateException("Vector API not available in this JVM");
+    }
+    List<String> names = new ArrayList<>();
+    for (int f = 0; f < FEATURES; f++) names.add("f" + f);
+    switch (model) {
+      case "logistic":
+        m = new LogisticModel(names, gaussians(r, FEATURES), 0.1, 0.6, k);
+        break;
+      case "mlp":
+        m = new MlpModel(names,
+            new double[][] { gaussians(r, 32 * FEATURES), gaussians(r, 16 * 32), gaussians(r, 16) },
+            new double[][] { gaussians(r, 32), gaussians(r, 16), gaussians(r, 1) }, 0.6, k);
+        break;
+      default:
+        m = randomTrees(names, r, 50, 3, k);
+    }
+    for (int i = 0; i < x.length; i++) x[i] = r.nextGaussian();
+    System.arraycopy(x, 0, row, 0, FEATURES);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public double[] batch() {
+    m.scoreBatch(x, ROWS, ROWS, out);
+    return out;
+  }
+
+  @Benchmark
+  public double single() {
+    return m.score(row);
+  }
+
+  /** Complete binary trees of the given depth in the flat layout scikit-learn exports. */
+  private static GbtModel randomTrees(List<String> names, Random r, int trees, int depth, Kernels k) {
+    int nodes = (1 << (depth + 1)) - 1;
+    int total = trees * nodes;
+    int[] roots = new int[trees], feature = new int[total], left = new int[total], right = new int[total];
+    double[] split = new double[total], value = new double[total];
+    for (int t = 0; t < trees; t++) {
+      roots[t] = t * nodes;
+      for (int i = 0; i < nodes; i++) {
+        int g = t * nodes + i;
+        if (2 * i + 2 < nodes) {
+          feature[g] = r.nextInt(names.size());
+          split[g] = r.nextGaussian();
+          left[g] = t * nodes + 2 * i + 1;
+          right[g] = t * nodes + 2 * i + 2;
+        } else {
+          feature[g] = -1;
+          left[g] = right[g] = -1;
+          value[g] = r.nextGaussian() * 0.1;
+        }
+      }
+    }
+    return new GbtModel(names, roots, feature, split, left, right, value, 0.0, 0.6, k);
+  }
+
+  private static double[] gaussians(Random r, int n) {
+    double[] d = new double[n];
+    for (int i = 0; i < n; i++) d[i] = r.nextGaussian();
+    return d;
+  }
+}
@@ -0,0 +1,312 @@
+package com.example.alert.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Open-loop load against running backends: many simulated devices each upload a batch on a fixed period,
+ * over their own connection, and the targets are compared on throughput and tail latency.
+ *
+ * Latency is measured from when a request was due, not when it was sent, so a server that falls behind
+ * shows it in the percentiles instead of silently slowing the load down (coordinated omission).
+ * Run against a normal start, a start with {@code --spring.profiles.active=vthreads}, and the
+ * {@code /api/fn/events/batch} route to compare the modes; see the README's Concurrency modes section.
+ */
+public final class LoadTest {
+  private static final String USAGE = String.join("\n",
+      "Usage: LoadTest [options] <name>=<upload url>...",
+      "  e.g. platform=http://localhost:8081/api/events/batch fn=http://localhost:8081/api/fn/events/batch",
+      "  --devices <n>        concurrent devices, one connection each (2000)",
+      "  --intervalMs <ms>    upload period per device (1000)",
+      "  --samples <n>        samples per upload (50)",
+      "  --format <f>         binary or json (binary)",
+      "  --warmupS <s>        load before measuring (10)",
+      "  --durationS <s>      measured load per target (30)",
+      "  --timeoutMs <ms>     request timeout (10000)",
+      "  --out <file.json>    write the results as JSON");
+
+  private LoadTest() {}
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> targets = new LinkedHashMap<>();
+    Map<String, String> opts = new HashMap<>();
+    for (int i = 0; i < args.length; i++) {
+      String a = args[i];
+      if (a.equals("--help")) {
+        System.out.println(USAGE);
+        return;
+      }
+      if (!a.startsWith("--")) {
+        int eq = a.indexOf('=');
+        if (eq <= 0) fail("Expected name=url, got '" + a + "'");
+        targets.put(a.substring(0, eq), a.substring(eq + 1));
+        continue;
+      }
+      if (i + 1 >= args.length) fail("Missing value for " + a);
+      switch (a) {
+        case "--devices", "--intervalMs", "--samples", "--format", "--warmupS", "--durationS", "--timeoutMs", "--out" ->
+            opts.put(a.substring(2), args[++i]);
+        default -> fail("Unknown option " + a);
+      }
+    }
+    if (targets.isEmpty()) fail("No targets given");
+    String format = opts.getOrDefault("format", "binary");
+    if (!format.equals("binary") && !format.equals("json")) fail("Unknown format " + format);
+
+    Setup setup = new Setup(
+        Integer.parseInt(opts.getOrDefault("devices", "2000")),
+        Long.parseLong(opts.getOrDefault("intervalMs", "1000")),
+        Integer.parseInt(opts.getOrDefault("samples", "50")),
+        format.equals("binary"),
+        Long.parseLong(opts.getOrDefault("warmupS", "10")),
+        Long.parseLong(opts.getOrDefault("durationS", "30")),
+        Long.parseLong(opts.getOrDefault("timeoutMs", "10000")));
+
+    System.out.printf(Locale.ROOT, "%d devices, one %d-sample %s upload every %d ms each (%.0f req/s offered)%n",
+        setup.devices, setup.samples, format, setup.intervalMs, setup.devices * 1000.0 / setup.intervalMs);
+    List<Map<String, Object>> results = new ArrayList<>();
+    for (Map.Entry<String, String> t : targets.entrySet()) {
+      System.out.println("Running " + t.getKey() + ": " + t.getValue());
+      results.add(run(t.getKey(), t.getValue(), setup));
+    }
+    print(results);
+    if (opts.containsKey("out")) {
+      Map<String, Object> report = new LinkedHashMap<>();
+      report.put("devices", setup.devices);
+      report.put("intervalMs", setup.intervalMs);
+      report.put("samples", setup.samples);
+      report.put("format", format);
+      report.put("results", results);
+      new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(Paths.get(opts.get("out")).toFile(), report);
+      System.out.println("Results written to " + opts.get("out"));
+    }
+  }
+
+  private static final class Setup {
+    final int devices;
+    final long intervalMs;
+    final int samples;
+    final boolean binary;
+    final long warmupS, durationS, timeoutMs;
+
+    Setup(int devices, long intervalMs, int samples, boolean binary, long warmupS, long durationS, long timeoutMs) {
+      this.devices = devices;
+      this.intervalMs = intervalMs;
+      this.samples = samples;
+      this.binary = binary;
+      this.warmupS = warmupS;
+      this.durationS = durationS;
+      this.timeoutMs = timeoutMs;
+    }
+  }
+
+  private static Map<String, Object> run(String name, String url, Setup setup) throws InterruptedException {
+    ExecutorService callbacks = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    ScheduledExecutorService ticker = Executors.newScheduledThreadPool(2);
+    HttpClient http = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofMillis(setup.timeoutMs))
+        .executor(callbacks)
+        .build();
+    long start = System.nanoTime();
+    long measureFrom = start + TimeUnit.SECONDS.toNanos(setup.warmupS);
+    long measureTo = measureFrom + TimeUnit.SECONDS.toNanos(setup.durationS);
+    Recorder rec = new Recorder(measureFrom, measureTo);
+    long period = TimeUnit.MILLISECONDS.toNanos(setup.intervalMs);
+    String sep = url.contains("?") ? "&" : "?";
+    long due = 0;
+    for (int d = 0; d < setup.devices; d++) {
+      // Spread first uploads over one period so the devices do not arrive in lockstep.
+      long first = start + ThreadLocalRandom.current().nextLong(period);
+      due += slotsBefore(measureTo, first, period) - slotsBefore(measureFrom, first, period);
+      new Device(URI.create(url + sep + "deviceId=load-" + name + "-" + d), setup, http, ticker, rec, period, measureTo)
+          .scheduleAt(first);
+    }
+    long waitNanos = measureTo - System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(setup.timeoutMs);
+    TimeUnit.NANOSECONDS.sleep(Math.max(0, waitNanos));
+    ticker.shutdownNow();
+    callbacks.shutdownNow();
+    return rec.result(name, setup, due);
+  }
+
+  /** How many of the uploads at {@code first + k * period} fall before {@code t}. */
+  private static long slotsBefore(long t, long first, long period) {
+    return Math.max(0, -Math.floorDiv(first - t, period));
+  }
+
+  /** One simulated device: uploads quiet, gravity-only samples and never has two requests in flight. */
+  private static final class Device {
+    private final URI uri;
+    private final Setup setup;
+    private final HttpClient http;
+    private final ScheduledExecutorService ticker;
+    private final Recorder rec;
+    private final long period, stopAt;
+    private final Random random = new Random();
+    private long ts = System.currentTimeMillis();
+
+    Device(URI uri, Setup setup, HttpClient http, ScheduledExecutorService ticker, Recorder rec, long period,
+           long stopAt) {
+      this.uri = uri;
+      this.setup = setup;
+      this.http = http;
+      this.ticker = ticker;
+      this.rec = rec;
+      this.period = period;
+      this.stopAt = stopAt;
+    }
+
+    void scheduleAt(long due) {
+      if (due >= stopAt) return;
+      ticker.schedule(() -> send(due), Math.max(0, due - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    private void send(long due) {
+      HttpRequest req = HttpRequest.newBuilder(uri)
+          .timeout(Duration.ofMillis(setup.timeoutMs))
+          .header("Content-Type", setup.binary ? "application/octet-stream" : "application/json")
+          .POST(HttpRequest.BodyPublishers.ofByteArray(setup.binary ? binaryBody() : jsonBody()))
+          .build();
+      http.sendAsync(req, HttpResponse.BodyHandlers.discarding()).whenComplete((resp, ex) -> {
+        rec.record(due, System.nanoTime(), ex != null ? -1 : resp.statusCode());
+        // The next upload is due one period after this one was; if that has passed, send right away.
+        scheduleAt(due + period);
+      });
+    }
+
+    private byte[] binaryBody() {
+      int n = setup.samples;
+      long step = Math.max(1, setup.intervalMs / n);
+      byte[] body = binaryBatch(ts, step, n, random);
+      ts += n * step;
+      return body;
+    }
+
+    private byte[] jsonBody() {
+      int n = setup.samples;
+      long step = Math.max(1, setup.intervalMs / n);
+      StringBuilder sb = new StringBuilder(64 + n * 60).append("{\"timestamps\":[");
+      for (int i = 0; i < n; i++) sb.append(i == 0 ? "" : ",").append(ts + i * step);
+      ts += n * step;
+      String[] names = { "ax", "ay", "az", "gx", "gy", "gz" };
+      for (int c = 0; c < 6; c++) {
+        sb.append("],\"").append(names[c]).append("\":[");
+        for (int i = 0; i < n; i++) sb.append(i == 0 ? "" : ",").append(Math.round(quietSample(c, random) * 100) / 100.0);
+      }
+      return sb.append("],\"lat\":12.9721,\"lng\":77.5933}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+  }
+
+  /** One binary upload of {@code n} quiet samples starting at {@code firstTs}, {@code step} ms apart. */
+  static byte[] binaryBatch(long firstTs, long step, int n, Random random) {
+    ByteBuffer bb = ByteBuffer.allocate(4 + 4 + 16 + n * 8 + 6 * n * 4).order(ByteOrder.LITTLE_ENDIAN);
+    bb.putInt(0x31424446).putInt(n).putDouble(12.9721).putDouble(77.5933);
+    for (int i = 0; i < n; i++) bb.putLong(firstTs + i * step);
+    for (int c = 0; c < 6; c++) {
+      for (int i = 0; i < n; i++) bb.putFloat((float) quietSample(c, random));
+    }
+    return bb.array();
+  }
+
+  /** A device lying still: gravity on z plus a little noise, well under every detection threshold. */
+  private static double quietSample(int column, Random random) {
+    return (column == 2 ? 9.81 : 0) + random.nextGaussian() * 0.05;
+  }
+
+  /** Latencies of requests due inside the measurement window, in microseconds. */
+  private static final class Recorder {
+    private final long from, to;
+    private long[] latencies = new long[1 << 16];
+    private int count;
+    private final AtomicLong ok = new AtomicLong(), shed = new AtomicLong(), errors = new AtomicLong();
+
+    Recorder(long from, long to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    void record(long due, long done, int status) {
+      if (due < from || due >= to) return;
+      if (status >= 200 && status < 300) ok.incrementAndGet();
+      else if (status == 429 || status == 503) shed.incrementAndGet();
+      else errors.incrementAndGet();
+      synchronized (this) {
+        if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+        latencies[count++] = (done - due) / 1000;
+      }
+    }
+
+    /** @param due requests due in the window; the ones never answered by the end count as incomplete */
+    synchronized Map<String, Object> result(String name, Setup setup, long due) {
+      long[] sorted = Arrays.copyOf(latencies, count);
+      Arrays.sort(sorted);
+      Map<String, Object> r = new LinkedHashMap<>();
+      r.put("name", name);
+      r.put("requests", count);
+      r.put("ok", ok.get());
+      r.put("shed", shed.get());
+      r.put("errors", errors.get());
+      r.put("incomplete", Math.max(0, due - count));
+      r.put("requestsPerSecond", ok.get() / (double) setup.durationS);
+      r.put("samplesPerSecond", ok.get() * setup.samples / (double) setup.durationS);
+      Map<String, Object> lat = new LinkedHashMap<>();
+      if (count > 0) {
+        lat.put("p50", millis(sorted, 0.50));
+        lat.put("p90", millis(sorted, 0.90));
+        lat.put("p99", millis(sorted, 0.99));
+        lat.put("p999", millis(sorted, 0.999));
+        lat.put("max", sorted[count - 1] / 1000.0);
+      }
+      r.put("latencyMs", lat);
+      return r;
+    }
+
+    private static double millis(long[] sorted, double q) {
+      return sorted[(int) Math.min(sorted.length - 1, Math.ceil(q * sorted.length) - 1)] / 1000.0;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void print(List<Map<String, Object>> results) {
+    System.out.printf(Locale.ROOT, "%-12s %-10s %-10s %-8s %-8s %-10s %-9s %-9s %-9s %-9s %-9s%n", "target", "req/s",
+        "samples/s", "shed", "errors", "incomplete", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+    for (Map<String, Object> r : results) {
+      Map<String, Object> lat = (Map<String, Object>) r.get("latencyMs");
+      System.out.printf(Locale.ROOT, "%-12s %-10.0f %-10.0f %-8s %-8s %-10s %-9s %-9s %-9s %-9s %-9s%n", r.get("name"),
+          r.get("requestsPerSecond"), r.get("samplesPerSecond"), r.get("shed"), r.get("errors"), r.get("incomplete"),
+          lat.getOrDefault("p50", "-"), lat.getOrDefault("p90", "-"), lat.getOrDefault("p99", "-"),
+          lat.getOrDefault("p999", "-"), lat.getOrDefault("max", "-"));
+    }
+  }
+
+  private static void fail(String message) {
+    System.err.println(message);
+    System.err.println(USAGE);
+    System.exit(2);
+  }
+}
@@ -0,0 +1,80 @@
+package com.example.alert.bench;
+
+import com.example.alert.model.SampleBatch;
+import com.example.alert.service.SampleBatchDecoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request body decoding, scored per sample: the per-event JSON object that POST /api/events binds to
+ * a Map, against the columnar JSON and binary batch formats of POST /api/events/batch.
+ * Run: java -jar benchmarks/target/benchmarks.jar PayloadDecode
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class PayloadDecodeBenchmark {
+  private static final int BATCH = 500;
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final SampleBatchDecoder decoder = new SampleBatchDecoder(mapper);
+  private byte[] eventJson;
+  private byte[] batchJson;
+  private byte[] batchBinary;
+
+  @Setup
+  public void setup() {
+    Random r = new Random(42);
+    long ts = 1_732_780_000_000L;
+    eventJson = ("{\"deviceId\":\"bench\",\"timestamp\":" + ts + ",\"accel\":{\"x\":0.02,\"y\":-0.03,\"z\":9.75},"
+        + "\"gyro\":{\"x\":0.5,\"y\":-0.4,\"z\":0.3},\"lat\":12.9721,\"lng\":77.5933}").getBytes(StandardCharsets.UTF_8);
+
+    double[][] cols = new double[6][BATCH];
+    for (double[] c : cols) for (int i = 0; i < BATCH; i++) c[i] = Math.round(r.nextGaussian() * 1000) / 100.0;
+    StringBuilder sb = new StringBuilder("{\"timestamps\":[");
+    for (int i = 0; i < BATCH; i++) sb.append(i == 0 ? "" : ",").append(ts + i * 20L);
+    String[] names = { "ax", "ay", "az", "gx", "gy", "gz" };
+    for (int c = 0; c < 6; c++) {
+      sb.append("],\"").append(names[c]).append("\":[");
+      for (int i = 0; i < BATCH; i++) sb.append(i == 0 ? "" : ",").append(cols[c][i]);
+    }
+    sb.append("],\"lat\":12.9721,\"lng\":77.5933}");
+    batchJson = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+    ByteBuffer bb = ByteBuffer.allocate(4 + 4 + 16 + BATCH * 8 + 6 * BATCH * 4).order(ByteOrder.LITTLE_ENDIAN);
+    bb.putInt(0x31424446).putInt(BATCH).putDouble(12.9721).putDouble(77.5933);
+    for (int i = 0; i < BATCH; i++) bb.putLong(ts + i * 20L);
+    for (double[] c : cols) for (double v : c) bb.putFloat((float) v);
+    batchBinary = bb.array();
+  }
+
+  @Benchmark
+  public Map<?, ?> singleEvent() throws IOException {
+    return mapper.readValue(eventJson, Map.class);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public SampleBatch batchJson() throws IOException {
+    return decoder.decodeJson(new ByteArrayInputStream(batchJson), "bench");
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public SampleBatch batchBinary() {
+    return decoder.decodeBinary(batchBinary, "bench");
+  }
+}
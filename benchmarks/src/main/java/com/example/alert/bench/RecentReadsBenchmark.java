@@ -0,0 +1,104 @@
+package com.example.alert.bench;
+
+import com.example.alert.Application;
+import com.example.alert.model.Alert;
+import com.example.alert.model.AlertStatus;
+import com.example.alert.model.Event;
+import com.example.alert.repo.AlertRepository;
+import com.example.alert.repo.EventRepository;
+import com.example.alert.service.RecentCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dashboard reads of the 30 newest alerts/events: query plus serialisation through the repositories
+ * (the old controller path) against the pre-serialised {@link RecentCache} snapshot.
+ * Runs four reader threads to model several dashboards polling at once.
+ * Run: java -jar benchmarks/target/benchmarks.jar RecentReads
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RecentReadsBenchmark {
+  private ConfigurableApplicationContext ctx;
+  private AlertRepository alertRepo;
+  private EventRepository eventRepo;
+  private RecentCache cache;
+  private ObjectMapper mapper;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    ctx = new SpringApplicationBuilder(Application.class)
+        .web(WebApplicationType.NONE)
+        .properties(
+            "spring.datasource.url=jdbc:h2:mem:bench-recent;DB_CLOSE_DELAY=-1",
+            "events.series.enabled=false",
+            "logging.level.root=warn")
+        .run();
+    alertRepo = ctx.getBean(AlertRepository.class);
+    eventRepo = ctx.getBean(EventRepository.class);
+    cache = ctx.getBean(RecentCache.class);
+    mapper = ctx.getBean(ObjectMapper.class);
+
+    Random r = new Random(42);
+    long ts = System.currentTimeMillis();
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      Event e = new Event();
+      e.setDeviceId("bench-" + (i % 10));
+      e.setTimestamp(ts + i * 10L);
+      e.setAx(r.nextGaussian());
+      e.setAy(r.nextGaussian());
+      e.setAz(9.81 + r.nextGaussian());
+      events.add(e);
+    }
+    eventRepo.saveAll(events);
+    for (int i = 0; i < 500; i++) {
+      Alert a = new Alert();
+      a.setDeviceId("bench-" + (i % 10));
+      a.setTimestamp(ts + i * 1000L);
+      a.setReason("benchmark");
+      a.setStatus(AlertStatus.SENT);
+      alertRepo.save(a);
+      cache.onAlert(a);
+    }
+    for (Event e : events) cache.onEvent(e);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    ctx.close();
+  }
+
+  @Benchmark
+  public byte[] alertsRepository() throws Exception {
+    return mapper.writeValueAsBytes(alertRepo.recent30());
+  }
+
+  @Benchmark
+  public byte[] alertsCache() {
+    return cache.alertsJson(null);
+  }
+
+  @Benchmark
+  public byte[] eventsRepository() throws Exception {
+    return mapper.writeValueAsBytes(eventRepo.recent30());
+  }
+
+  @Benchmark
+  public byte[] eventsCache() {
+    return cache.eventsJson(null);
+  }
+}
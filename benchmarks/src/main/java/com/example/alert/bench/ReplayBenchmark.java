@@ -0,0 +1,112 @@
+package com.example.alert.bench;
+
+import com.example.alert.controller.EventController;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full ingest path, JSON body to alert decision: each operation decodes one event payload and hands it
+ * to EventController.postEvent, exactly as POST /api/events does after Spring binds the body.
+ *
+ * Payloads replay data/sample_sensor.csv (override with -Dreplay.csv=...) scaled up synthetically:
+ * every device cycles through the recording with its own Gaussian jitter and timestamps 20 ms apart,
+ * devices interleaved. With {@code persistence=h2} the real application runs on an in-memory H2;
+ * with {@code mock} the same services run over repositories that keep nothing.
+ * Run: java -jar benchmarks/target/benchmarks.jar Replay
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class ReplayBenchmark {
+  private static final int PAYLOADS = 1 << 16;
+
+  @Param({"mock", "h2"})
+  String persistence;
+
+  @Param({"1000"})
+  int devices;
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private ConfigurableApplicationContext ctx;
+  private Fixtures.Mocked mocked;
+  private EventController controller;
+  private final byte[][] payloads = new byte[PAYLOADS][];
+  private int i;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    List<double[]> rows = readCsv(csvPath());
+    Random r = new Random(42);
+    long start = System.currentTimeMillis();
+    for (int k = 0; k < PAYLOADS; k++) {
+      int device = k % devices;
+      int step = k / devices;
+      double[] row = rows.get(step % rows.size());
+      payloads[k] = String.format(Locale.ROOT,
+          "{\"deviceId\":\"replay-%d\",\"timestamp\":%d,\"accel\":{\"x\":%.3f,\"y\":%.3f,\"z\":%.3f},"
+              + "\"gyro\":{\"x\":%.3f,\"y\":%.3f,\"z\":%.3f},\"lat\":%.5f,\"lng\":%.5f}",
+          device, start + step * 20L,
+          row[0] + r.nextGaussian() * 0.2, row[1] + r.nextGaussian() * 0.2, row[2] + r.nextGaussian() * 0.2,
+          row[3] + r.nextGaussian() * 2, row[4] + r.nextGaussian() * 2, row[5] + r.nextGaussian() * 2,
+          row[6] + r.nextGaussian() * 1e-3, row[7] + r.nextGaussian() * 1e-3).getBytes(StandardCharsets.UTF_8);
+    }
+    if ("h2".equals(persistence)) {
+      ctx = Fixtures.h2Context("bench-replay");
+      controller = ctx.getBean(EventController.class);
+    } else {
+      mocked = new Fixtures.Mocked();
+      controller = mocked.controller;
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (ctx != null) ctx.close();
+    if (mocked != null) mocked.close();
+  }
+
+  @Benchmark
+  @SuppressWarnings("unchecked")
+  public Map<String, Object> postEvent() throws IOException {
+    Map<String, Object> payload = mapper.readValue(payloads[i++ & (PAYLOADS - 1)], Map.class);
+    return controller.postEvent(payload);
+  }
+
+  private static Path csvPath() {
+    String configured = System.getProperty("replay.csv");
+    if (configured != null) return Paths.get(configured);
+    Path p = Paths.get("data", "sample_sensor.csv");
+    return Files.exists(p) ? p : Paths.get("..", "data", "sample_sensor.csv");
+  }
+
+  /** ax, ay, az, gx, gy, gz, lat, lng per row; the recorded timestamps are replaced on replay. */
+  private static List<double[]> readCsv(Path file) throws IOException {
+    List<double[]> rows = new ArrayList<>();
+    for (String line : Files.readAllLines(file)) {
+      if (line.isBlank() || line.startsWith("timestamp")) continue;
+      String[] f = line.split(",");
+      double[] row = new double[8];
+      for (int c = 0; c < 8; c++) row[c] = Double.parseDouble(f[c + 1].trim());
+      rows.add(row);
+    }
+    if (rows.isEmpty()) throw new IOException("No samples in " + file);
+    return rows;
+  }
+}
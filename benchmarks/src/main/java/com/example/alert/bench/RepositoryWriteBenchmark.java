@@ -0,0 +1,126 @@
+package com.example.alert.bench;
+
+import com.example.alert.model.Alert;
+import com.example.alert.model.AlertStatus;
+import com.example.alert.model.Event;
+import com.example.alert.repo.AlertRepository;
+import com.example.alert.repo.EventRepository;
+import com.example.alert.repo.series.EventSeriesStore;
+import com.example.alert.service.EventWriteBehind;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Persistence on the real stack (in-memory H2 through JPA), scored per row: single alert inserts,
+ * one batched event transaction, sustained write-behind submits, and the compressed series store.
+ * Tables are emptied after every iteration so the database does not grow across the run.
+ * Run: java -jar benchmarks/target/benchmarks.jar RepositoryWrite
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class RepositoryWriteBenchmark {
+  private static final int BATCH = 500;
+
+  private ConfigurableApplicationContext ctx;
+  private AlertRepository alertRepo;
+  private EventRepository eventRepo;
+  private TransactionTemplate tx;
+  private EventWriteBehind writer;
+  private EventSeriesStore series;
+  private Path seriesDir;
+  private final Random r = new Random(42);
+  private long ts = 1_732_780_000_000L;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    ctx = Fixtures.h2Context("bench-writes");
+    alertRepo = ctx.getBean(AlertRepository.class);
+    eventRepo = ctx.getBean(EventRepository.class);
+    tx = new TransactionTemplate(ctx.getBean(PlatformTransactionManager.class));
+    writer = ctx.getBean(EventWriteBehind.class);
+    seriesDir = Files.createTempDirectory("bench-series");
+    series = new EventSeriesStore(true, seriesDir.toString(), 1024, 10, 60_000, 1L << 30);
+    series.open();
+  }
+
+  @TearDown(Level.Iteration)
+  public void truncate() {
+    alertRepo.deleteAllInBatch();
+    eventRepo.deleteAllInBatch();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    ctx.close();
+    series.close();
+    try (Stream<Path> files = Files.walk(seriesDir)) {
+      files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public Alert alertInsert() {
+    Alert a = new Alert();
+    a.setDeviceId("bench");
+    a.setTimestamp(ts++);
+    a.setReason("benchmark");
+    a.setStatus(AlertStatus.PENDING_SILENT);
+    return alertRepo.save(a);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public List<Event> eventBatchInsert() {
+    List<Event> batch = events(BATCH);
+    tx.executeWithoutResult(s -> eventRepo.saveAll(batch));
+    return batch;
+  }
+
+  /** Blocks once the queue is full, so the sustained score is the writer thread's flush rate. */
+  @Benchmark
+  public boolean eventWriteBehind() {
+    return writer.submit(events(1).get(0));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public List<Event> seriesAppend() {
+    List<Event> batch = events(BATCH);
+    series.appendAll(batch);
+    return batch;
+  }
+
+  private List<Event> events(int n) {
+    List<Event> out = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      Event e = new Event();
+      e.setDeviceId("bench-" + (i & 15));
+      e.setTimestamp(ts += 5);
+      e.setAx(r.nextGaussian() * 0.3);
+      e.setAy(r.nextGaussian() * 0.3);
+      e.setAz(9.81 + r.nextGaussian() * 0.3);
+      e.setGx(r.nextGaussian() * 3);
+      e.setGy(r.nextGaussian() * 3);
+      e.setGz(r.nextGaussian() * 3);
+      out.add(e);
+    }
+    return out;
+  }
+}
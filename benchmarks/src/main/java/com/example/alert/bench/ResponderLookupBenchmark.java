@@ -0,0 +1,110 @@
+package com.example.alert.bench;
+
+import com.example.alert.service.ResponderService;
+import com.example.alert.service.geo.GeoGrid;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nearest-responder lookup as an alert fires: {@code responders} caregivers spread over a city-sized box
+ * (about 45 x 40 km), k nearest to random alert locations through ResponderService (read lock, freshness and
+ * on-call filter, result objects) and GeoGrid alone, a live location update, and a linear scan for scale.
+ * Run: java -jar benchmarks/target/benchmarks.jar ResponderLookup
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class ResponderLookupBenchmark {
+  private static final double LAT0 = 40.50, LAT1 = 40.90;
+  private static final double LNG0 = -74.25, LNG1 = -73.75;
+  private static final int QUERIES = 4096;
+
+  @Param({"100000"})
+  public int responders;
+
+  @Param({"1", "5", "20"})
+  public int k;
+
+  private ResponderService service;
+  private GeoGrid grid;
+  private double[] lat;
+  private double[] lng;
+  private final double[] qLat = new double[QUERIES];
+  private final double[] qLng = new double[QUERIES];
+  private int[] outSlots;
+  private double[] outMetres;
+  private int q;
+  private int moved;
+
+  @Setup
+  public void setup() {
+    Random r = new Random(42);
+    service = new ResponderService(true, k, 25, 900_000, 0.005);
+    grid = new GeoGrid(0.005, responders);
+    lat = new double[responders];
+    lng = new double[responders];
+    for (int i = 0; i < responders; i++) {
+      lat[i] = LAT0 + r.nextDouble() * (LAT1 - LAT0);
+      lng[i] = LNG0 + r.nextDouble() * (LNG1 - LNG0);
+      service.register(new ResponderService.Responder("r" + i, "Responder " + i, "telegram", "chat-" + i, false),
+          lat[i], lng[i], true);
+      grid.put(i, lat[i], lng[i]);
+    }
+    for (int i = 0; i < QUERIES; i++) {
+      qLat[i] = LAT0 + r.nextDouble() * (LAT1 - LAT0);
+      qLng[i] = LNG0 + r.nextDouble() * (LNG1 - LNG0);
+    }
+    outSlots = new int[k];
+    outMetres = new double[k];
+  }
+
+  @Benchmark
+  public List<ResponderService.Match> nearest() {
+    int i = q++ & (QUERIES - 1);
+    return service.nearest(qLat[i], qLng[i], k);
+  }
+
+  @Benchmark
+  public int gridOnly() {
+    int i = q++ & (QUERIES - 1);
+    return grid.nearest(qLat[i], qLng[i], k, 25_000, s -> true, outSlots, outMetres);
+  }
+
+  /** A responder moves a few hundred metres, often into the next cell. */
+  @Benchmark
+  public boolean locationUpdate() {
+    int i = moved++ % responders;
+    int j = q++ & (QUERIES - 1);
+    return service.updateLocation("r" + i, lat[i] + (qLat[j] - LAT0) * 0.01, lng[i] + (qLng[j] - LNG0) * 0.01, null);
+  }
+
+  /** Every responder's distance, as without an index. */
+  @Benchmark
+  public double linearScan() {
+    int i = q++ & (QUERIES - 1);
+    double cosLat = Math.cos(Math.toRadians(qLat[i]));
+    int found = 0;
+    for (int s = 0; s < responders; s++) {
+      double dy = lat[s] - qLat[i];
+      double dx = (lng[s] - qLng[i]) * cosLat;
+      double d = dx * dx + dy * dy;
+      if (found == k && d >= outMetres[k - 1]) continue;
+      int at = found < k ? found++ : k - 1;
+      while (at > 0 && outMetres[at - 1] > d) {
+        outMetres[at] = outMetres[at - 1];
+        outSlots[at] = outSlots[at - 1];
+        at--;
+      }
+      outMetres[at] = d;
+      outSlots[at] = s;
+    }
+    return outMetres[0];
+  }
+}
@@ -0,0 +1,52 @@
+package com.example.alert.bench;
+
+import com.example.alert.service.SlidingWindows;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded window updates, so the score reads directly as updates per second per core.
+ * Run: java -jar benchmarks/target/benchmarks.jar SlidingWindows
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class SlidingWindowsBenchmark {
+  private static final int SAMPLES = 4096; // power of two for cheap wrap-around
+
+  @Param({"50", "100"})
+  int rateHz;
+
+  private SlidingWindows windows;
+  private final double[] ax = new double[SAMPLES], ay = new double[SAMPLES], az = new double[SAMPLES];
+  private long ts;
+  private long periodMs;
+  private int i;
+
+  @Setup
+  public void setup() {
+    windows = new SlidingWindows(new long[] { 1000, 3000 }, rateHz);
+    periodMs = 1000 / rateHz;
+    Random r = new Random(42);
+    for (int k = 0; k < SAMPLES; k++) {
+      ax[k] = r.nextGaussian() * 0.5;
+      ay[k] = r.nextGaussian() * 0.5;
+      az[k] = 9.81 + r.nextGaussian() * 0.5;
+    }
+  }
+
+  @Benchmark
+  public void update(Blackhole bh) {
+    int k = i++ & (SAMPLES - 1);
+    ts += periodMs;
+    windows.add(ts, ax[k], ay[k], az[k]);
+    bh.consume(windows.features(1).getVariance());
+  }
+}
@@ -0,0 +1,258 @@
+package com.example.alert.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How fast a freshly started backend becomes useful: starts the server command, uploads until the first
+ * batch is accepted (time to first request, from process start), then keeps an open-loop load on it and
+ * reports the p99 of every second. Steady state is the p99 of the last {@code --tailS} seconds; the time to
+ * steady state is when the per-second p99 comes within {@code --tolerance} of it and stays there.
+ *
+ * Run it once per configuration, e.g. a plain start against one with the faststart profile, AOT and CDS;
+ * see the README's Fast Start section. Like {@link LoadTest}, latency is measured from when a request was due.
+ */
+public final class StartupTest {
+  private static final String USAGE = String.join("\n",
+      "Usage: StartupTest [options] -- <server command...>",
+      "  e.g. -- java -jar backend/target/fall-detect-backend-0.0.1-SNAPSHOT-exec.jar --spring.profiles.active=faststart",
+      "  --url <upload url>   batch endpoint of the started server (http://localhost:8081/api/events/batch)",
+      "  --rate <n>           uploads per second once the server answers (200)",
+      "  --devices <n>        devices the uploads rotate over (200)",
+      "  --samples <n>        samples per upload (50)",
+      "  --durationS <s>      load after the first accepted upload (60)",
+      "  --tailS <s>          last seconds taken as steady state (10)",
+      "  --tolerance <x>      a second is steady when its p99 is within x times the steady p99 (1.5)",
+      "  --startTimeoutS <s>  give up when no upload is accepted by then (180)",
+      "  --log <file>         server output (startup-test.log)",
+      "  --out <file.json>    write the results as JSON");
+
+  private StartupTest() {}
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> opts = new HashMap<>();
+    List<String> command = new ArrayList<>();
+    for (int i = 0; i < args.length; i++) {
+      String a = args[i];
+      if (a.equals("--help")) {
+        System.out.println(USAGE);
+        return;
+      }
+      if (a.equals("--")) {
+        command.addAll(Arrays.asList(args).subList(i + 1, args.length));
+        break;
+      }
+      if (i + 1 >= args.length) fail("Missing value for " + a);
+      switch (a) {
+        case "--url", "--rate", "--devices", "--samples", "--durationS", "--tailS", "--tolerance", "--startTimeoutS",
+             "--log", "--out" -> opts.put(a.substring(2), args[++i]);
+        default -> fail("Unknown option " + a);
+      }
+    }
+    if (command.isEmpty()) fail("No server command given");
+    String url = opts.getOrDefault("url", "http://localhost:8081/api/events/batch");
+    int rate = Integer.parseInt(opts.getOrDefault("rate", "200"));
+    int devices = Integer.parseInt(opts.getOrDefault("devices", "200"));
+    int samples = Integer.parseInt(opts.getOrDefault("samples", "50"));
+    int durationS = Integer.parseInt(opts.getOrDefault("durationS", "60"));
+    int tailS = Math.min(durationS, Integer.parseInt(opts.getOrDefault("tailS", "10")));
+    double tolerance = Double.parseDouble(opts.getOrDefault("tolerance", "1.5"));
+    long startTimeoutS = Long.parseLong(opts.getOrDefault("startTimeoutS", "180"));
+
+    ExecutorService callbacks = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    HttpClient http = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5))
+        .executor(callbacks)
+        .build();
+    Load load = new Load(http, url, devices, samples, durationS);
+
+    long launched = System.nanoTime();
+    Process server = new ProcessBuilder(command)
+        .redirectErrorStream(true)
+        .redirectOutput(new File(opts.getOrDefault("log", "startup-test.log")))
+        .start();
+    try {
+      long firstOk = load.awaitFirst(launched + TimeUnit.SECONDS.toNanos(startTimeoutS), server);
+      double firstMs = (firstOk - launched) / 1e6;
+      System.out.printf(Locale.ROOT, "First upload accepted %.0f ms after start; %d uploads/s for %d s%n",
+          firstMs, rate, durationS);
+      load.run(firstOk, rate);
+
+      double[] p99 = load.p99PerSecond();
+      double steady = load.p99(durationS - tailS, durationS);
+      int steadyFrom = durationS;
+      while (steadyFrom > 0 && p99[steadyFrom - 1] <= steady * tolerance) steadyFrom--;
+      Map<String, Object> r = new LinkedHashMap<>();
+      r.put("command", String.join(" ", command));
+      r.put("timeToFirstRequestMs", firstMs);
+      r.put("steadyP99Ms", steady);
+      r.put("timeToSteadyStateMs", firstMs + steadyFrom * 1000.0);
+      r.put("firstSecondP99Ms", p99[0]);
+      r.put("ok", load.ok);
+      r.put("failed", load.failed);
+      r.put("p99PerSecondMs", p99);
+      print(r, p99);
+      if (opts.containsKey("out")) {
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(Paths.get(opts.get("out")).toFile(), r);
+        System.out.println("Results written to " + opts.get("out"));
+      }
+    } finally {
+      server.destroy();
+      if (!server.waitFor(20, TimeUnit.SECONDS)) server.destroyForcibly();
+      callbacks.shutdownNow();
+    }
+  }
+
+  /** Uploads rotating over the devices, each with its own advancing timestamps, and their latencies per second. */
+  private static final class Load {
+    private final HttpClient http;
+    private final String url;
+    private final int samples;
+    private final int durationS;
+    private final long[] ts;
+    private final long[][] latencies; // per second of load, microseconds
+    private final int[] counts;
+    private final Random random = new Random();
+    private int next;
+    long ok, failed;
+
+    Load(HttpClient http, String url, int devices, int samples, int durationS) {
+      this.http = http;
+      this.url = url;
+      this.samples = samples;
+      this.durationS = durationS;
+      this.ts = new long[Math.max(1, devices)];
+      Arrays.fill(ts, System.currentTimeMillis());
+      this.latencies = new long[durationS][256];
+      this.counts = new int[durationS];
+    }
+
+    /** Uploads one batch at a time until one is accepted; returns when, in nanoTime. */
+    long awaitFirst(long deadline, Process server) throws InterruptedException {
+      while (System.nanoTime() < deadline) {
+        if (!server.isAlive()) throw new IllegalStateException("Server exited with " + server.exitValue());
+        try {
+          int status = http.send(request(), HttpResponse.BodyHandlers.discarding()).statusCode();
+          if (status >= 200 && status < 300) return System.nanoTime();
+        } catch (IOException ex) {
+          // not listening yet
+        }
+        TimeUnit.MILLISECONDS.sleep(10);
+      }
+      throw new IllegalStateException("No upload accepted within the start timeout");
+    }
+
+    void run(long from, int rate) throws InterruptedException {
+      ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+      long period = TimeUnit.SECONDS.toNanos(1) / Math.max(1, rate);
+      long start = System.nanoTime();
+      long end = start + TimeUnit.SECONDS.toNanos(durationS);
+      ticker.scheduleAtFixedRate(() -> {
+        // Each tick sends every upload that has come due since the last one, so a stalled ticker catches up.
+        long now = System.nanoTime();
+        while (nextDue(start, period) <= Math.min(now, end - 1)) {
+          long due = nextDue(start, period);
+          next++;
+          http.sendAsync(request(), HttpResponse.BodyHandlers.discarding())
+              .whenComplete((resp, ex) -> record(start, due, System.nanoTime(),
+                  ex == null && resp.statusCode() >= 200 && resp.statusCode() < 300));
+        }
+      }, 0, Math.max(1, period / 2), TimeUnit.NANOSECONDS);
+      TimeUnit.NANOSECONDS.sleep(Math.max(0, end - System.nanoTime()));
+      ticker.shutdownNow();
+      TimeUnit.SECONDS.sleep(5); // let the last requests finish
+    }
+
+    private long nextDue(long start, long period) {
+      return start + next * period;
+    }
+
+    private HttpRequest request() {
+      int d = next % ts.length;
+      long step = Math.max(1, 1000 / samples);
+      byte[] body;
+      synchronized (this) {
+        body = LoadTest.binaryBatch(ts[d], step, samples, random);
+        ts[d] += samples * step;
+      }
+      return HttpRequest.newBuilder(URI.create(url + (url.contains("?") ? "&" : "?") + "deviceId=startup-" + d))
+          .timeout(Duration.ofSeconds(10))
+          .header("Content-Type", "application/octet-stream")
+          .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+          .build();
+    }
+
+    private synchronized void record(long start, long due, long done, boolean accepted) {
+      if (!accepted) {
+        failed++;
+        return;
+      }
+      ok++;
+      int second = (int) ((due - start) / 1_000_000_000L);
+      if (second < 0 || second >= durationS) return;
+      if (counts[second] == latencies[second].length) {
+        latencies[second] = Arrays.copyOf(latencies[second], counts[second] * 2);
+      }
+      latencies[second][counts[second]++] = (done - due) / 1000;
+    }
+
+    synchronized double[] p99PerSecond() {
+      double[] out = new double[durationS];
+      for (int s = 0; s < durationS; s++) out[s] = p99(s, s + 1);
+      return out;
+    }
+
+    /** p99 in milliseconds over seconds {@code from} (inclusive) to {@code to}. */
+    synchronized double p99(int from, int to) {
+      int n = 0;
+      for (int s = from; s < to; s++) n += counts[s];
+      if (n == 0) return Double.NaN;
+      long[] all = new long[n];
+      int at = 0;
+      for (int s = from; s < to; s++) {
+        System.arraycopy(latencies[s], 0, all, at, counts[s]);
+        at += counts[s];
+      }
+      Arrays.sort(all);
+      return all[(int) Math.min(n - 1, Math.ceil(0.99 * n) - 1)] / 1000.0;
+    }
+  }
+
+  private static void print(Map<String, Object> r, double[] p99) {
+    StringBuilder sb = new StringBuilder("p99 ms per second:");
+    for (int s = 0; s < p99.length; s++) sb.append(s % 10 == 0 ? "\n  " : " ").append(String.format(Locale.ROOT, "%7.1f", p99[s]));
+    System.out.println(sb);
+    System.out.printf(Locale.ROOT, "time to first request %.0f ms, time to steady state %.0f ms, steady p99 %.1f ms, "
+            + "first-second p99 %.1f ms (ok=%d failed=%d)%n",
+        r.get("timeToFirstRequestMs"), r.get("timeToSteadyStateMs"), r.get("steadyP99Ms"), r.get("firstSecondP99Ms"),
+        r.get("ok"), r.get("failed"));
+  }
+
+  private static void fail(String message) {
+    System.err.println(message);
+    System.err.println(USAGE);
+    System.exit(2);
+  }
+}
@@ -1,4 +1,6 @@
 let API_BASE = localStorage.getItem('apiBase') || 'http://localhost:8081/api';
+const DEVICE_ID = localStorage.getItem('deviceId') || ('web-' + Math.random().toString(36).slice(2, 10));
+localStorage.setItem('deviceId', DEVICE_ID);
 let streaming = false;
 let watchId = null;
 let lastLat = null, lastLng = null;
@@ -16,6 +18,7 @@ const eventsEl = document.getElementById('events');
 const backendUrlInput = document.getElementById('backendUrl');
 const saveBackendBtn = document.getElementById('saveBackend');
 const useDeviceSensors = document.getElementById('useDeviceSensors');
+const edgeMode = document.getElementById('edgeMode');
 const permNote = document.getElementById('permNote');
 const netStatus = document.getElementById('netStatus');
 const overrideLoc = document.getElementById('overrideLoc');
@@ -36,6 +39,7 @@ if (saveBackendBtn) {
       localStorage.setItem('apiBase', v);
       if (netStatus) netStatus.textContent = `API set to ${API_BASE}`;
       refreshUI();
+      connectStream();
     }
   };
 }
@@ -95,34 +99,20 @@ function startSensors() {
     });
   }
 
+  if (edgeMode && edgeMode.checked) { startEdge(latest); return; }
+
   const intervalMs = 500; // send 2 Hz
   let timer = setInterval(() => {
     if (!streaming) { clearInterval(timer); return; }
-
-    // Start with device values if available, else use light random walk
-    let ax=latest.ok ? latest.ax : (Math.random()*0.6-0.3);
-    let ay=latest.ok ? latest.ay : (Math.random()*0.6-0.3);
-    let az=latest.ok ? latest.az : (9.81 + (Math.random()*0.6-0.3));
-    let gx=latest.ok ? latest.gx : (Math.random()*6-3);
-    let gy=latest.ok ? latest.gy : (Math.random()*6-3);
-    let gz=latest.ok ? latest.gz : (Math.random()*6-3);
-
-    // Always allow simulateFall to inject a spike (even when device sensors are on)
-    if (simulateFall.checked) {
-      ax = (Math.random()*10+15) * (Math.random()>0.5?1:-1);
-      ay = (Math.random()*10+15) * (Math.random()>0.5?1:-1);
-      az = (Math.random()*10+15);
-      gx = (Math.random()*200-100);
-      gy = (Math.random()*200-100);
-      gz = (Math.random()*200-100);
-    }
+    const s = readSample(latest);
 
     const payload = {
+      deviceId: DEVICE_ID,
       timestamp: Date.now(),
-      accel: { x: ax, y: ay, z: az },
-      gyro: { x: gx, y: gy, z: gz },
-      lat: (()=>{ if (overrideLoc && overrideLoc.checked) { const v=parseFloat(ovLat?.value); return isNaN(v)? null : v; } return lastLat; })(),
-      lng: (()=>{ if (overrideLoc && overrideLoc.checked) { const v=parseFloat(ovLng?.value); return isNaN(v)? null : v; } return lastLng; })()
+      accel: { x: s.ax, y: s.ay, z: s.az },
+      gyro: { x: s.gx, y: s.gy, z: s.gz },
+      lat: currentLat(),
+      lng: currentLng()
     };
 
     fetch(`${API_BASE}/events`, {
@@ -133,24 +123,186 @@ function startSensors() {
     .then(async r => {
       if (netStatus) netStatus.textContent = `POST /events -> ${r.status}`;
       if (!r.ok) return;
-      const data = await r.json().catch(()=>null);
-      if (data && data.alert && data.alertId && data.expiryAt) {
-        const id = data.alertId;
-        if (dismissedAlerts.has(id)) return; // user already handled
-        const startAt = data.confirmStartsAt || Date.now();
-        const delay = Math.max(0, startAt - Date.now());
-        if (scheduledModals.has(id)) return; // already scheduled
-        const tid = setTimeout(() => {
-          scheduledModals.delete(id);
-          showConfirm(id, data.expiryAt);
-        }, delay);
-        scheduledModals.set(id, tid);
-      }
+      handleDetection(await r.json().catch(()=>null));
     })
     .catch(e => { console.warn('post error', e); if (netStatus) netStatus.textContent = `POST /events failed: ${e}`; });
   }, intervalMs);
 }
 
+function readSample(latest) {
+  // Start with device values if available, else use light random walk
+  let ax=latest.ok ? latest.ax : (Math.random()*0.6-0.3);
+  let ay=latest.ok ? latest.ay : (Math.random()*0.6-0.3);
+  let az=latest.ok ? latest.az : (9.81 + (Math.random()*0.6-0.3));
+  let gx=latest.ok ? latest.gx : (Math.random()*6-3);
+  let gy=latest.ok ? latest.gy : (Math.random()*6-3);
+  let gz=latest.ok ? latest.gz : (Math.random()*6-3);
+
+  // Always allow simulateFall to inject a spike (even when device sensors are on)
+  if (simulateFall.checked) {
+    ax = (Math.random()*10+15) * (Math.random()>0.5?1:-1);
+    ay = (Math.random()*10+15) * (Math.random()>0.5?1:-1);
+    az = (Math.random()*10+15);
+    gx = (Math.random()*200-100);
+    gy = (Math.random()*200-100);
+    gz = (Math.random()*200-100);
+  }
+  return { ax, ay, az, gx, gy, gz };
+}
+
+function currentLat() {
+  if (overrideLoc && overrideLoc.checked) { const v=parseFloat(ovLat?.value); return isNaN(v)? null : v; }
+  return lastLat;
+}
+
+function currentLng() {
+  if (overrideLoc && overrideLoc.checked) { const v=parseFloat(ovLng?.value); return isNaN(v)? null : v; }
+  return lastLng;
+}
+
+// Schedules the confirmation modal for an alert returned by any ingest endpoint.
+function handleDetection(data) {
+  if (!(data && data.alert && data.alertId && data.expiryAt)) return;
+  const id = data.alertId;
+  if (dismissedAlerts.has(id)) return; // user already handled
+  const startAt = data.confirmStartsAt || Date.now();
+  const delay = Math.max(0, startAt - Date.now());
+  if (scheduledModals.has(id)) return; // already scheduled
+  const tid = setTimeout(() => {
+    scheduledModals.delete(id);
+    showConfirm(id, data.expiryAt);
+  }, delay);
+  scheduledModals.set(id, tid);
+}
+
+// Fixed-size ring of recent samples kept on the device in pre-filter mode.
+class SampleRing {
+  constructor(capacity) {
+    this.cap = capacity;
+    this.ts = new Float64Array(capacity);
+    this.cols = { ax: new Float32Array(capacity), ay: new Float32Array(capacity), az: new Float32Array(capacity),
+                  gx: new Float32Array(capacity), gy: new Float32Array(capacity), gz: new Float32Array(capacity) };
+    this.next = 0; // samples ever pushed
+  }
+
+  push(t, s) {
+    const i = this.next % this.cap;
+    this.ts[i] = t;
+    for (const k in this.cols) this.cols[k][i] = s[k];
+    this.next++;
+  }
+
+  // Columnar batch (the /events/batch JSON shape) of the buffered samples with timestamp >= fromTs.
+  since(fromTs) {
+    const out = { timestamps: [], ax: [], ay: [], az: [], gx: [], gy: [], gz: [] };
+    for (let n = Math.max(0, this.next - this.cap); n < this.next; n++) {
+      const i = n % this.cap;
+      if (this.ts[i] < fromTs) continue;
+      out.timestamps.push(this.ts[i]);
+      for (const k in this.cols) out[k].push(this.cols[k][i]);
+    }
+    return out;
+  }
+}
+
+// Pre-filter mode: sample locally, send heartbeats while nothing happens, and upload
+// the window around a trigger. The server hands out thresholds and window lengths.
+async function startEdge(latest) {
+  let cfg = { heartbeatMs: 5000, sampleHz: 50, preMs: 3000, postMs: 1500, triggerAccelMag: 14, triggerGyroMag: 90 };
+  try {
+    const r = await fetch(`${API_BASE}/events/edge`);
+    if (r.ok) cfg = Object.assign(cfg, await r.json());
+  } catch (e) { console.warn('edge config error, using defaults', e); }
+  if (!streaming) return;
+
+  const ring = new SampleRing(Math.ceil((cfg.heartbeatMs + cfg.preMs + cfg.postMs) * cfg.sampleHz / 1000) + 16);
+  let summary = null;
+  let capturing = false; // a trigger is waiting for its post window
+  let uploadedUntil = 0; // newest timestamp the server already has
+  let sampled = 0, sent = 0;
+
+  function resetSummary(t) {
+    summary = { fromTs: t, count: 0, sum: 0, min: Infinity, max: 0, gyroMax: 0 };
+  }
+
+  function upload(fromTs) {
+    const batch = ring.since(Math.max(fromTs, uploadedUntil + 1));
+    capturing = false;
+    if (batch.timestamps.length === 0) return;
+    uploadedUntil = batch.timestamps[batch.timestamps.length - 1];
+    sent += batch.timestamps.length;
+    batch.deviceId = DEVICE_ID;
+    batch.lat = currentLat();
+    batch.lng = currentLng();
+    fetch(`${API_BASE}/events/window`, {
+      method: 'POST',
+      headers: { 'Content-Type': 'application/json' },
+      body: JSON.stringify(batch)
+    })
+    .then(async r => {
+      if (netStatus) netStatus.textContent = `POST /events/window -> ${r.status} • sent ${sent} of ${sampled} samples`;
+      if (!r.ok) return;
+      handleDetection(await r.json().catch(()=>null));
+    })
+    .catch(e => { console.warn('window error', e); if (netStatus) netStatus.textContent = `POST /events/window failed: ${e}`; });
+  }
+
+  function trigger(fromTs) {
+    if (capturing) return;
+    capturing = true;
+    setTimeout(() => upload(fromTs), cfg.postMs);
+  }
+
+  resetSummary(Date.now());
+  const sampleTimer = setInterval(() => {
+    if (!streaming) { clearInterval(sampleTimer); return; }
+    const t = Date.now();
+    const s = readSample(latest);
+    ring.push(t, s);
+    sampled++;
+    const accelMag = Math.sqrt(s.ax*s.ax + s.ay*s.ay + s.az*s.az);
+    const gyroMag = Math.sqrt(s.gx*s.gx + s.gy*s.gy + s.gz*s.gz);
+    summary.count++;
+    summary.sum += accelMag;
+    summary.min = Math.min(summary.min, accelMag);
+    summary.max = Math.max(summary.max, accelMag);
+    summary.gyroMax = Math.max(summary.gyroMax, gyroMag);
+    if (accelMag > cfg.triggerAccelMag || gyroMag > cfg.triggerGyroMag) trigger(t - cfg.preMs);
+  }, Math.max(1, Math.round(1000 / cfg.sampleHz)));
+
+  const heartbeatTimer = setInterval(() => {
+    if (!streaming) { clearInterval(heartbeatTimer); return; }
+    const now = Date.now();
+    const hb = {
+      deviceId: DEVICE_ID,
+      fromTs: summary.fromTs,
+      toTs: now,
+      count: summary.count,
+      accelMean: summary.count ? summary.sum / summary.count : 0,
+      accelMin: summary.count ? summary.min : 0,
+      accelMax: summary.max,
+      gyroMax: summary.gyroMax,
+      lat: currentLat(),
+      lng: currentLng()
+    };
+    const windowFrom = summary.fromTs - cfg.preMs;
+    resetSummary(now);
+    fetch(`${API_BASE}/events/heartbeat`, {
+      method: 'POST',
+      headers: { 'Content-Type': 'application/json' },
+      body: JSON.stringify(hb)
+    })
+    .then(async r => {
+      if (netStatus) netStatus.textContent = `POST /events/heartbeat -> ${r.status} • sent ${sent} of ${sampled} samples`;
+      if (!r.ok) return;
+      const data = await r.json().catch(()=>null);
+      // The server saw motion our trigger missed (e.g. thresholds changed): send what we hold.
+      if (data && data.upload) trigger(windowFrom);
+    })
+    .catch(e => { console.warn('heartbeat error', e); if (netStatus) netStatus.textContent = `POST /events/heartbeat failed: ${e}`; });
+  }, cfg.heartbeatMs);
+}
+
 function showConfirm(alertId, expiryAt) {
   // Avoid duplicating modal if already pending and same id
   if (pending && pending.id === alertId) return;
@@ -228,33 +380,85 @@ function confirmDecision(ok) {
   // Done
 }
 
+let alertsCache = [];
+let eventsCache = [];
+let liveStream = null; // EventSource when the server push feed is connected
+let pollTimer = null;
+
+function renderAlerts() {
+  alertsEl.innerHTML = '';
+  alertsCache.forEach(a => {
+    const li = document.createElement('li');
+    li.innerHTML = `<div><strong class="bad">ALERT</strong> • ${new Date(a.timestamp).toLocaleTimeString()} • ${a.reason}</div>
+    <div class="small">Lat ${a.lat?.toFixed?.(5) ?? '-'}, Lng ${a.lng?.toFixed?.(5) ?? '-'}</div>`;
+    alertsEl.appendChild(li);
+  });
+}
+
+function renderEvents() {
+  eventsEl.innerHTML = '';
+  eventsCache.forEach(e => {
+    const mag = Math.sqrt(e.ax*e.ax + e.ay*e.ay + e.az*e.az).toFixed(2);
+    const li = document.createElement('li');
+    li.innerHTML = `<div>${new Date(e.timestamp).toLocaleTimeString()} • Accel|G: ${mag} | ${e.gx.toFixed(1)},${e.gy.toFixed(1)},${e.gz.toFixed(1)}</div>`;
+    eventsEl.appendChild(li);
+  });
+}
+
 async function refreshUI() {
   try {
     const alertsResp = await fetch(`${API_BASE}/alerts`);
-    const alerts = await alertsResp.json();
+    alertsCache = await alertsResp.json();
     const eventsResp = await fetch(`${API_BASE}/events/recent`);
-    const events = await eventsResp.json();
+    eventsCache = await eventsResp.json();
     if (netStatus) netStatus.textContent = `GET alerts:${alertsResp.status} events:${eventsResp.status} • API ${API_BASE}`;
-
-    alertsEl.innerHTML = '';
-    alerts.forEach(a => {
-      const li = document.createElement('li');
-      li.innerHTML = `<div><strong class="bad">ALERT</strong> • ${new Date(a.timestamp).toLocaleTimeString()} • ${a.reason}</div>
-      <div class="small">Lat ${a.lat?.toFixed?.(5) ?? '-'}, Lng ${a.lng?.toFixed?.(5) ?? '-'}</div>`;
-      alertsEl.appendChild(li);
-    });
-
-    eventsEl.innerHTML = '';
-    events.forEach(e => {
-      const mag = Math.sqrt(e.ax*e.ax + e.ay*e.ay + e.az*e.az).toFixed(2);
-      const li = document.createElement('li');
-      li.innerHTML = `<div>${new Date(e.timestamp).toLocaleTimeString()} • Accel|G: ${mag} | ${e.gx.toFixed(1)},${e.gy.toFixed(1)},${e.gz.toFixed(1)}</div>`;
-      eventsEl.appendChild(li);
-    });
+    renderAlerts();
+    renderEvents();
   } catch (e) {
     if (netStatus) netStatus.textContent = `GET failed: ${e} • API ${API_BASE}`;
   }
 }
 
-setInterval(refreshUI, 1500);
+// Polling is only the fallback: it runs while the push stream is down.
+function startPolling() {
+  if (pollTimer) return;
+  pollTimer = setInterval(refreshUI, 1500);
+}
+
+function stopPolling() {
+  if (pollTimer) clearInterval(pollTimer);
+  pollTimer = null;
+}
+
+function connectStream() {
+  if (liveStream) liveStream.close();
+  if (typeof EventSource === 'undefined') { startPolling(); return; }
+  // The browser reconnects on its own and sends Last-Event-ID, so missed alert changes are replayed.
+  liveStream = new EventSource(`${API_BASE}/stream?events=true`);
+  liveStream.onopen = () => {
+    stopPolling();
+    refreshUI(); // one snapshot, then apply deltas
+  };
+  liveStream.onerror = () => {
+    startPolling();
+    if (liveStream.readyState === EventSource.CLOSED) setTimeout(connectStream, 5000);
+  };
+  liveStream.addEventListener('alert', m => {
+    const a = JSON.parse(m.data);
+    const i = alertsCache.findIndex(x => x.id === a.id);
+    if (i >= 0) alertsCache[i] = a; else alertsCache.unshift(a);
+    alertsCache = alertsCache.slice(0, 30);
+    renderAlerts();
+  });
+  liveStream.addEventListener('event', m => {
+    eventsCache.unshift(JSON.parse(m.data));
+    eventsCache = eventsCache.slice(0, 30);
+    renderEvents();
+  });
+  // Fell too far behind for a replay: reload the lists.
+  liveStream.addEventListener('reset', () => refreshUI());
+}
+
+startPolling();
 refreshUI();
+connectStream();
@@ -1,3 +1,4 @@
+import argparse
 import json
 import math
 import os
@@ -5,7 +6,9 @@ from pathlib import Path
 
 import pandas as pd
 import numpy as np
+from sklearn.ensemble import GradientBoostingClassifier
 from sklearn.linear_model import LogisticRegression
+from sklearn.neural_network import MLPClassifier
 from sklearn.model_selection import train_test_split
 from sklearn.metrics import classification_report
 
@@ -14,6 +17,11 @@ ROOT = Path(__file__).resolve().parents[1]
 DATA = ROOT / 'data' / 'sample_sensor.csv'
 OUT = ROOT / 'backend' / 'src' / 'main' / 'resources' / 'model' / 'fall_model.bin'
 
+parser = argparse.ArgumentParser(description='Train the fall model and export it for MLService')
+parser.add_argument('--model', choices=['logistic', 'mlp', 'gbt'], default='logistic')
+parser.add_argument('--out', type=Path, default=OUT)
+args = parser.parse_args()
+
 # Load data (if missing, synthesize)
 if DATA.exists():
     df = pd.read_csv(DATA)
@@ -67,25 +75,66 @@ X_train, X_test, y_train, y_test = train_test_split(
     X, y, test_size=0.25, random_state=42, stratify=y if do_stratify else None
 )
 
-clf = LogisticRegression(max_iter=500)
-clf.fit(X_train, y_train)
+FEATURES = ['accel_mag', 'gyro_mag']
+
+
+def export_logistic():
+    clf = LogisticRegression(max_iter=500).fit(X_train, y_train)
+    return clf, {
+        'type': 'logistic_regression',
+        'features': FEATURES,
+        'weights': clf.coef_[0].tolist(),  # [w_accel_mag, w_gyro_mag]
+        'bias': float(clf.intercept_[0]),
+    }
+
+
+def export_mlp():
+    # The Java side folds this scaling into the first layer, so the model takes raw features.
+    mean = X_train.mean(axis=0)
+    std = X_train.std(axis=0)
+    std[std == 0] = 1.0
+    clf = MLPClassifier(hidden_layer_sizes=(16, 8), activation='relu', max_iter=2000, random_state=0)
+    clf.fit((X_train - mean) / std, y_train)
+    layers = [{'weights': W.T.tolist(), 'bias': b.tolist()} for W, b in zip(clf.coefs_, clf.intercepts_)]
+    model = {
+        'type': 'mlp',
+        'features': FEATURES,
+        'scale': {'mean': mean.tolist(), 'std': std.tolist()},
+        'layers': layers,
+    }
+    return lambda Z: clf.predict((Z - mean) / std), model
+
+
+def export_gbt():
+    clf = GradientBoostingClassifier(n_estimators=50, max_depth=3, learning_rate=0.1, random_state=0)
+    clf.fit(X_train, y_train)
+    trees = []
+    for est in clf.estimators_[:, 0]:
+        t = est.tree_
+        leaf = t.children_left < 0
+        trees.append({
+            'feature': np.where(leaf, -1, t.feature).tolist(),
+            'threshold': t.threshold.tolist(),
+            'left': t.children_left.tolist(),
+            'right': t.children_right.tolist(),
+            # leaf values pre-multiplied by the learning rate
+            'value': (t.value[:, 0, 0] * clf.learning_rate).tolist(),
+        })
+    # the default initial estimator predicts the log-odds of the training positive rate
+    p = float(y_train.mean())
+    base = math.log(p / (1 - p))
+    return clf, {'type': 'gbt', 'features': FEATURES, 'base_score': base, 'trees': trees}
+
+
+clf, model = {'logistic': export_logistic, 'mlp': export_mlp, 'gbt': export_gbt}[args.model]()
+model['threshold'] = 0.6
 
-y_pred = clf.predict(X_test)
+predict = clf if callable(clf) else clf.predict
+y_pred = predict(X_test)
 print(classification_report(y_test, y_pred))
 
-# Export weights to a simple JSON model
-w = clf.coef_[0].tolist()  # [w_accel_mag, w_gyro_mag]
-b = float(clf.intercept_[0])
-model = {
-    'type': 'logistic_regression',
-    'features': ['accel_mag', 'gyro_mag'],
-    'weights': w,
-    'bias': b,
-    'threshold': 0.6
-}
-
-OUT.parent.mkdir(parents=True, exist_ok=True)
-with open(OUT, 'w', encoding='utf-8') as f:
+args.out.parent.mkdir(parents=True, exist_ok=True)
+with open(args.out, 'w', encoding='utf-8') as f:
     json.dump(model, f)
 
-print(f"Saved model to {OUT}")
+print(f"Saved {model['type']} model to {args.out}")